@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.chartdemo.demo;
+
+import org.achartengine.model.SingleWriterXYSeries;
+import org.achartengine.model.TimeSeries;
+import org.achartengine.model.XYSeries;
+import org.achartengine.model.XYSeriesSnapshot;
+
+/**
+ * Measures the append throughput of a producer thread while a reader thread
+ * continuously renders the last points of the series, for the synchronized
+ * series, the snapshot of the time series and the single writer series. The
+ * reader repeats what XYChart.draw does with each series: it takes the
+ * snapshot of the visible points, looks up their index range and projects them
+ * to screen coordinates, without the canvas calls.
+ * Runs as a plain Java program:
+ * 
+ * <pre>
+ * java -cp achartengine.jar:demo-classes org.achartengine.chartdemo.demo.SeriesContentionBenchmark [points]
+ * </pre>
+ */
+public class SeriesContentionBenchmark {
+  /** The default number of points. */
+  private static final int POINTS = 2000000;
+  /** The number of points visible in the rendered window. */
+  private static final int WINDOW = 2000;
+
+  public static void main(String[] args) throws InterruptedException {
+    int points = args.length > 0 ? Integer.parseInt(args[0]) : POINTS;
+    System.out.println(points + " points, " + WINDOW + " points rendered per frame");
+    for (int round = 0; round < 2; round++) {
+      // the first round warms the code up
+      run("XYSeries", new XYSeries("baseline"), points);
+      run("snapshot", new TimeSeries("snapshot"), points);
+      run("1 writer", new SingleWriterXYSeries("single writer"), points);
+      run("1 writer+", new SingleWriterXYSeries("single writer", 0, points), points);
+    }
+  }
+
+  /**
+   * Appends points to a series while a reader thread renders it, then prints
+   * the producer throughput and the number of rendered frames.
+   * 
+   * @param name the series name
+   * @param series the empty series
+   * @param points the number of points to append
+   * @throws InterruptedException if the thread is interrupted
+   */
+  private static void run(String name, final XYSeries series, int points)
+      throws InterruptedException {
+    final boolean[] done = new boolean[1];
+    final long[] frames = new long[1];
+    final double[] checksum = new double[1];
+    Thread renderer = new Thread() {
+      @Override
+      public void run() {
+        float[] projected = new float[WINDOW * 4];
+        XYSeries drawn = null;
+        while (true) {
+          synchronized (done) {
+            if (done[0]) {
+              return;
+            }
+          }
+          double maxX = series.getMaxX();
+          XYSeries data = series.getSnapshot(maxX - WINDOW, maxX, true,
+              drawn instanceof XYSeriesSnapshot ? (XYSeriesSnapshot) drawn : null);
+          drawn = data;
+          int[] range = data.getIndexRange(maxX - WINDOW, maxX, true);
+          int length = 0;
+          for (int i = range[0]; i < range[1] && length < projected.length; i++) {
+            projected[length++] = (float) data.getX(i);
+            projected[length++] = (float) data.getY(i);
+          }
+          if (length > 0) {
+            checksum[0] += projected[length - 1];
+          }
+          frames[0]++;
+        }
+      }
+    };
+    renderer.start();
+    long start = System.nanoTime();
+    for (int i = 0; i < points; i++) {
+      series.add(i, i & 1023);
+    }
+    long time = System.nanoTime() - start;
+    synchronized (done) {
+      done[0] = true;
+    }
+    renderer.join();
+    System.out.println(String.format("%-9s add %6.1f ns/pt  %5.1f M pts/s  %6d frames  (%.0f)",
+        name, (double) time / points, points * 1000.0 / time, frames[0], checksum[0]));
+  }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.chartdemo.demo;
+
+import java.util.Random;
+
+import org.achartengine.model.CompactXYSeries;
+import org.achartengine.model.CompressedTimeSeries;
+import org.achartengine.model.ValueEncoding;
+import org.achartengine.model.XYSeries;
+
+/**
+ * Compares the memory use and the append and read throughput of the compact
+ * series encodings and of the compressed blocks against the double storage,
+ * using 12 bits sensor values.
+ * Runs as a plain Java program:
+ * 
+ * <pre>
+ * java -cp achartengine.jar:demo-classes org.achartengine.chartdemo.demo.SeriesEncodingBenchmark [points]
+ * </pre>
+ */
+public class SeriesEncodingBenchmark {
+  /** The default number of points. */
+  private static final int POINTS = 1000000;
+  /** The number of read passes over the series. */
+  private static final int PASSES = 20;
+
+  public static void main(String[] args) {
+    int points = args.length > 0 ? Integer.parseInt(args[0]) : POINTS;
+    double[] values = new double[points];
+    Random random = new Random(42);
+    for (int i = 0; i < points; i++) {
+      // 12 bits of real precision over a 0 - 5 V range
+      values[i] = Math.round(random.nextDouble() * 4095) * 5.0 / 4095;
+    }
+    System.out.println(points + " points, " + PASSES + " read passes");
+    run("XYSeries", new XYSeries("baseline"), values);
+    run("double", new CompactXYSeries("double", ValueEncoding.DOUBLE), values);
+    run("float", new CompactXYSeries("float", ValueEncoding.FLOAT), values);
+    run("int", new CompactXYSeries("int", ValueEncoding.scaledInt(0, 5.0 / 4095)), values);
+    run("short", new CompactXYSeries("short", 0, ValueEncoding.scaledInt(0, 1),
+        ValueEncoding.scaledShort(0, 5.0 / 4095)), values);
+    run("blocks", new CompressedTimeSeries("blocks"), values);
+  }
+
+  /**
+   * Fills a series, reads it back and prints the measures.
+   * 
+   * @param name the storage name
+   * @param series the empty series
+   * @param values the Y values
+   */
+  private static void run(String name, XYSeries series, double[] values) {
+    int points = values.length;
+    long memory = usedMemory();
+    long start = System.nanoTime();
+    for (int i = 0; i < points; i++) {
+      series.add(i, values[i]);
+    }
+    long addTime = System.nanoTime() - start;
+    long size = usedMemory() - memory;
+
+    double sum = 0;
+    double maxError = 0;
+    start = System.nanoTime();
+    for (int pass = 0; pass < PASSES; pass++) {
+      synchronized (series) {
+        int[] range = series.getIndexRange(0, points, true);
+        for (int index = range[0]; index < range[1]; index++) {
+          sum += series.getX(index) + series.getY(index);
+        }
+      }
+    }
+    long readTime = System.nanoTime() - start;
+    for (int i = 0; i < points; i++) {
+      maxError = Math.max(maxError, Math.abs(series.getY(i) - values[i]));
+    }
+    System.out.println(String.format("%-9s %8d KB  add %6.1f ns/pt  read %6.1f ns/pt  "
+        + "max error %.3g  (%.0f)", name, size / 1024, (double) addTime / points,
+        (double) readTime / points / PASSES, maxError, sum));
+  }
+
+  /**
+   * Returns the used heap memory, after a garbage collection.
+   * 
+   * @return the used memory in bytes
+   */
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
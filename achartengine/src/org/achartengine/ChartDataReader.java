@@ -0,0 +1,396 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine;
+
+import java.io.DataInput;
+import java.io.File;
+import java.io.IOException;
+
+import org.achartengine.model.CategorySeries;
+import org.achartengine.model.CompactXYSeries;
+import org.achartengine.model.DirectXYSeries;
+import org.achartengine.model.MappedXYSeries;
+import org.achartengine.model.MultiValueXYSeries;
+import org.achartengine.model.MultipleCategorySeries;
+import org.achartengine.model.RangeCategorySeries;
+import org.achartengine.model.TimeSeries;
+import org.achartengine.model.UniformXYSeries;
+import org.achartengine.model.ValueEncoding;
+import org.achartengine.model.XYColumnDataset;
+import org.achartengine.model.XYMultipleSeriesDataset;
+import org.achartengine.model.XYSeries;
+import org.achartengine.model.XYValueSeries;
+import org.achartengine.renderer.DefaultRenderer;
+import org.achartengine.renderer.DialRenderer;
+import org.achartengine.renderer.SimpleSeriesRenderer;
+import org.achartengine.renderer.XYMultipleSeriesRenderer;
+import org.achartengine.renderer.XYSeriesRenderer;
+import org.achartengine.util.DataCodec;
+
+/**
+ * Reads the datasets, series and renderers written by a
+ * {@link ChartDataWriter}, in the same order they were written. The input
+ * should be buffered.
+ */
+public class ChartDataReader {
+  /** The input. */
+  private final DataInput mIn;
+  /** The version of the binary form being read. */
+  private final int mVersion;
+  /** The X values block. */
+  private final double[] mXValues = new double[ChartDataWriter.BLOCK_SIZE];
+  /** The Y values block. */
+  private final double[] mYValues = new double[ChartDataWriter.BLOCK_SIZE];
+  /** The extra values block. */
+  private final double[] mValues = new double[ChartDataWriter.BLOCK_SIZE];
+  /** The encoded deltas block. */
+  private final byte[] mDeltas = new byte[ChartDataWriter.BLOCK_SIZE * 10];
+
+  /**
+   * Builds a new reader and reads the binary form header.
+   * 
+   * @param in the input to read from
+   * @throws IOException if the input cannot be read or is not in the binary
+   *           form
+   */
+  public ChartDataReader(DataInput in) throws IOException {
+    mIn = in;
+    if (in.readInt() != ChartDataWriter.MAGIC) {
+      throw new IOException("Not a chart data stream");
+    }
+    mVersion = in.readUnsignedByte();
+    if (mVersion < 1 || mVersion > ChartDataWriter.VERSION) {
+      throw new IOException("Unsupported chart data version: " + mVersion);
+    }
+  }
+
+  /**
+   * Returns the version of the binary form being read.
+   * 
+   * @return the binary form version
+   */
+  public int getVersion() {
+    return mVersion;
+  }
+
+  /**
+   * Reads a multiple series dataset and its series.
+   * 
+   * @return the dataset
+   * @throws IOException if the input cannot be read
+   */
+  public XYMultipleSeriesDataset readDataset() throws IOException {
+    int type = mIn.readUnsignedByte();
+    if (type == ChartDataWriter.COLUMN_DATASET) {
+      return readColumnDataset();
+    }
+    checkType(type, ChartDataWriter.DATASET);
+    XYMultipleSeriesDataset dataset = new XYMultipleSeriesDataset();
+    int count = mIn.readInt();
+    for (int i = 0; i < count; i++) {
+      dataset.addSeries(readSeries());
+    }
+    return dataset;
+  }
+
+  /**
+   * Reads a column dataset.
+   * 
+   * @return the dataset
+   * @throws IOException if the input cannot be read
+   */
+  private XYColumnDataset readColumnDataset() throws IOException {
+    int columns = mIn.readInt();
+    String[] titles = new String[columns];
+    int[] scaleNumbers = new int[columns];
+    for (int c = 0; c < columns; c++) {
+      titles[c] = DataCodec.readString(mIn);
+      scaleNumbers[c] = mIn.readInt();
+    }
+    XYColumnDataset dataset = new XYColumnDataset(titles, scaleNumbers);
+    int rows = mIn.readInt();
+    boolean delta = mIn.readBoolean();
+    double[][] values = new double[columns][ChartDataWriter.BLOCK_SIZE];
+    double[] row = new double[columns];
+    long previous = 0;
+    for (int start = 0; start < rows; start += ChartDataWriter.BLOCK_SIZE) {
+      int length = Math.min(ChartDataWriter.BLOCK_SIZE, rows - start);
+      previous = readX(delta, length, previous);
+      for (int c = 0; c < columns; c++) {
+        DataCodec.readDoubles(mIn, values[c], 0, length);
+      }
+      for (int i = 0; i < length; i++) {
+        for (int c = 0; c < columns; c++) {
+          row[c] = values[c][i];
+        }
+        dataset.addRow(mXValues[i], row);
+      }
+    }
+    return dataset;
+  }
+
+  /**
+   * Reads a series, as an instance of the class it was written from.
+   * 
+   * @return the series
+   * @throws IOException if the input cannot be read
+   */
+  public XYSeries readSeries() throws IOException {
+    int type = mIn.readUnsignedByte();
+    String title = DataCodec.readString(mIn);
+    int scaleNumber = mIn.readInt();
+    XYSeries series;
+    switch (type) {
+    case ChartDataWriter.MAPPED_XY_SERIES:
+      series = new MappedXYSeries(title, scaleNumber, new File(mIn.readUTF()));
+      break;
+    case ChartDataWriter.UNIFORM_XY_SERIES:
+      UniformXYSeries uniform = new UniformXYSeries(title, scaleNumber, mIn.readDouble(),
+          mIn.readDouble());
+      int count = mIn.readInt();
+      for (int start = 0; start < count; start += ChartDataWriter.BLOCK_SIZE) {
+        int length = Math.min(ChartDataWriter.BLOCK_SIZE, count - start);
+        DataCodec.readDoubles(mIn, mYValues, 0, length);
+        for (int i = 0; i < length; i++) {
+          uniform.add(mYValues[i]);
+        }
+      }
+      series = uniform;
+      break;
+    case ChartDataWriter.XY_SERIES:
+    case ChartDataWriter.TIME_SERIES:
+    case ChartDataWriter.XY_VALUE_SERIES:
+    case ChartDataWriter.COMPACT_XY_SERIES:
+    case ChartDataWriter.DIRECT_XY_SERIES:
+    case ChartDataWriter.MULTI_VALUE_XY_SERIES:
+      series = readPoints(type, title, scaleNumber);
+      break;
+    default:
+      throw new IOException("Unknown series type: " + type);
+    }
+    int annotations = mIn.readInt();
+    for (int i = 0; i < annotations; i++) {
+      String annotation = DataCodec.readString(mIn);
+      double x = mIn.readDouble();
+      series.addAnnotation(annotation, x, mIn.readDouble());
+    }
+    return series;
+  }
+
+  /**
+   * Reads a series which points are written by blocks of X and Y values.
+   * 
+   * @param type the series type
+   * @param title the series title
+   * @param scaleNumber the series scale number
+   * @return the series
+   * @throws IOException if the input cannot be read
+   */
+  private XYSeries readPoints(int type, String title, int scaleNumber) throws IOException {
+    XYSeries series;
+    if (type == ChartDataWriter.TIME_SERIES) {
+      series = new TimeSeries(title);
+    } else if (type == ChartDataWriter.XY_VALUE_SERIES) {
+      series = new XYValueSeries(title);
+    } else if (type == ChartDataWriter.COMPACT_XY_SERIES) {
+      ValueEncoding xEncoding = ValueEncoding.read(mIn);
+      series = new CompactXYSeries(title, scaleNumber, xEncoding, ValueEncoding.read(mIn));
+    } else if (type == ChartDataWriter.DIRECT_XY_SERIES) {
+      series = new DirectXYSeries(title, scaleNumber);
+    } else if (type == ChartDataWriter.MULTI_VALUE_XY_SERIES) {
+      series = new MultiValueXYSeries(title, scaleNumber);
+    } else {
+      series = new XYSeries(title, scaleNumber);
+    }
+    int count = mIn.readInt();
+    boolean delta = mIn.readBoolean();
+    long previous = 0;
+    for (int start = 0; start < count; start += ChartDataWriter.BLOCK_SIZE) {
+      int length = Math.min(ChartDataWriter.BLOCK_SIZE, count - start);
+      previous = readX(delta, length, previous);
+      DataCodec.readDoubles(mIn, mYValues, 0, length);
+      if (type == ChartDataWriter.TIME_SERIES) {
+        TimeSeries time = (TimeSeries) series;
+        for (int i = 0; i < length; i++) {
+          time.add((long) mXValues[i], mYValues[i]);
+        }
+      } else if (type == ChartDataWriter.XY_VALUE_SERIES) {
+        XYValueSeries values = (XYValueSeries) series;
+        DataCodec.readDoubles(mIn, mValues, 0, length);
+        for (int i = 0; i < length; i++) {
+          values.add(mXValues[i], mYValues[i], mValues[i]);
+        }
+      } else if (type == ChartDataWriter.DIRECT_XY_SERIES) {
+        ((DirectXYSeries) series).addAll(mXValues, mYValues, 0, length);
+      } else {
+        for (int i = 0; i < length; i++) {
+          series.add(mXValues[i], mYValues[i]);
+        }
+      }
+    }
+    return series;
+  }
+
+  /**
+   * Reads a block of X values in the X values block.
+   * 
+   * @param delta if the values are written as deltas
+   * @param length the number of values
+   * @param previous the last value of the previous block, for the deltas
+   * @return the last value of this block
+   * @throws IOException if the input cannot be read
+   */
+  private long readX(boolean delta, int length, long previous) throws IOException {
+    if (!delta) {
+      DataCodec.readDoubles(mIn, mXValues, 0, length);
+      return previous;
+    }
+    int size = mIn.readInt();
+    if (size < 0 || size > mDeltas.length) {
+      throw new IOException("Invalid deltas block size: " + size);
+    }
+    mIn.readFully(mDeltas, 0, size);
+    int position = 0;
+    for (int i = 0; i < length; i++) {
+      long bits = 0;
+      int shift = 0;
+      int b;
+      do {
+        if (position == size || shift > 63) {
+          throw new IOException("Malformed deltas block");
+        }
+        b = mDeltas[position++];
+        bits |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      previous += (bits >>> 1) ^ -(bits & 1);
+      mXValues[i] = previous;
+    }
+    return previous;
+  }
+
+  /**
+   * Reads a category series, or a range category series.
+   * 
+   * @return the series
+   * @throws IOException if the input cannot be read
+   */
+  public CategorySeries readCategorySeries() throws IOException {
+    int type = mIn.readUnsignedByte();
+    boolean range = type == ChartDataWriter.RANGE_CATEGORY_SERIES;
+    if (!range) {
+      checkType(type, ChartDataWriter.CATEGORY_SERIES);
+    }
+    String title = DataCodec.readString(mIn);
+    CategorySeries series = range ? new RangeCategorySeries(title) : new CategorySeries(title);
+    int count = mIn.readInt();
+    String[] categories = new String[count];
+    for (int i = 0; i < count; i++) {
+      categories[i] = DataCodec.readString(mIn);
+    }
+    for (int start = 0; start < count; start += ChartDataWriter.BLOCK_SIZE) {
+      int length = Math.min(ChartDataWriter.BLOCK_SIZE, count - start);
+      DataCodec.readDoubles(mIn, mValues, 0, length);
+      if (range) {
+        DataCodec.readDoubles(mIn, mYValues, 0, length);
+        for (int i = 0; i < length; i++) {
+          ((RangeCategorySeries) series).add(categories[start + i], mValues[i], mYValues[i]);
+        }
+      } else {
+        for (int i = 0; i < length; i++) {
+          series.add(categories[start + i], mValues[i]);
+        }
+      }
+    }
+    return series;
+  }
+
+  /**
+   * Reads a multiple category series.
+   * 
+   * @return the series
+   * @throws IOException if the input cannot be read
+   */
+  public MultipleCategorySeries readMultipleCategorySeries() throws IOException {
+    checkType(mIn.readUnsignedByte(), ChartDataWriter.MULTIPLE_CATEGORY_SERIES);
+    MultipleCategorySeries series = new MultipleCategorySeries(DataCodec.readString(mIn));
+    int count = mIn.readInt();
+    for (int i = 0; i < count; i++) {
+      String category = DataCodec.readString(mIn);
+      String[] titles = DataCodec.readStringArray(mIn);
+      series.add(category, titles, DataCodec.readDoubleArray(mIn));
+    }
+    return series;
+  }
+
+  /**
+   * Reads a renderer and its series renderers.
+   * 
+   * @return the renderer
+   * @throws IOException if the input cannot be read
+   */
+  public DefaultRenderer readRenderer() throws IOException {
+    int type = mIn.readUnsignedByte();
+    DefaultRenderer renderer;
+    switch (type) {
+    case ChartDataWriter.XY_MULTIPLE_SERIES_RENDERER:
+      renderer = new XYMultipleSeriesRenderer();
+      break;
+    case ChartDataWriter.DIAL_RENDERER:
+      renderer = new DialRenderer();
+      break;
+    case ChartDataWriter.DEFAULT_RENDERER:
+      renderer = new DefaultRenderer();
+      break;
+    default:
+      throw new IOException("Unknown renderer type: " + type);
+    }
+    renderer.read(mIn);
+    return renderer;
+  }
+
+  /**
+   * Reads a series renderer.
+   * 
+   * @return the series renderer
+   * @throws IOException if the input cannot be read
+   */
+  public SimpleSeriesRenderer readSeriesRenderer() throws IOException {
+    int type = mIn.readUnsignedByte();
+    SimpleSeriesRenderer renderer;
+    if (type == ChartDataWriter.XY_SERIES_RENDERER) {
+      renderer = new XYSeriesRenderer();
+    } else {
+      checkType(type, ChartDataWriter.SIMPLE_SERIES_RENDERER);
+      renderer = new SimpleSeriesRenderer();
+    }
+    renderer.read(mIn);
+    return renderer;
+  }
+
+  /**
+   * Checks the type read is the expected one.
+   * 
+   * @param type the type read
+   * @param expected the expected type
+   * @throws IOException if the type is not the expected one
+   */
+  private static void checkType(int type, int expected) throws IOException {
+    if (type != expected) {
+      throw new IOException("Unexpected chart data type " + type + ", expected " + expected);
+    }
+  }
+}
@@ -0,0 +1,431 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.achartengine.model.CategorySeries;
+import org.achartengine.model.CompactXYSeries;
+import org.achartengine.model.DirectXYSeries;
+import org.achartengine.model.MappedXYSeries;
+import org.achartengine.model.MultiValueXYSeries;
+import org.achartengine.model.MultipleCategorySeries;
+import org.achartengine.model.RangeCategorySeries;
+import org.achartengine.model.TimeSeries;
+import org.achartengine.model.UniformXYSeries;
+import org.achartengine.model.XYColumnDataset;
+import org.achartengine.model.XYMultipleSeriesDataset;
+import org.achartengine.model.XYSeries;
+import org.achartengine.model.XYValueSeries;
+import org.achartengine.renderer.DefaultRenderer;
+import org.achartengine.renderer.DialRenderer;
+import org.achartengine.renderer.SimpleSeriesRenderer;
+import org.achartengine.renderer.XYMultipleSeriesRenderer;
+import org.achartengine.renderer.XYSeriesRenderer;
+import org.achartengine.util.DataCodec;
+
+/**
+ * Writes datasets, series and renderers in a compact and versioned binary
+ * form, much smaller and faster than the Java serialization. The values are
+ * written by blocks of primitive arrays and the sorted X values, when they are
+ * integers like timestamps, are written as variable length deltas. The output
+ * should be buffered. The objects are read back by a {@link ChartDataReader}.
+ */
+public class ChartDataWriter {
+  /** The magic number of the binary form ("ACDT"). */
+  public static final int MAGIC = 0x41434454;
+  /** The binary form version. */
+  public static final int VERSION = 1;
+  /** The number of points in a block. */
+  static final int BLOCK_SIZE = 1024;
+  /** The XY series type. */
+  static final int XY_SERIES = 1;
+  /** The time series type. */
+  static final int TIME_SERIES = 2;
+  /** The XY value series type. */
+  static final int XY_VALUE_SERIES = 3;
+  /** The uniform XY series type. */
+  static final int UNIFORM_XY_SERIES = 4;
+  /** The compact XY series type. */
+  static final int COMPACT_XY_SERIES = 5;
+  /** The direct XY series type. */
+  static final int DIRECT_XY_SERIES = 6;
+  /** The mapped XY series type. */
+  static final int MAPPED_XY_SERIES = 7;
+  /** The multiple value XY series type. */
+  static final int MULTI_VALUE_XY_SERIES = 8;
+  /** The multiple series dataset type. */
+  static final int DATASET = 16;
+  /** The column dataset type. */
+  static final int COLUMN_DATASET = 17;
+  /** The category series type. */
+  static final int CATEGORY_SERIES = 32;
+  /** The range category series type. */
+  static final int RANGE_CATEGORY_SERIES = 33;
+  /** The multiple category series type. */
+  static final int MULTIPLE_CATEGORY_SERIES = 34;
+  /** The default renderer type. */
+  static final int DEFAULT_RENDERER = 48;
+  /** The dial renderer type. */
+  static final int DIAL_RENDERER = 49;
+  /** The XY multiple series renderer type. */
+  static final int XY_MULTIPLE_SERIES_RENDERER = 50;
+  /** The simple series renderer type. */
+  static final int SIMPLE_SERIES_RENDERER = 51;
+  /** The XY series renderer type. */
+  static final int XY_SERIES_RENDERER = 52;
+  /** The largest absolute value a double holds as an exact integer. */
+  private static final double MAX_EXACT_INTEGER = 9007199254740992.0;
+  /** The output. */
+  private final DataOutput mOut;
+  /** If the integer X values are written as deltas. */
+  private boolean mDeltaEncoding = true;
+  /** The values block. */
+  private final double[] mValues = new double[BLOCK_SIZE];
+  /** The encoded deltas block. */
+  private final byte[] mDeltas = new byte[BLOCK_SIZE * 10];
+
+  /**
+   * Builds a new writer and writes the binary form header.
+   * 
+   * @param out the output to write to
+   * @throws IOException if the output cannot be written
+   */
+  public ChartDataWriter(DataOutput out) throws IOException {
+    mOut = out;
+    out.writeInt(MAGIC);
+    out.writeByte(VERSION);
+  }
+
+  /**
+   * Returns if the integer X values are written as deltas.
+   * 
+   * @return if the delta encoding is enabled
+   */
+  public boolean isDeltaEncoding() {
+    return mDeltaEncoding;
+  }
+
+  /**
+   * Sets if the sorted X values are written as variable length deltas when
+   * they are all integers, like timestamps. Enabled by default.
+   * 
+   * @param enabled if the delta encoding is enabled
+   */
+  public void setDeltaEncoding(boolean enabled) {
+    mDeltaEncoding = enabled;
+  }
+
+  /**
+   * Writes a multiple series dataset and its series.
+   * 
+   * @param dataset the dataset
+   * @throws IOException if the output cannot be written
+   */
+  public void writeDataset(XYMultipleSeriesDataset dataset) throws IOException {
+    synchronized (dataset) {
+      if (dataset instanceof XYColumnDataset) {
+        writeColumnDataset((XYColumnDataset) dataset);
+        return;
+      }
+      mOut.writeByte(DATASET);
+      int count = dataset.getSeriesCount();
+      mOut.writeInt(count);
+      for (int i = 0; i < count; i++) {
+        writeSeries(dataset.getSeriesAt(i));
+      }
+    }
+  }
+
+  /**
+   * Writes a column dataset, its rows and the column titles and scales.
+   * 
+   * @param dataset the dataset
+   * @throws IOException if the output cannot be written
+   */
+  private void writeColumnDataset(XYColumnDataset dataset) throws IOException {
+    mOut.writeByte(COLUMN_DATASET);
+    int columns = dataset.getColumnCount();
+    mOut.writeInt(columns);
+    for (int c = 0; c < columns; c++) {
+      XYSeries column = dataset.getColumn(c);
+      DataCodec.writeString(mOut, column.getTitle());
+      mOut.writeInt(column.getScaleNumber());
+    }
+    int rows = dataset.getRowCount();
+    mOut.writeInt(rows);
+    boolean delta = mDeltaEncoding;
+    for (int i = 0; i < rows && delta; i++) {
+      delta = isIntegral(dataset.getX(i));
+    }
+    mOut.writeBoolean(delta);
+    long previous = 0;
+    for (int start = 0; start < rows; start += BLOCK_SIZE) {
+      int length = Math.min(BLOCK_SIZE, rows - start);
+      for (int i = 0; i < length; i++) {
+        mValues[i] = dataset.getX(start + i);
+      }
+      previous = writeX(delta, length, previous);
+      for (int c = 0; c < columns; c++) {
+        for (int i = 0; i < length; i++) {
+          mValues[i] = dataset.getY(start + i, c);
+        }
+        DataCodec.writeDoubles(mOut, mValues, 0, length);
+      }
+    }
+  }
+
+  /**
+   * Writes a series. The series of an unknown subclass are written as XY
+   * series.
+   * 
+   * @param series the series
+   * @throws IOException if the output cannot be written
+   */
+  public void writeSeries(XYSeries series) throws IOException {
+    synchronized (series) {
+      int count = series.getItemCount();
+      if (series instanceof MappedXYSeries) {
+        mOut.writeByte(MAPPED_XY_SERIES);
+        writeSeriesHeader(series);
+        mOut.writeUTF(((MappedXYSeries) series).getFile().getPath());
+      } else if (series instanceof UniformXYSeries) {
+        UniformXYSeries uniform = (UniformXYSeries) series;
+        mOut.writeByte(UNIFORM_XY_SERIES);
+        writeSeriesHeader(series);
+        mOut.writeDouble(uniform.getX0());
+        mOut.writeDouble(uniform.getDx());
+        mOut.writeInt(count);
+        for (int start = 0; start < count; start += BLOCK_SIZE) {
+          int length = Math.min(BLOCK_SIZE, count - start);
+          writeY(series, start, length);
+        }
+      } else {
+        if (series instanceof TimeSeries) {
+          mOut.writeByte(TIME_SERIES);
+        } else if (series instanceof XYValueSeries) {
+          mOut.writeByte(XY_VALUE_SERIES);
+        } else if (series instanceof CompactXYSeries) {
+          mOut.writeByte(COMPACT_XY_SERIES);
+        } else if (series instanceof DirectXYSeries) {
+          mOut.writeByte(DIRECT_XY_SERIES);
+        } else if (series instanceof MultiValueXYSeries) {
+          mOut.writeByte(MULTI_VALUE_XY_SERIES);
+        } else {
+          mOut.writeByte(XY_SERIES);
+        }
+        writeSeriesHeader(series);
+        if (series instanceof CompactXYSeries) {
+          ((CompactXYSeries) series).getXEncoding().write(mOut);
+          ((CompactXYSeries) series).getYEncoding().write(mOut);
+        }
+        mOut.writeInt(count);
+        boolean delta = mDeltaEncoding && isIntegral(series, count);
+        mOut.writeBoolean(delta);
+        long previous = 0;
+        for (int start = 0; start < count; start += BLOCK_SIZE) {
+          int length = Math.min(BLOCK_SIZE, count - start);
+          for (int i = 0; i < length; i++) {
+            mValues[i] = series.getX(start + i);
+          }
+          previous = writeX(delta, length, previous);
+          writeY(series, start, length);
+          if (series instanceof XYValueSeries) {
+            XYValueSeries values = (XYValueSeries) series;
+            for (int i = 0; i < length; i++) {
+              mValues[i] = values.getValue(start + i);
+            }
+            DataCodec.writeDoubles(mOut, mValues, 0, length);
+          }
+        }
+      }
+      int annotations = series.getAnnotationCount();
+      mOut.writeInt(annotations);
+      for (int i = 0; i < annotations; i++) {
+        DataCodec.writeString(mOut, series.getAnnotationAt(i));
+        mOut.writeDouble(series.getAnnotationX(i));
+        mOut.writeDouble(series.getAnnotationY(i));
+      }
+    }
+  }
+
+  /**
+   * Writes the title and scale number of a series.
+   * 
+   * @param series the series
+   * @throws IOException if the output cannot be written
+   */
+  private void writeSeriesHeader(XYSeries series) throws IOException {
+    DataCodec.writeString(mOut, series.getTitle());
+    mOut.writeInt(series.getScaleNumber());
+  }
+
+  /**
+   * Writes a block of Y values of a series.
+   * 
+   * @param series the series
+   * @param start the index of the first point
+   * @param length the number of points
+   * @throws IOException if the output cannot be written
+   */
+  private void writeY(XYSeries series, int start, int length) throws IOException {
+    for (int i = 0; i < length; i++) {
+      mValues[i] = series.getY(start + i);
+    }
+    DataCodec.writeDoubles(mOut, mValues, 0, length);
+  }
+
+  /**
+   * Writes the block of X values currently in the values block.
+   * 
+   * @param delta if the values are written as deltas
+   * @param length the number of values
+   * @param previous the last value of the previous block, for the deltas
+   * @return the last value of this block
+   * @throws IOException if the output cannot be written
+   */
+  private long writeX(boolean delta, int length, long previous) throws IOException {
+    if (!delta) {
+      DataCodec.writeDoubles(mOut, mValues, 0, length);
+      return previous;
+    }
+    int size = 0;
+    for (int i = 0; i < length; i++) {
+      long value = (long) mValues[i];
+      long difference = value - previous;
+      long bits = (difference << 1) ^ (difference >> 63);
+      while ((bits & ~0x7FL) != 0) {
+        mDeltas[size++] = (byte) ((bits & 0x7F) | 0x80);
+        bits >>>= 7;
+      }
+      mDeltas[size++] = (byte) bits;
+      previous = value;
+    }
+    mOut.writeInt(size);
+    mOut.write(mDeltas, 0, size);
+    return previous;
+  }
+
+  /**
+   * Returns if all the X values of a series are integers a double holds
+   * exactly, such as they can be written as deltas.
+   * 
+   * @param series the series
+   * @param count the number of points
+   * @return if the X values are integers
+   */
+  private static boolean isIntegral(XYSeries series, int count) {
+    for (int i = 0; i < count; i++) {
+      if (!isIntegral(series.getX(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns if a value is an integer a double holds exactly.
+   * 
+   * @param value the value
+   * @return if the value is an integer
+   */
+  private static boolean isIntegral(double value) {
+    return value == Math.rint(value) && Math.abs(value) <= MAX_EXACT_INTEGER;
+  }
+
+  /**
+   * Writes a category series, or a range category series.
+   * 
+   * @param series the series
+   * @throws IOException if the output cannot be written
+   */
+  public void writeCategorySeries(CategorySeries series) throws IOException {
+    synchronized (series) {
+      boolean range = series instanceof RangeCategorySeries;
+      mOut.writeByte(range ? RANGE_CATEGORY_SERIES : CATEGORY_SERIES);
+      DataCodec.writeString(mOut, series.getTitle());
+      int count = series.getItemCount();
+      mOut.writeInt(count);
+      for (int i = 0; i < count; i++) {
+        DataCodec.writeString(mOut, series.getCategory(i));
+      }
+      for (int start = 0; start < count; start += BLOCK_SIZE) {
+        int length = Math.min(BLOCK_SIZE, count - start);
+        for (int i = 0; i < length; i++) {
+          mValues[i] = range ? ((RangeCategorySeries) series).getMinimumValue(start + i) : series
+              .getValue(start + i);
+        }
+        DataCodec.writeDoubles(mOut, mValues, 0, length);
+        if (range) {
+          for (int i = 0; i < length; i++) {
+            mValues[i] = ((RangeCategorySeries) series).getMaximumValue(start + i);
+          }
+          DataCodec.writeDoubles(mOut, mValues, 0, length);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes a multiple category series.
+   * 
+   * @param series the series
+   * @throws IOException if the output cannot be written
+   */
+  public void writeMultipleCategorySeries(MultipleCategorySeries series) throws IOException {
+    synchronized (series) {
+      mOut.writeByte(MULTIPLE_CATEGORY_SERIES);
+      DataCodec.writeString(mOut, series.getTitle());
+      int count = series.getCategoriesCount();
+      mOut.writeInt(count);
+      for (int i = 0; i < count; i++) {
+        DataCodec.writeString(mOut, series.getCategory(i));
+        DataCodec.writeStringArray(mOut, series.getTitles(i));
+        DataCodec.writeDoubleArray(mOut, series.getValues(i));
+      }
+    }
+  }
+
+  /**
+   * Writes a renderer and its series renderers.
+   * 
+   * @param renderer the renderer
+   * @throws IOException if the output cannot be written
+   */
+  public void writeRenderer(DefaultRenderer renderer) throws IOException {
+    if (renderer instanceof XYMultipleSeriesRenderer) {
+      mOut.writeByte(XY_MULTIPLE_SERIES_RENDERER);
+    } else if (renderer instanceof DialRenderer) {
+      mOut.writeByte(DIAL_RENDERER);
+    } else {
+      mOut.writeByte(DEFAULT_RENDERER);
+    }
+    renderer.write(mOut);
+  }
+
+  /**
+   * Writes a series renderer.
+   * 
+   * @param renderer the series renderer
+   * @throws IOException if the output cannot be written
+   */
+  public void writeSeriesRenderer(SimpleSeriesRenderer renderer) throws IOException {
+    mOut.writeByte(renderer instanceof XYSeriesRenderer ? XY_SERIES_RENDERER
+        : SIMPLE_SERIES_RENDERER);
+    renderer.write(mOut);
+  }
+}
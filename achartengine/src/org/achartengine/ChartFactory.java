@@ -42,9 +42,16 @@ import android.content.Intent;
  * Utility methods for creating chart views or intents.
  */
 public class ChartFactory {
-  /** The key for the chart data. */
+  /**
+   * The key for the chart data, as a {@link ChartParcel} or a serialized chart,
+   * when the chart is handed over from another process or restored from the
+   * graphical activity state.
+   */
   public static final String CHART = "chart";
 
+  /** The key for the {@link ChartRegistry} handle of the chart. */
+  public static final String CHART_HANDLE = "chart_handle";
+
   /** The key for the chart graphical activity title. */
   public static final String TITLE = "title";
 
@@ -392,7 +399,7 @@ public class ChartFactory {
     checkParameters(dataset, renderer);
     Intent intent = new Intent(context, GraphicalActivity.class);
     XYChart chart = new LineChart(dataset, renderer);
-    intent.putExtra(CHART, chart);
+    intent.putExtra(CHART_HANDLE, ChartRegistry.register(chart));
     intent.putExtra(TITLE, activityTitle);
     return intent;
   }
@@ -419,7 +426,7 @@ public class ChartFactory {
     checkParameters(dataset, renderer);
     Intent intent = new Intent(context, GraphicalActivity.class);
     XYChart chart = new CubicLineChart(dataset, renderer, smoothness);
-    intent.putExtra(CHART, chart);
+    intent.putExtra(CHART_HANDLE, ChartRegistry.register(chart));
     intent.putExtra(TITLE, activityTitle);
     return intent;
   }
@@ -442,7 +449,7 @@ public class ChartFactory {
     checkParameters(dataset, renderer);
     Intent intent = new Intent(context, GraphicalActivity.class);
     XYChart chart = new ScatterChart(dataset, renderer);
-    intent.putExtra(CHART, chart);
+    intent.putExtra(CHART_HANDLE, ChartRegistry.register(chart));
     intent.putExtra(TITLE, activityTitle);
     return intent;
   }
@@ -465,7 +472,7 @@ public class ChartFactory {
     checkParameters(dataset, renderer);
     Intent intent = new Intent(context, GraphicalActivity.class);
     XYChart chart = new BubbleChart(dataset, renderer);
-    intent.putExtra(CHART, chart);
+    intent.putExtra(CHART_HANDLE, ChartRegistry.register(chart));
     intent.putExtra(TITLE, activityTitle);
     return intent;
   }
@@ -491,7 +498,7 @@ public class ChartFactory {
     Intent intent = new Intent(context, GraphicalActivity.class);
     TimeChart chart = new TimeChart(dataset, renderer);
     chart.setDateFormat(format);
-    intent.putExtra(CHART, chart);
+    intent.putExtra(CHART_HANDLE, ChartRegistry.register(chart));
     intent.putExtra(TITLE, activityTitle);
     return intent;
   }
@@ -515,7 +522,7 @@ public class ChartFactory {
     checkParameters(dataset, renderer);
     Intent intent = new Intent(context, GraphicalActivity.class);
     BarChart chart = new BarChart(dataset, renderer, type);
-    intent.putExtra(CHART, chart);
+    intent.putExtra(CHART_HANDLE, ChartRegistry.register(chart));
     intent.putExtra(TITLE, activityTitle);
     return intent;
   }
@@ -540,7 +547,7 @@ public class ChartFactory {
     checkParameters(dataset, renderer);
     Intent intent = new Intent(context, GraphicalActivity.class);
     RangeBarChart chart = new RangeBarChart(dataset, renderer, type);
-    intent.putExtra(CHART, chart);
+    intent.putExtra(CHART_HANDLE, ChartRegistry.register(chart));
     intent.putExtra(TITLE, activityTitle);
     return intent;
   }
@@ -570,7 +577,7 @@ public class ChartFactory {
     checkParameters(dataset, renderer);
     Intent intent = new Intent(context, GraphicalActivity.class);
     CombinedXYChart chart = new CombinedXYChart(dataset, renderer, types);
-    intent.putExtra(CHART, chart);
+    intent.putExtra(CHART_HANDLE, ChartRegistry.register(chart));
     intent.putExtra(TITLE, activityTitle);
     return intent;
   }
@@ -593,7 +600,7 @@ public class ChartFactory {
     checkParameters(dataset, renderer);
     Intent intent = new Intent(context, GraphicalActivity.class);
     PieChart chart = new PieChart(dataset, renderer);
-    intent.putExtra(CHART, chart);
+    intent.putExtra(CHART_HANDLE, ChartRegistry.register(chart));
     intent.putExtra(TITLE, activityTitle);
     return intent;
   }
@@ -616,7 +623,7 @@ public class ChartFactory {
     checkParameters(dataset, renderer);
     Intent intent = new Intent(context, GraphicalActivity.class);
     DoughnutChart chart = new DoughnutChart(dataset, renderer);
-    intent.putExtra(CHART, chart);
+    intent.putExtra(CHART_HANDLE, ChartRegistry.register(chart));
     intent.putExtra(TITLE, activityTitle);
     return intent;
   }
@@ -639,7 +646,7 @@ public class ChartFactory {
     checkParameters(dataset, renderer);
     Intent intent = new Intent(context, GraphicalActivity.class);
     DialChart chart = new DialChart(dataset, renderer);
-    intent.putExtra(CHART, chart);
+    intent.putExtra(CHART_HANDLE, ChartRegistry.register(chart));
     intent.putExtra(TITLE, activityTitle);
     return intent;
   }
@@ -0,0 +1,288 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.achartengine.chart.AbstractChart;
+import org.achartengine.chart.BarChart;
+import org.achartengine.chart.BubbleChart;
+import org.achartengine.chart.CombinedXYChart;
+import org.achartengine.chart.CubicLineChart;
+import org.achartengine.chart.DialChart;
+import org.achartengine.chart.DoughnutChart;
+import org.achartengine.chart.LineChart;
+import org.achartengine.chart.PieChart;
+import org.achartengine.chart.RangeBarChart;
+import org.achartengine.chart.RoundChart;
+import org.achartengine.chart.ScatterChart;
+import org.achartengine.chart.TimeChart;
+import org.achartengine.chart.XYChart;
+import org.achartengine.model.CategorySeries;
+import org.achartengine.model.MultipleCategorySeries;
+import org.achartengine.model.XYMultipleSeriesDataset;
+import org.achartengine.renderer.DefaultRenderer;
+import org.achartengine.renderer.DialRenderer;
+import org.achartengine.renderer.XYMultipleSeriesRenderer;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+/**
+ * A parcelable wrapper of a chart, for handing a chart to another process or
+ * saving it in the graphical activity state. The charts built by
+ * {@link ChartFactory} are written as their type parameters and a single byte
+ * array holding the dataset and the renderer in the binary form of
+ * {@link ChartDataWriter}, such as the point values are copied in bulk instead
+ * of being serialized one object at a time. The other charts fall back to Java
+ * serialization.<br/>
+ * Within the same process, the charts should rather be passed by their
+ * {@link ChartRegistry} handle.
+ */
+public class ChartParcel implements Parcelable {
+  /** The kind of the charts written with Java serialization. */
+  private static final int SERIALIZED = 0;
+  /** The line chart kind. */
+  private static final int LINE = 1;
+  /** The cubic line chart kind. */
+  private static final int CUBIC_LINE = 2;
+  /** The scatter chart kind. */
+  private static final int SCATTER = 3;
+  /** The bubble chart kind. */
+  private static final int BUBBLE = 4;
+  /** The time chart kind. */
+  private static final int TIME = 5;
+  /** The bar chart kind. */
+  private static final int BAR = 6;
+  /** The range bar chart kind. */
+  private static final int RANGE_BAR = 7;
+  /** The combined XY chart kind. */
+  private static final int COMBINED = 8;
+  /** The pie chart kind. */
+  private static final int PIE = 9;
+  /** The doughnut chart kind. */
+  private static final int DOUGHNUT = 10;
+  /** The dial chart kind. */
+  private static final int DIAL = 11;
+  /** The wrapped chart. */
+  private final AbstractChart mChart;
+
+  /** The creator of the chart parcels. */
+  public static final Parcelable.Creator<ChartParcel> CREATOR = new Parcelable.Creator<ChartParcel>() {
+    public ChartParcel createFromParcel(Parcel source) {
+      return new ChartParcel(source);
+    }
+
+    public ChartParcel[] newArray(int size) {
+      return new ChartParcel[size];
+    }
+  };
+
+  /**
+   * Builds a new chart parcel.
+   * 
+   * @param chart the chart to be wrapped
+   */
+  public ChartParcel(AbstractChart chart) {
+    mChart = chart;
+  }
+
+  /**
+   * Builds a chart parcel from the content of a parcel.
+   * 
+   * @param source the parcel to read from
+   */
+  private ChartParcel(Parcel source) {
+    int kind = source.readInt();
+    if (kind == SERIALIZED) {
+      mChart = (AbstractChart) source.readSerializable();
+      return;
+    }
+    float smoothness = 0;
+    String dateFormat = null;
+    BarChart.Type type = null;
+    String[] types = null;
+    switch (kind) {
+    case CUBIC_LINE:
+      smoothness = source.readFloat();
+      break;
+    case TIME:
+      dateFormat = source.readString();
+      break;
+    case BAR:
+    case RANGE_BAR:
+      type = BarChart.Type.valueOf(source.readString());
+      break;
+    case COMBINED:
+      types = source.createStringArray();
+      break;
+    }
+    byte[] data = source.createByteArray();
+    try {
+      ChartDataReader reader = new ChartDataReader(new DataInputStream(new ByteArrayInputStream(
+          data)));
+      if (kind >= PIE) {
+        CategorySeries dataset = null;
+        MultipleCategorySeries multipleDataset = null;
+        if (kind == DOUGHNUT) {
+          multipleDataset = reader.readMultipleCategorySeries();
+        } else {
+          dataset = reader.readCategorySeries();
+        }
+        DefaultRenderer renderer = reader.readRenderer();
+        switch (kind) {
+        case DOUGHNUT:
+          mChart = new DoughnutChart(multipleDataset, renderer);
+          break;
+        case DIAL:
+          mChart = new DialChart(dataset, (DialRenderer) renderer);
+          break;
+        default:
+          mChart = new PieChart(dataset, renderer);
+          break;
+        }
+      } else {
+        XYMultipleSeriesDataset dataset = reader.readDataset();
+        XYMultipleSeriesRenderer renderer = (XYMultipleSeriesRenderer) reader.readRenderer();
+        switch (kind) {
+        case CUBIC_LINE:
+          mChart = new CubicLineChart(dataset, renderer, smoothness);
+          break;
+        case SCATTER:
+          mChart = new ScatterChart(dataset, renderer);
+          break;
+        case BUBBLE:
+          mChart = new BubbleChart(dataset, renderer);
+          break;
+        case TIME:
+          TimeChart chart = new TimeChart(dataset, renderer);
+          chart.setDateFormat(dateFormat);
+          mChart = chart;
+          break;
+        case BAR:
+          mChart = new BarChart(dataset, renderer, type);
+          break;
+        case RANGE_BAR:
+          mChart = new RangeBarChart(dataset, renderer, type);
+          break;
+        case COMBINED:
+          mChart = new CombinedXYChart(dataset, renderer, types);
+          break;
+        default:
+          mChart = new LineChart(dataset, renderer);
+          break;
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Invalid chart parcel", e);
+    }
+  }
+
+  /**
+   * Returns the wrapped chart.
+   * 
+   * @return the chart
+   */
+  public AbstractChart getChart() {
+    return mChart;
+  }
+
+  /**
+   * Returns the kind of the wrapped chart.
+   * 
+   * @return the chart kind
+   */
+  private int getKind() {
+    Class<?> type = mChart.getClass();
+    if (type == LineChart.class) {
+      return LINE;
+    } else if (type == CubicLineChart.class) {
+      return CUBIC_LINE;
+    } else if (type == ScatterChart.class) {
+      return SCATTER;
+    } else if (type == BubbleChart.class) {
+      return BUBBLE;
+    } else if (type == TimeChart.class) {
+      return TIME;
+    } else if (type == BarChart.class) {
+      return BAR;
+    } else if (type == RangeBarChart.class) {
+      return RANGE_BAR;
+    } else if (type == CombinedXYChart.class) {
+      return COMBINED;
+    } else if (type == PieChart.class) {
+      return PIE;
+    } else if (type == DoughnutChart.class) {
+      return DOUGHNUT;
+    } else if (type == DialChart.class) {
+      return DIAL;
+    }
+    return SERIALIZED;
+  }
+
+  public int describeContents() {
+    return 0;
+  }
+
+  public void writeToParcel(Parcel dest, int flags) {
+    int kind = getKind();
+    dest.writeInt(kind);
+    if (kind == SERIALIZED) {
+      dest.writeSerializable(mChart);
+      return;
+    }
+    switch (kind) {
+    case CUBIC_LINE:
+      dest.writeFloat(((CubicLineChart) mChart).getSmoothness());
+      break;
+    case TIME:
+      dest.writeString(((TimeChart) mChart).getDateFormat());
+      break;
+    case BAR:
+    case RANGE_BAR:
+      dest.writeString(((BarChart) mChart).getType().name());
+      break;
+    case COMBINED:
+      dest.writeStringArray(((CombinedXYChart) mChart).getChartTypes());
+      break;
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      ChartDataWriter writer = new ChartDataWriter(new DataOutputStream(bytes));
+      if (kind >= PIE) {
+        RoundChart chart = (RoundChart) mChart;
+        if (kind == DOUGHNUT) {
+          writer.writeMultipleCategorySeries(((DoughnutChart) chart).getMultipleDataset());
+        } else {
+          writer.writeCategorySeries(chart.getDataset());
+        }
+        writer.writeRenderer(chart.getRenderer());
+      } else {
+        XYChart chart = (XYChart) mChart;
+        writer.writeDataset(chart.getDataset());
+        writer.writeRenderer(chart.getRenderer());
+      }
+    } catch (IOException e) {
+      // a byte array output stream doesn't throw
+      throw new IllegalStateException(e);
+    }
+    dest.writeByteArray(bytes.toByteArray());
+  }
+}
@@ -0,0 +1,191 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.achartengine.chart.AbstractChart;
+
+import android.os.SystemClock;
+
+/**
+ * An in process registry of the charts handed to the graphical activity. The
+ * chart intents only carry a handle to the registered chart, such as starting
+ * the activity doesn't marshal the datasets, whatever their size.<br/>
+ * A chart is strongly held while it has references, the graphical activity
+ * taking one while it exists. A chart without references, such as a chart
+ * whose intent was not started yet or whose activity finished, stays strongly
+ * held for {@link #HOLD_TIME}, then is only weakly held: it can still be found
+ * while it is displayed or used elsewhere, and an intent which is never
+ * started doesn't keep its chart. The expired charts are released by the next
+ * registry call. The handles of a process start at a random value, such as a
+ * handle left in an intent by a previous process doesn't resolve to another
+ * chart.
+ */
+public class ChartRegistry {
+  /** The value used for the absence of handle. */
+  public static final long NO_HANDLE = 0;
+  /**
+   * The time in milliseconds a chart without references stays strongly held,
+   * such as its intent can be started, or started again, within that time.
+   */
+  public static final long HOLD_TIME = 60000;
+  /** The registered charts, by handle. */
+  private static final Map<Long, Entry> ENTRIES = new HashMap<Long, Entry>();
+  /** The queue of the weak references cleared by the garbage collector. */
+  private static final ReferenceQueue<AbstractChart> QUEUE = new ReferenceQueue<AbstractChart>();
+  /** The next handle. */
+  private static long sNextHandle = new Random().nextLong();
+
+  private ChartRegistry() {
+    // empty
+  }
+
+  /**
+   * Registers a chart, without references. The chart is strongly held for
+   * {@link #HOLD_TIME}, unless a reference is taken in the meantime.
+   * 
+   * @param chart the chart
+   * @return the chart handle
+   */
+  public static synchronized long register(AbstractChart chart) {
+    purge();
+    long handle = sNextHandle++;
+    if (handle == NO_HANDLE) {
+      handle = sNextHandle++;
+    }
+    ENTRIES.put(handle, new Entry(handle, chart, SystemClock.uptimeMillis() + HOLD_TIME));
+    return handle;
+  }
+
+  /**
+   * Returns a registered chart, without taking a reference.
+   * 
+   * @param handle the chart handle
+   * @return the chart or null if it is not registered any more
+   */
+  public static synchronized AbstractChart get(long handle) {
+    purge();
+    Entry entry = ENTRIES.get(handle);
+    if (entry == null) {
+      return null;
+    }
+    return entry.get();
+  }
+
+  /**
+   * Takes a reference to a registered chart, which is strongly held until the
+   * reference is released.
+   * 
+   * @param handle the chart handle
+   * @return the chart or null if it is not registered any more
+   */
+  public static synchronized AbstractChart acquire(long handle) {
+    purge();
+    Entry entry = ENTRIES.get(handle);
+    if (entry == null) {
+      return null;
+    }
+    AbstractChart chart = entry.get();
+    if (chart != null) {
+      entry.mChart = chart;
+      entry.mReferences++;
+    }
+    return chart;
+  }
+
+  /**
+   * Releases a reference to a registered chart. Once it has no references
+   * left, the chart stays strongly held for {@link #HOLD_TIME}, then is only
+   * weakly held.
+   * 
+   * @param handle the chart handle
+   */
+  public static synchronized void release(long handle) {
+    Entry entry = ENTRIES.get(handle);
+    if (entry != null && entry.mReferences > 0) {
+      entry.mReferences--;
+      if (entry.mReferences == 0) {
+        entry.mExpiry = SystemClock.uptimeMillis() + HOLD_TIME;
+      }
+    }
+    purge();
+  }
+
+  /**
+   * Returns the number of registered charts, including the weakly held ones
+   * which have not been collected yet.
+   * 
+   * @return the number of registered charts
+   */
+  public static synchronized int size() {
+    purge();
+    return ENTRIES.size();
+  }
+
+  /**
+   * Only weakly holds the charts without references whose hold time expired,
+   * and removes the entries of the charts collected by the garbage collector.
+   */
+  private static void purge() {
+    long now = SystemClock.uptimeMillis();
+    for (Entry entry : ENTRIES.values()) {
+      if (entry.mChart != null && entry.mReferences == 0 && now >= entry.mExpiry) {
+        entry.mChart = null;
+      }
+    }
+    Reference<? extends AbstractChart> reference;
+    while ((reference = QUEUE.poll()) != null) {
+      Entry entry = (Entry) reference;
+      if (ENTRIES.get(entry.mHandle) == entry) {
+        ENTRIES.remove(entry.mHandle);
+      }
+    }
+  }
+
+  /**
+   * A registered chart.
+   */
+  private static class Entry extends WeakReference<AbstractChart> {
+    /** The chart handle. */
+    private final long mHandle;
+    /** The chart, while it is strongly held. */
+    private AbstractChart mChart;
+    /** The number of references. */
+    private int mReferences;
+    /** The time the chart stops being strongly held, without references. */
+    private long mExpiry;
+
+    /**
+     * Builds a new registry entry.
+     * 
+     * @param handle the chart handle
+     * @param chart the chart
+     * @param expiry the time the chart stops being strongly held
+     */
+    public Entry(long handle, AbstractChart chart, long expiry) {
+      super(chart, QUEUE);
+      mHandle = handle;
+      mChart = chart;
+      mExpiry = expiry;
+    }
+  }
+}
@@ -22,19 +22,39 @@ import android.os.Bundle;
 import android.view.Window;
 
 /**
- * An activity that encapsulates a graphical view of the chart.
+ * An activity that encapsulates a graphical view of the chart. The chart is
+ * taken from the {@link ChartRegistry} while the process which registered it
+ * is alive. Only the chart handle is saved in the instance state, as the saved
+ * state goes through the same transaction limit as the intents: once the
+ * process was killed, the activity can only be recreated from a chart passed
+ * in the intent as a {@link ChartParcel}.
  */
 public class GraphicalActivity extends Activity {
   /** The encapsulated graphical view. */
   private GraphicalView mView;
   /** The chart to be drawn. */
   private AbstractChart mChart;
+  /** The registry handle of the chart. */
+  private long mHandle = ChartRegistry.NO_HANDLE;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
     Bundle extras = getIntent().getExtras();
-    mChart = (AbstractChart) extras.getSerializable(ChartFactory.CHART);
+    if (savedInstanceState != null) {
+      acquire(savedInstanceState.getLong(ChartFactory.CHART_HANDLE, ChartRegistry.NO_HANDLE));
+    }
+    if (mChart == null) {
+      acquire(extras.getLong(ChartFactory.CHART_HANDLE, ChartRegistry.NO_HANDLE));
+    }
+    if (mChart == null) {
+      // the chart was registered by a process which is gone, or not at all
+      mChart = getChart(extras);
+    }
+    if (mChart == null) {
+      finish();
+      return;
+    }
     mView = new GraphicalView(this, mChart);
     String title = extras.getString(ChartFactory.TITLE);
     if (title == null) {
@@ -45,4 +65,59 @@ public class GraphicalActivity extends Activity {
     setContentView(mView);
   }
 
+  /**
+   * Takes a reference to a registered chart.
+   * 
+   * @param handle the chart handle
+   */
+  private void acquire(long handle) {
+    if (handle != ChartRegistry.NO_HANDLE) {
+      mChart = ChartRegistry.acquire(handle);
+      if (mChart != null) {
+        mHandle = handle;
+      }
+    }
+  }
+
+  /**
+   * Returns the chart stored in a bundle, as a {@link ChartParcel} or a
+   * serialized chart.
+   * 
+   * @param bundle the bundle
+   * @return the chart, or null if there is none
+   */
+  private static AbstractChart getChart(Bundle bundle) {
+    Object chart = bundle.get(ChartFactory.CHART);
+    if (chart instanceof ChartParcel) {
+      return ((ChartParcel) chart).getChart();
+    } else if (chart instanceof AbstractChart) {
+      return (AbstractChart) chart;
+    }
+    return null;
+  }
+
+  @Override
+  protected void onSaveInstanceState(Bundle outState) {
+    super.onSaveInstanceState(outState);
+    if (mChart != null) {
+      if (mHandle == ChartRegistry.NO_HANDLE) {
+        // a chart passed in the intent is registered for a recreated activity
+        mHandle = ChartRegistry.register(mChart);
+        ChartRegistry.acquire(mHandle);
+      }
+      outState.putLong(ChartFactory.CHART_HANDLE, mHandle);
+    }
+  }
+
+  @Override
+  protected void onDestroy() {
+    super.onDestroy();
+    // an activity recreated for a configuration change takes its reference
+    // again within the registry hold time
+    if (mHandle != ChartRegistry.NO_HANDLE) {
+      ChartRegistry.release(mHandle);
+      mHandle = ChartRegistry.NO_HANDLE;
+    }
+  }
+
 }
\ No newline at end of file
@@ -19,6 +19,7 @@ import org.achartengine.chart.AbstractChart;
 import org.achartengine.chart.RoundChart;
 import org.achartengine.chart.XYChart;
 import org.achartengine.model.Point;
+import org.achartengine.model.SeriesIngestionQueue;
 import org.achartengine.model.SeriesSelection;
 import org.achartengine.renderer.DefaultRenderer;
 import org.achartengine.renderer.XYMultipleSeriesRenderer;
@@ -80,6 +81,8 @@ public class GraphicalView extends View {
   private float oldY;
   /** If the graphical view is drawn. */
   private boolean mDrawn;
+  /** The queue of the points drained before each draw. */
+  private SeriesIngestionQueue mIngestionQueue;
 
   /**
    * Creates a new graphical view.
@@ -164,6 +167,36 @@ public class GraphicalView extends View {
     return mChart;
   }
 
+  /**
+   * Sets the queue of the points added to the chart series. The queue is
+   * drained on the UI thread just before each draw, and the first point offered
+   * after a drain schedules a repaint.
+   * 
+   * @param queue the ingestion queue, or null
+   */
+  public void setIngestionQueue(SeriesIngestionQueue queue) {
+    if (mIngestionQueue != null) {
+      mIngestionQueue.setDrainRequest(null);
+    }
+    mIngestionQueue = queue;
+    if (queue != null) {
+      queue.setDrainRequest(new Runnable() {
+        public void run() {
+          repaint();
+        }
+      });
+    }
+  }
+
+  /**
+   * Returns the queue of the points added to the chart series.
+   * 
+   * @return the ingestion queue, null if there is none
+   */
+  public SeriesIngestionQueue getIngestionQueue() {
+    return mIngestionQueue;
+  }
+
   @Override
   protected void onDraw(Canvas canvas) {
     super.onDraw(canvas);
@@ -178,6 +211,9 @@ public class GraphicalView extends View {
       width = getMeasuredWidth();
       height = getMeasuredHeight();
     }
+    if (mIngestionQueue != null) {
+      mIngestionQueue.drain();
+    }
     mChart.draw(canvas, left, top, width, height, mPaint);
     if (mRenderer != null && mRenderer.isZoomEnabled() && mRenderer.isZoomButtonsVisible()) {
       mPaint.setColor(ZOOM_BUTTONS_COLOR);
@@ -19,12 +19,15 @@ import java.io.Serializable;
 import java.text.NumberFormat;
 import java.util.List;
 
+import org.achartengine.chart.TextLayoutCache.TextLayout;
 import org.achartengine.model.Point;
 import org.achartengine.model.SeriesSelection;
 import org.achartengine.renderer.DefaultRenderer;
 import org.achartengine.renderer.SimpleSeriesRenderer;
 import org.achartengine.renderer.XYMultipleSeriesRenderer;
 import org.achartengine.renderer.XYMultipleSeriesRenderer.Orientation;
+import org.achartengine.util.DecimalLabelFormatter;
+import org.achartengine.util.LabelFormatter;
 import org.achartengine.util.MathHelper;
 
 import android.graphics.Canvas;
@@ -33,13 +36,19 @@ import android.graphics.Paint;
 import android.graphics.Paint.Align;
 import android.graphics.Paint.Style;
 import android.graphics.Path;
-import android.graphics.Rect;
 import android.graphics.RectF;
 
 /**
  * An abstract class to be implemented by the chart rendering classes.
  */
 public abstract class AbstractChart implements Serializable {
+  /** The reusable builder the numeric labels are formatted into. */
+  private transient StringBuilder mLabelText;
+  /** The reusable characters of the last formatted numeric label. */
+  private transient char[] mLabelChars;
+  /** The cache of the measured text layouts. */
+  private transient TextLayoutCache mTextLayouts;
+
   /**
    * The graphical representation of the chart.
    * 
@@ -114,13 +123,8 @@ public abstract class AbstractChart implements Serializable {
           } else {
             paint.setColor(Color.LTGRAY);
           }
-          float[] widths = new float[text.length()];
-          paint.getTextWidths(text, widths);
-          float sum = 0;
-          for (float value : widths) {
-            sum += value;
-          }
-          float extraSize = lineSize + 10 + sum;
+          TextLayout layout = getTextLayout(text, paint);
+          float extraSize = lineSize + 10 + layout.getWidth(paint);
           float currentWidth = currentX + extraSize;
 
           if (i > 0 && getExceed(currentWidth, renderer, right, width)) {
@@ -134,8 +138,7 @@ public abstract class AbstractChart implements Serializable {
             if (isVertical(renderer)) {
               maxWidth = width - currentX - lineSize - 10;
             }
-            int nr = paint.breakText(text, true, maxWidth, widths);
-            text = text.substring(0, nr) + "...";
+            text = layout.getBreakText(maxWidth, paint);
           }
           if (!calculate) {
             drawLegendShape(canvas, r, currentX, currentY, i, paint);
@@ -159,17 +162,30 @@ public abstract class AbstractChart implements Serializable {
    */
   protected void drawString(Canvas canvas, String text, float x, float y, Paint paint) {
     if (text != null) {
-      String[] lines = text.split("\n");
-      Rect rect = new Rect();
+      TextLayout layout = getTextLayout(text, paint);
+      String[] lines = layout.getLines();
       int yOff = 0;
       for (int i = 0; i < lines.length; ++i) {
         canvas.drawText(lines[i], x, y + yOff, paint);
-        paint.getTextBounds(lines[i], 0, lines[i].length(), rect);
-        yOff = yOff + rect.height() + 5; // space between lines is 5
+        yOff = yOff + layout.getLineHeight(i, paint) + 5; // space between lines is 5
       }
     }
   }
 
+  /**
+   * Returns the cached layout of a text, measured with the provided paint.
+   * 
+   * @param text the text
+   * @param paint the paint the text is measured and drawn with
+   * @return the text layout
+   */
+  TextLayout getTextLayout(String text, Paint paint) {
+    if (mTextLayouts == null) {
+      mTextLayouts = new TextLayoutCache();
+    }
+    return mTextLayouts.getLayout(text, paint);
+  }
+
   /**
    * Calculates if the current width exceeds the total width.
    * 
@@ -218,6 +234,77 @@ public abstract class AbstractChart implements Serializable {
     return text;
   }
 
+  /**
+   * Makes sure the fraction digit is not displayed, if not needed.
+   * 
+   * @param formatter the formatter for the label or null for the default
+   *          formatting
+   * @param label the input label value
+   * @return the label without the useless fraction digit
+   */
+  protected String getLabel(LabelFormatter formatter, double label) {
+    StringBuilder text = new StringBuilder();
+    appendLabel(formatter, label, text);
+    return text.toString();
+  }
+
+  /**
+   * Formats a label into reusable characters, available through
+   * {@link #getLabelChars()} until the next label is formatted. Unlike
+   * getLabel, no string is allocated for every label.
+   * 
+   * @param formatter the formatter for the label or null for the default
+   *          formatting
+   * @param label the input label value
+   * @return the number of characters of the formatted label
+   */
+  protected int formatLabel(LabelFormatter formatter, double label) {
+    if (mLabelText == null) {
+      mLabelText = new StringBuilder(32);
+    }
+    StringBuilder text = mLabelText;
+    text.setLength(0);
+    appendLabel(formatter, label, text);
+    int length = text.length();
+    if (mLabelChars == null || mLabelChars.length < length) {
+      mLabelChars = new char[Math.max(32, length)];
+    }
+    text.getChars(0, length, mLabelChars, 0);
+    return length;
+  }
+
+  /**
+   * Returns the characters of the last label formatted by formatLabel.
+   * 
+   * @return the label characters
+   */
+  protected char[] getLabelChars() {
+    return mLabelChars;
+  }
+
+  /**
+   * Appends a label to the provided builder. The default formatting displays
+   * the whole values without the useless fraction digit.
+   * 
+   * @param formatter the formatter for the label or null for the default
+   *          formatting
+   * @param label the input label value
+   * @param text the builder to append the label to
+   */
+  private static void appendLabel(LabelFormatter formatter, double label, StringBuilder text) {
+    long rounded = Math.round(label);
+    if (formatter != null) {
+      formatter.format(label, text);
+    } else if (label != rounded || rounded == Long.MIN_VALUE) {
+      text.append(label);
+    } else if (rounded < 0) {
+      text.append('-');
+      DecimalLabelFormatter.appendDigits(text, -rounded, 1);
+    } else {
+      DecimalLabelFormatter.appendDigits(text, rounded, 1);
+    }
+  }
+
   private static float[] calculateDrawPoints(float p1x, float p1y, float p2x, float p2y,
       int screenHeight, int screenWidth) {
     float drawP1x;
@@ -401,17 +488,7 @@ public abstract class AbstractChart implements Serializable {
    * @return the text to fit into the space
    */
   private String getFitText(String text, float width, Paint paint) {
-    String newText = text;
-    int length = text.length();
-    int diff = 0;
-    while (paint.measureText(newText) > width && diff < length) {
-      diff++;
-      newText = text.substring(0, length - diff) + "...";
-    }
-    if (diff == length) {
-      newText = "...";
-    }
-    return newText;
+    return getTextLayout(text, paint).getFitText(width, paint);
   }
 
   /**
@@ -481,7 +558,7 @@ public abstract class AbstractChart implements Serializable {
         width = xLabel - left;
       }
       labelText = getFitText(labelText, width, paint);
-      float widthLabel = paint.measureText(labelText);
+      float widthLabel = getTextLayout(labelText, paint).getWidth(paint);
       boolean okBounds = false;
       while (!okBounds && line) {
         boolean intersects = false;
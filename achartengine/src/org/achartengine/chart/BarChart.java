@@ -22,11 +22,11 @@ import org.achartengine.model.XYSeries;
 import org.achartengine.renderer.SimpleSeriesRenderer;
 import org.achartengine.renderer.XYMultipleSeriesRenderer;
 import org.achartengine.renderer.XYSeriesRenderer;
+import org.achartengine.util.LabelFormatter;
 
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Paint.Style;
 import android.graphics.RectF;
 import android.graphics.drawable.GradientDrawable;
 import android.graphics.drawable.GradientDrawable.Orientation;
@@ -106,15 +106,14 @@ public class BarChart extends XYChart {
       XYSeriesRenderer seriesRenderer, float yAxisValue, int seriesIndex, int startIndex) {
     int seriesNr = mDataset.getSeriesCount();
     int length = points.size();
-    paint.setColor(seriesRenderer.getColor());
-    paint.setStyle(Style.FILL);
+    Paint fillPaint = seriesRenderer.getFillPaint(paint);
+    fillPaint.setColor(seriesRenderer.getColor());
     float halfDiffX = getHalfDiffX(points, length, seriesNr);
     for (int i = 0; i < length; i += 2) {
       float x = points.get(i);
       float y = points.get(i + 1);
-      drawBar(canvas, x, yAxisValue, x, y, halfDiffX, seriesNr, seriesIndex, paint);
+      drawBar(canvas, x, yAxisValue, x, y, halfDiffX, seriesNr, seriesIndex, fillPaint);
     }
-    paint.setColor(seriesRenderer.getColor());
   }
 
   /**
@@ -239,19 +238,28 @@ public class BarChart extends XYChart {
     int seriesNr = mDataset.getSeriesCount();
     int length = points.size();
     float halfDiffX = getHalfDiffX(points, length, seriesNr);
-    for (int i = 0; i < length; i += 2) {
-      int index = startIndex + i / 2;
-      double value = series.getY(index);
+    LabelFormatter formatter = renderer.getChartValuesFormatter();
+    int count = Math.min(length / 2, series.getItemCount() - startIndex);
+    double[] values = null;
+    int chunkStart = 0;
+    int chunkEnd = 0;
+    for (int i = 0; i < count * 2; i += 2) {
+      if (i / 2 == chunkEnd) {
+        chunkStart = i / 2;
+        chunkEnd = Math.min(count, chunkStart + COPY_CHUNK_SIZE);
+        values = copyChartValues(series, startIndex + chunkStart, startIndex + chunkEnd);
+      }
+      double value = values[i / 2 - chunkStart];
       if (!isNullValue(value)) {
         float x = points.get(i);
         if (mType == Type.DEFAULT) {
           x += seriesIndex * 2 * halfDiffX - (seriesNr - 1.5f) * halfDiffX;
         }
         if (value >= 0) {
-          drawText(canvas, getLabel(renderer.getChartValuesFormat(), value), x, points.get(i + 1)
+          drawValue(canvas, formatter, value, x, points.get(i + 1)
               - renderer.getChartValuesSpacing(), paint, 0);
         } else {
-          drawText(canvas, getLabel(renderer.getChartValuesFormat(), value), x, points.get(i + 1)
+          drawValue(canvas, formatter, value, x, points.get(i + 1)
               + renderer.getChartValuesTextSize() + renderer.getChartValuesSpacing() - 3, paint, 0);
         }
       }
@@ -340,6 +348,15 @@ public class BarChart extends XYChart {
     return 0;
   }
 
+  /**
+   * Returns the bar chart type.
+   * 
+   * @return the bar chart type
+   */
+  public Type getType() {
+    return mType;
+  }
+
   /**
    * Returns the chart type identifier.
    * 
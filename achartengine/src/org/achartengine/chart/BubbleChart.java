@@ -18,9 +18,11 @@ package org.achartengine.chart;
 import java.util.List;
 
 import org.achartengine.model.XYMultipleSeriesDataset;
-import org.achartengine.model.XYValueSeries;
+import org.achartengine.model.XYSeries;
+import org.achartengine.model.XYSeriesSnapshot;
 import org.achartengine.renderer.SimpleSeriesRenderer;
 import org.achartengine.renderer.XYMultipleSeriesRenderer;
+import org.achartengine.renderer.XYMultipleSeriesRenderer.Orientation;
 import org.achartengine.renderer.XYSeriesRenderer;
 
 import android.graphics.Canvas;
@@ -40,6 +42,8 @@ public class BubbleChart extends XYChart {
   private static final int MIN_BUBBLE_SIZE = 2;
   /** The maximum bubble size. */
   private static final int MAX_BUBBLE_SIZE = 20;
+  /** The snapshot of the value series being drawn. */
+  private XYSeriesSnapshot mSeries;
 
   BubbleChart() {
   }
@@ -54,6 +58,29 @@ public class BubbleChart extends XYChart {
     super(dataset, renderer);
   }
 
+  /**
+   * Draws the series, keeping its snapshot for reading the values of the
+   * points.
+   * 
+   * @param series the series snapshot
+   * @param canvas the canvas
+   * @param paint the paint object
+   * @param pointsList the points to be rendered
+   * @param seriesRenderer the series renderer
+   * @param yAxisValue the y axis value in pixels
+   * @param seriesIndex the series index
+   * @param or the orientation
+   * @param startIndex the start index of the rendering points
+   */
+  @Override
+  protected void drawSeries(XYSeries series, Canvas canvas, Paint paint, List<Float> pointsList,
+      XYSeriesRenderer seriesRenderer, float yAxisValue, int seriesIndex, Orientation or,
+      int startIndex) {
+    mSeries = (XYSeriesSnapshot) series;
+    super.drawSeries(series, canvas, paint, pointsList, seriesRenderer, yAxisValue, seriesIndex,
+        or, startIndex);
+  }
+
   /**
    * The graphical representation of a series.
    * 
@@ -68,15 +95,15 @@ public class BubbleChart extends XYChart {
   @Override
   public void drawSeries(Canvas canvas, Paint paint, List<Float> points,
       XYSeriesRenderer renderer, float yAxisValue, int seriesIndex, int startIndex) {
-    paint.setColor(renderer.getColor());
-    paint.setStyle(Style.FILL);
+    Paint fillPaint = renderer.getFillPaint(paint);
+    fillPaint.setColor(renderer.getColor());
     int length = points.size();
-    XYValueSeries series = (XYValueSeries) mDataset.getSeriesAt(seriesIndex);
+    XYSeriesSnapshot series = mSeries;
     double max = series.getMaxValue();
     double coef = MAX_BUBBLE_SIZE / max;
     for (int i = 0; i < length; i += 2) {
       double size = series.getValue(startIndex + i / 2) * coef + MIN_BUBBLE_SIZE;
-      drawCircle(canvas, paint, points.get(i), points.get(i + 1), (float) size);
+      drawCircle(canvas, fillPaint, points.get(i), points.get(i + 1), (float) size);
     }
   }
 
@@ -84,7 +111,7 @@ public class BubbleChart extends XYChart {
   protected ClickableArea[] clickableAreasForPoints(List<Float> points, List<Double> values,
       float yAxisValue, int seriesIndex, int startIndex) {
     int length = points.size();
-    XYValueSeries series = (XYValueSeries) mDataset.getSeriesAt(seriesIndex);
+    XYSeriesSnapshot series = mSeries;
     double max = series.getMaxValue();
     double coef = MAX_BUBBLE_SIZE / max;
     ClickableArea[] ret = new ClickableArea[length / 2];
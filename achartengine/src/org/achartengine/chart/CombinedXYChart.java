@@ -167,6 +167,20 @@ public class CombinedXYChart extends XYChart {
     mCharts[seriesIndex].drawLegendShape(canvas, renderer, x, y, 0, paint);
   }
 
+  /**
+   * Returns the types of the combined charts, one per series.
+   * 
+   * @return the combined chart types
+   */
+  public String[] getChartTypes() {
+    int length = mCharts.length;
+    String[] types = new String[length];
+    for (int i = 0; i < length; i++) {
+      types[i] = mCharts[i].getChartType();
+    }
+    return types;
+  }
+
   /**
    * Returns the chart type identifier.
    * 
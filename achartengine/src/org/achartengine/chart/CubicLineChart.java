@@ -110,6 +110,15 @@ public class CubicLineChart extends LineChart {
     result.setY(p1y + (diffY * multiplier));
   }
 
+  /**
+   * Returns the smoothness of the curve.
+   * 
+   * @return the smoothness
+   */
+  public float getSmoothness() {
+    return firstMultiplier;
+  }
+
   /**
    * Returns the chart type identifier.
    * 
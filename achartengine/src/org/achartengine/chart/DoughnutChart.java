@@ -48,6 +48,15 @@ public class DoughnutChart extends RoundChart {
     mDataset = dataset;
   }
 
+  /**
+   * Returns the multiple category series dataset.
+   * 
+   * @return the series dataset
+   */
+  public MultipleCategorySeries getMultipleDataset() {
+    return mDataset;
+  }
+
   /**
    * The graphical representation of the doughnut chart.
    * 
@@ -0,0 +1,378 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.chart;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Paint.Align;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+
+/**
+ * An atlas of pre-rasterized labels. Every distinct label (text, color, size,
+ * angle, typeface and alignment) is drawn once into a shared bitmap and then
+ * copied from there, such as the text shaping and the glyphs rasterization are
+ * not done again on every frame. The bitmap is packed in horizontal shelves and
+ * the least recently used shelf is evicted when the atlas is full. The labels
+ * are drawn at whole pixel positions. The atlas is not thread safe, it is meant
+ * to be used by a chart while drawing.
+ */
+class LabelAtlas {
+  /** The default atlas width. */
+  static final int DEFAULT_WIDTH = 512;
+  /** The default atlas height. */
+  static final int DEFAULT_HEIGHT = 256;
+  /** The empty space around every label. */
+  private static final int PADDING = 1;
+  /** The shelves heights granularity. */
+  private static final int SHELF_STEP = 4;
+  /** The atlas width. */
+  private final int mWidth;
+  /** The atlas height. */
+  private final int mHeight;
+  /** The atlas bitmap. */
+  private Bitmap mBitmap;
+  /** The canvas drawing into the atlas bitmap. */
+  private Canvas mCanvas;
+  /** The rasterized labels. */
+  private final Map<Key, Entry> mEntries = new HashMap<Key, Entry>();
+  /** The atlas shelves. */
+  private final List<Shelf> mShelves = new ArrayList<Shelf>();
+  /** The bottom of the lowest shelf. */
+  private int mShelvesBottom;
+  /** The use counter. */
+  private long mClock;
+  /** The reusable key used for the lookups. */
+  private final Key mProbe = new Key();
+  /** The paint used for rasterizing the labels. */
+  private final Paint mRasterPaint = new Paint();
+  /** The reusable label bounds. */
+  private final Rect mBounds = new Rect();
+  /** The reusable destination rectangle. */
+  private final RectF mDestination = new RectF();
+
+  /**
+   * Builds a new label atlas with the default size.
+   */
+  LabelAtlas() {
+    this(DEFAULT_WIDTH, DEFAULT_HEIGHT);
+  }
+
+  /**
+   * Builds a new label atlas.
+   * 
+   * @param width the atlas bitmap width
+   * @param height the atlas bitmap height
+   */
+  LabelAtlas(int width, int height) {
+    mWidth = width;
+    mHeight = height;
+  }
+
+  /**
+   * Draws a label, rasterizing it into the atlas if not already there.
+   * 
+   * @param canvas the canvas to paint to
+   * @param text the label characters
+   * @param length the number of label characters
+   * @param x the X axis location of the label
+   * @param y the Y axis location of the label
+   * @param paint the paint the label is to be drawn with
+   * @param angle the label rotation angle around its location
+   * @return false if the label doesn't fit the atlas and was not drawn
+   */
+  boolean draw(Canvas canvas, char[] text, int length, float x, float y, Paint paint,
+      float angle) {
+    mProbe.set(text, length, paint, angle);
+    Entry entry = mEntries.get(mProbe);
+    if (entry == null) {
+      entry = rasterize(text, length, paint, angle);
+      if (entry == null) {
+        return false;
+      }
+    }
+    entry.shelf.lastUse = ++mClock;
+    float left = Math.round(x) + entry.left;
+    float top = Math.round(y) + entry.top;
+    mDestination.set(left, top, left + entry.source.width(), top + entry.source.height());
+    canvas.drawBitmap(mBitmap, entry.source, mDestination, null);
+    return true;
+  }
+
+  /**
+   * Releases the atlas bitmap and forgets all the rasterized labels.
+   */
+  void release() {
+    mEntries.clear();
+    mShelves.clear();
+    mShelvesBottom = 0;
+    if (mBitmap != null) {
+      mBitmap.recycle();
+      mBitmap = null;
+      mCanvas = null;
+    }
+  }
+
+  /**
+   * Rasterizes a label into the atlas.
+   * 
+   * @param text the label characters
+   * @param length the number of label characters
+   * @param paint the paint the label is to be drawn with
+   * @param angle the label rotation angle
+   * @return the atlas entry or null if the label doesn't fit the atlas
+   */
+  private Entry rasterize(char[] text, int length, Paint paint, float angle) {
+    Rect bounds = mBounds;
+    paint.getTextBounds(text, 0, length, bounds);
+    float shift = 0;
+    if (paint.getTextAlign() == Align.CENTER) {
+      shift = -paint.measureText(text, 0, length) / 2;
+    } else if (paint.getTextAlign() == Align.RIGHT) {
+      shift = -paint.measureText(text, 0, length);
+    }
+    double radians = Math.toRadians(angle);
+    float cos = (float) Math.cos(radians);
+    float sin = (float) Math.sin(radians);
+    float minX = Float.MAX_VALUE;
+    float minY = Float.MAX_VALUE;
+    float maxX = -Float.MAX_VALUE;
+    float maxY = -Float.MAX_VALUE;
+    for (int i = 0; i < 4; i++) {
+      float cornerX = (i < 2 ? bounds.left : bounds.right) + shift;
+      float cornerY = i % 2 == 0 ? bounds.top : bounds.bottom;
+      float rotatedX = cornerX * cos - cornerY * sin;
+      float rotatedY = cornerX * sin + cornerY * cos;
+      minX = Math.min(minX, rotatedX);
+      minY = Math.min(minY, rotatedY);
+      maxX = Math.max(maxX, rotatedX);
+      maxY = Math.max(maxY, rotatedY);
+    }
+    int left = (int) Math.floor(minX) - PADDING;
+    int top = (int) Math.floor(minY) - PADDING;
+    int width = (int) Math.ceil(maxX) + PADDING - left;
+    int height = (int) Math.ceil(maxY) + PADDING - top;
+    Shelf shelf = allocate(width, height);
+    if (shelf == null) {
+      return null;
+    }
+    Rect source = new Rect(shelf.x, shelf.y, shelf.x + width, shelf.y + height);
+    shelf.x += width;
+
+    Canvas atlas = mCanvas;
+    atlas.save();
+    atlas.clipRect(source);
+    atlas.drawColor(0, PorterDuff.Mode.CLEAR);
+    atlas.translate(source.left - left, source.top - top);
+    atlas.rotate(angle);
+    mRasterPaint.set(paint);
+    atlas.drawText(text, 0, length, 0, 0, mRasterPaint);
+    atlas.restore();
+
+    Key key = new Key();
+    key.set(text, length, paint, angle);
+    key.text = new char[length];
+    System.arraycopy(text, 0, key.text, 0, length);
+    Entry entry = new Entry(shelf, source, left, top);
+    mEntries.put(key, entry);
+    shelf.keys.add(key);
+    return entry;
+  }
+
+  /**
+   * Finds a shelf with enough free space for a label, creating a new shelf or
+   * evicting the least recently used one if needed.
+   * 
+   * @param width the label width
+   * @param height the label height
+   * @return the shelf or null if the label doesn't fit the atlas
+   */
+  private Shelf allocate(int width, int height) {
+    if (width > mWidth || height > mHeight) {
+      return null;
+    }
+    if (mBitmap == null) {
+      mBitmap = Bitmap.createBitmap(mWidth, mHeight, Bitmap.Config.ARGB_8888);
+      mCanvas = new Canvas(mBitmap);
+    }
+    Shelf best = null;
+    for (Shelf shelf : mShelves) {
+      if (shelf.height >= height && shelf.x + width <= mWidth
+          && (best == null || shelf.height < best.height)) {
+        best = shelf;
+      }
+    }
+    int shelfHeight = Math.min(mHeight, (height + SHELF_STEP - 1) / SHELF_STEP * SHELF_STEP);
+    if ((best == null || best.height > shelfHeight) && mShelvesBottom + shelfHeight <= mHeight) {
+      best = new Shelf(mShelvesBottom, shelfHeight);
+      mShelves.add(best);
+      mShelvesBottom += shelfHeight;
+    }
+    if (best == null) {
+      for (Shelf shelf : mShelves) {
+        if (shelf.height >= height && (best == null || shelf.lastUse < best.lastUse)) {
+          best = shelf;
+        }
+      }
+      if (best != null) {
+        for (Key key : best.keys) {
+          mEntries.remove(key);
+        }
+        best.keys.clear();
+        best.x = 0;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * An atlas shelf, a horizontal strip of labels.
+   */
+  private static class Shelf {
+    /** The shelf top. */
+    private final int y;
+    /** The shelf height. */
+    private final int height;
+    /** The left of the free space. */
+    private int x;
+    /** The last use of any of the shelf labels. */
+    private long lastUse;
+    /** The keys of the shelf labels. */
+    private final List<Key> keys = new ArrayList<Key>();
+
+    /**
+     * Builds a new shelf.
+     * 
+     * @param y the shelf top
+     * @param height the shelf height
+     */
+    Shelf(int y, int height) {
+      this.y = y;
+      this.height = height;
+    }
+  }
+
+  /**
+   * A rasterized label.
+   */
+  private static class Entry {
+    /** The shelf the label is in. */
+    private final Shelf shelf;
+    /** The label area in the atlas. */
+    private final Rect source;
+    /** The left of the label area, relative to the label location. */
+    private final int left;
+    /** The top of the label area, relative to the label location. */
+    private final int top;
+
+    /**
+     * Builds a new entry.
+     * 
+     * @param shelf the shelf
+     * @param source the label area in the atlas
+     * @param left the left of the label area, relative to the label location
+     * @param top the top of the label area, relative to the label location
+     */
+    Entry(Shelf shelf, Rect source, int left, int top) {
+      this.shelf = shelf;
+      this.source = source;
+      this.left = left;
+      this.top = top;
+    }
+  }
+
+  /**
+   * The rasterized labels key.
+   */
+  private static class Key {
+    /** The label characters. */
+    private char[] text;
+    /** The number of label characters. */
+    private int length;
+    /** The label color. */
+    private int color;
+    /** The label text size. */
+    private float size;
+    /** The label angle. */
+    private float angle;
+    /** The label typeface. */
+    private Typeface typeface;
+    /** The label alignment. */
+    private Align align;
+    /** If the label is anti-aliased. */
+    private boolean antialias;
+    /** The key hash. */
+    private int hash;
+
+    /**
+     * Sets the key values.
+     * 
+     * @param text the label characters
+     * @param length the number of label characters
+     * @param paint the paint the label is to be drawn with
+     * @param angle the label angle
+     */
+    void set(char[] text, int length, Paint paint, float angle) {
+      this.text = text;
+      this.length = length;
+      color = paint.getColor();
+      size = paint.getTextSize();
+      this.angle = angle;
+      typeface = paint.getTypeface();
+      align = paint.getTextAlign();
+      antialias = paint.isAntiAlias();
+      int h = color;
+      h = 31 * h + Float.floatToIntBits(size);
+      h = 31 * h + Float.floatToIntBits(angle);
+      for (int i = 0; i < length; i++) {
+        h = 31 * h + text[i];
+      }
+      hash = h;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      if (hash != key.hash || length != key.length || color != key.color || size != key.size
+          || angle != key.angle || align != key.align || antialias != key.antialias
+          || (typeface == null ? key.typeface != null : !typeface.equals(key.typeface))) {
+        return false;
+      }
+      for (int i = 0; i < length; i++) {
+        if (text[i] != key.text[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -26,7 +26,6 @@ import org.achartengine.renderer.XYSeriesRenderer.FillOutsideLine;
 
 import android.graphics.Canvas;
 import android.graphics.Paint;
-import android.graphics.Paint.Style;
 import android.graphics.RectF;
 
 /**
@@ -80,13 +79,12 @@ public class LineChart extends XYChart {
   @Override
   public void drawSeries(Canvas canvas, Paint paint, List<Float> points,
       XYSeriesRenderer renderer, float yAxisValue, int seriesIndex, int startIndex) {
-    float lineWidth = paint.getStrokeWidth();
-    paint.setStrokeWidth(renderer.getLineWidth());
     final FillOutsideLine[] fillOutsideLine = renderer.getFillOutsideLine();
 
     for (FillOutsideLine fill : fillOutsideLine) {
       if (fill.getType() != FillOutsideLine.Type.NONE) {
-        paint.setColor(fill.getColor());
+        Paint fillPaint = renderer.getFillPaint(paint);
+        fillPaint.setColor(fill.getColor());
         // TODO: find a way to do area charts without duplicating data
         List<Float> fillPoints = new ArrayList<Float>();
         int[] range = fill.getFillRange();
@@ -175,14 +173,10 @@ public class LineChart extends XYChart {
           }
         }
 
-        paint.setStyle(Style.FILL);
-        drawPath(canvas, fillPoints, paint, true);
+        drawPath(canvas, fillPoints, fillPaint, true);
       }
     }
-    paint.setColor(renderer.getColor());
-    paint.setStyle(Style.STROKE);
-    drawPath(canvas, points, paint, false);
-    paint.setStrokeWidth(lineWidth);
+    drawPath(canvas, points, renderer.getLinePaint(paint), false);
   }
 
   @Override
@@ -137,7 +137,8 @@ public class PieChart extends RoundChart {
       if (mRenderer.isDisplayValues()) {
         drawLabel(
             canvas,
-            getLabel(mRenderer.getSeriesRendererAt(i).getChartValuesFormat(), mDataset.getValue(i)),
+            getLabel(mRenderer.getSeriesRendererAt(i).getChartValuesFormatter(),
+                mDataset.getValue(i)),
             mRenderer, prevLabelsBounds, mCenterX, mCenterY, shortRadius / 2, longRadius / 2,
             currentAngle, angle, left, right, mRenderer.getLabelsColor(), paint, false, true);
       }
@@ -19,12 +19,14 @@ import java.util.List;
 
 import org.achartengine.model.XYMultipleSeriesDataset;
 import org.achartengine.model.XYSeries;
+import org.achartengine.model.XYSeriesSnapshot;
 import org.achartengine.renderer.XYMultipleSeriesRenderer;
+import org.achartengine.renderer.XYMultipleSeriesRenderer.Orientation;
 import org.achartengine.renderer.XYSeriesRenderer;
+import org.achartengine.util.LabelFormatter;
 
 import android.graphics.Canvas;
 import android.graphics.Paint;
-import android.graphics.Paint.Style;
 
 /**
  * The range bar chart rendering class.
@@ -32,6 +34,8 @@ import android.graphics.Paint.Style;
 public class RangeBarChart extends BarChart {
   /** The chart type. */
   public static final String TYPE = "RangeBar";
+  /** The index in its series of the first point of the series being drawn. */
+  private int mFirstIndex;
 
   RangeBarChart() {
   }
@@ -51,6 +55,55 @@ public class RangeBarChart extends BarChart {
     super(dataset, renderer, type);
   }
 
+  /**
+   * Draws the series, keeping the index in the series of its first point for
+   * pairing the points in ranges.
+   * 
+   * @param series the series or its snapshot
+   * @param canvas the canvas
+   * @param paint the paint object
+   * @param pointsList the points to be rendered
+   * @param seriesRenderer the series renderer
+   * @param yAxisValue the y axis value in pixels
+   * @param seriesIndex the series index
+   * @param or the orientation
+   * @param startIndex the start index of the rendering points
+   */
+  @Override
+  protected void drawSeries(XYSeries series, Canvas canvas, Paint paint, List<Float> pointsList,
+      XYSeriesRenderer seriesRenderer, float yAxisValue, int seriesIndex, Orientation or,
+      int startIndex) {
+    mFirstIndex = getFirstIndex(series);
+    super.drawSeries(series, canvas, paint, pointsList, seriesRenderer, yAxisValue, seriesIndex,
+        or, startIndex);
+  }
+
+  /**
+   * Returns the index in its series of the first point of a series being
+   * drawn, which is not 0 for a snapshot of the visible range.
+   * 
+   * @param series the series or its snapshot
+   * @return the index of the first point
+   */
+  static int getFirstIndex(XYSeries series) {
+    return series instanceof XYSeriesSnapshot ? ((XYSeriesSnapshot) series).getFirstIndex() : 0;
+  }
+
+  /**
+   * Returns the position in the points of the first range to be drawn. The
+   * series holds the minimum of each range at an even index and its maximum
+   * at the next one, so the first point is skipped when it is the maximum of a
+   * range whose minimum is not drawn.
+   * 
+   * @param firstIndex the index in the series of the first point of the drawn
+   *          series
+   * @param startIndex the index in the drawn series of the first point
+   * @return the position in the points list of the first range
+   */
+  static int getFirstRangePosition(int firstIndex, int startIndex) {
+    return (firstIndex + startIndex) % 2 == 0 ? 0 : 2;
+  }
+
   /**
    * The graphical representation of a series.
    * 
@@ -67,13 +120,10 @@ public class RangeBarChart extends BarChart {
       XYSeriesRenderer seriesRenderer, float yAxisValue, int seriesIndex, int startIndex) {
     int seriesNr = mDataset.getSeriesCount();
     int length = points.size();
-    paint.setColor(seriesRenderer.getColor());
-    paint.setStyle(Style.FILL);
+    Paint fillPaint = seriesRenderer.getFillPaint(paint);
+    fillPaint.setColor(seriesRenderer.getColor());
     float halfDiffX = getHalfDiffX(points, length, seriesNr);
-    int start = 0;
-    if (startIndex > 0) {
-      start = 2;
-    }
+    int start = getFirstRangePosition(mFirstIndex, startIndex);
     for (int i = start; i < length; i += 4) {
       if (points.size() > i + 3) {
         float xMin = points.get(i);
@@ -81,10 +131,9 @@ public class RangeBarChart extends BarChart {
         // xMin = xMax
         float xMax = points.get(i + 2);
         float yMax = points.get(i + 3);
-        drawBar(canvas, xMin, yMin, xMax, yMax, halfDiffX, seriesNr, seriesIndex, paint);
+        drawBar(canvas, xMin, yMin, xMax, yMax, halfDiffX, seriesNr, seriesIndex, fillPaint);
       }
     }
-    paint.setColor(seriesRenderer.getColor());
   }
 
   /**
@@ -102,10 +151,8 @@ public class RangeBarChart extends BarChart {
       Paint paint, List<Float> points, int seriesIndex, int startIndex) {
     int seriesNr = mDataset.getSeriesCount();
     float halfDiffX = getHalfDiffX(points, points.size(), seriesNr);
-    int start = 0;
-    if (startIndex > 0) {
-      start = 2;
-    }
+    int start = getFirstRangePosition(getFirstIndex(series), startIndex);
+    LabelFormatter formatter = renderer.getChartValuesFormatter();
     for (int i = start; i < points.size(); i += 4) {
       int index = startIndex + i / 2;
       float x = points.get(i);
@@ -115,15 +162,12 @@ public class RangeBarChart extends BarChart {
 
       if (!isNullValue(series.getY(index + 1)) && points.size() > i + 3) {
         // draw the maximum value
-        drawText(canvas, getLabel(renderer.getChartValuesFormat(), series.getY(index + 1)), x,
+        drawValue(canvas, formatter, series.getY(index + 1), x,
             points.get(i + 3) - renderer.getChartValuesSpacing(), paint, 0);
       }
       if (!isNullValue(series.getY(index)) && points.size() > i + 1) {
         // draw the minimum value
-        drawText(
-            canvas,
-            getLabel(renderer.getChartValuesFormat(), series.getY(index)),
-            x,
+        drawValue(canvas, formatter, series.getY(index), x,
             points.get(i + 1) + renderer.getChartValuesTextSize()
                 + renderer.getChartValuesSpacing() - 3, paint, 0);
       }
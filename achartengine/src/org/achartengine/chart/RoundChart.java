@@ -95,6 +95,15 @@ public abstract class RoundChart extends AbstractChart {
     canvas.drawRect(x, y - SHAPE_WIDTH / 2, x + SHAPE_WIDTH, y + SHAPE_WIDTH / 2, paint);
   }
 
+  /**
+   * Returns the series dataset.
+   * 
+   * @return the series dataset
+   */
+  public CategorySeries getDataset() {
+    return mDataset;
+  }
+
   /**
    * Returns the renderer.
    * 
@@ -75,51 +75,42 @@ public class ScatterChart extends XYChart {
   @Override
   public void drawSeries(Canvas canvas, Paint paint, List<Float> points,
       XYSeriesRenderer renderer, float yAxisValue, int seriesIndex, int startIndex) {
-    paint.setColor(renderer.getColor());
-    final float stroke = paint.getStrokeWidth();
-    if (renderer.isFillPoints()) {
-      paint.setStyle(Style.FILL);
-    } else {
-      paint.setStrokeWidth(renderer.getPointStrokeWidth());
-      paint.setStyle(Style.STROKE);
-    }
+    Paint pointsPaint = renderer.getPointsPaint(paint);
     int length = points.size();
     switch (renderer.getPointStyle()) {
     case X:
-      paint.setStrokeWidth(renderer.getPointStrokeWidth());
       for (int i = 0; i < length; i += 2) {
-        drawX(canvas, paint, points.get(i), points.get(i + 1));
+        drawX(canvas, pointsPaint, points.get(i), points.get(i + 1));
       }
       break;
     case CIRCLE:
       for (int i = 0; i < length; i += 2) {
-        drawCircle(canvas, paint, points.get(i), points.get(i + 1));
+        drawCircle(canvas, pointsPaint, points.get(i), points.get(i + 1));
       }
       break;
     case TRIANGLE:
       float[] path = new float[6];
       for (int i = 0; i < length; i += 2) {
-        drawTriangle(canvas, paint, path, points.get(i), points.get(i + 1));
+        drawTriangle(canvas, pointsPaint, path, points.get(i), points.get(i + 1));
       }
       break;
     case SQUARE:
       for (int i = 0; i < length; i += 2) {
-        drawSquare(canvas, paint, points.get(i), points.get(i + 1));
+        drawSquare(canvas, pointsPaint, points.get(i), points.get(i + 1));
       }
       break;
     case DIAMOND:
       path = new float[8];
       for (int i = 0; i < length; i += 2) {
-        drawDiamond(canvas, paint, path, points.get(i), points.get(i + 1));
+        drawDiamond(canvas, pointsPaint, path, points.get(i), points.get(i + 1));
       }
       break;
     case POINT:
       for (int i = 0; i < length; i += 2) {
-        canvas.drawPoint(points.get(i), points.get(i + 1), paint);
+        canvas.drawPoint(points.get(i), points.get(i + 1), pointsPaint);
       }
       break;
     }
-    paint.setStrokeWidth(stroke);
   }
 
   @Override
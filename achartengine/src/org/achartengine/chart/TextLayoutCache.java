@@ -0,0 +1,312 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.chart;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+
+/**
+ * A least recently used cache of the measured text layouts, keyed on the text,
+ * the typeface and the text size. Titles, legends and labels are usually the
+ * same from one frame to another, so their line splits, widths, bounds and
+ * fitted variants are only computed once. The cache is not thread safe, it is
+ * meant to be used by a chart while drawing.
+ */
+class TextLayoutCache {
+  /** The default maximum number of cached layouts. */
+  static final int DEFAULT_CAPACITY = 128;
+  /** The ellipsis appended to the shortened texts. */
+  static final String ELLIPSIS = "...";
+  /** The cached layouts, in access order. */
+  private final Map<Key, TextLayout> mLayouts;
+  /** The reusable key used for the lookups. */
+  private final Key mProbe = new Key();
+
+  /**
+   * Builds a new text layout cache with the default capacity.
+   */
+  TextLayoutCache() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Builds a new text layout cache.
+   * 
+   * @param capacity the maximum number of cached layouts
+   */
+  TextLayoutCache(final int capacity) {
+    mLayouts = new LinkedHashMap<Key, TextLayout>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, TextLayout> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns the layout of the text, as measured by the provided paint.
+   * 
+   * @param text the text
+   * @param paint the paint the text is measured and drawn with
+   * @return the text layout
+   */
+  TextLayout getLayout(String text, Paint paint) {
+    mProbe.set(text, paint.getTypeface(), paint.getTextSize());
+    TextLayout layout = mLayouts.get(mProbe);
+    if (layout == null) {
+      layout = new TextLayout(text);
+      Key key = new Key();
+      key.set(text, mProbe.typeface, mProbe.size);
+      mLayouts.put(key, layout);
+    }
+    return layout;
+  }
+
+  /**
+   * Removes all the cached layouts.
+   */
+  void clear() {
+    mLayouts.clear();
+  }
+
+  /**
+   * The cache key.
+   */
+  private static class Key {
+    /** The text. */
+    private String text;
+    /** The typeface. */
+    private Typeface typeface;
+    /** The text size. */
+    private float size;
+
+    /**
+     * Sets the key values.
+     * 
+     * @param text the text
+     * @param typeface the typeface
+     * @param size the text size
+     */
+    void set(String text, Typeface typeface, float size) {
+      this.text = text;
+      this.typeface = typeface;
+      this.size = size;
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = text.hashCode();
+      hash = 31 * hash + (typeface == null ? 0 : typeface.hashCode());
+      return 31 * hash + Float.floatToIntBits(size);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return size == key.size && text.equals(key.text)
+          && (typeface == null ? key.typeface == null : typeface.equals(key.typeface));
+    }
+  }
+
+  /**
+   * The layout of a text. The measurements are computed lazily, using the paint
+   * the layout was requested for.
+   */
+  static class TextLayout {
+    /** The text. */
+    private final String mText;
+    /** The text lines. */
+    private String[] mLines;
+    /** The lines heights, from their bounds. */
+    private int[] mLineHeights;
+    /** The text bounds. */
+    private Rect mBounds;
+    /** The cumulative characters advances, the first one being 0. */
+    private float[] mAdvances;
+    /** The ellipsis width. */
+    private float mEllipsisWidth;
+    /** The width the last fitted text was computed for. */
+    private float mFitWidth = Float.NaN;
+    /** The last fitted text. */
+    private String mFitText;
+    /** The width the last broken text was computed for. */
+    private float mBreakWidth = Float.NaN;
+    /** The last broken text. */
+    private String mBreakText;
+
+    /**
+     * Builds a new text layout.
+     * 
+     * @param text the text
+     */
+    TextLayout(String text) {
+      mText = text;
+    }
+
+    /**
+     * Returns the text lines.
+     * 
+     * @return the lines
+     */
+    String[] getLines() {
+      if (mLines == null) {
+        mLines = mText.split("\n");
+      }
+      return mLines;
+    }
+
+    /**
+     * Returns the height of a text line, as given by its bounds.
+     * 
+     * @param line the line index
+     * @param paint the paint
+     * @return the line height
+     */
+    int getLineHeight(int line, Paint paint) {
+      if (mLineHeights == null) {
+        String[] lines = getLines();
+        int[] heights = new int[lines.length];
+        Rect rect = new Rect();
+        for (int i = 0; i < lines.length; i++) {
+          paint.getTextBounds(lines[i], 0, lines[i].length(), rect);
+          heights[i] = rect.height();
+        }
+        mLineHeights = heights;
+      }
+      return mLineHeights[line];
+    }
+
+    /**
+     * Returns the bounds of the whole text. The returned rectangle must not be
+     * modified.
+     * 
+     * @param paint the paint
+     * @return the text bounds
+     */
+    Rect getBounds(Paint paint) {
+      if (mBounds == null) {
+        Rect bounds = new Rect();
+        paint.getTextBounds(mText, 0, mText.length(), bounds);
+        mBounds = bounds;
+      }
+      return mBounds;
+    }
+
+    /**
+     * Returns the width of the text, as the sum of its characters advances.
+     * 
+     * @param paint the paint
+     * @return the text width
+     */
+    float getWidth(Paint paint) {
+      float[] advances = getAdvances(paint);
+      return advances[advances.length - 1];
+    }
+
+    /**
+     * Returns the text shortened and ellipsized such as it fits the provided
+     * width. The text is returned unchanged if it already fits, and only the
+     * ellipsis is returned if no character fits.
+     * 
+     * @param width the available width
+     * @param paint the paint
+     * @return the fitted text
+     */
+    String getFitText(float width, Paint paint) {
+      if (width != mFitWidth) {
+        float[] advances = getAdvances(paint);
+        int length = mText.length();
+        if (advances[length] <= width) {
+          mFitText = mText;
+        } else {
+          int count = getFittingCount(advances, width - mEllipsisWidth, length - 1);
+          mFitText = count > 0 ? mText.substring(0, count) + ELLIPSIS : ELLIPSIS;
+        }
+        mFitWidth = width;
+      }
+      return mFitText;
+    }
+
+    /**
+     * Returns the characters fitting the provided width followed by the
+     * ellipsis.
+     * 
+     * @param width the available width for the characters
+     * @param paint the paint
+     * @return the broken text
+     */
+    String getBreakText(float width, Paint paint) {
+      if (width != mBreakWidth) {
+        float[] advances = getAdvances(paint);
+        mBreakText = mText.substring(0, getFittingCount(advances, width, mText.length()))
+            + ELLIPSIS;
+        mBreakWidth = width;
+      }
+      return mBreakText;
+    }
+
+    /**
+     * Returns the cumulative characters advances.
+     * 
+     * @param paint the paint
+     * @return the cumulative advances
+     */
+    private float[] getAdvances(Paint paint) {
+      if (mAdvances == null) {
+        int length = mText.length();
+        float[] widths = new float[length];
+        paint.getTextWidths(mText, widths);
+        float[] advances = new float[length + 1];
+        for (int i = 0; i < length; i++) {
+          advances[i + 1] = advances[i] + widths[i];
+        }
+        mEllipsisWidth = paint.measureText(ELLIPSIS);
+        mAdvances = advances;
+      }
+      return mAdvances;
+    }
+
+    /**
+     * Returns the maximum number of leading characters fitting the provided
+     * width, using a binary search on the cumulative advances.
+     * 
+     * @param advances the cumulative advances
+     * @param width the available width
+     * @param max the maximum number of characters
+     * @return the number of fitting characters
+     */
+    private static int getFittingCount(float[] advances, float width, int max) {
+      int low = 0;
+      int high = max;
+      while (low < high) {
+        int middle = (low + high + 1) >>> 1;
+        if (advances[middle] <= width) {
+          low = middle;
+        } else {
+          high = middle - 1;
+        }
+      }
+      return low;
+    }
+  }
+}
@@ -18,12 +18,15 @@ package org.achartengine.chart;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
 
 import org.achartengine.model.XYMultipleSeriesDataset;
 import org.achartengine.model.XYSeries;
 import org.achartengine.renderer.XYMultipleSeriesRenderer;
+import org.achartengine.util.DateLabelFormatter;
+import org.achartengine.util.TimeTickGenerator;
 
 import android.graphics.Canvas;
 import android.graphics.Paint;
@@ -36,10 +39,26 @@ public class TimeChart extends LineChart {
   public static final String TYPE = "Time";
   /** The number of milliseconds in a day. */
   public static final long DAY = 24 * 60 * 60 * 1000;
+  /** The index of the default medium date format. */
+  private static final int DATE_FORMAT = 0;
+  /** The index of the default short date and time format. */
+  private static final int DATE_TIME_FORMAT = 1;
+  /** The index of the default medium time format. */
+  private static final int TIME_FORMAT = 2;
   /** The date format pattern to be used in formatting the X axis labels. */
   private String mDateFormat;
-  /** The starting point for labels. */
-  private Double mStartPoint;
+  /** The calendar aware generator of the rounded X axis labels. */
+  private final TimeTickGenerator mTimeTicks = new TimeTickGenerator();
+  /** The cached default date formatters. */
+  private transient DateLabelFormatter[] mDefaultFormatters;
+  /** The pattern the cached pattern formatter was built for. */
+  private transient String mFormatterPattern;
+  /** The cached pattern formatter, null if the pattern is invalid. */
+  private transient DateLabelFormatter mPatternFormatter;
+  /** The locale the cached formatters were built for. */
+  private transient Locale mFormattersLocale;
+  /** The time zone the cached formatters were built for. */
+  private transient TimeZone mFormattersTimeZone;
 
   TimeChart() {
   }
@@ -95,7 +114,9 @@ public class TimeChart extends LineChart {
     if (length > 0) {
       boolean showLabels = mRenderer.isShowLabels();
       boolean showGridY = mRenderer.isShowGridY();
-      DateFormat format = getDateFormat(xLabels.get(0), xLabels.get(length - 1));
+      DateLabelFormatter format = getDateFormatter(xLabels.get(0), xLabels.get(length - 1));
+      float labelsY = bottom + mRenderer.getLabelsTextSize() * 4 / 3
+          + mRenderer.getXLabelsPadding();
       for (int i = 0; i < length; i++) {
         long label = Math.round(xLabels.get(i));
         float xLabel = (float) (left + xPixelsPerUnit * (label - minX));
@@ -103,8 +124,8 @@ public class TimeChart extends LineChart {
           paint.setColor(mRenderer.getXLabelsColor());
           canvas
               .drawLine(xLabel, bottom, xLabel, bottom + mRenderer.getLabelsTextSize() / 3, paint);
-          drawText(canvas, format.format(new Date(label)), xLabel,
-              bottom + mRenderer.getLabelsTextSize() * 4 / 3 + mRenderer.getXLabelsPadding(), paint, mRenderer.getXLabelsAngle());
+          drawAxisLabel(canvas, format, label, xLabel, labelsY, paint,
+              mRenderer.getXLabelsAngle());
         }
         if (showGridY) {
           paint.setColor(mRenderer.getGridColor(0));
@@ -117,30 +138,61 @@ public class TimeChart extends LineChart {
   }
 
   /**
-   * Returns the date format pattern to be used, based on the date range.
+   * Returns the date formatter to be used, based on the date range. The
+   * formatters are cached by pattern and rebuilt only when the pattern, the
+   * default locale or the default time zone change.
    * 
    * @param start the start date in milliseconds
    * @param end the end date in milliseconds
-   * @return the date format
+   * @return the date formatter
    */
-  private DateFormat getDateFormat(double start, double end) {
+  private DateLabelFormatter getDateFormatter(double start, double end) {
+    Locale locale = Locale.getDefault();
+    TimeZone timeZone = TimeZone.getDefault();
+    if (mDefaultFormatters == null || !locale.equals(mFormattersLocale)
+        || !timeZone.equals(mFormattersTimeZone)) {
+      mDefaultFormatters = new DateLabelFormatter[3];
+      mFormatterPattern = null;
+      mPatternFormatter = null;
+      mFormattersLocale = locale;
+      mFormattersTimeZone = timeZone;
+    }
     if (mDateFormat != null) {
-      SimpleDateFormat format = null;
-      try {
-        format = new SimpleDateFormat(mDateFormat);
-        return format;
-      } catch (Exception e) {
-        // do nothing here
+      if (!mDateFormat.equals(mFormatterPattern)) {
+        mFormatterPattern = mDateFormat;
+        mPatternFormatter = null;
+        try {
+          mPatternFormatter = new DateLabelFormatter(new SimpleDateFormat(mDateFormat));
+        } catch (Exception e) {
+          // do nothing here
+        }
+      }
+      if (mPatternFormatter != null) {
+        return mPatternFormatter;
       }
     }
-    DateFormat format = SimpleDateFormat.getDateInstance(SimpleDateFormat.MEDIUM);
+    int index = DATE_FORMAT;
     double diff = end - start;
     if (diff > DAY && diff < 5 * DAY) {
-      format = SimpleDateFormat.getDateTimeInstance(SimpleDateFormat.SHORT, SimpleDateFormat.SHORT);
+      index = DATE_TIME_FORMAT;
     } else if (diff < DAY) {
-      format = SimpleDateFormat.getTimeInstance(SimpleDateFormat.MEDIUM);
+      index = TIME_FORMAT;
     }
-    return format;
+    DateLabelFormatter formatter = mDefaultFormatters[index];
+    if (formatter == null) {
+      DateFormat format;
+      if (index == DATE_TIME_FORMAT) {
+        format = SimpleDateFormat.getDateTimeInstance(SimpleDateFormat.SHORT,
+            SimpleDateFormat.SHORT);
+      } else if (index == TIME_FORMAT) {
+        format = SimpleDateFormat.getTimeInstance(SimpleDateFormat.MEDIUM);
+      } else {
+        format = SimpleDateFormat.getDateInstance(SimpleDateFormat.MEDIUM);
+      }
+      formatter = new DateLabelFormatter(format);
+      mDefaultFormatters[index] = formatter;
+    }
+    return formatter;
   }
 
   /**
@@ -154,35 +206,31 @@ public class TimeChart extends LineChart {
 
   @Override
   protected List<Double> getXLabels(double min, double max, int count) {
-    final List<Double> result = new ArrayList<Double>();
     if (!mRenderer.isXRoundedLabels()) {
       if (mDataset.getSeriesCount() > 0) {
-        XYSeries series = mDataset.getSeriesAt(0);
-        int length = series.getItemCount();
-        int intervalLength = 0;
-        int startIndex = -1;
-        for (int i = 0; i < length; i++) {
-          double value = series.getX(i);
-          if (min <= value && value <= max) {
-            intervalLength++;
-            if (startIndex < 0) {
-              startIndex = i;
-            }
-          }
+        final List<Double> result = new ArrayList<Double>();
+        // the labels are read from the points being drawn rather than under
+        // the live series lock, and the X values being sorted, the visible
+        // ones are found by binary search
+        XYSeries series = getDrawnSeries(0);
+        int startIndex = series.getIndexForKey(min);
+        if (startIndex < 0) {
+          startIndex = -startIndex - 1;
         }
+        int endIndex = series.getIndexForKey(max);
+        endIndex = endIndex < 0 ? -endIndex - 1 : endIndex + 1;
+        int intervalLength = Math.max(0, endIndex - startIndex);
         if (intervalLength < count) {
-          for (int i = startIndex; i < startIndex + intervalLength; i++) {
-            result.add(series.getX(i));
+          double[] values = new double[intervalLength];
+          series.copyRange(startIndex, startIndex + intervalLength, values, null, 0);
+          for (double value : values) {
+            result.add(value);
           }
         } else {
           float step = (float) intervalLength / count;
-          int intervalCount = 0;
-          for (int i = 0; i < length && intervalCount < count; i++) {
-            double value = series.getX(Math.round(i * step));
-            if (min <= value && value <= max) {
-              result.add(value);
-              intervalCount++;
-            }
+          for (int i = 0; i < count; i++) {
+            int index = Math.min(endIndex - 1, startIndex + Math.round(i * step));
+            result.add(series.getX(index));
           }
         }
         return result;
@@ -190,38 +238,9 @@ public class TimeChart extends LineChart {
         return super.getXLabels(min, max, count);
       }
     }
-    if (mStartPoint == null) {
-      mStartPoint = min - (min % DAY) + DAY + new Date(Math.round(min)).getTimezoneOffset() * 60
-          * 1000;
-    }
     if (count > 25) {
       count = 25;
     }
-
-    
-    final double cycleMath = (max - min) / count;
-    if (cycleMath <= 0) {
-      return result;
-    }
-    double cycle = DAY;
-
-    if (cycleMath <= DAY) {
-      while (cycleMath < cycle / 2) {
-        cycle = cycle / 2;
-      }
-    } else {
-      while (cycleMath > cycle) {
-        cycle = cycle * 2;
-      }
-    }
-
-    double val = mStartPoint - Math.floor((mStartPoint - min) / cycle) * cycle;
-    int i = 0;
-    while (val < max && i++ <= count) {
-      result.add(val);
-      val += cycle;
-    }
-
-    return result;
+    return mTimeTicks.getLabels(min, max, count);
   }
 }
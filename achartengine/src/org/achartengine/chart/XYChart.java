@@ -21,29 +21,25 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.SortedMap;
 
 import org.achartengine.model.Point;
+import org.achartengine.model.SeriesRollups;
 import org.achartengine.model.SeriesSelection;
 import org.achartengine.model.XYMultipleSeriesDataset;
 import org.achartengine.model.XYSeries;
-import org.achartengine.renderer.BasicStroke;
+import org.achartengine.model.XYSeriesSnapshot;
 import org.achartengine.renderer.DefaultRenderer;
 import org.achartengine.renderer.SimpleSeriesRenderer;
 import org.achartengine.renderer.XYMultipleSeriesRenderer;
 import org.achartengine.renderer.XYMultipleSeriesRenderer.Orientation;
 import org.achartengine.renderer.XYSeriesRenderer;
+import org.achartengine.util.LabelFormatter;
 import org.achartengine.util.MathHelper;
+import org.achartengine.util.TickGenerator;
 
 import android.graphics.Canvas;
-import android.graphics.DashPathEffect;
 import android.graphics.Paint;
 import android.graphics.Paint.Align;
-import android.graphics.Paint.Cap;
-import android.graphics.Paint.Join;
-import android.graphics.Paint.Style;
-import android.graphics.PathEffect;
 import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.Typeface;
@@ -66,6 +62,20 @@ public abstract class XYChart extends AbstractChart {
   private Rect mScreenR;
   /** The calculated range. */
   private final Map<Integer, double[]> mCalcRange = new HashMap<Integer, double[]>();
+  /** The X axis labels generator. */
+  private final TickGenerator mXTicks = new TickGenerator();
+  /** The Y axis labels generators, one for each scale. */
+  private final Map<Integer, TickGenerator> mYTicks = new HashMap<Integer, TickGenerator>();
+  /** The atlas of pre-rasterized axis labels, if enabled in the renderer. */
+  private transient LabelAtlas mLabelAtlas;
+  /** The number of points copied from a series at once while drawing. */
+  protected static final int COPY_CHUNK_SIZE = 256;
+  /** The X values of the points being drawn. */
+  private transient double[] mXValues;
+  /** The Y values of the points being drawn. */
+  private transient double[] mYValues;
+  /** The series drawn by the last frame, whose snapshots the next one recycles. */
+  private transient XYSeries[] mDrawnSeries;
 
   /**
    * The clickable areas for all points. The array index is the series index,
@@ -87,6 +97,21 @@ public abstract class XYChart extends AbstractChart {
     mRenderer = renderer;
   }
 
+  /**
+   * Returns the series or the snapshot of the series drawn by the last frame,
+   * such as the labels are computed from the same points as the ones drawn.
+   * 
+   * @param index the series index
+   * @return the drawn series, or the series itself if it was not drawn yet
+   */
+  protected XYSeries getDrawnSeries(int index) {
+    XYSeries[] drawn = mDrawnSeries;
+    if (drawn != null && index < drawn.length && drawn[index] != null) {
+      return drawn[index];
+    }
+    return mDataset.getSeriesAt(index);
+  }
+
   // TODO: javadoc
   protected void setDatasetRenderer(XYMultipleSeriesDataset dataset,
       XYMultipleSeriesRenderer renderer) {
@@ -194,8 +219,12 @@ public abstract class XYChart extends AbstractChart {
       if (series.getItemCount() == 0) {
         continue;
       }
+      SeriesRollups rollups = series.getRollups();
       if (!isMinXSet[scale]) {
         double minimumX = series.getMinX();
+        if (rollups != null) {
+          minimumX = Math.min(minimumX, rollups.getMinX());
+        }
         minX[scale] = Math.min(minX[scale], minimumX);
         mCalcRange.get(scale)[0] = minX[scale];
       }
@@ -206,11 +235,17 @@ public abstract class XYChart extends AbstractChart {
       }
       if (!isMinYSet[scale]) {
         double minimumY = series.getMinY();
+        if (rollups != null) {
+          minimumY = Math.min(minimumY, rollups.getMinY());
+        }
         minY[scale] = Math.min(minY[scale], (float) minimumY);
         mCalcRange.get(scale)[2] = minY[scale];
       }
       if (!isMaxYSet[scale]) {
         double maximumY = series.getMaxY();
+        if (rollups != null) {
+          maximumY = Math.max(maximumY, rollups.getMaxY());
+        }
         maxY[scale] = Math.max(maxY[scale], (float) maximumY);
         mCalcRange.get(scale)[3] = maxY[scale];
       }
@@ -236,15 +271,29 @@ public abstract class XYChart extends AbstractChart {
     // 2) We don't need random seeking, only sequential reading/writing, so
     // linked list makes sense
     clickableAreas = new HashMap<Integer, List<ClickableArea>>();
+    if (mXValues == null) {
+      mXValues = new double[COPY_CHUNK_SIZE];
+      mYValues = new double[COPY_CHUNK_SIZE];
+    }
+    if (mDrawnSeries == null || mDrawnSeries.length != sLength) {
+      mDrawnSeries = new XYSeries[sLength];
+    }
     for (int i = 0; i < sLength; i++) {
-      XYSeries series = mDataset.getSeriesAt(i);
-      int scale = series.getScaleNumber();
+      XYSeriesRenderer seriesRenderer = (XYSeriesRenderer) mRenderer.getSeriesRendererAt(i);
+      int scale = mDataset.getSeriesAt(i).getScaleNumber();
+      // the series is drawn from an immutable snapshot of its visible points,
+      // such as drawing it doesn't block the threads adding points to it, the
+      // read only series being drawn in place
+      XYSeries drawn = mDrawnSeries[i];
+      XYSeries series = mDataset.getSeriesAt(i).getSnapshot(minX[scale], maxX[scale],
+          seriesRenderer.isDisplayBoundingPoints(),
+          drawn instanceof XYSeriesSnapshot ? (XYSeriesSnapshot) drawn : null);
+      mDrawnSeries[i] = series;
       if (series.getItemCount() == 0) {
         continue;
       }
 
       hasValues = true;
-      XYSeriesRenderer seriesRenderer = (XYSeriesRenderer) mRenderer.getSeriesRendererAt(i);
 
       // int originalValuesLength = series.getItemCount();
       // int valuesLength = originalValuesLength;
@@ -257,71 +306,82 @@ public abstract class XYChart extends AbstractChart {
 
       clickableAreas.put(i, clickableArea);
 
-      synchronized (series) {
-        SortedMap<Double, Double> range = series.getRange(minX[scale], maxX[scale],
-            seriesRenderer.isDisplayBoundingPoints());
-        int startIndex = -1;
+      SeriesRollups rollups = series.getRollups();
+      if (rollups != null) {
+        drawRollups(canvas, rollups, series.getMinX(), seriesRenderer.getRollupPaint(paint),
+            left, bottom, xPixelsPerUnit[scale], yPixelsPerUnit[scale], minX[scale],
+            maxX[scale], minY[scale]);
+      }
+      int[] range = series.getIndexRange(minX[scale], maxX[scale],
+          seriesRenderer.isDisplayBoundingPoints());
+      int startIndex = -1;
+      int chunkStart = range[0];
+      int chunkEnd = range[0];
 
-        for (Entry<Double, Double> value : range.entrySet()) {
-          double xValue = value.getKey();
-          double yValue = value.getValue();
-          if (startIndex < 0 && (!isNullValue(yValue) || isRenderNullValues())) {
-            startIndex = series.getIndexForKey(xValue);
-          }
+      for (int index = range[0]; index < range[1]; index++) {
+        if (index == chunkEnd) {
+          // the values are copied in bulk instead of read point by point
+          chunkStart = index;
+          chunkEnd = Math.min(range[1], index + COPY_CHUNK_SIZE);
+          series.copyRange(chunkStart, chunkEnd, mXValues, mYValues, 0);
+        }
+        double xValue = mXValues[index - chunkStart];
+        double yValue = mYValues[index - chunkStart];
+        if (startIndex < 0 && (!isNullValue(yValue) || isRenderNullValues())) {
+          startIndex = index;
+        }
 
-          // points.add((float) (left + xPixelsPerUnit[scale]
-          // * (value.getKey().floatValue() - minX[scale])));
-          // points.add((float) (bottom - yPixelsPerUnit[scale]
-          // * (value.getValue().floatValue() - minY[scale])));
-          values.add(value.getKey());
-          values.add(value.getValue());
-
-          if (!isNullValue(yValue)) {
-            points.add((float) (left + xPixelsPerUnit[scale] * (xValue - minX[scale])));
-            points.add((float) (bottom - yPixelsPerUnit[scale] * (yValue - minY[scale])));
-          } else if (isRenderNullValues()) {
-            points.add((float) (left + xPixelsPerUnit[scale] * (xValue - minX[scale])));
-            points.add((float) (bottom - yPixelsPerUnit[scale] * (-minY[scale])));
-          } else {
-            if (points.size() > 0) {
-              drawSeries(series, canvas, paint, points, seriesRenderer, yAxisValue, i, or,
-                  startIndex);
-              ClickableArea[] clickableAreasForSubSeries = clickableAreasForPoints(points, values,
-                  yAxisValue, i, startIndex);
-              clickableArea.addAll(Arrays.asList(clickableAreasForSubSeries));
-              points.clear();
-              values.clear();
-              startIndex = -1;
-            }
-            clickableArea.add(null);
+        // points.add((float) (left + xPixelsPerUnit[scale]
+        // * (value.getKey().floatValue() - minX[scale])));
+        // points.add((float) (bottom - yPixelsPerUnit[scale]
+        // * (value.getValue().floatValue() - minY[scale])));
+        values.add(xValue);
+        values.add(yValue);
+
+        if (!isNullValue(yValue)) {
+          points.add((float) (left + xPixelsPerUnit[scale] * (xValue - minX[scale])));
+          points.add((float) (bottom - yPixelsPerUnit[scale] * (yValue - minY[scale])));
+        } else if (isRenderNullValues()) {
+          points.add((float) (left + xPixelsPerUnit[scale] * (xValue - minX[scale])));
+          points.add((float) (bottom - yPixelsPerUnit[scale] * (-minY[scale])));
+        } else {
+          if (points.size() > 0) {
+            drawSeries(series, canvas, paint, points, seriesRenderer, yAxisValue, i, or,
+                startIndex);
+            ClickableArea[] clickableAreasForSubSeries = clickableAreasForPoints(points, values,
+                yAxisValue, i, startIndex);
+            clickableArea.addAll(Arrays.asList(clickableAreasForSubSeries));
+            points.clear();
+            values.clear();
+            startIndex = -1;
+            // the chart values may have been read into the Y values buffer
+            chunkEnd = index + 1;
           }
+          clickableArea.add(null);
         }
+      }
 
-        int count = series.getAnnotationCount();
-        if (count > 0) {
-          paint.setColor(seriesRenderer.getAnnotationsColor());
-          paint.setTextSize(seriesRenderer.getAnnotationsTextSize());
-          paint.setTextAlign(seriesRenderer.getAnnotationsTextAlign());
-          Rect bound = new Rect();
-          for (int j = 0; j < count; j++) {
-            float xS = (float) (left + xPixelsPerUnit[scale]
-                * (series.getAnnotationX(j) - minX[scale]));
-            float yS = (float) (bottom - yPixelsPerUnit[scale]
-                * (series.getAnnotationY(j) - minY[scale]));
-            paint.getTextBounds(series.getAnnotationAt(j), 0, series.getAnnotationAt(j).length(),
-                bound);
-            if (xS < (xS + bound.width()) && yS < canvas.getHeight()) {
-              drawString(canvas, series.getAnnotationAt(j), xS, yS, paint);
-            }
+      int count = series.getAnnotationCount();
+      if (count > 0) {
+        Paint annotationsPaint = seriesRenderer.getAnnotationsPaint(paint);
+        for (int j = 0; j < count; j++) {
+          float xS = (float) (left + xPixelsPerUnit[scale]
+              * (series.getAnnotationX(j) - minX[scale]));
+          float yS = (float) (bottom - yPixelsPerUnit[scale]
+              * (series.getAnnotationY(j) - minY[scale]));
+          String annotation = series.getAnnotationAt(j);
+          Rect bound = getTextLayout(annotation, annotationsPaint).getBounds(annotationsPaint);
+          if (xS < (xS + bound.width()) && yS < canvas.getHeight()) {
+            drawString(canvas, annotation, xS, yS, annotationsPaint);
           }
         }
+      }
 
-        if (points.size() > 0) {
-          drawSeries(series, canvas, paint, points, seriesRenderer, yAxisValue, i, or, startIndex);
-          ClickableArea[] clickableAreasForSubSeries = clickableAreasForPoints(points, values,
-              yAxisValue, i, startIndex);
-          clickableArea.addAll(Arrays.asList(clickableAreasForSubSeries));
-        }
+      if (points.size() > 0) {
+        drawSeries(series, canvas, paint, points, seriesRenderer, yAxisValue, i, or, startIndex);
+        ClickableArea[] clickableAreasForSubSeries = clickableAreasForPoints(points, values,
+            yAxisValue, i, startIndex);
+        clickableArea.addAll(Arrays.asList(clickableAreasForSubSeries));
       }
     }
     // draw stuff over the margins such as data doesn't render on these areas
@@ -467,14 +527,18 @@ public abstract class XYChart extends AbstractChart {
   }
 
   protected List<Double> getXLabels(double min, double max, int count) {
-    return MathHelper.getLabels(min, max, count);
+    return mXTicks.getLabels(min, max, count);
   }
 
   protected Map<Integer, List<Double>> getYLabels(double[] minY, double[] maxY, int maxScaleNumber) {
     Map<Integer, List<Double>> allYLabels = new HashMap<Integer, List<Double>>();
     for (int i = 0; i < maxScaleNumber; i++) {
-      allYLabels.put(i,
-          getValidLabels(MathHelper.getLabels(minY[i], maxY[i], mRenderer.getYLabels())));
+      TickGenerator ticks = mYTicks.get(i);
+      if (ticks == null) {
+        ticks = new TickGenerator();
+        mYTicks.put(i, ticks);
+      }
+      allYLabels.put(i, getValidLabels(ticks.getLabels(minY[i], maxY[i], mRenderer.getYLabels())));
     }
     return allYLabels;
   }
@@ -488,15 +552,61 @@ public abstract class XYChart extends AbstractChart {
   }
 
   private List<Double> getValidLabels(List<Double> labels) {
-    List<Double> result = new ArrayList<Double>(labels);
-    for (Double label : labels) {
+    List<Double> result = labels;
+    int length = labels.size();
+    for (int i = 0; i < length; i++) {
+      Double label = labels.get(i);
       if (label.isNaN()) {
+        if (result == labels) {
+          result = new ArrayList<Double>(labels);
+        }
         result.remove(label);
       }
     }
     return result;
   }
 
+  /**
+   * Draws the visible rollup buckets of a series as minimum / maximum bands.
+   * Each tier is clipped at the start of the finer tier, or of the raw points,
+   * such as the tiers don't overlap.
+   * 
+   * @param canvas the canvas to paint to
+   * @param rollups the snapshot of the series rollups
+   * @param rawStart the X value of the first raw point
+   * @param paint the paint to be used for filling the bands
+   * @param left the left of the chart area
+   * @param bottom the bottom of the chart area
+   * @param xPixelsPerUnit the number of pixels per unit on the X axis
+   * @param yPixelsPerUnit the number of pixels per unit on the Y axis
+   * @param minX the minimum visible X value
+   * @param maxX the maximum visible X value
+   * @param minY the minimum visible Y value
+   */
+  protected void drawRollups(Canvas canvas, SeriesRollups rollups, double rawStart, Paint paint,
+      int left, int bottom, double xPixelsPerUnit, double yPixelsPerUnit, double minX,
+      double maxX, double minY) {
+    double limit = rawStart;
+    int tiers = rollups.getTierCount();
+    for (int tier = 0; tier < tiers; tier++) {
+      double interval = rollups.getInterval(tier);
+      int[] range = rollups.getIndexRange(tier, minX, Math.min(maxX, limit));
+      for (int i = range[0]; i < range[1]; i++) {
+        double start = rollups.getX(tier, i);
+        double end = Math.min(start + interval, limit);
+        if (end > start) {
+          canvas.drawRect((float) (left + xPixelsPerUnit * (start - minX)),
+              (float) (bottom - yPixelsPerUnit * (rollups.getMax(tier, i) - minY)),
+              (float) (left + xPixelsPerUnit * (end - minX)),
+              (float) (bottom - yPixelsPerUnit * (rollups.getMin(tier, i) - minY)), paint);
+        }
+      }
+      if (rollups.getBucketCount(tier) > 0) {
+        limit = Math.min(limit, rollups.getX(tier, 0));
+      }
+    }
+  }
+
   /**
    * Draws the series.
    * 
@@ -513,52 +623,21 @@ public abstract class XYChart extends AbstractChart {
   protected void drawSeries(XYSeries series, Canvas canvas, Paint paint, List<Float> pointsList,
       XYSeriesRenderer seriesRenderer, float yAxisValue, int seriesIndex, Orientation or,
       int startIndex) {
-    BasicStroke stroke = seriesRenderer.getStroke();
-    Cap cap = paint.getStrokeCap();
-    Join join = paint.getStrokeJoin();
-    float miter = paint.getStrokeMiter();
-    PathEffect pathEffect = paint.getPathEffect();
-    Style style = paint.getStyle();
-    if (stroke != null) {
-      PathEffect effect = null;
-      if (stroke.getIntervals() != null) {
-        effect = new DashPathEffect(stroke.getIntervals(), stroke.getPhase());
-      }
-      setStroke(stroke.getCap(), stroke.getJoin(), stroke.getMiter(), Style.FILL_AND_STROKE,
-          effect, paint);
-    }
+    Paint seriesPaint = seriesRenderer.getSeriesPaint(paint);
     // float[] points = MathHelper.getFloats(pointsList);
-    drawSeries(canvas, paint, pointsList, seriesRenderer, yAxisValue, seriesIndex, startIndex);
+    drawSeries(canvas, seriesPaint, pointsList, seriesRenderer, yAxisValue, seriesIndex,
+        startIndex);
     if (isRenderPoints(seriesRenderer)) {
       ScatterChart pointsChart = getPointsChart();
       if (pointsChart != null) {
-        pointsChart.drawSeries(canvas, paint, pointsList, seriesRenderer, yAxisValue, seriesIndex,
-            startIndex);
+        pointsChart.drawSeries(canvas, seriesPaint, pointsList, seriesRenderer, yAxisValue,
+            seriesIndex, startIndex);
       }
     }
-    paint.setTextSize(seriesRenderer.getChartValuesTextSize());
-    if (or == Orientation.HORIZONTAL) {
-      paint.setTextAlign(Align.CENTER);
-    } else {
-      paint.setTextAlign(Align.LEFT);
-    }
     if (seriesRenderer.isDisplayChartValues()) {
-      paint.setTextAlign(seriesRenderer.getChartValuesTextAlign());
-      drawChartValuesText(canvas, series, seriesRenderer, paint, pointsList, seriesIndex,
-          startIndex);
+      drawChartValuesText(canvas, series, seriesRenderer,
+          seriesRenderer.getChartValuesPaint(paint), pointsList, seriesIndex, startIndex);
     }
-    if (stroke != null) {
-      setStroke(cap, join, miter, style, pathEffect, paint);
-    }
-  }
-
-  private void setStroke(Cap cap, Join join, float miter, Style style, PathEffect pathEffect,
-      Paint paint) {
-    paint.setStrokeCap(cap);
-    paint.setStrokeJoin(join);
-    paint.setStrokeMiter(miter);
-    paint.setPathEffect(pathEffect);
-    paint.setStyle(style);
   }
 
   /**
@@ -574,22 +653,36 @@ public abstract class XYChart extends AbstractChart {
    */
   protected void drawChartValuesText(Canvas canvas, XYSeries series, XYSeriesRenderer renderer,
       Paint paint, List<Float> points, int seriesIndex, int startIndex) {
+    LabelFormatter formatter = renderer.getChartValuesFormatter();
+    int count = Math.min(points.size() / 2, series.getItemCount() - startIndex);
+    double[] values = null;
+    int chunkStart = 0;
+    int chunkEnd = 0;
     if (points.size() > 1) { // there are more than one point
       // record the first point's position
       float previousPointX = points.get(0);
       float previousPointY = points.get(1);
-      for (int k = 0; k < points.size(); k += 2) {
-        if (k == 2) { // decide whether to display first two points' values or
+      double firstValue = 0;
+      for (int k = 0; k < count * 2; k += 2) {
+        int index = k / 2;
+        if (index == chunkEnd) {
+          chunkStart = index;
+          chunkEnd = Math.min(count, index + COPY_CHUNK_SIZE);
+          values = copyChartValues(series, startIndex + chunkStart, startIndex + chunkEnd);
+        }
+        double value = values[index - chunkStart];
+        if (k == 0) {
+          firstValue = value;
+        } else if (k == 2) { // decide whether to display first two points' values or
                       // not
           if (Math.abs(points.get(2) - points.get(0)) > renderer.getDisplayChartValuesDistance()
               || Math.abs(points.get(3) - points.get(1)) > renderer.getDisplayChartValuesDistance()) {
             // first point
-            drawText(canvas, getLabel(renderer.getChartValuesFormat(), series.getY(startIndex)),
-                points.get(0), points.get(1) - renderer.getChartValuesSpacing(), paint, 0);
+            drawValue(canvas, formatter, firstValue, points.get(0), points.get(1)
+                - renderer.getChartValuesSpacing(), paint, 0);
             // second point
-            drawText(canvas,
-                getLabel(renderer.getChartValuesFormat(), series.getY(startIndex + 1)),
-                points.get(2), points.get(3) - renderer.getChartValuesSpacing(), paint, 0);
+            drawValue(canvas, formatter, value, points.get(2),
+                points.get(3) - renderer.getChartValuesSpacing(), paint, 0);
 
             previousPointX = points.get(2);
             previousPointY = points.get(3);
@@ -600,23 +693,47 @@ public abstract class XYChart extends AbstractChart {
           if (Math.abs(points.get(k) - previousPointX) > renderer.getDisplayChartValuesDistance()
               || Math.abs(points.get(k + 1) - previousPointY) > renderer
                   .getDisplayChartValuesDistance()) {
-            drawText(canvas,
-                getLabel(renderer.getChartValuesFormat(), series.getY(startIndex + k / 2)),
-                points.get(k), points.get(k + 1) - renderer.getChartValuesSpacing(), paint, 0);
+            drawValue(canvas, formatter, value, points.get(k),
+                points.get(k + 1) - renderer.getChartValuesSpacing(), paint, 0);
             previousPointX = points.get(k);
             previousPointY = points.get(k + 1);
           }
         }
       }
     } else { // if only one point, display it
-      for (int k = 0; k < points.size(); k += 2) {
-        drawText(canvas,
-            getLabel(renderer.getChartValuesFormat(), series.getY(startIndex + k / 2)),
-            points.get(k), points.get(k + 1) - renderer.getChartValuesSpacing(), paint, 0);
+      for (int k = 0; k < count * 2; k += 2) {
+        if (k / 2 == chunkEnd) {
+          chunkStart = k / 2;
+          chunkEnd = Math.min(count, chunkStart + COPY_CHUNK_SIZE);
+          values = copyChartValues(series, startIndex + chunkStart, startIndex + chunkEnd);
+        }
+        drawValue(canvas, formatter, values[k / 2 - chunkStart], points.get(k),
+            points.get(k + 1) - renderer.getChartValuesSpacing(), paint, 0);
       }
     }
   }
 
+  /**
+   * Copies the Y values of a range of at most {@link #COPY_CHUNK_SIZE} points
+   * into the Y values buffer of the chart, such as the values displayed on the
+   * chart are read in chunks without allocating an array for each series. The
+   * buffer is also used for drawing the points, which read their chunk again
+   * after drawing the chart values.
+   * 
+   * @param series the series
+   * @param fromIndex the index of the first point
+   * @param toIndex the index after the last point
+   * @return the buffer, holding the values from its start
+   */
+  protected double[] copyChartValues(XYSeries series, int fromIndex, int toIndex) {
+    if (mYValues == null) {
+      mXValues = new double[COPY_CHUNK_SIZE];
+      mYValues = new double[COPY_CHUNK_SIZE];
+    }
+    series.copyRange(fromIndex, toIndex, null, mYValues, 0);
+    return mYValues;
+  }
+
   /**
    * The graphical representation of a text, to handle both HORIZONTAL and
    * VERTICAL orientations and extra rotation angles.
@@ -642,6 +759,78 @@ public abstract class XYChart extends AbstractChart {
     }
   }
 
+  /**
+   * The graphical representation of a numeric value, formatted without
+   * allocating a string, to handle both HORIZONTAL and VERTICAL orientations
+   * and extra rotation angles.
+   * 
+   * @param canvas the canvas to paint to
+   * @param formatter the value formatter or null for the default formatting
+   * @param value the value to be rendered
+   * @param x the X axis location of the text
+   * @param y the Y axis location of the text
+   * @param paint the paint to be used for drawing
+   * @param extraAngle the text angle
+   */
+  protected void drawValue(Canvas canvas, LabelFormatter formatter, double value, float x,
+      float y, Paint paint, float extraAngle) {
+    int length = formatLabel(formatter, value);
+    float angle = -mRenderer.getOrientation().getAngle() + extraAngle;
+    if (angle != 0) {
+      canvas.rotate(angle, x, y);
+    }
+    canvas.drawText(getLabelChars(), 0, length, x, y, paint);
+    if (angle != 0) {
+      canvas.rotate(-angle, x, y);
+    }
+  }
+
+  /**
+   * The graphical representation of an axis label. If enabled in the renderer,
+   * the label is drawn from the atlas of pre-rasterized labels.
+   * 
+   * @param canvas the canvas to paint to
+   * @param label the label value
+   * @param x the X axis location of the text
+   * @param y the Y axis location of the text
+   * @param paint the paint to be used for drawing
+   * @param extraAngle the text angle
+   */
+  protected void drawAxisLabel(Canvas canvas, double label, float x, float y, Paint paint,
+      float extraAngle) {
+    drawAxisLabel(canvas, mRenderer.getLabelFormatter(), label, x, y, paint, extraAngle);
+  }
+
+  /**
+   * The graphical representation of an axis label. If enabled in the renderer,
+   * the label is drawn from the atlas of pre-rasterized labels.
+   * 
+   * @param canvas the canvas to paint to
+   * @param formatter the label formatter or null for the default formatting
+   * @param label the label value
+   * @param x the X axis location of the text
+   * @param y the Y axis location of the text
+   * @param paint the paint to be used for drawing
+   * @param extraAngle the text angle
+   */
+  protected void drawAxisLabel(Canvas canvas, LabelFormatter formatter, double label, float x,
+      float y, Paint paint, float extraAngle) {
+    if (mRenderer.isLabelAtlasEnabled()) {
+      if (mLabelAtlas == null) {
+        mLabelAtlas = new LabelAtlas();
+      }
+      int length = formatLabel(formatter, label);
+      float angle = -mRenderer.getOrientation().getAngle() + extraAngle;
+      if (mLabelAtlas.draw(canvas, getLabelChars(), length, x, y, paint, angle)) {
+        return;
+      }
+    } else if (mLabelAtlas != null) {
+      mLabelAtlas.release();
+      mLabelAtlas = null;
+    }
+    drawValue(canvas, formatter, label, x, y, paint, extraAngle);
+  }
+
   /**
    * Transform the canvas such as it can handle both HORIZONTAL and VERTICAL
    * orientations.
@@ -687,7 +876,7 @@ public abstract class XYChart extends AbstractChart {
       if (showLabels) {
         paint.setColor(mRenderer.getXLabelsColor());
         canvas.drawLine(xLabel, bottom, xLabel, bottom + mRenderer.getLabelsTextSize() / 3, paint);
-        drawText(canvas, getLabel(mRenderer.getLabelFormat(), label), xLabel,
+        drawAxisLabel(canvas, label, xLabel,
             bottom + mRenderer.getLabelsTextSize() * 4 / 3 + mRenderer.getXLabelsPadding(), paint,
             mRenderer.getXLabelsAngle());
       }
@@ -732,13 +921,13 @@ public abstract class XYChart extends AbstractChart {
             paint.setColor(mRenderer.getYLabelsColor(i));
             if (axisAlign == Align.LEFT) {
               canvas.drawLine(left + getLabelLinePos(axisAlign), yLabel, left, yLabel, paint);
-              drawText(canvas, getLabel(mRenderer.getLabelFormat(), label),
+              drawAxisLabel(canvas, label,
                   left - mRenderer.getYLabelsPadding(),
                   yLabel - mRenderer.getYLabelsVerticalPadding(), paint,
                   mRenderer.getYLabelsAngle());
             } else {
               canvas.drawLine(right, yLabel, right + getLabelLinePos(axisAlign), yLabel, paint);
-              drawText(canvas, getLabel(mRenderer.getLabelFormat(), label),
+              drawAxisLabel(canvas, label,
                   right + mRenderer.getYLabelsPadding(),
                   yLabel - mRenderer.getYLabelsVerticalPadding(), paint,
                   mRenderer.getYLabelsAngle());
@@ -752,7 +941,7 @@ public abstract class XYChart extends AbstractChart {
           if (showLabels && !textLabel) {
             paint.setColor(mRenderer.getYLabelsColor(i));
             canvas.drawLine(right - getLabelLinePos(axisAlign), yLabel, right, yLabel, paint);
-            drawText(canvas, getLabel(mRenderer.getLabelFormat(), label),
+            drawAxisLabel(canvas, label,
                 right + 10 + mRenderer.getYLabelsPadding(),
                 yLabel - mRenderer.getYLabelsVerticalPadding(), paint, mRenderer.getYLabelsAngle());
           }
@@ -0,0 +1,358 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.achartengine.util.MathHelper;
+
+/**
+ * An XY series storing its values in compact primitive arrays, according to a
+ * {@link ValueEncoding} for the X values and one for the Y values. A series of
+ * 16 bits sensor values can for instance use a quarter of the memory of the
+ * double storage. The values are decoded when read, the series returning the
+ * values as they were stored, with the precision loss of their encoding. The
+ * points are kept sorted by X, appending points in increasing X order being
+ * done in constant time.
+ */
+public class CompactXYSeries extends XYSeries {
+  /** The initial storage capacity. */
+  private static final int INITIAL_CAPACITY = 16;
+  /** The X values encoding. */
+  private final ValueEncoding mXEncoding;
+  /** The Y values encoding. */
+  private final ValueEncoding mYEncoding;
+  /** The encoded X values. */
+  private Object mXValues;
+  /** The encoded Y values. */
+  private Object mYValues;
+  /** The storage capacity. */
+  private int mCapacity = INITIAL_CAPACITY;
+  /** The position of the first point in the arrays. */
+  private int mStart;
+  /** The number of points. */
+  private int mSize;
+
+  /**
+   * Builds a new compact XY series, storing the X values as doubles.
+   * 
+   * @param title the series title
+   * @param yEncoding the Y values encoding
+   */
+  public CompactXYSeries(String title, ValueEncoding yEncoding) {
+    this(title, 0, ValueEncoding.DOUBLE, yEncoding);
+  }
+
+  /**
+   * Builds a new compact XY series.
+   * 
+   * @param title the series title
+   * @param scaleNumber the series scale number
+   * @param xEncoding the X values encoding
+   * @param yEncoding the Y values encoding
+   */
+  public CompactXYSeries(String title, int scaleNumber, ValueEncoding xEncoding,
+      ValueEncoding yEncoding) {
+    super(title, scaleNumber);
+    mXEncoding = xEncoding;
+    mYEncoding = yEncoding;
+    mXValues = xEncoding.newArray(INITIAL_CAPACITY);
+    mYValues = yEncoding.newArray(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Returns the X values encoding.
+   * 
+   * @return the X values encoding
+   */
+  public ValueEncoding getXEncoding() {
+    return mXEncoding;
+  }
+
+  /**
+   * Returns the Y values encoding.
+   * 
+   * @return the Y values encoding
+   */
+  public ValueEncoding getYEncoding() {
+    return mYEncoding;
+  }
+
+  /**
+   * Returns the number of bytes used for storing the points values.
+   * 
+   * @return the values size in bytes
+   */
+  public synchronized long getValuesSize() {
+    return (long) mCapacity * (mXEncoding.getBytesPerValue() + mYEncoding.getBytesPerValue());
+  }
+
+  /**
+   * Adds a new value to the series. Appending a point with an X value greater
+   * than or equal to the last one is done in constant time.
+   * 
+   * @param x the value for the X axis
+   * @param y the value for the Y axis
+   * @throws IllegalArgumentException if a value is out of its encoding range
+   */
+  @Override
+  public synchronized void add(double x, double y) {
+    int index = mSize;
+    if (index > 0 && mXEncoding.get(mXValues, mStart + index - 1) > x) {
+      index = getFirstIndexAfter(x);
+    }
+    insert(index, x, y);
+  }
+
+  /**
+   * Adds a new value to the series at the specified index. The points being
+   * kept sorted, the index is ignored and the point inserted according to its
+   * X value.
+   * 
+   * @param index the index to be added the data to
+   * @param x the value for the X axis
+   * @param y the value for the Y axis
+   * @throws IllegalArgumentException if a value is out of its encoding range
+   */
+  @Override
+  public synchronized void add(int index, double x, double y) {
+    add(x, y);
+  }
+
+  /**
+   * Inserts a point at the given index.
+   * 
+   * @param index the index
+   * @param x the X value
+   * @param y the Y value
+   */
+  private void insert(int index, double x, double y) {
+    if (mStart + mSize == mCapacity) {
+      // moves the points to the storage start, growing it when more than half
+      // full
+      if (mSize * 2 > mCapacity) {
+        int capacity = mCapacity * 2;
+        Object xValues = mXEncoding.newArray(capacity);
+        Object yValues = mYEncoding.newArray(capacity);
+        System.arraycopy(mXValues, mStart, xValues, 0, mSize);
+        System.arraycopy(mYValues, mStart, yValues, 0, mSize);
+        mXValues = xValues;
+        mYValues = yValues;
+        mCapacity = capacity;
+      } else {
+        System.arraycopy(mXValues, mStart, mXValues, 0, mSize);
+        System.arraycopy(mYValues, mStart, mYValues, 0, mSize);
+      }
+      mStart = 0;
+    }
+    int position = mStart + index;
+    if (index < mSize) {
+      System.arraycopy(mXValues, position, mXValues, position + 1, mSize - index);
+      System.arraycopy(mYValues, position, mYValues, position + 1, mSize - index);
+    }
+    try {
+      mXEncoding.set(mXValues, position, x);
+      mYEncoding.set(mYValues, position, y);
+    } catch (IllegalArgumentException e) {
+      if (index < mSize) {
+        System.arraycopy(mXValues, position + 1, mXValues, position, mSize - index);
+        System.arraycopy(mYValues, position + 1, mYValues, position, mSize - index);
+      }
+      throw e;
+    }
+    mSize++;
+    updateRange(mXEncoding.get(mXValues, position), mYEncoding.get(mYValues, position));
+    applyRetention();
+  }
+
+  /**
+   * Removes an existing value from the series.
+   * 
+   * @param index the index in the series of the value to remove
+   */
+  @Override
+  public synchronized void remove(int index) {
+    checkIndex(index);
+    int position = mStart + index;
+    double removedX = mXEncoding.get(mXValues, position);
+    double removedY = mYEncoding.get(mYValues, position);
+    System.arraycopy(mXValues, position + 1, mXValues, position, mSize - index - 1);
+    System.arraycopy(mYValues, position + 1, mYValues, position, mSize - index - 1);
+    mSize--;
+    if (removedX == getMinX() || removedX == getMaxX() || removedY == getMinY()
+        || removedY == getMaxY()) {
+      initRange();
+    }
+  }
+
+  /**
+   * Removes the first points of the series in one step, by moving the storage
+   * start.
+   * 
+   * @param count the number of points to remove
+   */
+  @Override
+  protected void removeFirst(int count) {
+    double removedMinY = MathHelper.NULL_VALUE;
+    double removedMaxY = -MathHelper.NULL_VALUE;
+    for (int i = mStart; i < mStart + count; i++) {
+      double y = mYEncoding.get(mYValues, i);
+      removedMinY = Math.min(removedMinY, y);
+      removedMaxY = Math.max(removedMaxY, y);
+    }
+    mStart += count;
+    mSize -= count;
+    updateRangeAfterRemoveFirst(removedMinY, removedMaxY);
+  }
+
+  /**
+   * Removes all the existing values from the series.
+   */
+  @Override
+  public synchronized void clear() {
+    mStart = 0;
+    mSize = 0;
+    super.clear();
+  }
+
+  /**
+   * Returns the X axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the X value
+   */
+  @Override
+  public synchronized double getX(int index) {
+    checkIndex(index);
+    return mXEncoding.get(mXValues, mStart + index);
+  }
+
+  /**
+   * Returns the Y axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the Y value
+   */
+  @Override
+  public synchronized double getY(int index) {
+    checkIndex(index);
+    return mYEncoding.get(mYValues, mStart + index);
+  }
+
+  /**
+   * Returns the series item count.
+   * 
+   * @return the series item count
+   */
+  @Override
+  public synchronized int getItemCount() {
+    return mSize;
+  }
+
+  /**
+   * Returns the index of an X value, or (-(insertion point) - 1) if the series
+   * doesn't contain it.
+   * 
+   * @param key the X value
+   * @return the X value index
+   */
+  @Override
+  public synchronized int getIndexForKey(double key) {
+    int index = getFirstIndexFrom(key);
+    if (index < mSize && mXEncoding.get(mXValues, mStart + index) == key) {
+      return index;
+    }
+    return -index - 1;
+  }
+
+  /**
+   * Returns submap of x and y values according to the given start and end. The
+   * map is built on every call and only kept for compatibility, the charts use
+   * getIndexRange.
+   * 
+   * @param start start x value
+   * @param stop stop x value
+   * @param beforeAfterPoints if the points before and after the first and last
+   *          visible ones must be displayed
+   * @return a submap of x and y values
+   */
+  @Override
+  public synchronized SortedMap<Double, Double> getRange(double start, double stop,
+      boolean beforeAfterPoints) {
+    int[] range = getIndexRange(start, stop, beforeAfterPoints);
+    SortedMap<Double, Double> map = new TreeMap<Double, Double>();
+    for (int i = range[0]; i < range[1]; i++) {
+      map.put(mXEncoding.get(mXValues, mStart + i), mYEncoding.get(mYValues, mStart + i));
+    }
+    return map;
+  }
+
+  /**
+   * Returns the index of the first point with an X value greater than or equal
+   * to the given value.
+   * 
+   * @param x the x value
+   * @return the index of the first point at or after x, the item count if
+   *         there is none
+   */
+  @Override
+  protected synchronized int getFirstIndexFrom(double x) {
+    int low = 0;
+    int high = mSize;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (mXEncoding.get(mXValues, mStart + middle) < x) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the index of the first point with an X value strictly greater than
+   * the given one.
+   * 
+   * @param x the x value
+   * @return the index of the first point after x
+   */
+  private int getFirstIndexAfter(double x) {
+    int low = 0;
+    int high = mSize;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (mXEncoding.get(mXValues, mStart + middle) <= x) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Checks the index is in the series range.
+   * 
+   * @param index the index
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= mSize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+    }
+  }
+}
@@ -0,0 +1,896 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.achartengine.util.MathHelper;
+
+/**
+ * A date / time series compressing its points in fixed size blocks, for long
+ * running dashboards with regular timestamps and slowly changing values. The
+ * timestamps are stored as deltas of deltas and the values as the XOR with the
+ * previous value, on a variable number of bits, such as a regular sample takes
+ * about two bytes instead of sixteen.<br/>
+ * The last points are kept uncompressed in a head block which is compressed
+ * when full. Each compressed block has a header with its time range and its
+ * minimum and maximum values, such as the time range queries and the range
+ * updates skip the blocks they don't need. The points are read by
+ * decompressing a whole block in a reusable buffer, such as drawing the
+ * visible points only decompresses the visible blocks, once each.<br/>
+ * Appending points in time order is done in constant time, while inserting
+ * points in the past or removing points other than the first one recompresses
+ * the block holding them. Points sharing the same timestamp are kept as they
+ * are, in their insertion order.
+ */
+public class CompressedTimeSeries extends XYSeries {
+  /** The default number of points per block. */
+  public static final int DEFAULT_BLOCK_SIZE = 1024;
+  /** The maximum number of points per block. */
+  private final int mBlockSize;
+  /** The compressed blocks. */
+  private final List<Block> mBlocks = new ArrayList<Block>();
+  /** The timestamps of the head block. */
+  private final long[] mHeadTimes;
+  /** The values of the head block. */
+  private final double[] mHeadValues;
+  /** The number of points in the head block. */
+  private int mHeadSize;
+  /** The number of points removed from the start of the first block. */
+  private int mFirst;
+  /** The number of points. */
+  private int mSize;
+  /** The minimum value. */
+  private double mMinY = MathHelper.NULL_VALUE;
+  /** The maximum value. */
+  private double mMaxY = -MathHelper.NULL_VALUE;
+  /** The index of the first point of each block, counting the removed ones. */
+  private transient int[] mStarts;
+  /** The block decompressed in the buffer. */
+  private transient Block mDecoded;
+  /** The decompressed timestamps buffer. */
+  private transient long[] mDecodedTimes;
+  /** The decompressed values buffer. */
+  private transient double[] mDecodedValues;
+
+  /**
+   * Builds a new compressed date / time series.
+   * 
+   * @param title the series title
+   */
+  public CompressedTimeSeries(String title) {
+    this(title, DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Builds a new compressed date / time series.
+   * 
+   * @param title the series title
+   * @param blockSize the maximum number of points per block
+   */
+  public CompressedTimeSeries(String title, int blockSize) {
+    super(title);
+    if (blockSize < 2) {
+      throw new IllegalArgumentException("The block size must be at least 2");
+    }
+    mBlockSize = blockSize;
+    mHeadTimes = new long[blockSize];
+    mHeadValues = new double[blockSize];
+  }
+
+  /**
+   * Adds a new value to the series.
+   * 
+   * @param x the date / time value for the X axis
+   * @param y the value for the Y axis
+   */
+  public synchronized void add(Date x, double y) {
+    add(x.getTime(), y);
+  }
+
+  /**
+   * Adds a new value to the series. Appending a point later than or at the
+   * same time as the last one is done in constant time.
+   * 
+   * @param time the date / time value for the X axis, in milliseconds
+   * @param y the value for the Y axis
+   */
+  public synchronized void add(long time, double y) {
+    int index = mSize;
+    if (index > 0 && getTimeAt(index - 1) > time) {
+      index = search(time, true);
+    }
+    insert(index, time, y);
+  }
+
+  /**
+   * Adds a new value to the series.
+   * 
+   * @param x the date / time value for the X axis, in milliseconds
+   * @param y the value for the Y axis
+   */
+  @Override
+  public synchronized void add(double x, double y) {
+    add(Math.round(x), y);
+  }
+
+  /**
+   * Adds a new value to the series at the specified index.
+   * 
+   * @param index the index to be added the data to
+   * @param x the date / time value for the X axis, in milliseconds
+   * @param y the value for the Y axis
+   */
+  @Override
+  public synchronized void add(int index, double x, double y) {
+    if (index < 0 || index > mSize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+    }
+    insert(index, Math.round(x), y);
+  }
+
+  /**
+   * Inserts a point at the specified index.
+   * 
+   * @param index the index
+   * @param time the timestamp
+   * @param y the value
+   */
+  private void insert(int index, long time, double y) {
+    int compressed = mSize - mHeadSize;
+    if (index >= compressed) {
+      int position = index - compressed;
+      System.arraycopy(mHeadTimes, position, mHeadTimes, position + 1, mHeadSize - position);
+      System.arraycopy(mHeadValues, position, mHeadValues, position + 1, mHeadSize - position);
+      mHeadTimes[position] = time;
+      mHeadValues[position] = y;
+      mHeadSize++;
+      if (mHeadSize == mBlockSize) {
+        mBlocks.add(new Block(mHeadTimes, mHeadValues, 0, mHeadSize));
+        mHeadSize = 0;
+        mStarts = null;
+      }
+    } else {
+      int block = getBlockIndex(index + mFirst);
+      int skipped = block == 0 ? mFirst : 0;
+      int position = index + mFirst - getStarts()[block];
+      int count = mBlocks.get(block).mCount;
+      long[] times = new long[count + 1 - skipped];
+      double[] values = new double[count + 1 - skipped];
+      decode(block);
+      int before = position - skipped;
+      System.arraycopy(mDecodedTimes, skipped, times, 0, before);
+      System.arraycopy(mDecodedValues, skipped, values, 0, before);
+      times[before] = time;
+      values[before] = y;
+      System.arraycopy(mDecodedTimes, position, times, before + 1, count - position);
+      System.arraycopy(mDecodedValues, position, values, before + 1, count - position);
+      replace(block, times, values, times.length);
+      if (block == 0) {
+        mFirst = 0;
+      }
+    }
+    mSize++;
+    updateRange(time, y);
+    applyRetention();
+  }
+
+  /**
+   * Replaces a block by the compression of the given points, split in two
+   * blocks if there are too many of them.
+   * 
+   * @param block the index of the block to replace
+   * @param times the timestamps
+   * @param values the values
+   * @param count the number of points, which can be 0 to remove the block
+   */
+  private void replace(int block, long[] times, double[] values, int count) {
+    if (count == 0) {
+      mBlocks.remove(block);
+    } else if (count > mBlockSize) {
+      int half = count / 2;
+      mBlocks.set(block, new Block(times, values, 0, half));
+      mBlocks.add(block + 1, new Block(times, values, half, count - half));
+    } else {
+      mBlocks.set(block, new Block(times, values, 0, count));
+    }
+    mStarts = null;
+  }
+
+  /**
+   * Removes an existing value from the series. Removing the first point is
+   * done in constant time.
+   * 
+   * @param index the index in the series of the value to remove
+   */
+  @Override
+  public synchronized void remove(int index) {
+    checkIndex(index);
+    double removedY = getValueAt(index);
+    int compressed = mSize - mHeadSize;
+    if (index >= compressed) {
+      int position = index - compressed;
+      int moved = mHeadSize - position - 1;
+      System.arraycopy(mHeadTimes, position + 1, mHeadTimes, position, moved);
+      System.arraycopy(mHeadValues, position + 1, mHeadValues, position, moved);
+      mHeadSize--;
+    } else if (index == 0) {
+      mFirst++;
+      if (mFirst == mBlocks.get(0).mCount) {
+        mBlocks.remove(0);
+        mFirst = 0;
+        mStarts = null;
+      }
+    } else {
+      int block = getBlockIndex(index + mFirst);
+      int skipped = block == 0 ? mFirst : 0;
+      int position = index + mFirst - getStarts()[block];
+      int count = mBlocks.get(block).mCount;
+      long[] times = new long[count - 1 - skipped];
+      double[] values = new double[count - 1 - skipped];
+      decode(block);
+      int before = position - skipped;
+      System.arraycopy(mDecodedTimes, skipped, times, 0, before);
+      System.arraycopy(mDecodedValues, skipped, values, 0, before);
+      System.arraycopy(mDecodedTimes, position + 1, times, before, count - position - 1);
+      System.arraycopy(mDecodedValues, position + 1, values, before, count - position - 1);
+      replace(block, times, values, times.length);
+      if (block == 0) {
+        mFirst = 0;
+      }
+    }
+    mSize--;
+    if (removedY == mMinY || removedY == mMaxY) {
+      initRange();
+    }
+  }
+
+  /**
+   * Removes the first points of the series in one step. The whole blocks are
+   * dropped without being decompressed, their headers giving their values
+   * range, and the values range is only scanned again if the removed points
+   * held one of its bounds.
+   * 
+   * @param count the number of points to remove
+   */
+  @Override
+  protected void removeFirst(int count) {
+    double removedMinY = MathHelper.NULL_VALUE;
+    double removedMaxY = -MathHelper.NULL_VALUE;
+    int remaining = count;
+    while (remaining > 0 && !mBlocks.isEmpty()) {
+      Block block = mBlocks.get(0);
+      int available = block.mCount - mFirst;
+      if (remaining >= available) {
+        removedMinY = Math.min(removedMinY, block.mMinY);
+        removedMaxY = Math.max(removedMaxY, block.mMaxY);
+        mBlocks.remove(0);
+        mFirst = 0;
+        mStarts = null;
+        remaining -= available;
+      } else {
+        decode(0);
+        for (int k = mFirst; k < mFirst + remaining; k++) {
+          removedMinY = Math.min(removedMinY, mDecodedValues[k]);
+          removedMaxY = Math.max(removedMaxY, mDecodedValues[k]);
+        }
+        mFirst += remaining;
+        remaining = 0;
+      }
+    }
+    if (remaining > 0) {
+      for (int k = 0; k < remaining; k++) {
+        removedMinY = Math.min(removedMinY, mHeadValues[k]);
+        removedMaxY = Math.max(removedMaxY, mHeadValues[k]);
+      }
+      mHeadSize -= remaining;
+      System.arraycopy(mHeadTimes, remaining, mHeadTimes, 0, mHeadSize);
+      System.arraycopy(mHeadValues, remaining, mHeadValues, 0, mHeadSize);
+    }
+    mSize -= count;
+    if (mSize == 0 || !(removedMinY > mMinY && removedMaxY < mMaxY)) {
+      initRange();
+    }
+  }
+
+  /**
+   * Removes all the existing values from the series.
+   */
+  @Override
+  public synchronized void clear() {
+    mBlocks.clear();
+    mHeadSize = 0;
+    mFirst = 0;
+    mSize = 0;
+    mStarts = null;
+    mDecoded = null;
+    super.clear();
+  }
+
+  /**
+   * Returns the timestamp at the specified index.
+   * 
+   * @param index the index
+   * @return the timestamp in milliseconds
+   */
+  public synchronized long getTime(int index) {
+    checkIndex(index);
+    return getTimeAt(index);
+  }
+
+  /**
+   * Returns the X axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the X value
+   */
+  @Override
+  public synchronized double getX(int index) {
+    checkIndex(index);
+    return getTimeAt(index);
+  }
+
+  /**
+   * Returns the Y axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the Y value
+   */
+  @Override
+  public synchronized double getY(int index) {
+    checkIndex(index);
+    return getValueAt(index);
+  }
+
+  /**
+   * Returns the series item count.
+   * 
+   * @return the series item count
+   */
+  @Override
+  public synchronized int getItemCount() {
+    return mSize;
+  }
+
+  /**
+   * Returns the number of compressed blocks, the head block excluded.
+   * 
+   * @return the number of compressed blocks
+   */
+  public synchronized int getBlockCount() {
+    return mBlocks.size();
+  }
+
+  /**
+   * Returns the memory used by the points, the compressed blocks with their
+   * headers and the head block.
+   * 
+   * @return the size of the points storage in bytes
+   */
+  public synchronized long getStorageSize() {
+    long size = mBlockSize * 16L;
+    int length = mBlocks.size();
+    for (int i = 0; i < length; i++) {
+      size += Block.HEADER_SIZE + mBlocks.get(i).mBits.length * 8L;
+    }
+    return size;
+  }
+
+  /**
+   * Returns the minimum value on the X axis.
+   * 
+   * @return the X axis minimum value
+   */
+  @Override
+  public synchronized double getMinX() {
+    return mSize == 0 ? MathHelper.NULL_VALUE : getTimeAt(0);
+  }
+
+  /**
+   * Returns the maximum value on the X axis.
+   * 
+   * @return the X axis maximum value
+   */
+  @Override
+  public synchronized double getMaxX() {
+    return mSize == 0 ? -MathHelper.NULL_VALUE : getTimeAt(mSize - 1);
+  }
+
+  /**
+   * Returns the minimum value on the Y axis.
+   * 
+   * @return the Y axis minimum value
+   */
+  @Override
+  public synchronized double getMinY() {
+    return mMinY;
+  }
+
+  /**
+   * Returns the maximum value on the Y axis.
+   * 
+   * @return the Y axis maximum value
+   */
+  @Override
+  public synchronized double getMaxY() {
+    return mMaxY;
+  }
+
+  /**
+   * Initializes the values range from the block headers, only the first block
+   * being decompressed when points were removed from its start.
+   */
+  @Override
+  protected void initRange() {
+    mMinY = MathHelper.NULL_VALUE;
+    mMaxY = -MathHelper.NULL_VALUE;
+    int length = mBlocks.size();
+    for (int i = 0; i < length; i++) {
+      Block block = mBlocks.get(i);
+      if (i == 0 && mFirst > 0) {
+        decode(0);
+        for (int k = mFirst; k < block.mCount; k++) {
+          updateRange(0, mDecodedValues[k]);
+        }
+      } else {
+        updateRange(0, block.mMinY);
+        updateRange(0, block.mMaxY);
+      }
+    }
+    for (int k = 0; k < mHeadSize; k++) {
+      updateRange(0, mHeadValues[k]);
+    }
+  }
+
+  /**
+   * Updates the values range, the time range being given by the first and
+   * last points.
+   * 
+   * @param x the new x value
+   * @param y the new y value
+   */
+  @Override
+  protected void updateRange(double x, double y) {
+    mMinY = Math.min(mMinY, y);
+    mMaxY = Math.max(mMaxY, y);
+  }
+
+  /**
+   * Returns the index of a timestamp, or (-(insertion point) - 1) if the
+   * series doesn't contain it.
+   * 
+   * @param key the timestamp
+   * @return the timestamp index
+   */
+  @Override
+  public synchronized int getIndexForKey(double key) {
+    int index = search(key, false);
+    if (index < mSize && getTimeAt(index) == key) {
+      return index;
+    }
+    return -index - 1;
+  }
+
+  /**
+   * Returns submap of x and y values according to the given start and end. The
+   * map is built on every call and only kept for compatibility, the charts use
+   * getIndexRange.
+   * 
+   * @param start start x value
+   * @param stop stop x value
+   * @param beforeAfterPoints if the points before and after the first and last
+   *          visible ones must be displayed
+   * @return a submap of x and y values
+   */
+  @Override
+  public synchronized SortedMap<Double, Double> getRange(double start, double stop,
+      boolean beforeAfterPoints) {
+    int[] range = getIndexRange(start, stop, beforeAfterPoints);
+    SortedMap<Double, Double> map = new TreeMap<Double, Double>();
+    for (int i = range[0]; i < range[1]; i++) {
+      map.put((double) getTimeAt(i), getValueAt(i));
+    }
+    return map;
+  }
+
+  /**
+   * Returns the index of the first point with a timestamp greater than or equal
+   * to the given value. The block is found from the block headers and only
+   * this one is decompressed.
+   * 
+   * @param x the x value
+   * @return the index of the first point at or after x, the item count if
+   *         there is none
+   */
+  @Override
+  protected synchronized int getFirstIndexFrom(double x) {
+    return search(x, false);
+  }
+
+  /**
+   * Returns the index of the first point with a timestamp greater than, or
+   * greater than or equal to, the given value.
+   * 
+   * @param x the x value
+   * @param after if the timestamp must be strictly greater
+   * @return the index of the point, the item count if there is none
+   */
+  private int search(double x, boolean after) {
+    int length = mBlocks.size();
+    int low = 0;
+    int high = length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      long last = mBlocks.get(middle).mLastTime;
+      if (last < x || after && last == x) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    long[] times;
+    int start;
+    int end;
+    int offset;
+    if (low < length) {
+      decode(low);
+      times = mDecodedTimes;
+      start = low == 0 ? mFirst : 0;
+      end = mBlocks.get(low).mCount;
+      offset = getStarts()[low] - mFirst;
+    } else {
+      times = mHeadTimes;
+      start = 0;
+      end = mHeadSize;
+      offset = mSize - mHeadSize;
+    }
+    while (start < end) {
+      int middle = (start + end) >>> 1;
+      if (times[middle] < x || after && times[middle] == x) {
+        start = middle + 1;
+      } else {
+        end = middle;
+      }
+    }
+    return offset + start;
+  }
+
+  /**
+   * Returns the timestamp at the specified index, without range check.
+   * 
+   * @param index the index
+   * @return the timestamp
+   */
+  private long getTimeAt(int index) {
+    int compressed = mSize - mHeadSize;
+    if (index >= compressed) {
+      return mHeadTimes[index - compressed];
+    }
+    int block = getBlockIndex(index + mFirst);
+    decode(block);
+    return mDecodedTimes[index + mFirst - mStarts[block]];
+  }
+
+  /**
+   * Returns the value at the specified index, without range check.
+   * 
+   * @param index the index
+   * @return the value
+   */
+  private double getValueAt(int index) {
+    int compressed = mSize - mHeadSize;
+    if (index >= compressed) {
+      return mHeadValues[index - compressed];
+    }
+    int block = getBlockIndex(index + mFirst);
+    decode(block);
+    return mDecodedValues[index + mFirst - mStarts[block]];
+  }
+
+  /**
+   * Returns the index of the block holding a point, the points removed from
+   * the first block being counted.
+   * 
+   * @param position the position of the point in the blocks
+   * @return the block index
+   */
+  private int getBlockIndex(int position) {
+    int[] starts = getStarts();
+    if (mDecoded != null) {
+      // the sequential reads stay in the decompressed block
+      int block = mDecoded.mIndex;
+      if (block < mBlocks.size() && mBlocks.get(block) == mDecoded && starts[block] <= position
+          && position < starts[block + 1]) {
+        return block;
+      }
+    }
+    int low = 0;
+    int high = mBlocks.size() - 1;
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (starts[middle] <= position) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the index of the first point of each block, and the total number of
+   * points in the blocks as last element.
+   * 
+   * @return the blocks start indexes
+   */
+  private int[] getStarts() {
+    if (mStarts == null) {
+      int length = mBlocks.size();
+      mStarts = new int[length + 1];
+      for (int i = 0; i < length; i++) {
+        Block block = mBlocks.get(i);
+        block.mIndex = i;
+        mStarts[i + 1] = mStarts[i] + block.mCount;
+      }
+    }
+    return mStarts;
+  }
+
+  /**
+   * Decompresses a block in the reusable buffer, unless it is already there.
+   * 
+   * @param index the block index
+   */
+  private void decode(int index) {
+    Block block = mBlocks.get(index);
+    if (block == mDecoded) {
+      return;
+    }
+    if (mDecodedTimes == null || mDecodedTimes.length < block.mCount) {
+      int capacity = Math.max(mBlockSize, block.mCount);
+      mDecodedTimes = new long[capacity];
+      mDecodedValues = new double[capacity];
+    }
+    block.decode(mDecodedTimes, mDecodedValues);
+    mDecoded = block;
+  }
+
+  /**
+   * Checks the index is in the series range.
+   * 
+   * @param index the index
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= mSize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+    }
+  }
+
+  /**
+   * A compressed block of points. The first timestamp and value are stored on
+   * 64 bits. Each next timestamp is stored as the difference between its delta
+   * with the previous timestamp and the previous delta, on 1, 9, 12, 16 or 68
+   * bits. Each next value is stored as its XOR with the previous value, on 1
+   * bit when equal, or as the meaningful bits of the XOR, reusing the previous
+   * count of leading and trailing zeros when they fit.
+   */
+  private static class Block implements Serializable {
+    /** The approximate size of the block header and object in bytes. */
+    private static final int HEADER_SIZE = 64;
+    /** The number of points. */
+    private final int mCount;
+    /** The first timestamp. */
+    private final long mFirstTime;
+    /** The last timestamp. */
+    private final long mLastTime;
+    /** The minimum value. */
+    private final double mMinY;
+    /** The maximum value. */
+    private final double mMaxY;
+    /** The compressed points. */
+    private final long[] mBits;
+    /** The index of the block in the series, valid while the starts are. */
+    private transient int mIndex;
+    /** The bits being written or read. */
+    private transient long[] mBuffer;
+    /** The bit position being written or read. */
+    private transient int mPosition;
+
+    /**
+     * Builds a new compressed block.
+     * 
+     * @param times the timestamps
+     * @param values the values
+     * @param offset the index of the first point to compress
+     * @param count the number of points to compress
+     */
+    public Block(long[] times, double[] values, int offset, int count) {
+      mCount = count;
+      mFirstTime = times[offset];
+      mLastTime = times[offset + count - 1];
+      mBuffer = new long[Math.max(2, count / 4)];
+      double min = MathHelper.NULL_VALUE;
+      double max = -MathHelper.NULL_VALUE;
+      long previousTime = 0;
+      long previousDelta = 0;
+      long previousBits = 0;
+      int leading = -1;
+      int trailing = 0;
+      for (int i = 0; i < count; i++) {
+        long time = times[offset + i];
+        double value = values[offset + i];
+        long bits = Double.doubleToRawLongBits(value);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (i == 0) {
+          write(time, 64);
+          write(bits, 64);
+        } else {
+          long delta = time - previousTime;
+          long deltaOfDelta = delta - previousDelta;
+          if (deltaOfDelta == 0) {
+            write(0, 1);
+          } else if (deltaOfDelta >= -64 && deltaOfDelta < 64) {
+            write(2, 2);
+            write(deltaOfDelta, 7);
+          } else if (deltaOfDelta >= -256 && deltaOfDelta < 256) {
+            write(6, 3);
+            write(deltaOfDelta, 9);
+          } else if (deltaOfDelta >= -2048 && deltaOfDelta < 2048) {
+            write(14, 4);
+            write(deltaOfDelta, 12);
+          } else {
+            write(15, 4);
+            write(deltaOfDelta, 64);
+          }
+          previousDelta = delta;
+          long xor = bits ^ previousBits;
+          if (xor == 0) {
+            write(0, 1);
+          } else {
+            int newLeading = Math.min(31, Long.numberOfLeadingZeros(xor));
+            int newTrailing = Long.numberOfTrailingZeros(xor);
+            if (leading >= 0 && newLeading >= leading && newTrailing >= trailing) {
+              write(2, 2);
+              write(xor >>> trailing, 64 - leading - trailing);
+            } else {
+              leading = newLeading;
+              trailing = newTrailing;
+              int meaningful = 64 - leading - trailing;
+              write(3, 2);
+              write(leading, 5);
+              write(meaningful - 1, 6);
+              write(xor >>> trailing, meaningful);
+            }
+          }
+        }
+        previousTime = time;
+        previousBits = bits;
+      }
+      mMinY = min;
+      mMaxY = max;
+      int words = (mPosition + 63) >>> 6;
+      mBits = new long[words];
+      System.arraycopy(mBuffer, 0, mBits, 0, words);
+      mBuffer = null;
+    }
+
+    /**
+     * Decompresses the points.
+     * 
+     * @param times the array to decompress the timestamps to
+     * @param values the array to decompress the values to
+     */
+    public void decode(long[] times, double[] values) {
+      mBuffer = mBits;
+      mPosition = 0;
+      long time = read(64);
+      long bits = read(64);
+      times[0] = time;
+      values[0] = Double.longBitsToDouble(bits);
+      long delta = 0;
+      int leading = 0;
+      int trailing = 0;
+      for (int i = 1; i < mCount; i++) {
+        if (read(1) != 0) {
+          if (read(1) == 0) {
+            delta += signed(read(7), 7);
+          } else if (read(1) == 0) {
+            delta += signed(read(9), 9);
+          } else if (read(1) == 0) {
+            delta += signed(read(12), 12);
+          } else {
+            delta += read(64);
+          }
+        }
+        time += delta;
+        if (read(1) != 0) {
+          if (read(1) != 0) {
+            leading = (int) read(5);
+            trailing = 64 - leading - ((int) read(6) + 1);
+          }
+          bits ^= read(64 - leading - trailing) << trailing;
+        }
+        times[i] = time;
+        values[i] = Double.longBitsToDouble(bits);
+      }
+      mBuffer = null;
+    }
+
+    /**
+     * Writes the lowest bits of a value.
+     * 
+     * @param value the value
+     * @param count the number of bits, from 1 to 64
+     */
+    private void write(long value, int count) {
+      if (mPosition + count > mBuffer.length * 64) {
+        long[] buffer = new long[mBuffer.length * 2];
+        System.arraycopy(mBuffer, 0, buffer, 0, mBuffer.length);
+        mBuffer = buffer;
+      }
+      if (count < 64) {
+        value &= (1L << count) - 1;
+      }
+      int word = mPosition >>> 6;
+      int used = mPosition & 63;
+      int free = 64 - used;
+      if (count <= free) {
+        mBuffer[word] |= value << (free - count);
+      } else {
+        mBuffer[word] |= value >>> (count - free);
+        mBuffer[word + 1] |= value << (64 - count + free);
+      }
+      mPosition += count;
+    }
+
+    /**
+     * Reads bits as an unsigned value.
+     * 
+     * @param count the number of bits, from 1 to 64
+     * @return the value
+     */
+    private long read(int count) {
+      int word = mPosition >>> 6;
+      int used = mPosition & 63;
+      int free = 64 - used;
+      long value;
+      if (count <= free) {
+        value = mBuffer[word] >>> (free - count);
+      } else {
+        value = (mBuffer[word] << (count - free)) | (mBuffer[word + 1] >>> (64 - count + free));
+      }
+      mPosition += count;
+      return count < 64 ? value & ((1L << count) - 1) : value;
+    }
+
+    /**
+     * Extends the sign of a value read on a number of bits.
+     * 
+     * @param value the value
+     * @param count the number of bits
+     * @return the signed value
+     */
+    private static long signed(long value, int count) {
+      return (value << (64 - count)) >> (64 - count);
+    }
+  }
+}
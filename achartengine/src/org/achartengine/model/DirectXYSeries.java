@@ -0,0 +1,524 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.achartengine.util.MathHelper;
+
+/**
+ * An XY series storing its values outside of the Java heap, in direct buffer
+ * chunks, such as very large datasets don't compete with the bitmaps for the
+ * heap. The storage grows by adding chunks, without copying the existing
+ * values, and the points removed from the series start release their chunks
+ * for reuse. The points are kept sorted by X, appending points in increasing X
+ * order being done in constant time. The native memory is given back when the
+ * series is garbage collected.
+ */
+public class DirectXYSeries extends XYSeries {
+  /** The number of bits of the chunk size. */
+  private static final int CHUNK_SHIFT = 12;
+  /** The number of points per chunk. */
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  /** The mask of the index in a chunk. */
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  /** The X values chunks. */
+  private transient DoubleBuffer[] mXChunks = new DoubleBuffer[4];
+  /** The Y values chunks. */
+  private transient DoubleBuffer[] mYChunks = new DoubleBuffer[4];
+  /** The number of allocated chunks. */
+  private transient int mChunkCount;
+  /** The position of the first point in the first chunk. */
+  private transient int mStart;
+  /** The number of points. */
+  private transient int mSize;
+
+  /**
+   * Builds a new direct XY series.
+   * 
+   * @param title the series title
+   */
+  public DirectXYSeries(String title) {
+    super(title);
+  }
+
+  /**
+   * Builds a new direct XY series.
+   * 
+   * @param title the series title
+   * @param scaleNumber the series scale number
+   */
+  public DirectXYSeries(String title, int scaleNumber) {
+    super(title, scaleNumber);
+  }
+
+  /**
+   * Adds a new value to the series. Appending a point with an X value greater
+   * than or equal to the last one is done in constant time.
+   * 
+   * @param x the value for the X axis
+   * @param y the value for the Y axis
+   */
+  @Override
+  public synchronized void add(double x, double y) {
+    ensureCapacity(mSize + 1);
+    int index = mSize;
+    if (index > 0 && getXAt(index - 1) > x) {
+      index = getFirstIndexAfter(x);
+      for (int i = mSize; i > index; i--) {
+        setAt(i, getXAt(i - 1), getYAt(i - 1));
+      }
+    }
+    setAt(index, x, y);
+    mSize++;
+    updateRange(x, y);
+    applyRetention();
+  }
+
+  /**
+   * Adds a new value to the series at the specified index. The points being
+   * kept sorted, the index is ignored and the point inserted according to its
+   * X value.
+   * 
+   * @param index the index to be added the data to
+   * @param x the value for the X axis
+   * @param y the value for the Y axis
+   */
+  @Override
+  public synchronized void add(int index, double x, double y) {
+    add(x, y);
+  }
+
+  /**
+   * Appends the remaining values of the given buffers, copying them in bulk.
+   * The X values must be sorted and not lower than the last X value of the
+   * series. The buffers positions are moved past the copied values.
+   * 
+   * @param xValues the X values
+   * @param yValues the Y values
+   * @throws IllegalArgumentException if the buffers don't have the same number
+   *           of remaining values or the X values are not sorted
+   */
+  public synchronized void addAll(DoubleBuffer xValues, DoubleBuffer yValues) {
+    int length = xValues.remaining();
+    if (yValues.remaining() != length) {
+      throw new IllegalArgumentException("The X and Y buffers have different lengths");
+    }
+    int xLimit = xValues.limit();
+    int yLimit = yValues.limit();
+    ensureCapacity(mSize + length);
+    int index = mSize;
+    int end = mSize + length;
+    try {
+      while (index < end) {
+        int position = mStart + index;
+        int offset = position & CHUNK_MASK;
+        int count = Math.min(CHUNK_SIZE - offset, end - index);
+        DoubleBuffer x = mXChunks[position >> CHUNK_SHIFT];
+        DoubleBuffer y = mYChunks[position >> CHUNK_SHIFT];
+        x.position(offset);
+        y.position(offset);
+        xValues.limit(xValues.position() + count);
+        yValues.limit(yValues.position() + count);
+        x.put(xValues);
+        y.put(yValues);
+        index += count;
+      }
+    } finally {
+      xValues.limit(xLimit);
+      yValues.limit(yLimit);
+    }
+    double previous = mSize > 0 ? getXAt(mSize - 1) : -Double.MAX_VALUE;
+    for (int i = mSize; i < end; i++) {
+      double x = getXAt(i);
+      if (x < previous) {
+        throw new IllegalArgumentException("The X values must be sorted, " + x + " after "
+            + previous);
+      }
+      previous = x;
+    }
+    for (int i = mSize; i < end; i++) {
+      updateRange(getXAt(i), getYAt(i));
+    }
+    mSize = end;
+    applyRetention();
+  }
+
+  /**
+   * Appends values from the given arrays, copying them in bulk. The X values
+   * must be sorted and not lower than the last X value of the series.
+   * 
+   * @param xValues the X values
+   * @param yValues the Y values
+   * @param offset the index of the first value to copy
+   * @param length the number of values to copy
+   * @throws IllegalArgumentException if the X values are not sorted
+   */
+  public synchronized void addAll(double[] xValues, double[] yValues, int offset, int length) {
+    addAll(DoubleBuffer.wrap(xValues, offset, length), DoubleBuffer.wrap(yValues, offset, length));
+  }
+
+  /**
+   * Removes an existing value from the series. Removing the first point is
+   * done in constant time.
+   * 
+   * @param index the index in the series of the value to remove
+   */
+  @Override
+  public synchronized void remove(int index) {
+    checkIndex(index);
+    double removedX = getXAt(index);
+    double removedY = getYAt(index);
+    if (index == 0) {
+      mStart++;
+      if (mStart == CHUNK_SIZE) {
+        recycleFirstChunk();
+      }
+    } else {
+      for (int i = index + 1; i < mSize; i++) {
+        setAt(i - 1, getXAt(i), getYAt(i));
+      }
+    }
+    mSize--;
+    if (mSize == 0) {
+      mStart = 0;
+    }
+    if (removedX == getMinX() || removedX == getMaxX() || removedY == getMinY()
+        || removedY == getMaxY()) {
+      initRange();
+    }
+  }
+
+  /**
+   * Removes the first points of the series in one step, by moving the start
+   * and recycling the chunks left empty.
+   * 
+   * @param count the number of points to remove
+   */
+  @Override
+  protected void removeFirst(int count) {
+    double removedMinY = MathHelper.NULL_VALUE;
+    double removedMaxY = -MathHelper.NULL_VALUE;
+    for (int i = 0; i < count; i++) {
+      double y = getYAt(i);
+      removedMinY = Math.min(removedMinY, y);
+      removedMaxY = Math.max(removedMaxY, y);
+    }
+    mStart += count;
+    while (mStart >= CHUNK_SIZE) {
+      int start = mStart - CHUNK_SIZE;
+      recycleFirstChunk();
+      mStart = start;
+    }
+    mSize -= count;
+    if (mSize == 0) {
+      mStart = 0;
+    }
+    updateRangeAfterRemoveFirst(removedMinY, removedMaxY);
+  }
+
+  /**
+   * Removes all the existing values from the series. The allocated chunks are
+   * kept for the next values.
+   */
+  @Override
+  public synchronized void clear() {
+    mSize = 0;
+    mStart = 0;
+    super.clear();
+  }
+
+  /**
+   * Returns the X axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the X value
+   */
+  @Override
+  public synchronized double getX(int index) {
+    checkIndex(index);
+    return getXAt(index);
+  }
+
+  /**
+   * Returns the Y axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the Y value
+   */
+  @Override
+  public synchronized double getY(int index) {
+    checkIndex(index);
+    return getYAt(index);
+  }
+
+  /**
+   * Copies the values of a range of points into arrays, reading the chunks in bulk.
+   * 
+   * @param fromIndex the index of the first point
+   * @param toIndex the index after the last point
+   * @param xValues the array receiving the X values, or null
+   * @param yValues the array receiving the Y values, or null
+   * @param offset the index in the arrays of the first point values
+   */
+  @Override
+  public synchronized void copyRange(int fromIndex, int toIndex, double[] xValues, double[] yValues,
+      int offset) {
+    int count = checkRange(fromIndex, toIndex);
+    if (xValues != null) {
+      copyChunks(mXChunks, mStart + fromIndex, xValues, offset, count);
+    }
+    if (yValues != null) {
+      copyChunks(mYChunks, mStart + fromIndex, yValues, offset, count);
+    }
+  }
+
+  /**
+   * Returns the series item count.
+   * 
+   * @return the series item count
+   */
+  @Override
+  public synchronized int getItemCount() {
+    return mSize;
+  }
+
+  /**
+   * Returns the index of an X value, or (-(insertion point) - 1) if the series
+   * doesn't contain it.
+   * 
+   * @param key the X value
+   * @return the X value index
+   */
+  @Override
+  public synchronized int getIndexForKey(double key) {
+    int index = getFirstIndexFrom(key);
+    if (index < mSize && getXAt(index) == key) {
+      return index;
+    }
+    return -index - 1;
+  }
+
+  /**
+   * Returns submap of x and y values according to the given start and end. The
+   * map is built on every call and only kept for compatibility, the charts use
+   * getIndexRange.
+   * 
+   * @param start start x value
+   * @param stop stop x value
+   * @param beforeAfterPoints if the points before and after the first and last
+   *          visible ones must be displayed
+   * @return a submap of x and y values
+   */
+  @Override
+  public synchronized SortedMap<Double, Double> getRange(double start, double stop,
+      boolean beforeAfterPoints) {
+    int[] range = getIndexRange(start, stop, beforeAfterPoints);
+    SortedMap<Double, Double> map = new TreeMap<Double, Double>();
+    for (int i = range[0]; i < range[1]; i++) {
+      map.put(getXAt(i), getYAt(i));
+    }
+    return map;
+  }
+
+  /**
+   * Returns the index of the first point with an X value greater than or equal
+   * to the given value.
+   * 
+   * @param x the x value
+   * @return the index of the first point at or after x, the item count if
+   *         there is none
+   */
+  @Override
+  protected synchronized int getFirstIndexFrom(double x) {
+    int low = 0;
+    int high = mSize;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (getXAt(middle) < x) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the index of the first point with an X value strictly greater than
+   * the given one.
+   * 
+   * @param x the x value
+   * @return the index of the first point after x
+   */
+  private int getFirstIndexAfter(double x) {
+    int low = 0;
+    int high = mSize;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (getXAt(middle) <= x) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the X value of a point, without checking the index.
+   * 
+   * @param index the point index
+   * @return the X value
+   */
+  private double getXAt(int index) {
+    int position = mStart + index;
+    return mXChunks[position >> CHUNK_SHIFT].get(position & CHUNK_MASK);
+  }
+
+  /**
+   * Copies the values at consecutive positions of chunks into an array.
+   * 
+   * @param chunks the chunks
+   * @param position the position of the first value in the chunks
+   * @param values the array receiving the values
+   * @param offset the index in the array of the first value
+   * @param count the number of values
+   */
+  private static void copyChunks(DoubleBuffer[] chunks, int position, double[] values,
+      int offset, int count) {
+    while (count > 0) {
+      int start = position & CHUNK_MASK;
+      int length = Math.min(count, CHUNK_SIZE - start);
+      DoubleBuffer chunk = chunks[position >> CHUNK_SHIFT].duplicate();
+      chunk.position(start);
+      chunk.get(values, offset, length);
+      position += length;
+      offset += length;
+      count -= length;
+    }
+  }
+
+  /**
+   * Returns the Y value of a point, without checking the index.
+   * 
+   * @param index the point index
+   * @return the Y value
+   */
+  private double getYAt(int index) {
+    int position = mStart + index;
+    return mYChunks[position >> CHUNK_SHIFT].get(position & CHUNK_MASK);
+  }
+
+  /**
+   * Sets the values of a point, without checking the index.
+   * 
+   * @param index the point index
+   * @param x the X value
+   * @param y the Y value
+   */
+  private void setAt(int index, double x, double y) {
+    int position = mStart + index;
+    mXChunks[position >> CHUNK_SHIFT].put(position & CHUNK_MASK, x);
+    mYChunks[position >> CHUNK_SHIFT].put(position & CHUNK_MASK, y);
+  }
+
+  /**
+   * Allocates the chunks needed for storing the given number of points.
+   * 
+   * @param size the number of points
+   */
+  private void ensureCapacity(int size) {
+    int chunks = (mStart + size + CHUNK_MASK) >> CHUNK_SHIFT;
+    if (chunks > mXChunks.length) {
+      int length = Math.max(chunks, mXChunks.length * 2);
+      DoubleBuffer[] xChunks = new DoubleBuffer[length];
+      DoubleBuffer[] yChunks = new DoubleBuffer[length];
+      System.arraycopy(mXChunks, 0, xChunks, 0, mChunkCount);
+      System.arraycopy(mYChunks, 0, yChunks, 0, mChunkCount);
+      mXChunks = xChunks;
+      mYChunks = yChunks;
+    }
+    while (mChunkCount < chunks) {
+      mXChunks[mChunkCount] = allocateChunk();
+      mYChunks[mChunkCount] = allocateChunk();
+      mChunkCount++;
+    }
+  }
+
+  /**
+   * Moves the first chunk, which values were all removed, to the end of the
+   * chunks for reuse.
+   */
+  private void recycleFirstChunk() {
+    DoubleBuffer x = mXChunks[0];
+    DoubleBuffer y = mYChunks[0];
+    System.arraycopy(mXChunks, 1, mXChunks, 0, mChunkCount - 1);
+    System.arraycopy(mYChunks, 1, mYChunks, 0, mChunkCount - 1);
+    mXChunks[mChunkCount - 1] = x;
+    mYChunks[mChunkCount - 1] = y;
+    mStart = 0;
+  }
+
+  /**
+   * Allocates a new chunk outside of the Java heap.
+   * 
+   * @return the chunk
+   */
+  private static DoubleBuffer allocateChunk() {
+    return ByteBuffer.allocateDirect(CHUNK_SIZE * 8).order(ByteOrder.nativeOrder())
+        .asDoubleBuffer();
+  }
+
+  /**
+   * Checks the index is in the series range.
+   * 
+   * @param index the index
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= mSize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+    }
+  }
+
+  private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+    out.writeInt(mSize);
+    for (int i = 0; i < mSize; i++) {
+      out.writeDouble(getXAt(i));
+      out.writeDouble(getYAt(i));
+    }
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    mXChunks = new DoubleBuffer[4];
+    mYChunks = new DoubleBuffer[4];
+    int size = in.readInt();
+    ensureCapacity(size);
+    for (int i = 0; i < size; i++) {
+      setAt(i, in.readDouble(), in.readDouble());
+    }
+    mSize = size;
+  }
+}
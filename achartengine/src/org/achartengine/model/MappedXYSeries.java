@@ -0,0 +1,395 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A read only XY series over a memory mapped file, for histories too large to
+ * be loaded in memory. The operating system pages the values in as they are
+ * read, such as only the visible part of the series is loaded while panning.
+ * The file is written by {@link #write(XYSeries, File)} and has the following
+ * big endian layout:
+ * <ul>
+ * <li>the magic number 0x41435859 ("ACXY") and the format version, as ints</li>
+ * <li>the number of points, as a long</li>
+ * <li>the minimum X, maximum X, minimum Y and maximum Y, as doubles</li>
+ * <li>the X values, sorted, as doubles</li>
+ * <li>the Y values, as doubles</li>
+ * </ul>
+ */
+public class MappedXYSeries extends XYSeries {
+  /** The file magic number. */
+  public static final int MAGIC = 0x41435859;
+  /** The file format version. */
+  public static final int VERSION = 1;
+  /** The header size in bytes. */
+  private static final int HEADER_SIZE = 48;
+  /** The maximum number of points, such as a column fits in one mapping. */
+  private static final long MAX_POINTS = Integer.MAX_VALUE / 8;
+  /** The size of the buffer used for writing the files. */
+  private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+  /** The series file. */
+  private final File mFile;
+  /** The mapped X values. */
+  private transient DoubleBuffer mXValues;
+  /** The mapped Y values. */
+  private transient DoubleBuffer mYValues;
+  /** The number of points. */
+  private transient int mSize;
+
+  /**
+   * Builds a new mapped XY series.
+   * 
+   * @param title the series title
+   * @param file the series file
+   * @throws IOException if the file cannot be read or is not a series file
+   */
+  public MappedXYSeries(String title, File file) throws IOException {
+    this(title, 0, file);
+  }
+
+  /**
+   * Builds a new mapped XY series.
+   * 
+   * @param title the series title
+   * @param scaleNumber the series scale number
+   * @param file the series file
+   * @throws IOException if the file cannot be read or is not a series file
+   */
+  public MappedXYSeries(String title, int scaleNumber, File file) throws IOException {
+    super(title, scaleNumber);
+    mFile = file;
+    map();
+  }
+
+  /**
+   * Writes the points of a series to a file that can be mapped by a mapped
+   * series. The X values of the series must be sorted, as they are in the
+   * series of this package.
+   * 
+   * @param series the series
+   * @param file the file to write to
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(XYSeries series, File file) throws IOException {
+    synchronized (series) {
+      int size = series.getItemCount();
+      if (size > MAX_POINTS) {
+        throw new IOException("Too many points for a series file: " + size);
+      }
+      FileOutputStream out = new FileOutputStream(file);
+      try {
+        FileChannel channel = out.getChannel();
+        ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(size);
+        buffer.putDouble(series.getMinX());
+        buffer.putDouble(series.getMaxX());
+        buffer.putDouble(series.getMinY());
+        buffer.putDouble(series.getMaxY());
+        for (int i = 0; i < size; i++) {
+          if (!buffer.hasRemaining()) {
+            flush(channel, buffer);
+          }
+          buffer.putDouble(series.getX(i));
+        }
+        for (int i = 0; i < size; i++) {
+          if (!buffer.hasRemaining()) {
+            flush(channel, buffer);
+          }
+          buffer.putDouble(series.getY(i));
+        }
+        flush(channel, buffer);
+      } finally {
+        out.close();
+      }
+    }
+  }
+
+  /**
+   * Writes the content of a buffer to a channel and clears it.
+   * 
+   * @param channel the channel
+   * @param buffer the buffer
+   * @throws IOException if the channel cannot be written
+   */
+  private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Returns the series file.
+   * 
+   * @return the series file
+   */
+  public File getFile() {
+    return mFile;
+  }
+
+  /**
+   * Maps the series file.
+   * 
+   * @throws IOException if the file cannot be read or is not a series file
+   */
+  private void map() throws IOException {
+    FileInputStream in = new FileInputStream(mFile);
+    try {
+      FileChannel channel = in.getChannel();
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      while (header.hasRemaining()) {
+        if (channel.read(header) < 0) {
+          throw new IOException("Truncated series file: " + mFile);
+        }
+      }
+      header.flip();
+      if (header.getInt() != MAGIC) {
+        throw new IOException("Not a series file: " + mFile);
+      }
+      int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported series file version " + version + ": " + mFile);
+      }
+      long size = header.getLong();
+      if (size < 0 || size > MAX_POINTS || channel.size() < HEADER_SIZE + size * 16) {
+        throw new IOException("Truncated series file: " + mFile);
+      }
+      long columnSize = size * 8;
+      mXValues = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, columnSize)
+          .asDoubleBuffer();
+      mYValues = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + columnSize,
+          columnSize).asDoubleBuffer();
+      mSize = (int) size;
+      if (mSize > 0) {
+        double minX = header.getDouble();
+        double maxX = header.getDouble();
+        double minY = header.getDouble();
+        double maxY = header.getDouble();
+        updateRange(minX, minY);
+        updateRange(maxX, maxY);
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Not supported, the series is read only.
+   * 
+   * @param x the value for the X axis
+   * @param y the value for the Y axis
+   */
+  @Override
+  public void add(double x, double y) {
+    throw new UnsupportedOperationException("Mapped series are read only");
+  }
+
+  /**
+   * Not supported, the series is read only.
+   * 
+   * @param index the index to be added the data to
+   * @param x the value for the X axis
+   * @param y the value for the Y axis
+   */
+  @Override
+  public void add(int index, double x, double y) {
+    throw new UnsupportedOperationException("Mapped series are read only");
+  }
+
+  /**
+   * Not supported, the series is read only.
+   * 
+   * @param index the index in the series of the value to remove
+   */
+  @Override
+  public void remove(int index) {
+    throw new UnsupportedOperationException("Mapped series are read only");
+  }
+
+  /**
+   * Not supported, the series is read only.
+   */
+  @Override
+  public void clear() {
+    throw new UnsupportedOperationException("Mapped series are read only");
+  }
+
+  /**
+   * Not supported, the series is read only.
+   * 
+   * @param policy the retention policy
+   */
+  @Override
+  public void setRetentionPolicy(RetentionPolicy policy) {
+    if (policy != null) {
+      throw new UnsupportedOperationException("Mapped series are read only");
+    }
+  }
+
+  /**
+   * Returns the series itself, which is read only: the mapped file is read in
+   * place, without copying the visible points.
+   * 
+   * @param start start x value
+   * @param stop stop x value
+   * @param beforeAfterPoints if the points before and after the first and last
+   *          visible ones must be included
+   * @param recycled not used
+   * @return the series
+   */
+  @Override
+  public XYSeries getSnapshot(double start, double stop, boolean beforeAfterPoints,
+      XYSeriesSnapshot recycled) {
+    return this;
+  }
+
+  /**
+   * Returns the X axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the X value
+   */
+  @Override
+  public synchronized double getX(int index) {
+    return mXValues.get(index);
+  }
+
+  /**
+   * Returns the Y axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the Y value
+   */
+  @Override
+  public synchronized double getY(int index) {
+    return mYValues.get(index);
+  }
+
+  /**
+   * Copies the values of a range of points into arrays, reading the mapped columns in bulk.
+   * 
+   * @param fromIndex the index of the first point
+   * @param toIndex the index after the last point
+   * @param xValues the array receiving the X values, or null
+   * @param yValues the array receiving the Y values, or null
+   * @param offset the index in the arrays of the first point values
+   */
+  @Override
+  public synchronized void copyRange(int fromIndex, int toIndex, double[] xValues, double[] yValues,
+      int offset) {
+    int count = checkRange(fromIndex, toIndex);
+    if (xValues != null) {
+      DoubleBuffer column = mXValues.duplicate();
+      column.position(fromIndex);
+      column.get(xValues, offset, count);
+    }
+    if (yValues != null) {
+      DoubleBuffer column = mYValues.duplicate();
+      column.position(fromIndex);
+      column.get(yValues, offset, count);
+    }
+  }
+
+  /**
+   * Returns the series item count.
+   * 
+   * @return the series item count
+   */
+  @Override
+  public synchronized int getItemCount() {
+    return mSize;
+  }
+
+  /**
+   * Returns the index of an X value, or (-(insertion point) - 1) if the series
+   * doesn't contain it.
+   * 
+   * @param key the X value
+   * @return the X value index
+   */
+  @Override
+  public synchronized int getIndexForKey(double key) {
+    int index = getFirstIndexFrom(key);
+    if (index < mSize && mXValues.get(index) == key) {
+      return index;
+    }
+    return -index - 1;
+  }
+
+  /**
+   * Returns submap of x and y values according to the given start and end. The
+   * map is built on every call and only kept for compatibility, the charts use
+   * getIndexRange.
+   * 
+   * @param start start x value
+   * @param stop stop x value
+   * @param beforeAfterPoints if the points before and after the first and last
+   *          visible ones must be displayed
+   * @return a submap of x and y values
+   */
+  @Override
+  public synchronized SortedMap<Double, Double> getRange(double start, double stop,
+      boolean beforeAfterPoints) {
+    int[] range = getIndexRange(start, stop, beforeAfterPoints);
+    SortedMap<Double, Double> map = new TreeMap<Double, Double>();
+    for (int i = range[0]; i < range[1]; i++) {
+      map.put(mXValues.get(i), mYValues.get(i));
+    }
+    return map;
+  }
+
+  /**
+   * Returns the index of the first point with an X value greater than or equal
+   * to the given value, searching the mapped X column.
+   * 
+   * @param x the x value
+   * @return the index of the first point at or after x, the item count if
+   *         there is none
+   */
+  @Override
+  protected synchronized int getFirstIndexFrom(double x) {
+    int low = 0;
+    int high = mSize;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (mXValues.get(middle) < x) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    map();
+  }
+}
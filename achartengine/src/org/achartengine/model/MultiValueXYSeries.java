@@ -0,0 +1,385 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.achartengine.util.MathHelper;
+
+/**
+ * An XY series allowing several points at the same X value, such as event
+ * streams with many identical timestamps. Unlike {@link XYSeries}, which nudges
+ * a duplicate X value by a padding until it is unique, the points are kept
+ * with their X value as is, sorted by X and, for the same X, by arrival order.
+ * The values are stored in primitive arrays and appending a point at or after
+ * the last X value is done in constant time, whatever the number of points
+ * sharing its X value.
+ */
+public class MultiValueXYSeries extends XYSeries {
+  /** The initial storage capacity. */
+  private static final int INITIAL_CAPACITY = 16;
+  /** The X values. */
+  private double[] mXValues = new double[INITIAL_CAPACITY];
+  /** The Y values. */
+  private double[] mYValues = new double[INITIAL_CAPACITY];
+  /** The position of the first point in the arrays. */
+  private int mStart;
+  /** The number of points. */
+  private int mSize;
+  /** The version, incremented by each change of the points. */
+  private long mVersion;
+  /** If the storage is shared with a snapshot. */
+  private transient boolean mShared;
+
+  /**
+   * Builds a new multiple value XY series.
+   * 
+   * @param title the series title
+   */
+  public MultiValueXYSeries(String title) {
+    super(title);
+  }
+
+  /**
+   * Builds a new multiple value XY series.
+   * 
+   * @param title the series title
+   * @param scaleNumber the series scale number
+   */
+  public MultiValueXYSeries(String title, int scaleNumber) {
+    super(title, scaleNumber);
+  }
+
+  /**
+   * Adds a new value to the series, after the points sharing the same X value.
+   * Appending a point at or after the last X value is done in constant time.
+   * 
+   * @param x the value for the X axis
+   * @param y the value for the Y axis
+   */
+  @Override
+  public synchronized void add(double x, double y) {
+    int index = mSize;
+    if (index > 0 && mXValues[mStart + index - 1] > x) {
+      index = getFirstIndexAfter(x);
+    }
+    insert(index, x, y);
+  }
+
+  /**
+   * Adds a new value to the series at the specified index. The caller is
+   * responsible for keeping the X values sorted.
+   * 
+   * @param index the index to be added the data to
+   * @param x the value for the X axis
+   * @param y the value for the Y axis
+   */
+  @Override
+  public synchronized void add(int index, double x, double y) {
+    if (index < 0 || index > mSize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+    }
+    insert(index, x, y);
+  }
+
+  /**
+   * Inserts a point at the specified index.
+   * 
+   * @param index the index
+   * @param x the X value
+   * @param y the Y value
+   */
+  private void insert(int index, double x, double y) {
+    if (mStart + mSize == mXValues.length) {
+      // moves the points to the storage start, growing it when more than half
+      // full, into new arrays if the current ones are shared with a snapshot
+      int capacity = mSize * 2 > mXValues.length ? mXValues.length * 2 : mXValues.length;
+      if (capacity > mXValues.length || mShared) {
+        double[] xValues = new double[capacity];
+        double[] yValues = new double[capacity];
+        System.arraycopy(mXValues, mStart, xValues, 0, mSize);
+        System.arraycopy(mYValues, mStart, yValues, 0, mSize);
+        mXValues = xValues;
+        mYValues = yValues;
+        mShared = false;
+      } else {
+        System.arraycopy(mXValues, mStart, mXValues, 0, mSize);
+        System.arraycopy(mYValues, mStart, mYValues, 0, mSize);
+      }
+      mStart = 0;
+    }
+    int position = mStart + index;
+    if (index < mSize) {
+      unshare();
+      System.arraycopy(mXValues, position, mXValues, position + 1, mSize - index);
+      System.arraycopy(mYValues, position, mYValues, position + 1, mSize - index);
+    }
+    mXValues[position] = x;
+    mYValues[position] = y;
+    mSize++;
+    mVersion++;
+    updateRange(x, y);
+    applyRetention();
+  }
+
+  /**
+   * Removes an existing value from the series.
+   * 
+   * @param index the index in the series of the value to remove
+   */
+  @Override
+  public synchronized void remove(int index) {
+    checkIndex(index);
+    int position = mStart + index;
+    double removedX = mXValues[position];
+    double removedY = mYValues[position];
+    unshare();
+    System.arraycopy(mXValues, position + 1, mXValues, position, mSize - index - 1);
+    System.arraycopy(mYValues, position + 1, mYValues, position, mSize - index - 1);
+    mSize--;
+    mVersion++;
+    if (removedX == getMinX() || removedX == getMaxX() || removedY == getMinY()
+        || removedY == getMaxY()) {
+      initRange();
+    }
+  }
+
+  /**
+   * Removes the first points of the series in one step, by moving the storage
+   * start. A snapshot sharing the storage is not changed.
+   * 
+   * @param count the number of points to remove
+   */
+  @Override
+  protected void removeFirst(int count) {
+    double removedMinY = MathHelper.NULL_VALUE;
+    double removedMaxY = -MathHelper.NULL_VALUE;
+    for (int i = mStart; i < mStart + count; i++) {
+      removedMinY = Math.min(removedMinY, mYValues[i]);
+      removedMaxY = Math.max(removedMaxY, mYValues[i]);
+    }
+    mStart += count;
+    mSize -= count;
+    mVersion++;
+    updateRangeAfterRemoveFirst(removedMinY, removedMaxY);
+  }
+
+  /**
+   * Removes all the existing values from the series.
+   */
+  @Override
+  public synchronized void clear() {
+    if (mShared) {
+      mXValues = new double[INITIAL_CAPACITY];
+      mYValues = new double[INITIAL_CAPACITY];
+      mShared = false;
+    }
+    mStart = 0;
+    mSize = 0;
+    mVersion++;
+    super.clear();
+  }
+
+  /**
+   * Returns the X axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the X value
+   */
+  @Override
+  public synchronized double getX(int index) {
+    checkIndex(index);
+    return mXValues[mStart + index];
+  }
+
+  /**
+   * Returns the Y axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the Y value
+   */
+  @Override
+  public synchronized double getY(int index) {
+    checkIndex(index);
+    return mYValues[mStart + index];
+  }
+
+  /**
+   * Copies the values of a range of points into arrays.
+   * 
+   * @param fromIndex the index of the first point
+   * @param toIndex the index after the last point
+   * @param xValues the array receiving the X values, or null
+   * @param yValues the array receiving the Y values, or null
+   * @param offset the index in the arrays of the first point values
+   */
+  @Override
+  public synchronized void copyRange(int fromIndex, int toIndex, double[] xValues, double[] yValues,
+      int offset) {
+    int count = checkRange(fromIndex, toIndex);
+    if (xValues != null) {
+      System.arraycopy(mXValues, mStart + fromIndex, xValues, offset, count);
+    }
+    if (yValues != null) {
+      System.arraycopy(mYValues, mStart + fromIndex, yValues, offset, count);
+    }
+  }
+
+  /**
+   * Returns the series item count.
+   * 
+   * @return the series item count
+   */
+  @Override
+  public synchronized int getItemCount() {
+    return mSize;
+  }
+
+  /**
+   * Returns the index of the first point at an X value, or (-(insertion point)
+   * - 1) if the series doesn't contain it.
+   * 
+   * @param key the X value
+   * @return the index of the first point at the X value
+   */
+  @Override
+  public synchronized int getIndexForKey(double key) {
+    int index = getFirstIndexFrom(key);
+    if (index < mSize && mXValues[mStart + index] == key) {
+      return index;
+    }
+    return -index - 1;
+  }
+
+  /**
+   * Returns the index of the last point at an X value, or (-(insertion point)
+   * - 1) if the series doesn't contain it.
+   * 
+   * @param key the X value
+   * @return the index of the last point at the X value
+   */
+  public synchronized int getLastIndexForKey(double key) {
+    int index = getFirstIndexAfter(key);
+    if (index > 0 && mXValues[mStart + index - 1] == key) {
+      return index - 1;
+    }
+    return -index - 1;
+  }
+
+  /**
+   * Returns submap of x and y values according to the given start and end. The
+   * map is built on every call and only kept for compatibility, the charts use
+   * getIndexRange. A map holding one value per key, only the last point of the
+   * points sharing an X value is in it.
+   * 
+   * @param start start x value
+   * @param stop stop x value
+   * @param beforeAfterPoints if the points before and after the first and last
+   *          visible ones must be displayed
+   * @return a submap of x and y values
+   */
+  @Override
+  public synchronized SortedMap<Double, Double> getRange(double start, double stop,
+      boolean beforeAfterPoints) {
+    int[] range = getIndexRange(start, stop, beforeAfterPoints);
+    SortedMap<Double, Double> map = new TreeMap<Double, Double>();
+    for (int i = range[0]; i < range[1]; i++) {
+      map.put(mXValues[mStart + i], mYValues[mStart + i]);
+    }
+    return map;
+  }
+
+  /**
+   * Returns the index of the first point with an X value greater than or equal
+   * to the given value.
+   * 
+   * @param x the x value
+   * @return the index of the first point at or after x, the item count if
+   *         there is none
+   */
+  @Override
+  protected synchronized int getFirstIndexFrom(double x) {
+    int low = 0;
+    int high = mSize;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (mXValues[mStart + middle] < x) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the index of the first point with an X value strictly greater than
+   * the given one.
+   * 
+   * @param x the x value
+   * @return the index of the first point after x
+   */
+  private int getFirstIndexAfter(double x) {
+    int low = 0;
+    int high = mSize;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (mXValues[mStart + middle] <= x) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns an immutable snapshot of the points, taken in constant time. The
+   * snapshot shares the storage of the series until a change other than an
+   * append, which copies it first.
+   * 
+   * @return the snapshot
+   */
+  @Override
+  public synchronized XYSeries getSnapshot() {
+    mShared = true;
+    return new XYSeriesSnapshot(this, mXValues, null, mYValues, mStart, mSize, mVersion);
+  }
+
+  /**
+   * Copies the storage if it is shared with a snapshot, before changing the
+   * points it holds.
+   */
+  private void unshare() {
+    if (mShared) {
+      mXValues = mXValues.clone();
+      mYValues = mYValues.clone();
+      mShared = false;
+    }
+  }
+
+  /**
+   * Checks the index is in the series range.
+   * 
+   * @param index the index
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= mSize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+    }
+  }
+}
@@ -41,6 +41,15 @@ public class MultipleCategorySeries implements Serializable {
     mTitle = title;
   }
 
+  /**
+   * Returns the series title.
+   * 
+   * @return the series title
+   */
+  public String getTitle() {
+    return mTitle;
+  }
+
   /**
    * Adds a new value to the series
    * 
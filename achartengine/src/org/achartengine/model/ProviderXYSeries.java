@@ -0,0 +1,303 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.achartengine.util.MathHelper;
+
+/**
+ * A read only XY series over the points of a data provider, read in place
+ * without copying them, such as the data held by the application is charted
+ * without a second copy in memory. The series range is computed by the
+ * provider and kept until {@link #refresh()} is called, after the provider
+ * points changed. The series is serializable if the provider is.
+ */
+public class ProviderXYSeries extends XYSeries {
+  /** The data provider. */
+  private final XYDataProvider mProvider;
+  /** The minimum X, maximum X, minimum Y and maximum Y values. */
+  private double[] mRange;
+
+  /**
+   * Builds a new provider XY series.
+   * 
+   * @param title the series title
+   * @param provider the data provider
+   */
+  public ProviderXYSeries(String title, XYDataProvider provider) {
+    this(title, 0, provider);
+  }
+
+  /**
+   * Builds a new provider XY series.
+   * 
+   * @param title the series title
+   * @param scaleNumber the series scale number
+   * @param provider the data provider
+   */
+  public ProviderXYSeries(String title, int scaleNumber, XYDataProvider provider) {
+    super(title, scaleNumber);
+    mProvider = provider;
+    initRange();
+  }
+
+  /**
+   * Returns the data provider.
+   * 
+   * @return the data provider
+   */
+  public XYDataProvider getProvider() {
+    return mProvider;
+  }
+
+  /**
+   * Computes the series range again, after the provider points changed.
+   */
+  public synchronized void refresh() {
+    initRange();
+  }
+
+  /**
+   * Initializes the range from the provider.
+   */
+  @Override
+  protected void initRange() {
+    int size = mProvider.size();
+    mRange = size == 0 ? null : mProvider.minMax(0, size);
+  }
+
+  /**
+   * Not supported, the series is read only.
+   * 
+   * @param x the value for the X axis
+   * @param y the value for the Y axis
+   */
+  @Override
+  public void add(double x, double y) {
+    throw new UnsupportedOperationException("Provider series are read only");
+  }
+
+  /**
+   * Not supported, the series is read only.
+   * 
+   * @param index the index to be added the data to
+   * @param x the value for the X axis
+   * @param y the value for the Y axis
+   */
+  @Override
+  public void add(int index, double x, double y) {
+    throw new UnsupportedOperationException("Provider series are read only");
+  }
+
+  /**
+   * Not supported, the series is read only.
+   * 
+   * @param index the index in the series of the value to remove
+   */
+  @Override
+  public void remove(int index) {
+    throw new UnsupportedOperationException("Provider series are read only");
+  }
+
+  /**
+   * Not supported, the series is read only.
+   */
+  @Override
+  public void clear() {
+    throw new UnsupportedOperationException("Provider series are read only");
+  }
+
+  /**
+   * Not supported, the series is read only.
+   * 
+   * @param policy the retention policy
+   */
+  @Override
+  public void setRetentionPolicy(RetentionPolicy policy) {
+    if (policy != null) {
+      throw new UnsupportedOperationException("Provider series are read only");
+    }
+  }
+
+  /**
+   * Returns the series itself, which is read only: the provider is read in
+   * place, without copying the visible points.
+   * 
+   * @param start start x value
+   * @param stop stop x value
+   * @param beforeAfterPoints if the points before and after the first and last
+   *          visible ones must be included
+   * @param recycled not used
+   * @return the series
+   */
+  @Override
+  public XYSeries getSnapshot(double start, double stop, boolean beforeAfterPoints,
+      XYSeriesSnapshot recycled) {
+    return this;
+  }
+
+  /**
+   * Returns the X axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the X value
+   */
+  @Override
+  public synchronized double getX(int index) {
+    return mProvider.x(index);
+  }
+
+  /**
+   * Returns the Y axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the Y value
+   */
+  @Override
+  public synchronized double getY(int index) {
+    return mProvider.y(index);
+  }
+
+  /**
+   * Returns the series item count.
+   * 
+   * @return the series item count
+   */
+  @Override
+  public synchronized int getItemCount() {
+    return mProvider.size();
+  }
+
+  /**
+   * Copies the values of a range of points into arrays.
+   * 
+   * @param fromIndex the index of the first point
+   * @param toIndex the index after the last point
+   * @param xValues the array receiving the X values, or null
+   * @param yValues the array receiving the Y values, or null
+   * @param offset the index in the arrays of the first point values
+   */
+  @Override
+  public synchronized void copyRange(int fromIndex, int toIndex, double[] xValues,
+      double[] yValues, int offset) {
+    int count = checkRange(fromIndex, toIndex);
+    for (int i = 0; i < count; i++) {
+      if (xValues != null) {
+        xValues[offset + i] = mProvider.x(fromIndex + i);
+      }
+      if (yValues != null) {
+        yValues[offset + i] = mProvider.y(fromIndex + i);
+      }
+    }
+  }
+
+  /**
+   * Returns the minimum value on the X axis.
+   * 
+   * @return the X axis minimum value
+   */
+  @Override
+  public synchronized double getMinX() {
+    return mRange == null ? MathHelper.NULL_VALUE : mRange[0];
+  }
+
+  /**
+   * Returns the maximum value on the X axis.
+   * 
+   * @return the X axis maximum value
+   */
+  @Override
+  public synchronized double getMaxX() {
+    return mRange == null ? -MathHelper.NULL_VALUE : mRange[1];
+  }
+
+  /**
+   * Returns the minimum value on the Y axis.
+   * 
+   * @return the Y axis minimum value
+   */
+  @Override
+  public synchronized double getMinY() {
+    return mRange == null ? MathHelper.NULL_VALUE : mRange[2];
+  }
+
+  /**
+   * Returns the maximum value on the Y axis.
+   * 
+   * @return the Y axis maximum value
+   */
+  @Override
+  public synchronized double getMaxY() {
+    return mRange == null ? -MathHelper.NULL_VALUE : mRange[3];
+  }
+
+  /**
+   * Returns the index of an X value, or (-(insertion point) - 1) if the series
+   * doesn't contain it.
+   * 
+   * @param key the X value
+   * @return the X value index
+   */
+  @Override
+  public synchronized int getIndexForKey(double key) {
+    return mProvider.indexOf(key);
+  }
+
+  /**
+   * Returns submap of x and y values according to the given start and end. The
+   * map is built on every call and only kept for compatibility, the charts use
+   * getIndexRange.
+   * 
+   * @param start start x value
+   * @param stop stop x value
+   * @param beforeAfterPoints if the points before and after the first and last
+   *          visible ones must be displayed
+   * @return a submap of x and y values
+   */
+  @Override
+  public synchronized SortedMap<Double, Double> getRange(double start, double stop,
+      boolean beforeAfterPoints) {
+    int[] range = getIndexRange(start, stop, beforeAfterPoints);
+    SortedMap<Double, Double> map = new TreeMap<Double, Double>();
+    for (int i = range[0]; i < range[1]; i++) {
+      map.put(mProvider.x(i), mProvider.y(i));
+    }
+    return map;
+  }
+
+  /**
+   * Returns the index of the first point with an X value greater than or equal
+   * to the given value, looked up by the provider.
+   * 
+   * @param x the x value
+   * @return the index of the first point at or after x, the item count if
+   *         there is none
+   */
+  @Override
+  protected synchronized int getFirstIndexFrom(double x) {
+    int index = mProvider.indexOf(x);
+    if (index < 0) {
+      return -index - 1;
+    }
+    // the provider may return any of the points sharing the X value
+    while (index > 0 && mProvider.x(index - 1) == x) {
+      index--;
+    }
+    return index;
+  }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A retention policy bounding the memory of a long running series. The raw
+ * points are kept for a given duration, then folded into rollup tiers of
+ * decreasing resolution, each bucket of a tier keeping the minimum, maximum,
+ * sum and count of its values. A tier keeps its buckets for a given duration,
+ * then folds them into the next tier, the last tier dropping them. The
+ * durations and intervals are in X axis units, which are milliseconds for the
+ * date / time series, and are counted back from the last X value.
+ * 
+ * @see XYSeries#setRetentionPolicy(RetentionPolicy)
+ */
+public class RetentionPolicy implements Serializable {
+  /** The duration of the raw points. */
+  private final double mRawDuration;
+  /** The bucket intervals of the tiers. */
+  private final List<Double> mIntervals = new ArrayList<Double>();
+  /** The durations of the tiers. */
+  private final List<Double> mDurations = new ArrayList<Double>();
+
+  /**
+   * Builds a new retention policy, dropping the points older than the raw
+   * duration until tiers are added.
+   * 
+   * @param rawDuration the duration of the raw points
+   */
+  public RetentionPolicy(double rawDuration) {
+    if (!(rawDuration >= 0)) {
+      throw new IllegalArgumentException("The raw duration must be positive");
+    }
+    mRawDuration = rawDuration;
+  }
+
+  /**
+   * Adds a rollup tier, coarser and longer than the previous one. The tier
+   * interval must be a multiple of the previous tier interval, such as the
+   * buckets fold exactly into the buckets of the next tier.
+   * 
+   * @param interval the bucket interval
+   * @param duration the duration the buckets are kept for, counted from the
+   *          last X value
+   * @return this policy, for chaining
+   */
+  public RetentionPolicy addTier(double interval, double duration) {
+    int count = mIntervals.size();
+    double previousInterval = count == 0 ? 0 : mIntervals.get(count - 1);
+    double previousDuration = count == 0 ? mRawDuration : mDurations.get(count - 1);
+    if (!(interval > previousInterval)) {
+      throw new IllegalArgumentException("The tier interval must be greater than "
+          + previousInterval);
+    }
+    if (count > 0) {
+      double ratio = interval / previousInterval;
+      if (Math.abs(ratio - Math.rint(ratio)) > 1e-9) {
+        throw new IllegalArgumentException("The tier interval must be a multiple of "
+            + previousInterval);
+      }
+    }
+    if (!(duration > previousDuration)) {
+      throw new IllegalArgumentException("The tier duration must be greater than "
+          + previousDuration);
+    }
+    mIntervals.add(interval);
+    mDurations.add(duration);
+    return this;
+  }
+
+  /**
+   * Returns the duration of the raw points.
+   * 
+   * @return the raw duration
+   */
+  public double getRawDuration() {
+    return mRawDuration;
+  }
+
+  /**
+   * Returns the number of rollup tiers.
+   * 
+   * @return the number of tiers
+   */
+  public int getTierCount() {
+    return mIntervals.size();
+  }
+
+  /**
+   * Returns the bucket interval of a tier.
+   * 
+   * @param tier the tier index
+   * @return the bucket interval
+   */
+  public double getTierInterval(int tier) {
+    return mIntervals.get(tier);
+  }
+
+  /**
+   * Returns the duration of a tier.
+   * 
+   * @param tier the tier index
+   * @return the tier duration
+   */
+  public double getTierDuration(int tier) {
+    return mDurations.get(tier);
+  }
+
+  /**
+   * Returns the horizon of the policy, beyond which everything is dropped.
+   * 
+   * @return the policy horizon
+   */
+  public double getHorizon() {
+    int count = mDurations.size();
+    return count == 0 ? mRawDuration : mDurations.get(count - 1);
+  }
+}
@@ -0,0 +1,324 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded lock-free queue of points, offered by any number of producer
+ * threads and added to the series of a dataset in bulk by a single consumer,
+ * usually once per frame just before drawing the chart. The producers neither
+ * take the series locks nor request a repaint for each point: the first point
+ * offered after a drain runs the drain request, such as a repaint of the view.
+ * The consumer adds the points of one series under one series lock, and is the
+ * only thread changing the series, which makes it a fit for
+ * {@link SingleWriterXYSeries}.<br/>
+ * The producers claim ring slots by incrementing an atomic tail, then publish
+ * each slot with its sequence number. When the queue is full, the offered
+ * points are dropped or the producers wait for the next drain, according to the
+ * overflow policy.
+ */
+public class SeriesIngestionQueue {
+  /** The time a producer waits for a drain before checking the queue again. */
+  private static final long WAIT_NANOS = 1000000;
+
+  /**
+   * The behavior when points are offered to a full queue.
+   */
+  public enum OverflowPolicy {
+    /** The points which don't fit are dropped and counted. */
+    DROP,
+    /** The producers wait until the consumer drains the queue. */
+    BLOCK;
+  }
+
+  /** The dataset. */
+  private final XYMultipleSeriesDataset mDataset;
+  /** The overflow policy. */
+  private final OverflowPolicy mPolicy;
+  /** The index mask of the ring, its capacity being a power of 2. */
+  private final int mMask;
+  /** The series indexes. */
+  private final int[] mSeriesIndexes;
+  /** The X values. */
+  private final double[] mXValues;
+  /** The Y values. */
+  private final double[] mYValues;
+  /** The position + 1 of the point published in each slot. */
+  private final AtomicLongArray mSequences;
+  /** The position of the next slot claimed by a producer. */
+  private final AtomicLong mTail = new AtomicLong();
+  /** The position of the next slot read by the consumer. */
+  private volatile long mHead;
+  /** If a drain was requested since the last one. */
+  private final AtomicBoolean mDrainRequested = new AtomicBoolean();
+  /** The action requesting a drain. */
+  private volatile Runnable mDrainRequest;
+  /** The number of dropped points. */
+  private final AtomicLong mDropped = new AtomicLong();
+  /** The number of points added to the series. */
+  private volatile long mDrained;
+
+  /**
+   * Builds a new ingestion queue.
+   * 
+   * @param dataset the dataset holding the series
+   * @param capacity the number of points the queue holds, rounded up to a
+   *          power of 2
+   * @param policy the behavior when the queue is full
+   */
+  public SeriesIngestionQueue(XYMultipleSeriesDataset dataset, int capacity,
+      OverflowPolicy policy) {
+    if (capacity < 1 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("Invalid queue capacity: " + capacity);
+    }
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) {
+      size <<= 1;
+    }
+    mDataset = dataset;
+    mPolicy = policy;
+    mMask = size - 1;
+    mSeriesIndexes = new int[size];
+    mXValues = new double[size];
+    mYValues = new double[size];
+    mSequences = new AtomicLongArray(size);
+  }
+
+  /**
+   * Sets the action run by the first producer offering points after a drain,
+   * usually the repaint of the view drawing the dataset.
+   * 
+   * @param request the drain request, or null
+   */
+  public void setDrainRequest(Runnable request) {
+    mDrainRequest = request;
+  }
+
+  /**
+   * Offers a point, from any thread.
+   * 
+   * @param seriesIndex the index of the series in the dataset
+   * @param x the value for the X axis
+   * @param y the value for the Y axis
+   * @return true if the point was queued, false if it was dropped
+   */
+  public boolean offer(int seriesIndex, double x, double y) {
+    long position = claim(1, null);
+    if (position < 0) {
+      return false;
+    }
+    publish(position, seriesIndex, x, y);
+    requestDrain();
+    return true;
+  }
+
+  /**
+   * Offers a batch of points of one series, from any thread.
+   * 
+   * @param seriesIndex the index of the series in the dataset
+   * @param x the values for the X axis
+   * @param y the values for the Y axis
+   * @param offset the index of the first point in the arrays
+   * @param length the number of points
+   * @return the number of queued points, the other ones being dropped
+   */
+  public int offer(int seriesIndex, double[] x, double[] y, int offset, int length) {
+    int queued = 0;
+    int[] claimed = new int[1];
+    while (queued < length) {
+      long position = claim(length - queued, claimed);
+      if (position < 0) {
+        break;
+      }
+      int count = claimed[0];
+      for (int i = 0; i < count; i++) {
+        publish(position + i, seriesIndex, x[offset + queued + i], y[offset + queued + i]);
+      }
+      queued += count;
+    }
+    if (queued > 0) {
+      requestDrain();
+    }
+    return queued;
+  }
+
+  /**
+   * Claims up to the given number of slots, waiting or dropping according to
+   * the policy when the queue is full.
+   * 
+   * @param count the number of slots wanted
+   * @param claimed receives the number of claimed slots, null if only one
+   *          slot is wanted
+   * @return the position of the first claimed slot, -1 if the points were
+   *         dropped
+   */
+  private long claim(int count, int[] claimed) {
+    int capacity = mMask + 1;
+    while (true) {
+      long tail = mTail.get();
+      int free = (int) (capacity - (tail - mHead));
+      if (free > 0) {
+        int slots = Math.min(count, free);
+        if (mTail.compareAndSet(tail, tail + slots)) {
+          if (claimed != null) {
+            claimed[0] = slots;
+          }
+          return tail;
+        }
+      } else if (mPolicy == OverflowPolicy.DROP || Thread.currentThread().isInterrupted()) {
+        mDropped.addAndGet(count);
+        return -1;
+      } else {
+        requestDrain();
+        LockSupport.parkNanos(WAIT_NANOS);
+      }
+    }
+  }
+
+  /**
+   * Writes a point in a claimed slot and publishes it to the consumer.
+   * 
+   * @param position the slot position
+   * @param seriesIndex the index of the series in the dataset
+   * @param x the value for the X axis
+   * @param y the value for the Y axis
+   */
+  private void publish(long position, int seriesIndex, double x, double y) {
+    int slot = (int) position & mMask;
+    mSeriesIndexes[slot] = seriesIndex;
+    mXValues[slot] = x;
+    mYValues[slot] = y;
+    mSequences.set(slot, position + 1);
+  }
+
+  /**
+   * Runs the drain request, if it was not already run since the last drain.
+   */
+  private void requestDrain() {
+    Runnable request = mDrainRequest;
+    if (request != null && !mDrainRequested.get() && mDrainRequested.compareAndSet(false, true)) {
+      request.run();
+    }
+  }
+
+  /**
+   * Adds the queued points to their series, from the consumer thread only. The
+   * points offered while draining are left for the next drain. The points of a
+   * series no longer in the dataset and the points rejected by their series,
+   * such as an X value before the last one of a {@link SingleWriterXYSeries},
+   * are dropped.
+   * 
+   * @return the number of points added to the series
+   */
+  public int drain() {
+    mDrainRequested.set(false);
+    long head = mHead;
+    long end = mTail.get();
+    if (head == end) {
+      return 0;
+    }
+    XYSeries[] series = mDataset.getSeries();
+    long position = head;
+    int dropped = 0;
+    while (position < end) {
+      int slot = (int) position & mMask;
+      if (mSequences.get(slot) != position + 1) {
+        // claimed but not yet published
+        break;
+      }
+      int seriesIndex = mSeriesIndexes[slot];
+      if (seriesIndex < 0 || seriesIndex >= series.length) {
+        dropped++;
+        position++;
+        mHead = position;
+        continue;
+      }
+      XYSeries target = series[seriesIndex];
+      synchronized (target) {
+        do {
+          try {
+            target.add(mXValues[slot], mYValues[slot]);
+          } catch (RuntimeException e) {
+            // a rejected point must not stop the drain, nor be retried
+            dropped++;
+          }
+          position++;
+          mHead = position;
+          slot = (int) position & mMask;
+        } while (position < end && mSequences.get(slot) == position + 1
+            && mSeriesIndexes[slot] == seriesIndex);
+      }
+    }
+    if (dropped > 0) {
+      mDropped.addAndGet(dropped);
+    }
+    int drained = (int) (position - head) - dropped;
+    mDrained += drained;
+    return drained;
+  }
+
+  /**
+   * Returns the overflow policy.
+   * 
+   * @return the overflow policy
+   */
+  public OverflowPolicy getPolicy() {
+    return mPolicy;
+  }
+
+  /**
+   * Returns the number of points the queue holds.
+   * 
+   * @return the capacity
+   */
+  public int getCapacity() {
+    return mMask + 1;
+  }
+
+  /**
+   * Returns the number of points waiting for the next drain.
+   * 
+   * @return the number of queued points
+   */
+  public int getQueuedCount() {
+    return (int) Math.max(0, mTail.get() - mHead);
+  }
+
+  /**
+   * Returns the number of points dropped since the queue was built, because
+   * the queue was full, their series was not in the dataset or it rejected
+   * them.
+   * 
+   * @return the number of dropped points
+   */
+  public long getDroppedCount() {
+    return mDropped.get();
+  }
+
+  /**
+   * Returns the number of points added to the series since the queue was
+   * built.
+   * 
+   * @return the number of drained points
+   */
+  public long getDrainedCount() {
+    return mDrained;
+  }
+}
@@ -0,0 +1,437 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * An append only journal persisting the changes of a series, such as a data
+ * logger doesn't lose its points if the process dies. The changes are made
+ * through the journal, which applies them to the series and appends them to
+ * the current journal segment. Each change is written to the segment file as
+ * a checksummed block when it is made, such as it is kept by the system if the
+ * process dies, and the segment is synced to the disk, which keeps it if the
+ * device stops, at most every sync interval or when {@link #sync()} is called,
+ * for instance when the activity is paused.
+ * <p>
+ * The segments are compacted into a columnar snapshot, in the format of
+ * {@link MappedXYSeries}, when there are too many of them or when
+ * {@link #compact()} is called. Opening a journal rebuilds the series from the
+ * last snapshot and the segments written after it. A block torn by a crash is
+ * detected by its checksum and ignored with the rest of its segment.
+ */
+public class SeriesJournal {
+  /** The record type of an added point. */
+  private static final byte ADD = 1;
+  /** The record type of a removed point. */
+  private static final byte REMOVE = 2;
+  /** The record type of a cleared series. */
+  private static final byte CLEAR = 3;
+  /** The size of a record in bytes. */
+  private static final int RECORD_SIZE = 17;
+  /** The size of a block header, the payload length and checksum. */
+  private static final int BLOCK_HEADER_SIZE = 8;
+  /** The size of the write buffer, holding the block of one change. */
+  private static final int BUFFER_SIZE = BLOCK_HEADER_SIZE + RECORD_SIZE;
+  /** The default sync interval in milliseconds. */
+  private static final long DEFAULT_SYNC_INTERVAL = 1000;
+  /** The default maximum segment size in bytes. */
+  private static final long DEFAULT_SEGMENT_SIZE = 1024 * 1024;
+  /** The number of segments that triggers a compaction. */
+  private static final int MAX_SEGMENTS = 8;
+  /** The segment files prefix. */
+  private static final String SEGMENT_PREFIX = "segment-";
+  /** The snapshot files prefix. */
+  private static final String SNAPSHOT_PREFIX = "snapshot-";
+  /** The files suffix. */
+  private static final String SUFFIX = ".dat";
+  /** The temporary files suffix. */
+  private static final String TEMP_SUFFIX = ".tmp";
+  /** The journaled series. */
+  private final XYSeries mSeries;
+  /** The journal directory. */
+  private final File mDirectory;
+  /** The write buffer, the block header being filled when written. */
+  private final ByteBuffer mBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+  /** The checksum computation. */
+  private final CRC32 mChecksum = new CRC32();
+  /** The current segment stream. */
+  private FileOutputStream mSegment;
+  /** The current segment number. */
+  private long mSegmentNumber;
+  /** The first segment number not included in a snapshot. */
+  private long mFirstSegment;
+  /** The size of the current segment. */
+  private long mSegmentSize;
+  /** The time of the last sync. */
+  private long mLastSync;
+  /** If data was written since the last sync. */
+  private boolean mDirty;
+  /** The sync interval in milliseconds. */
+  private long mSyncInterval = DEFAULT_SYNC_INTERVAL;
+  /** The maximum segment size in bytes. */
+  private long mMaxSegmentSize = DEFAULT_SEGMENT_SIZE;
+
+  /**
+   * Opens a journal, replaying its content into the given series, which should
+   * be empty, and starting a new segment for the next changes.
+   * 
+   * @param series the journaled series
+   * @param directory the journal directory, created if needed
+   * @throws IOException if the journal cannot be read or created
+   */
+  public SeriesJournal(XYSeries series, File directory) throws IOException {
+    mSeries = series;
+    mDirectory = directory;
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Cannot create the journal directory: " + directory);
+    }
+    recover();
+    mBuffer.position(BLOCK_HEADER_SIZE);
+    openSegment(mSegmentNumber + 1);
+  }
+
+  /**
+   * Returns the journaled series.
+   * 
+   * @return the series
+   */
+  public XYSeries getSeries() {
+    return mSeries;
+  }
+
+  /**
+   * Returns the sync interval.
+   * 
+   * @return the sync interval in milliseconds
+   */
+  public synchronized long getSyncInterval() {
+    return mSyncInterval;
+  }
+
+  /**
+   * Sets the maximum time the changes can stay unsynced to the disk. The
+   * changes are synced when the next change is made after this interval, 0
+   * syncing every change. The unsynced changes are already written to the
+   * segment file, they are only lost if the device stops.
+   * 
+   * @param interval the sync interval in milliseconds
+   */
+  public synchronized void setSyncInterval(long interval) {
+    mSyncInterval = interval;
+  }
+
+  /**
+   * Returns the maximum segment size.
+   * 
+   * @return the maximum segment size in bytes
+   */
+  public synchronized long getMaxSegmentSize() {
+    return mMaxSegmentSize;
+  }
+
+  /**
+   * Sets the size after which a new segment is started.
+   * 
+   * @param size the maximum segment size in bytes
+   */
+  public synchronized void setMaxSegmentSize(long size) {
+    mMaxSegmentSize = size;
+  }
+
+  /**
+   * Adds a new value to the series and the journal.
+   * 
+   * @param x the value for the X axis
+   * @param y the value for the Y axis
+   * @throws IOException if the journal cannot be written
+   */
+  public synchronized void add(double x, double y) throws IOException {
+    mSeries.add(x, y);
+    append(ADD, x, y);
+  }
+
+  /**
+   * Removes a value from the series and the journal.
+   * 
+   * @param index the index in the series of the value to remove
+   * @throws IOException if the journal cannot be written
+   */
+  public synchronized void remove(int index) throws IOException {
+    mSeries.remove(index);
+    append(REMOVE, index, 0);
+  }
+
+  /**
+   * Removes all the values from the series and the journal.
+   * 
+   * @throws IOException if the journal cannot be written
+   */
+  public synchronized void clear() throws IOException {
+    mSeries.clear();
+    append(CLEAR, 0, 0);
+  }
+
+  /**
+   * Syncs the changes written to the current segment to the disk.
+   * 
+   * @throws IOException if the journal cannot be written
+   */
+  public synchronized void sync() throws IOException {
+    if (mDirty) {
+      mSegment.getFD().sync();
+      mDirty = false;
+    }
+    mLastSync = System.currentTimeMillis();
+  }
+
+  /**
+   * Writes the series to a new snapshot and deletes the segments and the
+   * snapshot it replaces.
+   * 
+   * @throws IOException if the snapshot cannot be written
+   */
+  public synchronized void compact() throws IOException {
+    sync();
+    mSegment.close();
+    long first = mSegmentNumber + 1;
+    openSegment(first);
+    File temp = new File(mDirectory, SNAPSHOT_PREFIX + first + TEMP_SUFFIX);
+    MappedXYSeries.write(mSeries, temp);
+    FileOutputStream out = new FileOutputStream(temp, true);
+    try {
+      out.getFD().sync();
+    } finally {
+      out.close();
+    }
+    if (!temp.renameTo(getFile(SNAPSHOT_PREFIX, first))) {
+      throw new IOException("Cannot rename the snapshot: " + temp);
+    }
+    for (long number = mFirstSegment; number < first; number++) {
+      getFile(SEGMENT_PREFIX, number).delete();
+    }
+    getFile(SNAPSHOT_PREFIX, mFirstSegment).delete();
+    mFirstSegment = first;
+  }
+
+  /**
+   * Syncs the changes and closes the journal. The series is not modified
+   * anymore by the journal.
+   * 
+   * @throws IOException if the journal cannot be written
+   */
+  public synchronized void close() throws IOException {
+    try {
+      sync();
+    } finally {
+      mSegment.close();
+    }
+  }
+
+  /**
+   * Appends a record to the current segment, in its own block written right
+   * away, and syncs the segment according to the sync interval.
+   * 
+   * @param type the record type
+   * @param first the first record value
+   * @param second the second record value
+   * @throws IOException if the journal cannot be written
+   */
+  private void append(byte type, double first, double second) throws IOException {
+    mBuffer.put(type);
+    mBuffer.putDouble(first);
+    mBuffer.putDouble(second);
+    writeBlock();
+    if (System.currentTimeMillis() - mLastSync >= mSyncInterval) {
+      sync();
+    }
+    if (mSegmentSize >= mMaxSegmentSize) {
+      if (mSegmentNumber - mFirstSegment + 1 >= MAX_SEGMENTS) {
+        compact();
+      } else {
+        mSegment.getFD().sync();
+        mSegment.close();
+        openSegment(mSegmentNumber + 1);
+      }
+    }
+  }
+
+  /**
+   * Writes the buffered records as a block of the current segment.
+   * 
+   * @throws IOException if the segment cannot be written
+   */
+  private void writeBlock() throws IOException {
+    int length = mBuffer.position() - BLOCK_HEADER_SIZE;
+    if (length == 0) {
+      return;
+    }
+    mChecksum.reset();
+    mChecksum.update(mBuffer.array(), BLOCK_HEADER_SIZE, length);
+    mBuffer.putInt(0, length);
+    mBuffer.putInt(4, (int) mChecksum.getValue());
+    mBuffer.flip();
+    FileChannel channel = mSegment.getChannel();
+    while (mBuffer.hasRemaining()) {
+      channel.write(mBuffer);
+    }
+    mBuffer.clear();
+    mBuffer.position(BLOCK_HEADER_SIZE);
+    mSegmentSize += BLOCK_HEADER_SIZE + length;
+    mDirty = true;
+  }
+
+  /**
+   * Starts a new segment.
+   * 
+   * @param number the segment number
+   * @throws IOException if the segment cannot be created
+   */
+  private void openSegment(long number) throws IOException {
+    mSegment = new FileOutputStream(getFile(SEGMENT_PREFIX, number));
+    mSegmentNumber = number;
+    mSegmentSize = 0;
+    mDirty = false;
+    mLastSync = System.currentTimeMillis();
+  }
+
+  /**
+   * Rebuilds the series from the last snapshot and the segments written after
+   * it, and removes the files left by an interrupted compaction.
+   * 
+   * @throws IOException if the journal cannot be read
+   */
+  private void recover() throws IOException {
+    long snapshot = -1;
+    long lastSegment = 0;
+    String[] names = mDirectory.list();
+    for (String name : names) {
+      if (name.endsWith(TEMP_SUFFIX)) {
+        new File(mDirectory, name).delete();
+      } else if (name.endsWith(SUFFIX)) {
+        long number = getNumber(name, SNAPSHOT_PREFIX);
+        snapshot = Math.max(snapshot, number);
+        lastSegment = Math.max(lastSegment, getNumber(name, SEGMENT_PREFIX));
+      }
+    }
+    mFirstSegment = Math.max(snapshot, 1);
+    for (String name : names) {
+      long number = getNumber(name, SNAPSHOT_PREFIX);
+      long segment = getNumber(name, SEGMENT_PREFIX);
+      if (number >= 0 && number < snapshot || segment >= 0 && segment < mFirstSegment) {
+        new File(mDirectory, name).delete();
+      }
+    }
+    if (snapshot >= 0) {
+      MappedXYSeries values = new MappedXYSeries(mSeries.getTitle(), getFile(SNAPSHOT_PREFIX,
+          snapshot));
+      int length = values.getItemCount();
+      for (int i = 0; i < length; i++) {
+        mSeries.add(values.getX(i), values.getY(i));
+      }
+    }
+    for (long number = mFirstSegment; number <= lastSegment; number++) {
+      File segment = getFile(SEGMENT_PREFIX, number);
+      if (segment.exists()) {
+        replay(segment);
+      }
+    }
+    mSegmentNumber = Math.max(lastSegment, mFirstSegment - 1);
+  }
+
+  /**
+   * Applies the records of a segment to the series, up to its first torn
+   * block.
+   * 
+   * @param segment the segment file
+   * @throws IOException if the segment cannot be read
+   */
+  private void replay(File segment) throws IOException {
+    FileInputStream in = new FileInputStream(segment);
+    try {
+      FileChannel channel = in.getChannel();
+      ByteBuffer data = ByteBuffer.allocate((int) channel.size());
+      while (data.hasRemaining()) {
+        if (channel.read(data) < 0) {
+          break;
+        }
+      }
+      data.flip();
+      while (data.remaining() >= BLOCK_HEADER_SIZE) {
+        int length = data.getInt();
+        int checksum = data.getInt();
+        if (length <= 0 || length % RECORD_SIZE != 0 || length > data.remaining()) {
+          return;
+        }
+        mChecksum.reset();
+        mChecksum.update(data.array(), data.position(), length);
+        if ((int) mChecksum.getValue() != checksum) {
+          return;
+        }
+        int end = data.position() + length;
+        while (data.position() < end) {
+          byte type = data.get();
+          double first = data.getDouble();
+          double second = data.getDouble();
+          if (type == ADD) {
+            mSeries.add(first, second);
+          } else if (type == REMOVE) {
+            mSeries.remove((int) first);
+          } else if (type == CLEAR) {
+            mSeries.clear();
+          }
+        }
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Returns a journal file.
+   * 
+   * @param prefix the file prefix
+   * @param number the file number
+   * @return the file
+   */
+  private File getFile(String prefix, long number) {
+    return new File(mDirectory, prefix + number + SUFFIX);
+  }
+
+  /**
+   * Returns the number of a journal file name.
+   * 
+   * @param name the file name
+   * @param prefix the expected prefix
+   * @return the file number, -1 if the name is not the one of such a file
+   */
+  private static long getNumber(String name, String prefix) {
+    if (!name.startsWith(prefix) || !name.endsWith(SUFFIX)) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(name.substring(prefix.length(), name.length() - SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,528 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+import java.io.Serializable;
+
+import org.achartengine.util.MathHelper;
+
+/**
+ * The rollup tiers of a series with a retention policy. The series applies the
+ * policy after each append: the raw points older than the raw duration are
+ * removed from the series and folded into the first tier, and the buckets
+ * older than the duration of their tier are folded into the next one, or
+ * dropped. Each step only touches the expired points and buckets, such as the
+ * cost of an append stays constant on average. The charts render the buckets
+ * as minimum / maximum bands, behind the raw points.
+ */
+public class SeriesRollups implements Serializable {
+  /** The number of expired points copied at once to be folded. */
+  private static final int FOLD_CHUNK_SIZE = 256;
+  /** The retention policy. */
+  private final RetentionPolicy mPolicy;
+  /** The tiers, from the finest to the coarsest. */
+  private final Tier[] mTiers;
+  /** If the rollups are an immutable snapshot. */
+  private final boolean mImmutable;
+  /** The snapshot of the buckets, null if they changed since it was taken. */
+  private transient SeriesRollups mSnapshot;
+  /** If the cached range is valid. */
+  private transient boolean mRangeValid;
+  /** The cached range, as minimum X, maximum X, minimum Y and maximum Y. */
+  private transient double[] mRange;
+  /** The X values of the expired points being folded. */
+  private transient double[] mFoldX;
+  /** The Y values of the expired points being folded. */
+  private transient double[] mFoldY;
+
+  /**
+   * Builds new empty rollups.
+   * 
+   * @param policy the retention policy
+   */
+  public SeriesRollups(RetentionPolicy policy) {
+    mPolicy = policy;
+    int length = policy.getTierCount();
+    mTiers = new Tier[length];
+    for (int i = 0; i < length; i++) {
+      mTiers[i] = new Tier(policy.getTierInterval(i));
+    }
+    mImmutable = false;
+  }
+
+  /**
+   * Builds an immutable snapshot of rollups.
+   * 
+   * @param rollups the rollups
+   */
+  private SeriesRollups(SeriesRollups rollups) {
+    mPolicy = rollups.mPolicy;
+    int length = rollups.mTiers.length;
+    mTiers = new Tier[length];
+    for (int i = 0; i < length; i++) {
+      mTiers[i] = new Tier(rollups.mTiers[i]);
+    }
+    mImmutable = true;
+    mSnapshot = this;
+  }
+
+  /**
+   * Returns the retention policy.
+   * 
+   * @return the retention policy
+   */
+  public RetentionPolicy getPolicy() {
+    return mPolicy;
+  }
+
+  /**
+   * Applies the retention policy to a series, the caller holding the series
+   * lock.
+   * 
+   * @param series the series
+   */
+  synchronized void retain(XYSeries series) {
+    int count = series.getItemCount();
+    if (count == 0) {
+      return;
+    }
+    double now = series.getMaxX();
+    double limit = now - mPolicy.getRawDuration();
+    boolean changed = false;
+    int expired = series.getFirstIndexFrom(limit);
+    if (expired > 0) {
+      if (mTiers.length > 0) {
+        fold(series, expired);
+      }
+      series.removeFirst(expired);
+      changed = true;
+    }
+    int length = mTiers.length;
+    for (int i = 0; i < length; i++) {
+      Tier tier = mTiers[i];
+      limit = now - mPolicy.getTierDuration(i);
+      while (tier.mSize > 0 && tier.mX[tier.mStart] + tier.mInterval <= limit) {
+        if (i + 1 < length) {
+          int k = tier.mStart;
+          mTiers[i + 1].add(tier.mX[k], tier.mMin[k], tier.mMax[k], tier.mSum[k], tier.mCount[k]);
+        }
+        tier.removeFirst();
+        changed = true;
+      }
+    }
+    if (changed) {
+      mRangeValid = false;
+      mSnapshot = null;
+    }
+  }
+
+  /**
+   * Returns an immutable snapshot of the buckets, taken again only after they
+   * changed. The snapshot can be read without the buckets shifting between two
+   * calls while the series keeps changing.
+   * 
+   * @return the snapshot
+   */
+  public synchronized SeriesRollups getSnapshot() {
+    if (mSnapshot == null) {
+      mSnapshot = new SeriesRollups(this);
+    }
+    return mSnapshot;
+  }
+
+  /**
+   * Folds the first points of a series into the first tier, reading them by
+   * chunks.
+   * 
+   * @param series the series
+   * @param count the number of points to fold
+   */
+  private void fold(XYSeries series, int count) {
+    if (mFoldX == null) {
+      mFoldX = new double[FOLD_CHUNK_SIZE];
+      mFoldY = new double[FOLD_CHUNK_SIZE];
+    }
+    Tier tier = mTiers[0];
+    for (int from = 0; from < count; from += FOLD_CHUNK_SIZE) {
+      int length = Math.min(FOLD_CHUNK_SIZE, count - from);
+      series.copyRange(from, from + length, mFoldX, mFoldY, 0);
+      for (int i = 0; i < length; i++) {
+        double y = mFoldY[i];
+        if (!isNullValue(y)) {
+          tier.add(mFoldX[i], y, y, y, 1);
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes all the buckets.
+   */
+  public synchronized void clear() {
+    if (mImmutable) {
+      throw new UnsupportedOperationException("Rollups snapshots are immutable");
+    }
+    for (Tier tier : mTiers) {
+      tier.mStart = 0;
+      tier.mSize = 0;
+    }
+    mRangeValid = false;
+    mSnapshot = null;
+  }
+
+  /**
+   * Returns the number of tiers.
+   * 
+   * @return the number of tiers
+   */
+  public int getTierCount() {
+    return mTiers.length;
+  }
+
+  /**
+   * Returns the bucket interval of a tier.
+   * 
+   * @param tier the tier index
+   * @return the bucket interval
+   */
+  public double getInterval(int tier) {
+    return mTiers[tier].mInterval;
+  }
+
+  /**
+   * Returns the number of buckets of a tier.
+   * 
+   * @param tier the tier index
+   * @return the number of buckets
+   */
+  public synchronized int getBucketCount(int tier) {
+    return mTiers[tier].mSize;
+  }
+
+  /**
+   * Returns the start X value of a bucket.
+   * 
+   * @param tier the tier index
+   * @param index the bucket index
+   * @return the bucket start
+   */
+  public synchronized double getX(int tier, int index) {
+    Tier t = mTiers[tier];
+    return t.mX[t.getPosition(index)];
+  }
+
+  /**
+   * Returns the minimum value of a bucket.
+   * 
+   * @param tier the tier index
+   * @param index the bucket index
+   * @return the bucket minimum
+   */
+  public synchronized double getMin(int tier, int index) {
+    Tier t = mTiers[tier];
+    return t.mMin[t.getPosition(index)];
+  }
+
+  /**
+   * Returns the maximum value of a bucket.
+   * 
+   * @param tier the tier index
+   * @param index the bucket index
+   * @return the bucket maximum
+   */
+  public synchronized double getMax(int tier, int index) {
+    Tier t = mTiers[tier];
+    return t.mMax[t.getPosition(index)];
+  }
+
+  /**
+   * Returns the mean value of a bucket.
+   * 
+   * @param tier the tier index
+   * @param index the bucket index
+   * @return the bucket mean
+   */
+  public synchronized double getMean(int tier, int index) {
+    Tier t = mTiers[tier];
+    int position = t.getPosition(index);
+    return t.mSum[position] / t.mCount[position];
+  }
+
+  /**
+   * Returns the number of values folded into a bucket.
+   * 
+   * @param tier the tier index
+   * @param index the bucket index
+   * @return the bucket values count
+   */
+  public synchronized int getCount(int tier, int index) {
+    Tier t = mTiers[tier];
+    return t.mCount[t.getPosition(index)];
+  }
+
+  /**
+   * Returns the range of indexes of the buckets of a tier overlapping the
+   * given X range.
+   * 
+   * @param tier the tier index
+   * @param start start x value
+   * @param stop stop x value
+   * @return the first index and the index after the last one
+   */
+  public synchronized int[] getIndexRange(int tier, double start, double stop) {
+    Tier t = mTiers[tier];
+    int from = t.getFirstIndexFrom(start - t.mInterval);
+    if (from < t.mSize && t.mX[t.getPosition(from)] + t.mInterval <= start) {
+      from++;
+    }
+    int to = Math.max(from, t.getFirstIndexFrom(stop));
+    return new int[] { from, to };
+  }
+
+  /**
+   * Returns the minimum X value of the buckets, their start.
+   * 
+   * @return the minimum X value
+   */
+  public double getMinX() {
+    return getRange()[0];
+  }
+
+  /**
+   * Returns the maximum X value of the buckets, their end.
+   * 
+   * @return the maximum X value
+   */
+  public double getMaxX() {
+    return getRange()[1];
+  }
+
+  /**
+   * Returns the minimum value of the buckets.
+   * 
+   * @return the minimum value
+   */
+  public double getMinY() {
+    return getRange()[2];
+  }
+
+  /**
+   * Returns the maximum value of the buckets.
+   * 
+   * @return the maximum value
+   */
+  public double getMaxY() {
+    return getRange()[3];
+  }
+
+  /**
+   * Returns the range of the buckets, computed again when they changed.
+   * 
+   * @return the minimum X, maximum X, minimum Y and maximum Y
+   */
+  private synchronized double[] getRange() {
+    if (!mRangeValid) {
+      if (mRange == null) {
+        mRange = new double[4];
+      }
+      double minX = MathHelper.NULL_VALUE;
+      double maxX = -MathHelper.NULL_VALUE;
+      double minY = MathHelper.NULL_VALUE;
+      double maxY = -MathHelper.NULL_VALUE;
+      for (Tier tier : mTiers) {
+        if (tier.mSize > 0) {
+          minX = Math.min(minX, tier.mX[tier.mStart]);
+          maxX = Math.max(maxX, tier.mX[tier.mStart + tier.mSize - 1] + tier.mInterval);
+        }
+        for (int i = tier.mStart; i < tier.mStart + tier.mSize; i++) {
+          minY = Math.min(minY, tier.mMin[i]);
+          maxY = Math.max(maxY, tier.mMax[i]);
+        }
+      }
+      mRange[0] = minX;
+      mRange[1] = maxX;
+      mRange[2] = minY;
+      mRange[3] = maxY;
+      mRangeValid = true;
+    }
+    return mRange;
+  }
+
+  /**
+   * Returns if a value is a null value.
+   * 
+   * @param value the value
+   * @return if the value is a null value
+   */
+  private static boolean isNullValue(double value) {
+    return Double.isNaN(value) || Double.isInfinite(value) || value == MathHelper.NULL_VALUE;
+  }
+
+  /**
+   * A rollup tier, as buckets sorted by their start, stored in parallel arrays
+   * from a start position such as the expired buckets are removed in constant
+   * time.
+   */
+  private static class Tier implements Serializable {
+    /** The bucket interval. */
+    private final double mInterval;
+    /** The bucket starts. */
+    private double[] mX = new double[16];
+    /** The bucket minimums. */
+    private double[] mMin = new double[16];
+    /** The bucket maximums. */
+    private double[] mMax = new double[16];
+    /** The bucket sums. */
+    private double[] mSum = new double[16];
+    /** The bucket counts. */
+    private int[] mCount = new int[16];
+    /** The position of the first bucket. */
+    private int mStart;
+    /** The number of buckets. */
+    private int mSize;
+
+    /**
+     * Builds a new empty tier.
+     * 
+     * @param interval the bucket interval
+     */
+    public Tier(double interval) {
+      mInterval = interval;
+    }
+
+    /**
+     * Builds a copy of a tier, holding only its buckets.
+     * 
+     * @param tier the tier
+     */
+    public Tier(Tier tier) {
+      mInterval = tier.mInterval;
+      mX = tier.move(tier.mX, tier.mSize);
+      mMin = tier.move(tier.mMin, tier.mSize);
+      mMax = tier.move(tier.mMax, tier.mSize);
+      mSum = tier.move(tier.mSum, tier.mSize);
+      mCount = new int[tier.mSize];
+      System.arraycopy(tier.mCount, tier.mStart, mCount, 0, tier.mSize);
+      mSize = tier.mSize;
+    }
+
+    /**
+     * Folds values into the bucket holding the given X value.
+     * 
+     * @param x the X value
+     * @param min the minimum of the values
+     * @param max the maximum of the values
+     * @param sum the sum of the values
+     * @param count the number of values
+     */
+    public void add(double x, double min, double max, double sum, int count) {
+      double bucket = Math.floor(x / mInterval) * mInterval;
+      int index = mSize;
+      if (index > 0 && mX[mStart + index - 1] >= bucket) {
+        index = getFirstIndexFrom(bucket);
+      }
+      int position = mStart + index;
+      if (index < mSize && mX[position] == bucket) {
+        mMin[position] = Math.min(mMin[position], min);
+        mMax[position] = Math.max(mMax[position], max);
+        mSum[position] += sum;
+        mCount[position] += count;
+        return;
+      }
+      if (mStart + mSize == mX.length) {
+        int capacity = mSize * 2 > mX.length ? mX.length * 2 : mX.length;
+        mX = move(mX, capacity);
+        mMin = move(mMin, capacity);
+        mMax = move(mMax, capacity);
+        mSum = move(mSum, capacity);
+        int[] counts = new int[capacity];
+        System.arraycopy(mCount, mStart, counts, 0, mSize);
+        mCount = counts;
+        mStart = 0;
+        position = index;
+      }
+      int moved = mSize - index;
+      System.arraycopy(mX, position, mX, position + 1, moved);
+      System.arraycopy(mMin, position, mMin, position + 1, moved);
+      System.arraycopy(mMax, position, mMax, position + 1, moved);
+      System.arraycopy(mSum, position, mSum, position + 1, moved);
+      System.arraycopy(mCount, position, mCount, position + 1, moved);
+      mX[position] = bucket;
+      mMin[position] = min;
+      mMax[position] = max;
+      mSum[position] = sum;
+      mCount[position] = count;
+      mSize++;
+    }
+
+    /**
+     * Copies the buckets to the start of a new array.
+     * 
+     * @param values the values array
+     * @param capacity the new array capacity
+     * @return the new array
+     */
+    private double[] move(double[] values, int capacity) {
+      double[] moved = new double[capacity];
+      System.arraycopy(values, mStart, moved, 0, mSize);
+      return moved;
+    }
+
+    /**
+     * Removes the first bucket.
+     */
+    public void removeFirst() {
+      mStart++;
+      mSize--;
+      if (mSize == 0) {
+        mStart = 0;
+      }
+    }
+
+    /**
+     * Returns the array position of a bucket.
+     * 
+     * @param index the bucket index
+     * @return the array position
+     */
+    public int getPosition(int index) {
+      if (index < 0 || index >= mSize) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+      }
+      return mStart + index;
+    }
+
+    /**
+     * Returns the index of the first bucket starting at or after a value.
+     * 
+     * @param x the value
+     * @return the bucket index, the number of buckets if there is none
+     */
+    public int getFirstIndexFrom(double x) {
+      int low = 0;
+      int high = mSize;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (mX[mStart + middle] < x) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+  }
+}
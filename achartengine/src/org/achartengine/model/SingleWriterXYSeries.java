@@ -0,0 +1,449 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.achartengine.util.MathHelper;
+
+/**
+ * An XY series for one producer thread appending points in increasing X order
+ * while other threads, such as the UI one, read them. Neither the appends nor
+ * the reads take a lock: the producer writes a point in primitive arrays, then
+ * publishes it by incrementing a volatile count, such as the readers always see
+ * a consistent prefix of the points. When the arrays are full, they are copied
+ * into larger ones which are published as a whole, the readers of the previous
+ * ones keeping a valid view. Allocating the expected capacity up front avoids
+ * these copies.<br/>
+ * The points are only appended: the series doesn't support adding at an index,
+ * removing points or retention policies. The methods changing the series, add
+ * and clear, must only be called by the producer thread.
+ */
+public class SingleWriterXYSeries extends XYSeries {
+  /** The default initial capacity. */
+  private static final int INITIAL_CAPACITY = 1024;
+  /** The published storage. */
+  private transient volatile Storage mStorage;
+
+  /**
+   * The points storage, replaced as a whole when it grows or is cleared.
+   */
+  private static class Storage {
+    /** The X values. */
+    private final double[] mXValues;
+    /** The Y values. */
+    private final double[] mYValues;
+    /** The version of the series when the storage was empty. */
+    private final long mBaseVersion;
+    /** The number of published points. */
+    private volatile int mSize;
+    /** The minimum Y value, written before the count is published. */
+    private double mMinY = MathHelper.NULL_VALUE;
+    /** The maximum Y value, written before the count is published. */
+    private double mMaxY = -MathHelper.NULL_VALUE;
+
+    /**
+     * Builds a new empty storage.
+     * 
+     * @param capacity the capacity
+     * @param baseVersion the version of the series
+     */
+    Storage(int capacity, long baseVersion) {
+      mXValues = new double[capacity];
+      mYValues = new double[capacity];
+      mBaseVersion = baseVersion;
+    }
+
+    /**
+     * Returns a copy of this storage with twice its capacity.
+     * 
+     * @return the copy
+     */
+    Storage grow() {
+      int size = mSize;
+      Storage storage = new Storage(Math.max(INITIAL_CAPACITY, mXValues.length * 2), mBaseVersion);
+      System.arraycopy(mXValues, 0, storage.mXValues, 0, size);
+      System.arraycopy(mYValues, 0, storage.mYValues, 0, size);
+      storage.mMinY = mMinY;
+      storage.mMaxY = mMaxY;
+      storage.mSize = size;
+      return storage;
+    }
+  }
+
+  /**
+   * Builds a new single writer XY series.
+   * 
+   * @param title the series title
+   */
+  public SingleWriterXYSeries(String title) {
+    this(title, 0, INITIAL_CAPACITY);
+  }
+
+  /**
+   * Builds a new single writer XY series.
+   * 
+   * @param title the series title
+   * @param scaleNumber the series scale number
+   * @param capacity the initial capacity, in points
+   */
+  public SingleWriterXYSeries(String title, int scaleNumber, int capacity) {
+    super(title, scaleNumber);
+    if (capacity < 1) {
+      throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+    }
+    mStorage = new Storage(capacity, 0);
+  }
+
+  /**
+   * Appends a new point to the series, from the producer thread. The X value
+   * must be greater than or equal to the last one.
+   * 
+   * @param x the value for the X axis
+   * @param y the value for the Y axis
+   */
+  @Override
+  public void add(double x, double y) {
+    Storage storage = mStorage;
+    int size = storage.mSize;
+    if (size > 0 && x < storage.mXValues[size - 1]) {
+      throw new IllegalArgumentException("The X values must be appended in increasing order: "
+          + x + " < " + storage.mXValues[size - 1]);
+    }
+    if (size == storage.mXValues.length) {
+      storage = storage.grow();
+      mStorage = storage;
+    }
+    storage.mXValues[size] = x;
+    storage.mYValues[size] = y;
+    storage.mMinY = Math.min(storage.mMinY, y);
+    storage.mMaxY = Math.max(storage.mMaxY, y);
+    storage.mSize = size + 1;
+  }
+
+  /**
+   * Adds a new point at the end of the series, the only index supported.
+   * 
+   * @param index the index to be added the data to, the item count
+   * @param x the value for the X axis
+   * @param y the value for the Y axis
+   */
+  @Override
+  public void add(int index, double x, double y) {
+    if (index != mStorage.mSize) {
+      throw new UnsupportedOperationException("Single writer series are append only");
+    }
+    add(x, y);
+  }
+
+  /**
+   * Not supported, the series is append only.
+   * 
+   * @param index the index in the series of the value to remove
+   */
+  @Override
+  public void remove(int index) {
+    throw new UnsupportedOperationException("Single writer series are append only");
+  }
+
+  /**
+   * Removes all the points from the series, from the producer thread. The
+   * readers holding a snapshot keep the previous points.
+   */
+  @Override
+  public synchronized void clear() {
+    Storage storage = mStorage;
+    mStorage = new Storage(storage.mXValues.length, storage.mBaseVersion + storage.mSize + 1);
+    super.clear();
+  }
+
+  /**
+   * Not supported, the series is append only.
+   * 
+   * @param policy the retention policy
+   */
+  @Override
+  public void setRetentionPolicy(RetentionPolicy policy) {
+    if (policy != null) {
+      throw new UnsupportedOperationException("Single writer series are append only");
+    }
+  }
+
+  /**
+   * Returns an immutable snapshot of the published points, taken in constant
+   * time and without locking.
+   * 
+   * @return the snapshot
+   */
+  @Override
+  public XYSeries getSnapshot() {
+    Storage storage = mStorage;
+    int size = storage.mSize;
+    return new XYSeriesSnapshot(this, storage.mXValues, null, storage.mYValues, 0, size,
+        storage.mBaseVersion + size);
+  }
+
+  /**
+   * Returns the X axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the X value
+   */
+  @Override
+  public double getX(int index) {
+    Storage storage = mStorage;
+    checkIndex(index, storage.mSize);
+    return storage.mXValues[index];
+  }
+
+  /**
+   * Returns the Y axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the Y value
+   */
+  @Override
+  public double getY(int index) {
+    Storage storage = mStorage;
+    checkIndex(index, storage.mSize);
+    return storage.mYValues[index];
+  }
+
+  /**
+   * Copies the values of a range of points into arrays, from the points published when it is called.
+   * 
+   * @param fromIndex the index of the first point
+   * @param toIndex the index after the last point
+   * @param xValues the array receiving the X values, or null
+   * @param yValues the array receiving the Y values, or null
+   * @param offset the index in the arrays of the first point values
+   */
+  @Override
+  public void copyRange(int fromIndex, int toIndex, double[] xValues, double[] yValues,
+      int offset) {
+    Storage storage = mStorage;
+    int size = storage.mSize;
+    if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+      throw new IndexOutOfBoundsException("Range: " + fromIndex + " - " + toIndex + ", Size: "
+          + size);
+    }
+    if (xValues != null) {
+      System.arraycopy(storage.mXValues, fromIndex, xValues, offset, toIndex - fromIndex);
+    }
+    if (yValues != null) {
+      System.arraycopy(storage.mYValues, fromIndex, yValues, offset, toIndex - fromIndex);
+    }
+  }
+
+  /**
+   * Returns the series item count.
+   * 
+   * @return the series item count
+   */
+  @Override
+  public int getItemCount() {
+    return mStorage.mSize;
+  }
+
+  /**
+   * Returns the minimum value on the X axis.
+   * 
+   * @return the X axis minimum value
+   */
+  @Override
+  public double getMinX() {
+    Storage storage = mStorage;
+    return storage.mSize == 0 ? MathHelper.NULL_VALUE : storage.mXValues[0];
+  }
+
+  /**
+   * Returns the maximum value on the X axis.
+   * 
+   * @return the X axis maximum value
+   */
+  @Override
+  public double getMaxX() {
+    Storage storage = mStorage;
+    int size = storage.mSize;
+    return size == 0 ? -MathHelper.NULL_VALUE : storage.mXValues[size - 1];
+  }
+
+  /**
+   * Returns the minimum value on the Y axis. It may already include the points
+   * being appended.
+   * 
+   * @return the Y axis minimum value
+   */
+  @Override
+  public double getMinY() {
+    Storage storage = mStorage;
+    return storage.mSize == 0 ? MathHelper.NULL_VALUE : storage.mMinY;
+  }
+
+  /**
+   * Returns the maximum value on the Y axis. It may already include the points
+   * being appended.
+   * 
+   * @return the Y axis maximum value
+   */
+  @Override
+  public double getMaxY() {
+    Storage storage = mStorage;
+    return storage.mSize == 0 ? -MathHelper.NULL_VALUE : storage.mMaxY;
+  }
+
+  /**
+   * Returns the index of the first point at an X value, or (-(insertion point)
+   * - 1) if the series doesn't contain it.
+   * 
+   * @param key the X value
+   * @return the X value index
+   */
+  @Override
+  public int getIndexForKey(double key) {
+    Storage storage = mStorage;
+    int size = storage.mSize;
+    int index = getFirstIndexFrom(storage.mXValues, size, key);
+    if (index < size && storage.mXValues[index] == key) {
+      return index;
+    }
+    return -index - 1;
+  }
+
+  /**
+   * Returns the range of indexes of the points displayed between the given
+   * start and stop X values.
+   * 
+   * @param start start x value
+   * @param stop stop x value
+   * @param beforeAfterPoints if the points before and after the first and last
+   *          visible ones must be included
+   * @return the first index and the index after the last one
+   */
+  @Override
+  public int[] getIndexRange(double start, double stop, boolean beforeAfterPoints) {
+    Storage storage = mStorage;
+    int size = storage.mSize;
+    int from = getFirstIndexFrom(storage.mXValues, size, start);
+    int to = getFirstIndexFrom(storage.mXValues, size, stop);
+    if (beforeAfterPoints) {
+      from = Math.max(0, from - 1);
+      to = Math.min(size, to + 1);
+    }
+    return new int[] { from, Math.max(from, to) };
+  }
+
+  /**
+   * Returns submap of x and y values according to the given start and end. The
+   * map is built on every call and only kept for compatibility, the charts use
+   * getIndexRange.
+   * 
+   * @param start start x value
+   * @param stop stop x value
+   * @param beforeAfterPoints if the points before and after the first and last
+   *          visible ones must be displayed
+   * @return a submap of x and y values
+   */
+  @Override
+  public SortedMap<Double, Double> getRange(double start, double stop, boolean beforeAfterPoints) {
+    Storage storage = mStorage;
+    int size = storage.mSize;
+    int from = getFirstIndexFrom(storage.mXValues, size, start);
+    int to = getFirstIndexFrom(storage.mXValues, size, stop);
+    if (beforeAfterPoints) {
+      from = Math.max(0, from - 1);
+      to = Math.min(size, to + 1);
+    }
+    SortedMap<Double, Double> map = new TreeMap<Double, Double>();
+    for (int i = from; i < to; i++) {
+      map.put(storage.mXValues[i], storage.mYValues[i]);
+    }
+    return map;
+  }
+
+  /**
+   * Returns the index of the first point with an X value greater than or equal
+   * to the given value.
+   * 
+   * @param x the x value
+   * @return the index of the first point at or after x, the item count if
+   *         there is none
+   */
+  @Override
+  protected int getFirstIndexFrom(double x) {
+    Storage storage = mStorage;
+    return getFirstIndexFrom(storage.mXValues, storage.mSize, x);
+  }
+
+  /**
+   * Returns the index of the first X value greater than or equal to the given
+   * value, in the published part of an X values array.
+   * 
+   * @param xValues the X values
+   * @param size the number of published values
+   * @param x the x value
+   * @return the index of the first value at or after x, size if there is none
+   */
+  private static int getFirstIndexFrom(double[] xValues, int size, double x) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (xValues[middle] < x) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Checks the index is in the published range.
+   * 
+   * @param index the index
+   * @param size the number of published points
+   */
+  private static void checkIndex(int index, int size) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    Storage storage = mStorage;
+    int size = storage.mSize;
+    out.defaultWriteObject();
+    out.writeInt(size);
+    for (int i = 0; i < size; i++) {
+      out.writeDouble(storage.mXValues[i]);
+      out.writeDouble(storage.mYValues[i]);
+    }
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    int size = in.readInt();
+    mStorage = new Storage(Math.max(INITIAL_CAPACITY, size), 0);
+    for (int i = 0; i < size; i++) {
+      add(in.readDouble(), in.readDouble());
+    }
+  }
+}
@@ -16,11 +16,33 @@
 package org.achartengine.model;
 
 import java.util.Date;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.achartengine.util.MathHelper;
 
 /**
- * A series for the date / time charts.
+ * A series for the date / time charts. The timestamps are stored as primitive
+ * milliseconds and the values as primitive doubles, sorted by time, such as
+ * adding a point doesn't box anything and time range queries are binary
+ * searches. Points sharing the same timestamp are kept as they are, in their
+ * insertion order.
  */
 public class TimeSeries extends XYSeries {
+  /** The initial storage capacity. */
+  private static final int INITIAL_CAPACITY = 16;
+  /** The timestamps, in milliseconds. */
+  private long[] mTimes = new long[INITIAL_CAPACITY];
+  /** The values. */
+  private double[] mValues = new double[INITIAL_CAPACITY];
+  /** The position of the first point in the arrays. */
+  private int mStart;
+  /** The number of points. */
+  private int mSize;
+  /** The version, incremented by each change of the points. */
+  private long mVersion;
+  /** If the storage is shared with a snapshot. */
+  private transient boolean mShared;
 
   /**
    * Builds a new date / time series.
@@ -38,9 +60,363 @@ public class TimeSeries extends XYSeries {
    * @param y the value for the Y axis
    */
   public synchronized void add(Date x, double y) {
-    super.add(x.getTime(), y);
+    add(x.getTime(), y);
+  }
+
+  /**
+   * Adds a new value to the series. Appending a point later than or at the
+   * same time as the last one is done in constant time.
+   * 
+   * @param time the date / time value for the X axis, in milliseconds
+   * @param y the value for the Y axis
+   */
+  public synchronized void add(long time, double y) {
+    int index = mSize;
+    if (index > 0 && mTimes[mStart + index - 1] > time) {
+      index = getFirstIndexAfter(time);
+    }
+    insert(index, time, y);
+  }
+
+  /**
+   * Adds a new value to the series. The timestamps are stored as whole
+   * milliseconds, such as an X value with a fractional part is rejected instead
+   * of being rounded.
+   * 
+   * @param x the date / time value for the X axis, in milliseconds
+   * @param y the value for the Y axis
+   * @throws IllegalArgumentException if the X value is not a whole number of
+   *           milliseconds
+   */
+  @Override
+  public synchronized void add(double x, double y) {
+    add(toTime(x), y);
+  }
+
+  /**
+   * Adds a new value to the series at the specified index. The timestamps are
+   * stored as whole milliseconds, such as an X value with a fractional part is
+   * rejected instead of being rounded.
+   * 
+   * @param index the index to be added the data to
+   * @param x the date / time value for the X axis, in milliseconds
+   * @param y the value for the Y axis
+   * @throws IllegalArgumentException if the X value is not a whole number of
+   *           milliseconds
+   * @throws IndexOutOfBoundsException if the index is not in the series range
+   */
+  @Override
+  public synchronized void add(int index, double x, double y) {
+    long time = toTime(x);
+    if (index < 0 || index > mSize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+    }
+    insert(index, time, y);
+  }
+
+  /**
+   * Converts an X value to a timestamp.
+   * 
+   * @param x the X value, in milliseconds
+   * @return the timestamp
+   * @throws IllegalArgumentException if the X value is not a whole number of
+   *           milliseconds
+   */
+  private static long toTime(double x) {
+    long time = (long) x;
+    if (time != x) {
+      throw new IllegalArgumentException("The X value is not a whole number of milliseconds: "
+          + x);
+    }
+    return time;
+  }
+
+  /**
+   * Inserts a point at the specified index.
+   * 
+   * @param index the index
+   * @param time the timestamp
+   * @param y the value
+   */
+  private void insert(int index, long time, double y) {
+    if (mStart + mSize == mTimes.length) {
+      // moves the points to the storage start, growing it when more than half
+      // full, into new arrays if the current ones are shared with a snapshot
+      int capacity = mSize * 2 > mTimes.length ? mTimes.length * 2 : mTimes.length;
+      if (capacity > mTimes.length || mShared) {
+        long[] times = new long[capacity];
+        double[] values = new double[capacity];
+        System.arraycopy(mTimes, mStart, times, 0, mSize);
+        System.arraycopy(mValues, mStart, values, 0, mSize);
+        mTimes = times;
+        mValues = values;
+        mShared = false;
+      } else {
+        System.arraycopy(mTimes, mStart, mTimes, 0, mSize);
+        System.arraycopy(mValues, mStart, mValues, 0, mSize);
+      }
+      mStart = 0;
+    }
+    int position = mStart + index;
+    if (index < mSize) {
+      unshare();
+      System.arraycopy(mTimes, position, mTimes, position + 1, mSize - index);
+      System.arraycopy(mValues, position, mValues, position + 1, mSize - index);
+    }
+    mTimes[position] = time;
+    mValues[position] = y;
+    mSize++;
+    mVersion++;
+    updateRange(time, y);
+    applyRetention();
+  }
+
+  /**
+   * Removes an existing value from the series.
+   * 
+   * @param index the index in the series of the value to remove
+   */
+  @Override
+  public synchronized void remove(int index) {
+    if (index < 0 || index >= mSize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+    }
+    int position = mStart + index;
+    double removedX = mTimes[position];
+    double removedY = mValues[position];
+    unshare();
+    System.arraycopy(mTimes, position + 1, mTimes, position, mSize - index - 1);
+    System.arraycopy(mValues, position + 1, mValues, position, mSize - index - 1);
+    mSize--;
+    mVersion++;
+    if (removedX == getMinX() || removedX == getMaxX() || removedY == getMinY()
+        || removedY == getMaxY()) {
+      initRange();
+    }
+  }
+
+  /**
+   * Removes the first points of the series in one step, by moving the storage
+   * start. A snapshot sharing the storage is not changed.
+   * 
+   * @param count the number of points to remove
+   */
+  @Override
+  protected void removeFirst(int count) {
+    double removedMinY = MathHelper.NULL_VALUE;
+    double removedMaxY = -MathHelper.NULL_VALUE;
+    for (int i = mStart; i < mStart + count; i++) {
+      removedMinY = Math.min(removedMinY, mValues[i]);
+      removedMaxY = Math.max(removedMaxY, mValues[i]);
+    }
+    mStart += count;
+    mSize -= count;
+    mVersion++;
+    updateRangeAfterRemoveFirst(removedMinY, removedMaxY);
   }
-  
+
+  /**
+   * Removes all the existing values from the series.
+   */
+  @Override
+  public synchronized void clear() {
+    if (mShared) {
+      mTimes = new long[INITIAL_CAPACITY];
+      mValues = new double[INITIAL_CAPACITY];
+      mShared = false;
+    }
+    mStart = 0;
+    mSize = 0;
+    mVersion++;
+    super.clear();
+  }
+
+  /**
+   * Returns the timestamp at the specified index.
+   * 
+   * @param index the index
+   * @return the timestamp in milliseconds
+   */
+  public synchronized long getTime(int index) {
+    checkIndex(index);
+    return mTimes[mStart + index];
+  }
+
+  /**
+   * Returns the X axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the X value
+   */
+  @Override
+  public synchronized double getX(int index) {
+    checkIndex(index);
+    return mTimes[mStart + index];
+  }
+
+  /**
+   * Returns the Y axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the Y value
+   */
+  @Override
+  public synchronized double getY(int index) {
+    checkIndex(index);
+    return mValues[mStart + index];
+  }
+
+  /**
+   * Copies the values of a range of points into arrays.
+   * 
+   * @param fromIndex the index of the first point
+   * @param toIndex the index after the last point
+   * @param xValues the array receiving the X values, or null
+   * @param yValues the array receiving the Y values, or null
+   * @param offset the index in the arrays of the first point values
+   */
+  @Override
+  public synchronized void copyRange(int fromIndex, int toIndex, double[] xValues, double[] yValues,
+      int offset) {
+    int count = checkRange(fromIndex, toIndex);
+    if (xValues != null) {
+      for (int i = 0; i < count; i++) {
+        xValues[offset + i] = mTimes[mStart + fromIndex + i];
+      }
+    }
+    if (yValues != null) {
+      System.arraycopy(mValues, mStart + fromIndex, yValues, offset, count);
+    }
+  }
+
+  /**
+   * Returns the series item count.
+   * 
+   * @return the series item count
+   */
+  @Override
+  public synchronized int getItemCount() {
+    return mSize;
+  }
+
+  /**
+   * Returns the index of a timestamp, or (-(insertion point) - 1) if the
+   * series doesn't contain it.
+   * 
+   * @param key the timestamp
+   * @return the timestamp index
+   */
+  @Override
+  public synchronized int getIndexForKey(double key) {
+    int index = getFirstIndexFrom(key);
+    if (index < mSize && mTimes[mStart + index] == key) {
+      return index;
+    }
+    return -index - 1;
+  }
+
+  /**
+   * Returns submap of x and y values according to the given start and end. The
+   * map is built on every call and only kept for compatibility, the charts use
+   * getIndexRange.
+   * 
+   * @param start start x value
+   * @param stop stop x value
+   * @param beforeAfterPoints if the points before and after the first and last
+   *          visible ones must be displayed
+   * @return a submap of x and y values
+   */
+  @Override
+  public synchronized SortedMap<Double, Double> getRange(double start, double stop,
+      boolean beforeAfterPoints) {
+    int[] range = getIndexRange(start, stop, beforeAfterPoints);
+    SortedMap<Double, Double> map = new TreeMap<Double, Double>();
+    for (int i = range[0]; i < range[1]; i++) {
+      map.put((double) mTimes[mStart + i], mValues[mStart + i]);
+    }
+    return map;
+  }
+
+  /**
+   * Returns the index of the first point with a timestamp greater than or equal
+   * to the given value.
+   * 
+   * @param x the x value
+   * @return the index of the first point at or after x, the item count if
+   *         there is none
+   */
+  @Override
+  protected synchronized int getFirstIndexFrom(double x) {
+    int low = 0;
+    int high = mSize;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (mTimes[mStart + middle] < x) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the index of the first point with a timestamp strictly greater
+   * than the given one.
+   * 
+   * @param time the timestamp
+   * @return the index of the first point after the timestamp
+   */
+  private int getFirstIndexAfter(long time) {
+    int low = 0;
+    int high = mSize;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (mTimes[mStart + middle] <= time) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns an immutable snapshot of the points, taken in constant time. The
+   * snapshot shares the storage of the series until a change other than an
+   * append, which copies it first.
+   * 
+   * @return the snapshot
+   */
+  @Override
+  public synchronized XYSeries getSnapshot() {
+    mShared = true;
+    return new XYSeriesSnapshot(this, null, mTimes, mValues, mStart, mSize, mVersion);
+  }
+
+  /**
+   * Copies the storage if it is shared with a snapshot, before changing the
+   * points it holds.
+   */
+  private void unshare() {
+    if (mShared) {
+      mTimes = mTimes.clone();
+      mValues = mValues.clone();
+      mShared = false;
+    }
+  }
+
+  /**
+   * Checks the index is in the series range.
+   * 
+   * @param index the index
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= mSize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+    }
+  }
+
   protected double getPadding() {
     return 1;
   }
@@ -0,0 +1,337 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.achartengine.util.MathHelper;
+
+/**
+ * An XY series of uniformly sampled values, like the ones of a fixed rate
+ * sensor. Only the Y values are stored, the X value of the point at index i
+ * being x0 + i * dx. Finding the X values, the visible points and the nearest
+ * point is done arithmetically in constant time. Points are appended at the end
+ * and can be removed from the start (sliding window) or the end of the series.
+ */
+public class UniformXYSeries extends XYSeries {
+  /** The initial storage capacity. */
+  private static final int INITIAL_CAPACITY = 16;
+  /** The X value of the first point ever added, the X values origin. */
+  private final double mX0;
+  /** The number of points removed from the series start. */
+  private long mRemoved;
+  /** The X step between two consecutive points. */
+  private final double mDx;
+  /** The Y values, stored from mStart. */
+  private double[] mValues = new double[INITIAL_CAPACITY];
+  /** The index of the first Y value in the storage. */
+  private int mStart;
+  /** The number of points. */
+  private int mSize;
+
+  /**
+   * Builds a new uniform XY series.
+   * 
+   * @param title the series title
+   * @param x0 the X value of the first point
+   * @param dx the X step between two consecutive points
+   */
+  public UniformXYSeries(String title, double x0, double dx) {
+    this(title, 0, x0, dx);
+  }
+
+  /**
+   * Builds a new uniform XY series.
+   * 
+   * @param title the series title
+   * @param scaleNumber the series scale number
+   * @param x0 the X value of the first point
+   * @param dx the X step between two consecutive points
+   * @throws IllegalArgumentException if the step is not a positive number
+   */
+  public UniformXYSeries(String title, int scaleNumber, double x0, double dx) {
+    super(title, scaleNumber);
+    if (!(dx > 0) || Double.isInfinite(dx)) {
+      throw new IllegalArgumentException("The X step must be positive: " + dx);
+    }
+    mX0 = x0;
+    mDx = dx;
+  }
+
+  /**
+   * Returns the X value of the first point.
+   * 
+   * @return the X value of the first point
+   */
+  public synchronized double getX0() {
+    return getXAt(0);
+  }
+
+  /**
+   * Returns the X step between two consecutive points.
+   * 
+   * @return the X step
+   */
+  public double getDx() {
+    return mDx;
+  }
+
+  /**
+   * Appends a new value to the series, at the next X position.
+   * 
+   * @param y the value for the Y axis
+   */
+  public synchronized void add(double y) {
+    if (mStart + mSize == mValues.length) {
+      double[] values = mValues;
+      if (mSize * 2 > values.length) {
+        values = new double[values.length * 2];
+      }
+      System.arraycopy(mValues, mStart, values, 0, mSize);
+      mValues = values;
+      mStart = 0;
+    }
+    mValues[mStart + mSize] = y;
+    updateRange(getXAt(mSize), y);
+    mSize++;
+    applyRetention();
+  }
+
+  /**
+   * Appends a new value to the series. The X value must be the next X position
+   * of the series, within half a step.
+   * 
+   * @param x the value for the X axis
+   * @param y the value for the Y axis
+   * @throws IllegalArgumentException if x is not the next X position
+   */
+  @Override
+  public synchronized void add(double x, double y) {
+    double next = getXAt(mSize);
+    if (!(Math.abs(x - next) <= mDx / 2)) {
+      throw new IllegalArgumentException("Expected X " + next + " but was " + x);
+    }
+    add(y);
+  }
+
+  /**
+   * Adds a new value at the specified index. Only appending at the end of the
+   * series is supported.
+   * 
+   * @param index the index, it must be the item count
+   * @param x the value for the X axis
+   * @param y the value for the Y axis
+   * @throws UnsupportedOperationException if the index is not the item count
+   */
+  @Override
+  public synchronized void add(int index, double x, double y) {
+    if (index != mSize) {
+      throw new UnsupportedOperationException("Uniform series only support appending values");
+    }
+    add(x, y);
+  }
+
+  /**
+   * Removes the first or the last value of the series. Removing the first value
+   * moves the series start by one step.
+   * 
+   * @param index the index, it must be 0 or the last index
+   * @throws UnsupportedOperationException if another index is provided
+   */
+  @Override
+  public synchronized void remove(int index) {
+    checkIndex(index);
+    double removedX = getXAt(index);
+    double removedY = mValues[mStart + index];
+    if (index == 0) {
+      mStart++;
+      mRemoved++;
+    } else if (index != mSize - 1) {
+      throw new UnsupportedOperationException(
+          "Uniform series only support removing the first or the last value");
+    }
+    mSize--;
+    if (removedX == getMinX() || removedX == getMaxX() || removedY == getMinY()
+        || removedY == getMaxY()) {
+      initRange();
+    }
+  }
+
+  /**
+   * Removes the first points of the series in one step, moving the series
+   * start by as many steps.
+   * 
+   * @param count the number of points to remove
+   */
+  @Override
+  protected void removeFirst(int count) {
+    double removedMinY = MathHelper.NULL_VALUE;
+    double removedMaxY = -MathHelper.NULL_VALUE;
+    for (int i = mStart; i < mStart + count; i++) {
+      removedMinY = Math.min(removedMinY, mValues[i]);
+      removedMaxY = Math.max(removedMaxY, mValues[i]);
+    }
+    mStart += count;
+    mRemoved += count;
+    mSize -= count;
+    updateRangeAfterRemoveFirst(removedMinY, removedMaxY);
+  }
+
+  /**
+   * Removes all the existing values from the series. The next value is added
+   * where the series would have continued.
+   */
+  @Override
+  public synchronized void clear() {
+    mRemoved += mSize;
+    mStart = 0;
+    mSize = 0;
+    super.clear();
+  }
+
+  /**
+   * Returns the X axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the X value
+   */
+  @Override
+  public synchronized double getX(int index) {
+    checkIndex(index);
+    return getXAt(index);
+  }
+
+  /**
+   * Returns the X value of the specified index, computed from the origin such
+   * as it doesn't depend on the points removed from the start.
+   * 
+   * @param index the index
+   * @return the X value
+   */
+  private double getXAt(int index) {
+    return mX0 + (mRemoved + index) * mDx;
+  }
+
+  /**
+   * Returns the Y axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the Y value
+   */
+  @Override
+  public synchronized double getY(int index) {
+    checkIndex(index);
+    return mValues[mStart + index];
+  }
+
+  /**
+   * Returns the series item count.
+   * 
+   * @return the series item count
+   */
+  @Override
+  public synchronized int getItemCount() {
+    return mSize;
+  }
+
+  /**
+   * Returns the index of the point nearest to the given X value.
+   * 
+   * @param x the x value
+   * @return the nearest point index or -1 if the series is empty
+   */
+  public synchronized int getNearestIndex(double x) {
+    if (mSize == 0) {
+      return -1;
+    }
+    double position = Math.rint((x - mX0) / mDx) - mRemoved;
+    return (int) Math.max(0, Math.min(mSize - 1, position));
+  }
+
+  /**
+   * Returns the index of a X value, or (-(insertion point) - 1) if the series
+   * doesn't contain it.
+   * 
+   * @param key the X value
+   * @return the X value index
+   */
+  @Override
+  public synchronized int getIndexForKey(double key) {
+    int index = getFirstIndexFrom(key);
+    if (index < mSize && getXAt(index) == key) {
+      return index;
+    }
+    return -index - 1;
+  }
+
+  /**
+   * Returns submap of x and y values according to the given start and end. The
+   * map is built on every call and only kept for compatibility, the charts use
+   * getIndexRange.
+   * 
+   * @param start start x value
+   * @param stop stop x value
+   * @param beforeAfterPoints if the points before and after the first and last
+   *          visible ones must be displayed
+   * @return a submap of x and y values
+   */
+  @Override
+  public synchronized SortedMap<Double, Double> getRange(double start, double stop,
+      boolean beforeAfterPoints) {
+    int[] range = getIndexRange(start, stop, beforeAfterPoints);
+    SortedMap<Double, Double> map = new TreeMap<Double, Double>();
+    for (int i = range[0]; i < range[1]; i++) {
+      map.put(getXAt(i), mValues[mStart + i]);
+    }
+    return map;
+  }
+
+  /**
+   * Returns the index of the first point with an X value greater than or equal
+   * to the given value, computed in constant time.
+   * 
+   * @param x the x value
+   * @return the index of the first point at or after x, the item count if
+   *         there is none
+   */
+  @Override
+  protected synchronized int getFirstIndexFrom(double x) {
+    double position = Math.ceil((x - mX0) / mDx) - mRemoved;
+    if (Double.isNaN(position)) {
+      return mSize;
+    }
+    int index = (int) Math.max(0, Math.min(mSize, position));
+    // the division may be off by one ulp
+    if (index > 0 && getXAt(index - 1) >= x) {
+      index--;
+    } else if (index < mSize && getXAt(index) < x) {
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * Checks the index is in the series range.
+   * 
+   * @param index the index
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= mSize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+    }
+  }
+}
@@ -0,0 +1,379 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+
+import org.achartengine.util.MathHelper;
+
+/**
+ * The storage encoding of the X or Y values of a compact series. The encodings
+ * trade precision for memory:
+ * <ul>
+ * <li>{@link #DOUBLE}: 8 bytes per value, exact.</li>
+ * <li>{@link #FLOAT}: 4 bytes per value, about 7 significant digits (relative
+ * error up to 2^-24), values beyond +/- 3.4E38 become infinite.</li>
+ * <li>{@link #scaledInt(double, double)}: 4 bytes per value, the value is
+ * stored as offset + code * scale, with an absolute error up to scale / 2.</li>
+ * <li>{@link #scaledShort(double, double)}: 2 bytes per value, stored the same
+ * way, suited for 12 to 16 bits sensor values.</li>
+ * </ul>
+ * The scaled encodings throw an IllegalArgumentException for values outside of
+ * their range. The null value ({@link MathHelper#NULL_VALUE}) is kept by all the
+ * encodings.
+ */
+public abstract class ValueEncoding implements Serializable {
+  /** The 64 bits floating point encoding. */
+  public static final ValueEncoding DOUBLE = new DoubleEncoding();
+  /** The 32 bits floating point encoding. */
+  public static final ValueEncoding FLOAT = new FloatEncoding();
+  /** The binary form type of the double encoding. */
+  private static final int TYPE_DOUBLE = 0;
+  /** The binary form type of the float encoding. */
+  private static final int TYPE_FLOAT = 1;
+  /** The binary form type of the 16 bits scaled encoding. */
+  private static final int TYPE_SHORT = 2;
+  /** The binary form type of the 32 bits scaled encoding. */
+  private static final int TYPE_INT = 3;
+
+  /**
+   * Returns a 16 bits scaled encoding.
+   * 
+   * @param offset the value of the code 0
+   * @param scale the value step between two consecutive codes
+   * @return the encoding
+   * @throws IllegalArgumentException if the scale is not a positive number
+   */
+  public static ValueEncoding scaledShort(double offset, double scale) {
+    return new ShortEncoding(offset, scale);
+  }
+
+  /**
+   * Returns a 32 bits scaled encoding.
+   * 
+   * @param offset the value of the code 0
+   * @param scale the value step between two consecutive codes
+   * @return the encoding
+   * @throws IllegalArgumentException if the scale is not a positive number
+   */
+  public static ValueEncoding scaledInt(double offset, double scale) {
+    return new IntEncoding(offset, scale);
+  }
+
+  /**
+   * Reads an encoding from the compact binary form.
+   * 
+   * @param in the input to read from
+   * @return the encoding
+   * @throws IOException if the input cannot be read
+   */
+  public static ValueEncoding read(DataInput in) throws IOException {
+    int type = in.readByte();
+    switch (type) {
+    case TYPE_DOUBLE:
+      return DOUBLE;
+    case TYPE_FLOAT:
+      return FLOAT;
+    case TYPE_SHORT:
+      return new ShortEncoding(in.readDouble(), in.readDouble());
+    case TYPE_INT:
+      return new IntEncoding(in.readDouble(), in.readDouble());
+    default:
+      throw new IOException("Unknown value encoding: " + type);
+    }
+  }
+
+  /**
+   * Writes the encoding in the compact binary form.
+   * 
+   * @param out the output to write to
+   * @throws IOException if the output cannot be written
+   */
+  public abstract void write(DataOutput out) throws IOException;
+
+  /**
+   * Returns the number of bytes used for storing a value.
+   * 
+   * @return the bytes per value
+   */
+  public abstract int getBytesPerValue();
+
+  /**
+   * Returns the maximum absolute error of the encoding, 0 for the exact one and
+   * NaN for the floating point ones which have a relative error.
+   * 
+   * @return the maximum absolute error
+   */
+  public abstract double getMaxError();
+
+  /**
+   * Returns the value the given one is stored as.
+   * 
+   * @param value the value
+   * @return the stored value
+   * @throws IllegalArgumentException if the value is out of the encoding range
+   */
+  public double round(double value) {
+    Object values = newArray(1);
+    set(values, 0, value);
+    return get(values, 0);
+  }
+
+  /**
+   * Returns a new values array.
+   * 
+   * @param capacity the array capacity
+   * @return the values array
+   */
+  abstract Object newArray(int capacity);
+
+  /**
+   * Decodes a value.
+   * 
+   * @param values the values array
+   * @param index the value index
+   * @return the value
+   */
+  abstract double get(Object values, int index);
+
+  /**
+   * Encodes a value.
+   * 
+   * @param values the values array
+   * @param index the value index
+   * @param value the value
+   * @throws IllegalArgumentException if the value is out of the encoding range
+   */
+  abstract void set(Object values, int index, double value);
+
+  /**
+   * The double encoding.
+   */
+  private static class DoubleEncoding extends ValueEncoding {
+    @Override
+    public int getBytesPerValue() {
+      return 8;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+      out.writeByte(TYPE_DOUBLE);
+    }
+
+    @Override
+    public double getMaxError() {
+      return 0;
+    }
+
+    @Override
+    Object newArray(int capacity) {
+      return new double[capacity];
+    }
+
+    @Override
+    double get(Object values, int index) {
+      return ((double[]) values)[index];
+    }
+
+    @Override
+    void set(Object values, int index, double value) {
+      ((double[]) values)[index] = value;
+    }
+  }
+
+  /**
+   * The float encoding.
+   */
+  private static class FloatEncoding extends ValueEncoding {
+    @Override
+    public int getBytesPerValue() {
+      return 4;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+      out.writeByte(TYPE_FLOAT);
+    }
+
+    @Override
+    public double getMaxError() {
+      return Double.NaN;
+    }
+
+    @Override
+    Object newArray(int capacity) {
+      return new float[capacity];
+    }
+
+    @Override
+    double get(Object values, int index) {
+      float value = ((float[]) values)[index];
+      if (value == Float.MAX_VALUE) {
+        return MathHelper.NULL_VALUE;
+      }
+      return value;
+    }
+
+    @Override
+    void set(Object values, int index, double value) {
+      if (value == MathHelper.NULL_VALUE) {
+        ((float[]) values)[index] = Float.MAX_VALUE;
+      } else {
+        ((float[]) values)[index] = (float) value;
+      }
+    }
+  }
+
+  /**
+   * The base class of the scaled integer encodings.
+   */
+  private abstract static class ScaledEncoding extends ValueEncoding {
+    /** The value of the code 0. */
+    protected final double mOffset;
+    /** The value step between two consecutive codes. */
+    protected final double mScale;
+
+    /**
+     * Builds a new scaled encoding.
+     * 
+     * @param offset the value of the code 0
+     * @param scale the value step between two consecutive codes
+     */
+    ScaledEncoding(double offset, double scale) {
+      if (!(scale > 0) || Double.isInfinite(scale)) {
+        throw new IllegalArgumentException("The scale must be positive: " + scale);
+      }
+      mOffset = offset;
+      mScale = scale;
+    }
+
+    @Override
+    public double getMaxError() {
+      return mScale / 2;
+    }
+
+    /**
+     * Returns the code of a value, the minimum code being reserved for the
+     * null value.
+     * 
+     * @param value the value
+     * @param min the minimum code
+     * @param max the maximum code
+     * @return the code
+     * @throws IllegalArgumentException if the value is out of the range
+     */
+    protected long encode(double value, long min, long max) {
+      if (value == MathHelper.NULL_VALUE) {
+        return min;
+      }
+      double code = Math.floor((value - mOffset) / mScale + 0.5);
+      if (!(code > min && code <= max)) {
+        throw new IllegalArgumentException("The value " + value + " is out of the range ["
+            + (mOffset + (min + 1) * mScale) + ", " + (mOffset + max * mScale) + "]");
+      }
+      return (long) code;
+    }
+
+    /**
+     * Returns the value of a code.
+     * 
+     * @param code the code
+     * @param min the minimum code, reserved for the null value
+     * @return the value
+     */
+    protected double decode(long code, long min) {
+      if (code == min) {
+        return MathHelper.NULL_VALUE;
+      }
+      return mOffset + code * mScale;
+    }
+  }
+
+  /**
+   * The 16 bits scaled encoding.
+   */
+  private static class ShortEncoding extends ScaledEncoding {
+    ShortEncoding(double offset, double scale) {
+      super(offset, scale);
+    }
+
+    @Override
+    public int getBytesPerValue() {
+      return 2;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+      out.writeByte(TYPE_SHORT);
+      out.writeDouble(mOffset);
+      out.writeDouble(mScale);
+    }
+
+    @Override
+    Object newArray(int capacity) {
+      return new short[capacity];
+    }
+
+    @Override
+    double get(Object values, int index) {
+      return decode(((short[]) values)[index], Short.MIN_VALUE);
+    }
+
+    @Override
+    void set(Object values, int index, double value) {
+      ((short[]) values)[index] = (short) encode(value, Short.MIN_VALUE, Short.MAX_VALUE);
+    }
+  }
+
+  /**
+   * The 32 bits scaled encoding.
+   */
+  private static class IntEncoding extends ScaledEncoding {
+    IntEncoding(double offset, double scale) {
+      super(offset, scale);
+    }
+
+    @Override
+    public int getBytesPerValue() {
+      return 4;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+      out.writeByte(TYPE_INT);
+      out.writeDouble(mOffset);
+      out.writeDouble(mScale);
+    }
+
+    @Override
+    Object newArray(int capacity) {
+      return new int[capacity];
+    }
+
+    @Override
+    double get(Object values, int index) {
+      return decode(((int[]) values)[index], Integer.MIN_VALUE);
+    }
+
+    @Override
+    void set(Object values, int index, double value) {
+      ((int[]) values)[index] = (int) encode(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+  }
+}
@@ -0,0 +1,465 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.achartengine.util.MathHelper;
+
+/**
+ * A table like dataset where several Y columns share one X column, like
+ * several sensors sampled at the same times. The values are stored in
+ * primitive arrays, the X values only once. Every column is exposed as an XY
+ * series view, added to this dataset, such as the XY charts draw the columns
+ * as regular series. The rows are added atomically across columns and the
+ * visible index range is computed once for all the columns. The snapshots of
+ * the columns are taken in constant time: they share the storage of the
+ * dataset, which appends new rows after the ones visible in the snapshots and
+ * copies its storage, the X values once for all the columns, before changing
+ * them.
+ */
+public class XYColumnDataset extends XYMultipleSeriesDataset {
+  /** The initial storage capacity. */
+  private static final int INITIAL_CAPACITY = 16;
+  /** The X values. */
+  private double[] mX = new double[INITIAL_CAPACITY];
+  /** The Y values, by column. */
+  private final double[][] mY;
+  /** The number of rows. */
+  private int mSize;
+  /** The column series views. */
+  private final ColumnSeries[] mColumns;
+  /** The number of modifications, used for invalidating the cached ranges. */
+  private int mModifications;
+  /** The cached index ranges, without and with the bounding points. */
+  private final int[][] mRanges = new int[2][];
+  /** The X start values of the cached index ranges. */
+  private final double[] mRangeStarts = new double[2];
+  /** The X stop values of the cached index ranges. */
+  private final double[] mRangeStops = new double[2];
+  /** The modifications count of the cached index ranges. */
+  private final int[] mRangeModifications = new int[2];
+  /** If the storage is shared with a column snapshot. */
+  private transient boolean mShared;
+
+  /**
+   * Builds a new column dataset, all the columns using the scale 0.
+   * 
+   * @param titles the columns titles
+   */
+  public XYColumnDataset(String[] titles) {
+    this(titles, new int[titles.length]);
+  }
+
+  /**
+   * Builds a new column dataset.
+   * 
+   * @param titles the columns titles
+   * @param scaleNumbers the columns scale numbers
+   */
+  public XYColumnDataset(String[] titles, int[] scaleNumbers) {
+    int length = titles.length;
+    mY = new double[length][INITIAL_CAPACITY];
+    mColumns = new ColumnSeries[length];
+    for (int i = 0; i < length; i++) {
+      mColumns[i] = new ColumnSeries(titles[i], scaleNumbers[i], i);
+      addSeries(mColumns[i]);
+    }
+  }
+
+  /**
+   * Returns the number of columns.
+   * 
+   * @return the number of columns
+   */
+  public int getColumnCount() {
+    return mColumns.length;
+  }
+
+  /**
+   * Returns the series view of a column.
+   * 
+   * @param column the column index
+   * @return the column series
+   */
+  public XYSeries getColumn(int column) {
+    return mColumns[column];
+  }
+
+  /**
+   * Returns the number of rows.
+   * 
+   * @return the number of rows
+   */
+  public synchronized int getRowCount() {
+    return mSize;
+  }
+
+  /**
+   * Adds a new row. The row is inserted according to its X value, adding rows
+   * in increasing X order being done in constant time. The values of all the
+   * columns become visible at the same time.
+   * 
+   * @param x the X value
+   * @param y the Y values, one per column, NaN for a missing value
+   * @throws IllegalArgumentException if the number of Y values is not the
+   *           number of columns
+   */
+  public synchronized void addRow(double x, double... y) {
+    int columns = mColumns.length;
+    if (y.length != columns) {
+      throw new IllegalArgumentException("Expected " + columns + " values but got " + y.length);
+    }
+    if (mSize == mX.length) {
+      int capacity = mSize * 2;
+      mX = grow(mX, capacity);
+      for (int c = 0; c < columns; c++) {
+        mY[c] = grow(mY[c], capacity);
+      }
+      mShared = false;
+    }
+    int index = mSize;
+    if (index > 0 && mX[index - 1] > x) {
+      index = getFirstIndexAfter(x);
+      unshare();
+      System.arraycopy(mX, index, mX, index + 1, mSize - index);
+      for (int c = 0; c < columns; c++) {
+        System.arraycopy(mY[c], index, mY[c], index + 1, mSize - index);
+      }
+    }
+    mX[index] = x;
+    for (int c = 0; c < columns; c++) {
+      mY[c][index] = y[c];
+      mColumns[c].updateRange(x, y[c]);
+    }
+    mSize++;
+    mModifications++;
+  }
+
+  /**
+   * Removes a row.
+   * 
+   * @param index the row index
+   */
+  public synchronized void removeRow(int index) {
+    checkIndex(index);
+    unshare();
+    int moved = mSize - index - 1;
+    System.arraycopy(mX, index + 1, mX, index, moved);
+    for (int c = 0; c < mColumns.length; c++) {
+      System.arraycopy(mY[c], index + 1, mY[c], index, moved);
+    }
+    mSize--;
+    mModifications++;
+    for (ColumnSeries column : mColumns) {
+      column.initRange();
+    }
+  }
+
+  /**
+   * Removes all the rows. The columns stay in the dataset.
+   */
+  public synchronized void clearRows() {
+    if (mShared) {
+      mX = new double[INITIAL_CAPACITY];
+      for (int c = 0; c < mY.length; c++) {
+        mY[c] = new double[INITIAL_CAPACITY];
+      }
+      mShared = false;
+    }
+    mSize = 0;
+    mModifications++;
+    for (ColumnSeries column : mColumns) {
+      column.initRange();
+    }
+  }
+
+  /**
+   * Returns the X value of a row.
+   * 
+   * @param index the row index
+   * @return the X value
+   */
+  public synchronized double getX(int index) {
+    checkIndex(index);
+    return mX[index];
+  }
+
+  /**
+   * Returns the Y value of a row and column.
+   * 
+   * @param index the row index
+   * @param column the column index
+   * @return the Y value
+   */
+  public synchronized double getY(int index, int column) {
+    checkIndex(index);
+    return mY[column][index];
+  }
+
+  /**
+   * Returns the range of row indexes displayed between the given start and
+   * stop X values. The range is shared by all the columns and only computed
+   * again when the X values or the rows change. The returned array must not be
+   * modified.
+   * 
+   * @param start start x value
+   * @param stop stop x value
+   * @param beforeAfterPoints if the points before and after the first and last
+   *          visible ones must be included
+   * @return the first index and the index after the last one
+   */
+  public synchronized int[] getIndexRange(double start, double stop, boolean beforeAfterPoints) {
+    int slot = beforeAfterPoints ? 1 : 0;
+    int[] range = mRanges[slot];
+    if (range == null || mRangeModifications[slot] != mModifications
+        || Double.compare(mRangeStarts[slot], start) != 0
+        || Double.compare(mRangeStops[slot], stop) != 0) {
+      int from = getFirstIndexFrom(start);
+      int to = getFirstIndexFrom(stop);
+      if (beforeAfterPoints) {
+        from = Math.max(0, from - 1);
+        to = Math.min(mSize, to + 1);
+      }
+      range = new int[] { from, Math.max(from, to) };
+      mRanges[slot] = range;
+      mRangeStarts[slot] = start;
+      mRangeStops[slot] = stop;
+      mRangeModifications[slot] = mModifications;
+    }
+    return range;
+  }
+
+  /**
+   * Returns the index of the first row with an X value greater than or equal
+   * to the given value.
+   * 
+   * @param x the x value
+   * @return the index of the first row at or after x
+   */
+  private int getFirstIndexFrom(double x) {
+    int low = 0;
+    int high = mSize;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (mX[middle] < x) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the index of the first row with an X value strictly greater than
+   * the given value.
+   * 
+   * @param x the x value
+   * @return the index of the first row after x
+   */
+  private int getFirstIndexAfter(double x) {
+    int low = 0;
+    int high = mSize;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (mX[middle] <= x) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Checks the index is in the rows range.
+   * 
+   * @param index the row index
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= mSize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+    }
+  }
+
+  /**
+   * Copies the storage if it is shared with a snapshot, before changing the
+   * rows it holds. The X values are copied once for all the columns.
+   */
+  private void unshare() {
+    if (mShared) {
+      mX = mX.clone();
+      for (int c = 0; c < mY.length; c++) {
+        mY[c] = mY[c].clone();
+      }
+      mShared = false;
+    }
+  }
+
+  /**
+   * Returns a copy of the values with a new capacity.
+   * 
+   * @param values the values
+   * @param capacity the new capacity
+   * @return the values copy
+   */
+  private double[] grow(double[] values, int capacity) {
+    double[] copy = new double[capacity];
+    System.arraycopy(values, 0, copy, 0, mSize);
+    return copy;
+  }
+
+  /**
+   * A read only series view of a column. The values are modified through the
+   * dataset rows.
+   */
+  private class ColumnSeries extends XYSeries {
+    /** The column index. */
+    private final int mColumn;
+
+    /**
+     * Builds a new column series.
+     * 
+     * @param title the column title
+     * @param scaleNumber the column scale number
+     * @param column the column index
+     */
+    ColumnSeries(String title, int scaleNumber, int column) {
+      super(title, scaleNumber);
+      mColumn = column;
+    }
+
+    @Override
+    public void add(double x, double y) {
+      throw new UnsupportedOperationException("Values are added through the dataset rows");
+    }
+
+    @Override
+    public void add(int index, double x, double y) {
+      throw new UnsupportedOperationException("Values are added through the dataset rows");
+    }
+
+    @Override
+    public void remove(int index) {
+      throw new UnsupportedOperationException("Values are removed through the dataset rows");
+    }
+
+    @Override
+    public void clear() {
+      throw new UnsupportedOperationException("Values are removed through the dataset rows");
+    }
+
+    @Override
+    public void setRetentionPolicy(RetentionPolicy policy) {
+      if (policy != null) {
+        throw new UnsupportedOperationException("Values are removed through the dataset rows");
+      }
+    }
+
+    @Override
+    protected void updateRange(double x, double y) {
+      // the missing values are not part of the column range
+      if (!Double.isNaN(y) && y != MathHelper.NULL_VALUE) {
+        super.updateRange(x, y);
+      }
+    }
+
+    @Override
+    public double getX(int index) {
+      return XYColumnDataset.this.getX(index);
+    }
+
+    @Override
+    public double getY(int index) {
+      return XYColumnDataset.this.getY(index, mColumn);
+    }
+
+    @Override
+    public int getItemCount() {
+      return getRowCount();
+    }
+
+    @Override
+    public int[] getIndexRange(double start, double stop, boolean beforeAfterPoints) {
+      synchronized (XYColumnDataset.this) {
+        int[] range = XYColumnDataset.this.getIndexRange(start, stop, beforeAfterPoints);
+        return new int[] { range[0], range[1] };
+      }
+    }
+
+    @Override
+    public void copyRange(int fromIndex, int toIndex, double[] xValues, double[] yValues,
+        int offset) {
+      synchronized (XYColumnDataset.this) {
+        int count = checkRange(fromIndex, toIndex);
+        if (xValues != null) {
+          System.arraycopy(mX, fromIndex, xValues, offset, count);
+        }
+        if (yValues != null) {
+          System.arraycopy(mY[mColumn], fromIndex, yValues, offset, count);
+        }
+      }
+    }
+
+    /**
+     * Returns an immutable snapshot of the column, taken in constant time. The
+     * snapshot shares the storage of the dataset, the X values with the
+     * snapshots of the other columns, until a change other than an append.
+     * 
+     * @return the snapshot
+     */
+    @Override
+    public XYSeries getSnapshot() {
+      synchronized (XYColumnDataset.this) {
+        mShared = true;
+        return new XYSeriesSnapshot(this, mX, null, mY[mColumn], 0, mSize, mModifications);
+      }
+    }
+
+    @Override
+    public int getIndexForKey(double key) {
+      synchronized (XYColumnDataset.this) {
+        int index = getFirstIndexFrom(key);
+        if (index < mSize && mX[index] == key) {
+          return index;
+        }
+        return -index - 1;
+      }
+    }
+
+    @Override
+    protected int getFirstIndexFrom(double x) {
+      synchronized (XYColumnDataset.this) {
+        return XYColumnDataset.this.getFirstIndexFrom(x);
+      }
+    }
+
+    @Override
+    public SortedMap<Double, Double> getRange(double start, double stop,
+        boolean beforeAfterPoints) {
+      synchronized (XYColumnDataset.this) {
+        int[] range = getIndexRange(start, stop, beforeAfterPoints);
+        SortedMap<Double, Double> map = new TreeMap<Double, Double>();
+        for (int i = range[0]; i < range[1]; i++) {
+          map.put(mX[i], mY[mColumn][i]);
+        }
+        return map;
+      }
+    }
+  }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+/**
+ * A source of XY points held outside of the series, such as application
+ * arrays, buffers or database cursors. It is charted by wrapping it in a
+ * {@link ProviderXYSeries}, which reads the points in place instead of copying
+ * them. The points must be sorted by X. The provider is read under the lock of
+ * its series, which the code changing the points should hold too.
+ */
+public interface XYDataProvider {
+  /**
+   * Returns the number of points.
+   * 
+   * @return the number of points
+   */
+  int size();
+
+  /**
+   * Returns the X value of a point.
+   * 
+   * @param index the point index
+   * @return the X value
+   */
+  double x(int index);
+
+  /**
+   * Returns the Y value of a point.
+   * 
+   * @param index the point index
+   * @return the Y value
+   */
+  double y(int index);
+
+  /**
+   * Returns the index of a point at an X value, or (-(insertion point) - 1) if
+   * there is none, the insertion point being the index of the first point with
+   * a greater X value.
+   * 
+   * @param x the X value
+   * @return the point index
+   */
+  int indexOf(double x);
+
+  /**
+   * Returns the range of the values of the points in an index range.
+   * 
+   * @param fromIndex the index of the first point
+   * @param toIndex the index after the last point
+   * @return the minimum X, maximum X, minimum Y and maximum Y values
+   */
+  double[] minMax(int fromIndex, int toIndex);
+}
@@ -35,6 +35,19 @@ public class XYMultipleSeriesDataset implements Serializable {
     mSeries.add(series);
   }
 
+  /**
+   * Adds a new XY series reading the points of a data provider in place.
+   * 
+   * @param title the series title
+   * @param provider the data provider
+   * @return the series wrapping the provider
+   */
+  public synchronized ProviderXYSeries addSeries(String title, XYDataProvider provider) {
+    ProviderXYSeries series = new ProviderXYSeries(title, provider);
+    mSeries.add(series);
+    return series;
+  }
+
   /**
    * Adds a new XY series to the list.
    * 
@@ -19,6 +19,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.SortedMap;
 
 import org.achartengine.util.IndexXYMap;
@@ -27,7 +28,11 @@ import org.achartengine.util.XYEntry;
 
 /**
  * An XY series encapsulates values for XY charts like line, time, area,
- * scatter... charts.
+ * scatter... charts. The points sharing the same X value are nudged by a small
+ * padding such as their X values are unique, the {@link MultiValueXYSeries}
+ * keeping them as they are. The methods are synchronized on the series, the
+ * {@link SingleWriterXYSeries} letting one producer thread append points
+ * without locking.
  */
 public class XYSeries implements Serializable {
   /** The series title. */
@@ -48,8 +53,14 @@ public class XYSeries implements Serializable {
   private static final double PADDING = 0.000000000001;
   /** Contains the annotations. */
   private List<String> mAnnotations = new ArrayList<String>();
-  /** A map contain a (x,y) value for each String annotation. */
-  private final IndexXYMap<Double, Double> mStringXY = new IndexXYMap<Double, Double>();
+  /** The X value of each annotation, in the annotations order. */
+  private final List<Double> mAnnotationsX = new ArrayList<Double>();
+  /** The Y value of each annotation, in the annotations order. */
+  private final List<Double> mAnnotationsY = new ArrayList<Double>();
+  /** The copy of the annotations shared by the snapshots, null if it changed. */
+  private transient Annotations mSharedAnnotations;
+  /** The rollups of the points expired by the retention policy. */
+  private SeriesRollups mRollups;
 
   /**
    * Builds a new XY series.
@@ -69,7 +80,6 @@ public class XYSeries implements Serializable {
   public XYSeries(String title, int scaleNumber) {
     mTitle = title;
     mScaleNumber = scaleNumber;
-    initRange();
   }
 
   public int getScaleNumber() {
@@ -79,7 +89,7 @@ public class XYSeries implements Serializable {
   /**
    * Initializes the range for both axes.
    */
-  private void initRange() {
+  protected void initRange() {
     mMinX = MathHelper.NULL_VALUE;
     mMaxX = -MathHelper.NULL_VALUE;
     mMinY = MathHelper.NULL_VALUE;
@@ -98,7 +108,7 @@ public class XYSeries implements Serializable {
    * @param x the new x value
    * @param y the new y value
    */
-  private void updateRange(double x, double y) {
+  protected void updateRange(double x, double y) {
     mMinX = Math.min(mMinX, x);
     mMaxX = Math.max(mMaxX, x);
     mMinY = Math.min(mMinY, y);
@@ -124,7 +134,8 @@ public class XYSeries implements Serializable {
   }
 
   /**
-   * Adds a new value to the series.
+   * Adds a new value to the series. The values added out of X order are
+   * buffered and merged into the sorted points by batches.
    * 
    * @param x the value for the X axis
    * @param y the value for the Y axis
@@ -137,6 +148,7 @@ public class XYSeries implements Serializable {
     }
     mXY.put(x, y);
     updateRange(x, y);
+    applyRetention();
   }
 
   /**
@@ -154,6 +166,7 @@ public class XYSeries implements Serializable {
     }
     mXY.put(index, x, y);
     updateRange(x, y);
+    applyRetention();
   }
   
   protected double getPadding() {
@@ -174,15 +187,175 @@ public class XYSeries implements Serializable {
     }
   }
 
+  /**
+   * Removes the first points of the series in one step, such as the points
+   * expired by the retention policy.
+   * 
+   * @param count the number of points to remove
+   */
+  protected void removeFirst(int count) {
+    double removedMinY = MathHelper.NULL_VALUE;
+    double removedMaxY = -MathHelper.NULL_VALUE;
+    for (int i = 0; i < count; i++) {
+      double y = mXY.getYByIndex(i);
+      removedMinY = Math.min(removedMinY, y);
+      removedMaxY = Math.max(removedMaxY, y);
+    }
+    mXY.removeFirst(count);
+    updateRangeAfterRemoveFirst(removedMinY, removedMaxY);
+  }
+
+  /**
+   * Updates the range after the first points of the series were removed. The X
+   * range is taken from the remaining end points, and the Y range is only
+   * scanned again if the removed points held one of its bounds.
+   * 
+   * @param removedMinY the minimum Y value of the removed points
+   * @param removedMaxY the maximum Y value of the removed points
+   */
+  protected void updateRangeAfterRemoveFirst(double removedMinY, double removedMaxY) {
+    int count = getItemCount();
+    if (count == 0 || !(removedMinY > mMinY && removedMaxY < mMaxY)) {
+      initRange();
+    } else {
+      mMinX = getX(0);
+      mMaxX = getX(count - 1);
+    }
+  }
+
   /**
    * Removes all the existing values from the series.
    */
   public synchronized void clear() {
     mXY.clear();
-    mStringXY.clear();
+    mAnnotations.clear();
+    mAnnotationsX.clear();
+    mAnnotationsY.clear();
+    mSharedAnnotations = null;
+    if (mRollups != null) {
+      mRollups.clear();
+    }
     initRange();
   }
 
+  /**
+   * Sets the retention policy bounding the series, or null to keep all the
+   * points. The policy is applied right away, then after each append. The read
+   * only, append only and dataset column series don't support it.
+   * 
+   * @param policy the retention policy
+   */
+  public synchronized void setRetentionPolicy(RetentionPolicy policy) {
+    mRollups = policy == null ? null : new SeriesRollups(policy);
+    applyRetention();
+  }
+
+  /**
+   * Returns the retention policy.
+   * 
+   * @return the retention policy, null if there is none
+   */
+  public synchronized RetentionPolicy getRetentionPolicy() {
+    return mRollups == null ? null : mRollups.getPolicy();
+  }
+
+  /**
+   * Returns the rollups of the points expired by the retention policy.
+   * 
+   * @return the rollups, null if there is no retention policy
+   */
+  public synchronized SeriesRollups getRollups() {
+    return mRollups;
+  }
+
+  /**
+   * Returns an immutable snapshot of the points, which can be read without
+   * holding the series lock while the series keeps changing. The series
+   * storing their points in arrays, such as {@link TimeSeries} and
+   * {@link MultiValueXYSeries}, take it in constant time. The other ones return
+   * themselves, and reading them must be synchronized on the series, or give a
+   * snapshot of the points in an X range with
+   * {@link #getSnapshot(double, double, boolean)}.
+   * 
+   * @return the snapshot, or the series itself
+   * @see XYSeriesSnapshot
+   */
+  public XYSeries getSnapshot() {
+    return this;
+  }
+
+  /**
+   * Returns an immutable snapshot holding at least the points displayed
+   * between the given start and stop X values, which can be read without
+   * holding the series lock. The series taking a snapshot in constant time
+   * return a snapshot of all their points. The other ones copy the points in
+   * the range in bulk, the series lock being held only during the copy. The
+   * range of the snapshot is the one of the whole series.
+   * 
+   * @param start start x value
+   * @param stop stop x value
+   * @param beforeAfterPoints if the points before and after the first and last
+   *          visible ones must be included
+   * @return the snapshot
+   */
+  public XYSeriesSnapshot getSnapshot(double start, double stop, boolean beforeAfterPoints) {
+    XYSeries snapshot = getSnapshot();
+    if (snapshot instanceof XYSeriesSnapshot) {
+      return (XYSeriesSnapshot) snapshot;
+    }
+    return copySnapshot(start, stop, beforeAfterPoints, null);
+  }
+
+  /**
+   * Returns the points displayed between the given start and stop X values in
+   * a form which can be read without holding the series lock, for drawing them
+   * frame after frame. The read only series return themselves and the series
+   * taking a snapshot in constant time return it. The other ones copy the
+   * points in the range like {@link #getSnapshot(double, double, boolean)},
+   * into the arrays of the recycled snapshot when they are large enough.
+   * 
+   * @param start start x value
+   * @param stop stop x value
+   * @param beforeAfterPoints if the points before and after the first and last
+   *          visible ones must be included
+   * @param recycled a snapshot previously returned by this method and no longer
+   *          used, whose arrays can be overwritten, or null
+   * @return the series or its snapshot
+   */
+  public XYSeries getSnapshot(double start, double stop, boolean beforeAfterPoints,
+      XYSeriesSnapshot recycled) {
+    XYSeries snapshot = getSnapshot();
+    if (snapshot instanceof XYSeriesSnapshot) {
+      return snapshot;
+    }
+    return copySnapshot(start, stop, beforeAfterPoints, recycled);
+  }
+
+  /**
+   * Copies the points in a range in a snapshot, in bulk under the series lock.
+   * 
+   * @param start start x value
+   * @param stop stop x value
+   * @param beforeAfterPoints if the points before and after the first and last
+   *          visible ones must be included
+   * @param recycled the snapshot whose arrays can be reused, or null
+   * @return the snapshot
+   */
+  protected synchronized XYSeriesSnapshot copySnapshot(double start, double stop,
+      boolean beforeAfterPoints, XYSeriesSnapshot recycled) {
+    int[] range = getIndexRange(start, stop, beforeAfterPoints);
+    return XYSeriesSnapshot.copy(this, range[0], range[1], recycled);
+  }
+
+  /**
+   * Applies the retention policy, if any, after an append.
+   */
+  protected void applyRetention() {
+    if (mRollups != null) {
+      mRollups.retain(this);
+    }
+  }
+
   /**
    * Returns the X axis value at the specified index.
    * 
@@ -203,6 +376,66 @@ public class XYSeries implements Serializable {
     return mXY.getYByIndex(index);
   }
 
+  /**
+   * Copies the values of a range of points into arrays, under one acquisition
+   * of the series lock. The points stored in this class are read by walking
+   * the sorted map once, instead of looking each Y value up, and the series
+   * storing their values in arrays copy them in bulk.
+   * 
+   * @param fromIndex the index of the first point
+   * @param toIndex the index after the last point
+   * @param xValues the array receiving the X values, or null
+   * @param yValues the array receiving the Y values, or null
+   * @param offset the index in the arrays of the first point values
+   */
+  public synchronized void copyRange(int fromIndex, int toIndex, double[] xValues,
+      double[] yValues, int offset) {
+    int count = checkRange(fromIndex, toIndex);
+    if (count == 0) {
+      return;
+    }
+    if (mXY.size() == getItemCount()) {
+      // the points are in the map of this class, not in the storage of a
+      // subclass
+      Iterator<Entry<Double, Double>> iterator = mXY.tailMap(mXY.getXByIndex(fromIndex))
+          .entrySet().iterator();
+      for (int i = offset; i < offset + count; i++) {
+        Entry<Double, Double> entry = iterator.next();
+        if (xValues != null) {
+          xValues[i] = entry.getKey();
+        }
+        if (yValues != null) {
+          yValues[i] = entry.getValue();
+        }
+      }
+    } else {
+      for (int i = 0; i < count; i++) {
+        if (xValues != null) {
+          xValues[offset + i] = getX(fromIndex + i);
+        }
+        if (yValues != null) {
+          yValues[offset + i] = getY(fromIndex + i);
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks a range of point indexes is in the series.
+   * 
+   * @param fromIndex the index of the first point
+   * @param toIndex the index after the last point
+   * @return the number of points in the range
+   */
+  protected int checkRange(int fromIndex, int toIndex) {
+    int size = getItemCount();
+    if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+      throw new IndexOutOfBoundsException("Range: " + fromIndex + " - " + toIndex + ", Size: "
+          + size);
+    }
+    return toIndex - fromIndex;
+  }
+
   /**
    * Add an String at (x,y) coordinates
    * 
@@ -210,9 +443,11 @@ public class XYSeries implements Serializable {
    * @param x
    * @param y
    */
-  public void addAnnotation(String annotation, double x, double y) {
+  public synchronized void addAnnotation(String annotation, double x, double y) {
     mAnnotations.add(annotation);
-    mStringXY.put(x, y);
+    mAnnotationsX.add(x);
+    mAnnotationsY.add(y);
+    mSharedAnnotations = null;
   }
 
   /**
@@ -220,9 +455,26 @@ public class XYSeries implements Serializable {
    * 
    * @param index
    */
-  public void removeAnnotation(int index) {
+  public synchronized void removeAnnotation(int index) {
     mAnnotations.remove(index);
-    mStringXY.removeByIndex(index);
+    mAnnotationsX.remove(index);
+    mAnnotationsY.remove(index);
+    mSharedAnnotations = null;
+  }
+
+  /**
+   * Returns an immutable copy of the annotations, shared by the snapshots of
+   * the series and taken again only after the annotations changed.
+   * 
+   * @return the annotations copy
+   */
+  Annotations getSharedAnnotations() {
+    Annotations annotations = mSharedAnnotations;
+    if (annotations == null) {
+      annotations = new Annotations(this);
+      mSharedAnnotations = annotations;
+    }
+    return annotations;
   }
 
   /**
@@ -231,8 +483,8 @@ public class XYSeries implements Serializable {
    * @param index the index in the annotations list
    * @return the corresponding annotation X value
    */
-  public double getAnnotationX(int index) {
-    return mStringXY.getXByIndex(index);
+  public synchronized double getAnnotationX(int index) {
+    return mAnnotationsX.get(index);
   }
 
   /**
@@ -241,8 +493,8 @@ public class XYSeries implements Serializable {
    * @param index the index in the annotations list
    * @return the corresponding annotation Y value
    */
-  public double getAnnotationY(int index) {
-    return mStringXY.getYByIndex(index);
+  public synchronized double getAnnotationY(int index) {
+    return mAnnotationsY.get(index);
   }
 
   /**
@@ -250,7 +502,7 @@ public class XYSeries implements Serializable {
    * 
    * @return the annotations count
    */
-  public int getAnnotationCount() {
+  public synchronized int getAnnotationCount() {
     return mAnnotations.size();
   }
 
@@ -260,7 +512,7 @@ public class XYSeries implements Serializable {
    * @param index
    * @return String
    */
-  public String getAnnotationAt(int index) {
+  public synchronized String getAnnotationAt(int index) {
     return mAnnotations.get(index);
   }
 
@@ -305,7 +557,51 @@ public class XYSeries implements Serializable {
     return mXY.subMap(start, stop);
   }
 
-  public int getIndexForKey(double key) {
+  /**
+   * Returns the range of indexes of the points displayed between the given
+   * start and stop X values. It selects the same points as getRange, without
+   * building a map.
+   * 
+   * @param start start x value
+   * @param stop stop x value
+   * @param beforeAfterPoints if the points before and after the first and last
+   *          visible ones must be included
+   * @return the first index and the index after the last one
+   */
+  public synchronized int[] getIndexRange(double start, double stop, boolean beforeAfterPoints) {
+    int length = getItemCount();
+    int from = getFirstIndexFrom(start);
+    int to = getFirstIndexFrom(stop);
+    if (beforeAfterPoints) {
+      from = Math.max(0, from - 1);
+      to = Math.min(length, to + 1);
+    }
+    return new int[] { from, Math.max(from, to) };
+  }
+
+  /**
+   * Returns the index of the first point with an X value greater than or equal
+   * to the given value, using a binary search on the sorted X values.
+   * 
+   * @param x the x value
+   * @return the index of the first point at or after x, the item count if
+   *         there is none
+   */
+  protected int getFirstIndexFrom(double x) {
+    int low = 0;
+    int high = getItemCount();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (getX(middle) < x) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  public synchronized int getIndexForKey(double key) {
     return mXY.getIndexForKey(key);
   }
 
@@ -353,4 +649,33 @@ public class XYSeries implements Serializable {
   public double getMaxY() {
     return mMaxY;
   }
+
+  /**
+   * An immutable copy of the annotations of a series.
+   */
+  static final class Annotations {
+    /** The annotation texts. */
+    final String[] mTexts;
+    /** The annotation X values. */
+    final double[] mX;
+    /** The annotation Y values. */
+    final double[] mY;
+
+    /**
+     * Copies the annotations of a series.
+     * 
+     * @param series the series
+     */
+    Annotations(XYSeries series) {
+      int count = series.getAnnotationCount();
+      mTexts = new String[count];
+      mX = new double[count];
+      mY = new double[count];
+      for (int i = 0; i < count; i++) {
+        mTexts[i] = series.getAnnotationAt(i);
+        mX[i] = series.getAnnotationX(i);
+        mY[i] = series.getAnnotationY(i);
+      }
+    }
+  }
 }
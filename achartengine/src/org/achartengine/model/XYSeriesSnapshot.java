@@ -0,0 +1,517 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * An immutable snapshot of the points of a series. The series storing their
+ * points in arrays take it in constant time: the snapshot shares the storage
+ * of the series, which appends new points after the ones visible in the
+ * snapshot and copies its storage before changing them. The other series copy
+ * the points of an X range in the snapshot. Reading a snapshot doesn't take
+ * the series lock, such as a chart drawing it doesn't block the threads adding
+ * points to the series.
+ * 
+ * @see XYSeries#getSnapshot()
+ * @see XYSeries#getSnapshot(double, double, boolean)
+ */
+public class XYSeriesSnapshot extends XYSeries {
+  /** The X values, when they are stored as doubles. */
+  private final double[] mXValues;
+  /** The X values, when they are stored as longs. */
+  private final long[] mTimes;
+  /** The Y values. */
+  private final double[] mYValues;
+  /** The position of the first point in the arrays. */
+  private final int mStart;
+  /** The number of points. */
+  private final int mSize;
+  /** The third dimension values of a value series, or null. */
+  private final double[] mValues;
+  /** The minimum third dimension value of the series. */
+  private final double mMinValue;
+  /** The maximum third dimension value of the series. */
+  private final double mMaxValue;
+  /** The version of the series the snapshot was taken at. */
+  private final long mVersion;
+  /** The snapshot of the rollups of the series, or null. */
+  private final SeriesRollups mRollups;
+  /** The annotations, shared with the other snapshots of the series. */
+  private final Annotations mSharedAnnotations;
+  /** If the arrays are a copy owned by the snapshot, which can be recycled. */
+  private boolean mCopied;
+  /** The index in the series of the first point of the snapshot. */
+  private int mFirstIndex;
+
+  /**
+   * Builds a new snapshot, the caller holding the series lock.
+   * 
+   * @param series the series
+   * @param xValues the X values as doubles, or null
+   * @param times the X values as longs, or null
+   * @param yValues the Y values
+   * @param start the position of the first point in the arrays
+   * @param size the number of points
+   * @param version the series version, or -1 if the series doesn't have one
+   */
+  XYSeriesSnapshot(XYSeries series, double[] xValues, long[] times, double[] yValues, int start,
+      int size, long version) {
+    this(series, xValues, times, yValues, null, start, size, version);
+  }
+
+  /**
+   * Builds a new snapshot of a value series, the caller holding the series
+   * lock.
+   * 
+   * @param series the value series
+   * @param xValues the X values as doubles, or null
+   * @param times the X values as longs, or null
+   * @param yValues the Y values
+   * @param values the third dimension values, or null
+   * @param start the position of the first point in the arrays
+   * @param size the number of points
+   * @param version the series version, or -1 if the series doesn't have one
+   */
+  XYSeriesSnapshot(XYSeries series, double[] xValues, long[] times, double[] yValues,
+      double[] values, int start, int size, long version) {
+    super(series.getTitle(), series.getScaleNumber());
+    mXValues = xValues;
+    mTimes = times;
+    mYValues = yValues;
+    mValues = values;
+    mStart = start;
+    mSize = size;
+    mVersion = version;
+    if (series instanceof XYValueSeries) {
+      mMinValue = ((XYValueSeries) series).getMinValue();
+      mMaxValue = ((XYValueSeries) series).getMaxValue();
+    } else {
+      mMinValue = 0;
+      mMaxValue = 0;
+    }
+    SeriesRollups rollups = series.getRollups();
+    mRollups = rollups == null ? null : rollups.getSnapshot();
+    mSharedAnnotations = series.getSharedAnnotations();
+    if (size > 0) {
+      updateRange(series.getMinX(), series.getMinY());
+      updateRange(series.getMaxX(), series.getMaxY());
+    }
+  }
+
+  /**
+   * Copies the points of an index range of a series in a new snapshot, with
+   * their values for a value series, the caller holding the series lock. The
+   * arrays of the recycled snapshot are reused when they are large enough, such
+   * as a series drawn frame after frame isn't copied in new arrays each time.
+   * 
+   * @param series the series
+   * @param fromIndex the index of the first point
+   * @param toIndex the index after the last point
+   * @param recycled a copy no longer used, whose arrays can be overwritten, or
+   *          null
+   * @return the snapshot
+   */
+  static XYSeriesSnapshot copy(XYSeries series, int fromIndex, int toIndex,
+      XYSeriesSnapshot recycled) {
+    int count = toIndex - fromIndex;
+    if (recycled != null && !recycled.mCopied) {
+      // the arrays of a snapshot taken in constant time belong to the series
+      recycled = null;
+    }
+    double[] xValues = recycle(recycled == null ? null : recycled.mXValues, count);
+    double[] yValues = recycle(recycled == null ? null : recycled.mYValues, count);
+    series.copyRange(fromIndex, toIndex, xValues, yValues, 0);
+    double[] values = null;
+    if (series instanceof XYValueSeries) {
+      XYValueSeries valueSeries = (XYValueSeries) series;
+      values = recycle(recycled == null ? null : recycled.mValues, count);
+      for (int i = 0; i < count; i++) {
+        values[i] = valueSeries.getValue(fromIndex + i);
+      }
+    }
+    XYSeriesSnapshot snapshot = new XYSeriesSnapshot(series, xValues, null, yValues, values, 0,
+        count, -1);
+    snapshot.mCopied = true;
+    snapshot.mFirstIndex = fromIndex;
+    return snapshot;
+  }
+
+  /**
+   * Returns the given array if it holds the given number of values, otherwise
+   * a new array, at least twice as large as the given one such as a growing
+   * range doesn't allocate a new array for each frame.
+   * 
+   * @param array the recycled array, or null
+   * @param count the number of values
+   * @return the array
+   */
+  private static double[] recycle(double[] array, int count) {
+    if (array != null && array.length >= count) {
+      return array;
+    }
+    return new double[array == null ? count : Math.max(count, array.length * 2)];
+  }
+
+  /**
+   * Returns the version of the series the snapshot was taken at, which is
+   * incremented by each change of the series, or -1 for the series which copy
+   * their points in the snapshot.
+   * 
+   * @return the snapshot version
+   */
+  public long getVersion() {
+    return mVersion;
+  }
+
+  /**
+   * Returns the index in the series of the first point of the snapshot, which
+   * is not 0 when only a range of the points was copied. Adding it to an index
+   * in the snapshot gives the index of the same point in the series.
+   * 
+   * @return the index of the first point
+   */
+  public int getFirstIndex() {
+    return mFirstIndex;
+  }
+
+  /**
+   * Returns the snapshot itself, which is immutable.
+   * 
+   * @return the snapshot
+   */
+  @Override
+  public XYSeries getSnapshot() {
+    return this;
+  }
+
+  /**
+   * Returns an immutable snapshot of the rollups of the series, taken with the
+   * points.
+   * 
+   * @return the rollups, null if there is no retention policy
+   */
+  @Override
+  public SeriesRollups getRollups() {
+    return mRollups;
+  }
+
+  /**
+   * Not supported, the snapshot is immutable.
+   * 
+   * @param x the value for the X axis
+   * @param y the value for the Y axis
+   */
+  @Override
+  public void add(double x, double y) {
+    throw new UnsupportedOperationException("Series snapshots are immutable");
+  }
+
+  /**
+   * Not supported, the snapshot is immutable.
+   * 
+   * @param index the index to be added the data to
+   * @param x the value for the X axis
+   * @param y the value for the Y axis
+   */
+  @Override
+  public void add(int index, double x, double y) {
+    throw new UnsupportedOperationException("Series snapshots are immutable");
+  }
+
+  /**
+   * Not supported, the snapshot is immutable.
+   * 
+   * @param index the index in the series of the value to remove
+   */
+  @Override
+  public void remove(int index) {
+    throw new UnsupportedOperationException("Series snapshots are immutable");
+  }
+
+  /**
+   * Not supported, the snapshot is immutable.
+   */
+  @Override
+  public void clear() {
+    throw new UnsupportedOperationException("Series snapshots are immutable");
+  }
+
+  /**
+   * Not supported, the snapshot is immutable.
+   * 
+   * @param annotation the annotation
+   * @param x the x value
+   * @param y the y value
+   */
+  @Override
+  public void addAnnotation(String annotation, double x, double y) {
+    throw new UnsupportedOperationException("Series snapshots are immutable");
+  }
+
+  /**
+   * Not supported, the snapshot is immutable.
+   * 
+   * @param index the annotation index
+   */
+  @Override
+  public void removeAnnotation(int index) {
+    throw new UnsupportedOperationException("Series snapshots are immutable");
+  }
+
+  /**
+   * Not supported, the snapshot is immutable.
+   * 
+   * @param policy the retention policy
+   */
+  @Override
+  public void setRetentionPolicy(RetentionPolicy policy) {
+    if (policy != null) {
+      throw new UnsupportedOperationException("Series snapshots are immutable");
+    }
+  }
+
+  /**
+   * Returns the X coordinate of an annotation.
+   * 
+   * @param index the index in the annotations list
+   * @return the annotation X value
+   */
+  @Override
+  public double getAnnotationX(int index) {
+    return mSharedAnnotations.mX[index];
+  }
+
+  /**
+   * Returns the Y coordinate of an annotation.
+   * 
+   * @param index the index in the annotations list
+   * @return the annotation Y value
+   */
+  @Override
+  public double getAnnotationY(int index) {
+    return mSharedAnnotations.mY[index];
+  }
+
+  /**
+   * Returns the annotations count.
+   * 
+   * @return the annotations count
+   */
+  @Override
+  public int getAnnotationCount() {
+    return mSharedAnnotations.mTexts.length;
+  }
+
+  /**
+   * Returns the text of an annotation.
+   * 
+   * @param index the index in the annotations list
+   * @return the annotation text
+   */
+  @Override
+  public String getAnnotationAt(int index) {
+    return mSharedAnnotations.mTexts[index];
+  }
+
+  /**
+   * Returns the X axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the X value
+   */
+  @Override
+  public double getX(int index) {
+    checkIndex(index);
+    return mTimes != null ? mTimes[mStart + index] : mXValues[mStart + index];
+  }
+
+  /**
+   * Returns the Y axis value at the specified index.
+   * 
+   * @param index the index
+   * @return the Y value
+   */
+  @Override
+  public double getY(int index) {
+    checkIndex(index);
+    return mYValues[mStart + index];
+  }
+
+  /**
+   * Copies the values of a range of points into arrays.
+   * 
+   * @param fromIndex the index of the first point
+   * @param toIndex the index after the last point
+   * @param xValues the array receiving the X values, or null
+   * @param yValues the array receiving the Y values, or null
+   * @param offset the index in the arrays of the first point values
+   */
+  @Override
+  public void copyRange(int fromIndex, int toIndex, double[] xValues, double[] yValues,
+      int offset) {
+    int count = checkRange(fromIndex, toIndex);
+    if (xValues != null) {
+      if (mTimes != null) {
+        for (int i = 0; i < count; i++) {
+          xValues[offset + i] = mTimes[mStart + fromIndex + i];
+        }
+      } else {
+        System.arraycopy(mXValues, mStart + fromIndex, xValues, offset, count);
+      }
+    }
+    if (yValues != null) {
+      System.arraycopy(mYValues, mStart + fromIndex, yValues, offset, count);
+    }
+  }
+
+  /**
+   * Returns the third dimension value at the specified index, for the
+   * snapshots of a value series.
+   * 
+   * @param index the index
+   * @return the value
+   * @throws UnsupportedOperationException if the series is not a value series
+   */
+  public double getValue(int index) {
+    checkIndex(index);
+    if (mValues == null) {
+      throw new UnsupportedOperationException("Only the value series snapshots have values");
+    }
+    return mValues[mStart + index];
+  }
+
+  /**
+   * Returns the minimum third dimension value of a value series.
+   * 
+   * @return the minimum value
+   */
+  public double getMinValue() {
+    return mMinValue;
+  }
+
+  /**
+   * Returns the maximum third dimension value of a value series.
+   * 
+   * @return the maximum value
+   */
+  public double getMaxValue() {
+    return mMaxValue;
+  }
+
+  /**
+   * Returns the series item count.
+   * 
+   * @return the series item count
+   */
+  @Override
+  public int getItemCount() {
+    return mSize;
+  }
+
+  /**
+   * Returns the index of the first point at an X value, or (-(insertion point)
+   * - 1) if the snapshot doesn't contain it.
+   * 
+   * @param key the X value
+   * @return the X value index
+   */
+  @Override
+  public int getIndexForKey(double key) {
+    int index = getFirstIndexFrom(key);
+    if (index < mSize && getX(index) == key) {
+      return index;
+    }
+    return -index - 1;
+  }
+
+  /**
+   * Returns the range of indexes of the points displayed between the given
+   * start and stop X values.
+   * 
+   * @param start start x value
+   * @param stop stop x value
+   * @param beforeAfterPoints if the points before and after the first and last
+   *          visible ones must be included
+   * @return the first index and the index after the last one
+   */
+  @Override
+  public int[] getIndexRange(double start, double stop, boolean beforeAfterPoints) {
+    int from = getFirstIndexFrom(start);
+    int to = getFirstIndexFrom(stop);
+    if (beforeAfterPoints) {
+      from = Math.max(0, from - 1);
+      to = Math.min(mSize, to + 1);
+    }
+    return new int[] { from, Math.max(from, to) };
+  }
+
+  /**
+   * Returns submap of x and y values according to the given start and end. The
+   * map is built on every call and only kept for compatibility, the charts use
+   * getIndexRange.
+   * 
+   * @param start start x value
+   * @param stop stop x value
+   * @param beforeAfterPoints if the points before and after the first and last
+   *          visible ones must be displayed
+   * @return a submap of x and y values
+   */
+  @Override
+  public SortedMap<Double, Double> getRange(double start, double stop, boolean beforeAfterPoints) {
+    int[] range = getIndexRange(start, stop, beforeAfterPoints);
+    SortedMap<Double, Double> map = new TreeMap<Double, Double>();
+    for (int i = range[0]; i < range[1]; i++) {
+      map.put(getX(i), mYValues[mStart + i]);
+    }
+    return map;
+  }
+
+  /**
+   * Returns the index of the first point with an X value greater than or equal
+   * to the given value.
+   * 
+   * @param x the x value
+   * @return the index of the first point at or after x, the item count if
+   *         there is none
+   */
+  @Override
+  protected int getFirstIndexFrom(double x) {
+    int low = 0;
+    int high = mSize;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if ((mTimes != null ? mTimes[mStart + middle] : mXValues[mStart + middle]) < x) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Checks the index is in the snapshot range.
+   * 
+   * @param index the index
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= mSize) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+    }
+  }
+}
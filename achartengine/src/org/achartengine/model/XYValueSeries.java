@@ -51,18 +51,30 @@ public class XYValueSeries extends XYSeries {
   public synchronized void add(double x, double y, double value) {
     super.add(x, y);
     mValue.add(value);
-    updateRange(value);
+    updateValueRange(value);
+    applyRetention();
+  }
+
+  /**
+   * Applies the retention policy, if any, once the value of the appended point
+   * is stored as well.
+   */
+  @Override
+  protected void applyRetention() {
+    if (mValue.size() == getItemCount()) {
+      super.applyRetention();
+    }
   }
 
   /**
    * Initializes the values range.
    */
-  private void initRange() {
+  private void initValueRange() {
     mMinValue = MathHelper.NULL_VALUE;
-    mMaxValue = MathHelper.NULL_VALUE;
+    mMaxValue = -MathHelper.NULL_VALUE;
     int length = getItemCount();
     for (int k = 0; k < length; k++) {
-      updateRange(getValue(k));
+      updateValueRange(getValue(k));
     }
   }
 
@@ -71,7 +83,7 @@ public class XYValueSeries extends XYSeries {
    * 
    * @param value the new value
    */
-  private void updateRange(double value) {
+  private void updateValueRange(double value) {
     mMinValue = Math.min(mMinValue, value);
     mMaxValue = Math.max(mMaxValue, value);
   }
@@ -95,7 +107,26 @@ public class XYValueSeries extends XYSeries {
     super.remove(index);
     double removedValue = mValue.remove(index);
     if (removedValue == mMinValue || removedValue == mMaxValue) {
-      initRange();
+      initValueRange();
+    }
+  }
+
+  /**
+   * Removes the first points of the series and their values in one step.
+   * 
+   * @param count the number of points to remove
+   */
+  @Override
+  protected void removeFirst(int count) {
+    super.removeFirst(count);
+    List<Double> removed = mValue.subList(0, count);
+    boolean extreme = false;
+    for (double value : removed) {
+      extreme |= value == mMinValue || value == mMaxValue;
+    }
+    removed.clear();
+    if (extreme) {
+      initValueRange();
     }
   }
 
@@ -105,7 +136,7 @@ public class XYValueSeries extends XYSeries {
   public synchronized void clear() {
     super.clear();
     mValue.clear();
-    initRange();
+    initValueRange();
   }
 
   /**
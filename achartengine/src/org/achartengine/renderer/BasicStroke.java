@@ -15,8 +15,13 @@
  */
 package org.achartengine.renderer;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 
+import org.achartengine.util.DataCodec;
+
 import android.graphics.Paint.Cap;
 import android.graphics.Paint.Join;
 
@@ -104,4 +109,35 @@ public class BasicStroke implements Serializable {
     return mPhase;
   }
 
+  /**
+   * Writes the stroke style in the compact binary form.
+   * 
+   * @param out the output to write to
+   * @throws IOException if the output cannot be written
+   */
+  public void write(DataOutput out) throws IOException {
+    DataCodec.writeEnum(out, mCap);
+    DataCodec.writeEnum(out, mJoin);
+    out.writeFloat(mMiter);
+    DataCodec.writeFloatArray(out, mIntervals);
+    out.writeFloat(mPhase);
+  }
+
+  /**
+   * Reads a stroke style from the compact binary form.
+   * 
+   * @param in the input to read from
+   * @return the stroke style
+   * @throws IOException if the input cannot be read
+   */
+  public static BasicStroke read(DataInput in) throws IOException {
+    Cap cap = DataCodec.readEnum(in, Cap.class);
+    Join join = DataCodec.readEnum(in, Join.class);
+    float miter = in.readFloat();
+    float[] intervals = DataCodec.readFloatArray(in);
+    BasicStroke stroke = new BasicStroke(cap, join, miter, intervals, 0);
+    stroke.mPhase = in.readFloat();
+    return stroke;
+  }
+
 }
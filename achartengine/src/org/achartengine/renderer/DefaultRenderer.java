@@ -15,10 +15,15 @@
  */
 package org.achartengine.renderer;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.achartengine.util.DataCodec;
+
 import android.graphics.Color;
 import android.graphics.Typeface;
 
@@ -798,4 +803,104 @@ public class DefaultRenderer implements Serializable {
     mDisplayValues = display;
   }
 
+  /**
+   * Writes the renderer settings and its series renderers in the compact
+   * binary form. The text typeface is not written, only its name and style.
+   * 
+   * @param out the output to write to
+   * @throws IOException if the output cannot be written
+   */
+  public void write(DataOutput out) throws IOException {
+    DataCodec.writeString(out, mChartTitle);
+    out.writeFloat(mChartTitleTextSize);
+    DataCodec.writeString(out, mTextTypefaceName);
+    out.writeInt(mTextTypefaceStyle);
+    out.writeInt(mBackgroundColor);
+    out.writeBoolean(mApplyBackgroundColor);
+    out.writeBoolean(mShowAxes);
+    out.writeInt(mAxesColor);
+    out.writeBoolean(mShowLabels);
+    out.writeInt(mLabelsColor);
+    out.writeFloat(mLabelsTextSize);
+    out.writeBoolean(mShowLegend);
+    out.writeFloat(mLegendTextSize);
+    out.writeBoolean(mFitLegend);
+    out.writeBoolean(mShowGridX);
+    out.writeBoolean(mShowGridY);
+    out.writeBoolean(mShowCustomTextGridX);
+    out.writeBoolean(mShowCustomTextGridY);
+    out.writeBoolean(mAntialiasing);
+    out.writeInt(mLegendHeight);
+    DataCodec.writeIntArray(out, mMargins);
+    out.writeFloat(mScale);
+    out.writeBoolean(mPanEnabled);
+    out.writeBoolean(mZoomEnabled);
+    out.writeBoolean(mZoomButtonsVisible);
+    out.writeFloat(mZoomRate);
+    out.writeBoolean(mExternalZoomEnabled);
+    out.writeFloat(mOriginalScale);
+    out.writeBoolean(mClickEnabled);
+    out.writeInt(selectableBuffer);
+    out.writeBoolean(mDisplayValues);
+    out.writeBoolean(mInScroll);
+    out.writeFloat(mStartAngle);
+    out.writeInt(mRenderers.size());
+    for (SimpleSeriesRenderer renderer : mRenderers) {
+      out.writeBoolean(renderer instanceof XYSeriesRenderer);
+      renderer.write(out);
+    }
+  }
+
+  /**
+   * Reads the renderer settings and its series renderers from the compact
+   * binary form, replacing the current series renderers.
+   * 
+   * @param in the input to read from
+   * @throws IOException if the input cannot be read
+   */
+  public void read(DataInput in) throws IOException {
+    mChartTitle = DataCodec.readString(in);
+    mChartTitleTextSize = in.readFloat();
+    mTextTypefaceName = DataCodec.readString(in);
+    mTextTypefaceStyle = in.readInt();
+    mTextTypeface = null;
+    mBackgroundColor = in.readInt();
+    mApplyBackgroundColor = in.readBoolean();
+    mShowAxes = in.readBoolean();
+    mAxesColor = in.readInt();
+    mShowLabels = in.readBoolean();
+    mLabelsColor = in.readInt();
+    mLabelsTextSize = in.readFloat();
+    mShowLegend = in.readBoolean();
+    mLegendTextSize = in.readFloat();
+    mFitLegend = in.readBoolean();
+    mShowGridX = in.readBoolean();
+    mShowGridY = in.readBoolean();
+    mShowCustomTextGridX = in.readBoolean();
+    mShowCustomTextGridY = in.readBoolean();
+    mAntialiasing = in.readBoolean();
+    mLegendHeight = in.readInt();
+    mMargins = DataCodec.readIntArray(in);
+    mScale = in.readFloat();
+    mPanEnabled = in.readBoolean();
+    mZoomEnabled = in.readBoolean();
+    mZoomButtonsVisible = in.readBoolean();
+    mZoomRate = in.readFloat();
+    mExternalZoomEnabled = in.readBoolean();
+    mOriginalScale = in.readFloat();
+    mClickEnabled = in.readBoolean();
+    selectableBuffer = in.readInt();
+    mDisplayValues = in.readBoolean();
+    mInScroll = in.readBoolean();
+    mStartAngle = in.readFloat();
+    mRenderers.clear();
+    int count = in.readInt();
+    for (int i = 0; i < count; i++) {
+      SimpleSeriesRenderer renderer = in.readBoolean() ? new XYSeriesRenderer()
+          : new SimpleSeriesRenderer();
+      renderer.read(in);
+      mRenderers.add(renderer);
+    }
+  }
+
 }
@@ -15,10 +15,14 @@
  */
 package org.achartengine.renderer;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import org.achartengine.util.DataCodec;
 import org.achartengine.util.MathHelper;
 
 /**
@@ -193,4 +197,35 @@ public class DialRenderer extends DefaultRenderer {
     mVisualTypes.addAll(Arrays.asList(types));
   }
 
+  @Override
+  public void write(DataOutput out) throws IOException {
+    super.write(out);
+    out.writeDouble(mAngleMin);
+    out.writeDouble(mAngleMax);
+    out.writeDouble(mMinValue);
+    out.writeDouble(mMaxValue);
+    out.writeDouble(mMinorTickSpacing);
+    out.writeDouble(mMajorTickSpacing);
+    out.writeInt(mVisualTypes.size());
+    for (Type type : mVisualTypes) {
+      DataCodec.writeEnum(out, type);
+    }
+  }
+
+  @Override
+  public void read(DataInput in) throws IOException {
+    super.read(in);
+    mAngleMin = in.readDouble();
+    mAngleMax = in.readDouble();
+    mMinValue = in.readDouble();
+    mMaxValue = in.readDouble();
+    mMinorTickSpacing = in.readDouble();
+    mMajorTickSpacing = in.readDouble();
+    mVisualTypes.clear();
+    int count = in.readInt();
+    for (int i = 0; i < count; i++) {
+      mVisualTypes.add(DataCodec.readEnum(in, Type.class));
+    }
+  }
+
 }
@@ -15,10 +15,21 @@
  */
 package org.achartengine.renderer;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.text.NumberFormat;
 
+import org.achartengine.util.DataCodec;
+import org.achartengine.util.LabelFormatter;
+import org.achartengine.util.NumberFormatLabelFormatter;
+
 import android.graphics.Color;
+import android.graphics.DashPathEffect;
+import android.graphics.Paint;
+import android.graphics.Paint.Style;
+import android.graphics.Typeface;
 
 /**
  * A simple series renderer.
@@ -46,6 +57,14 @@ public class SimpleSeriesRenderer implements Serializable {
   private boolean mDisplayBoundingPoints = true;
   /** The chart values format. */
   private NumberFormat mChartValuesFormat;
+  /** The chart values formatter. */
+  private LabelFormatter mChartValuesFormatter;
+  /** The cached series paint, built lazily from the stroke and color. */
+  private transient Paint mSeriesPaint;
+  /** The anti-aliasing flag of the template the cached paints were built from. */
+  private transient boolean mPaintsAntialias;
+  /** The typeface of the template the cached paints were built from. */
+  private transient Typeface mPaintsTypeface;
 
   /**
    * Returns the series color.
@@ -63,6 +82,7 @@ public class SimpleSeriesRenderer implements Serializable {
    */
   public void setColor(int color) {
     mColor = color;
+    invalidatePaints();
   }
 
   /**
@@ -81,6 +101,7 @@ public class SimpleSeriesRenderer implements Serializable {
    */
   public void setStroke(BasicStroke stroke) {
     mStroke = stroke;
+    invalidatePaints();
   }
 
   /**
@@ -223,12 +244,145 @@ public class SimpleSeriesRenderer implements Serializable {
   }
 
   /**
-   * Sets the number format for displaying chart values.
+   * Sets the number format for displaying chart values. The renderer formats
+   * the values with a copy of it, so a later change to the format needs a new
+   * call to this method to be seen.
    * 
    * @param format the number format for chart values
    */
   public void setChartValuesFormat(NumberFormat format) {
     mChartValuesFormat = format;
+    mChartValuesFormatter = format == null ? null : new NumberFormatLabelFormatter(format);
+  }
+
+  /**
+   * Returns the formatter for displaying chart values. If a number format was
+   * set, the formatter delegates to it.
+   * 
+   * @return the formatter for chart values or null for the default formatting
+   */
+  public LabelFormatter getChartValuesFormatter() {
+    return mChartValuesFormatter;
+  }
+
+  /**
+   * Sets the formatter for displaying chart values. It replaces any previously
+   * set number format.
+   * 
+   * @param formatter the formatter for chart values
+   */
+  public void setChartValuesFormatter(LabelFormatter formatter) {
+    mChartValuesFormatter = formatter;
+    mChartValuesFormat = formatter instanceof NumberFormatLabelFormatter
+        ? ((NumberFormatLabelFormatter) formatter).getFormat() : null;
+  }
+
+  /**
+   * Writes the renderer settings in the compact binary form.
+   * 
+   * @param out the output to write to
+   * @throws IOException if the output cannot be written
+   */
+  public void write(DataOutput out) throws IOException {
+    out.writeInt(mColor);
+    out.writeBoolean(mStroke != null);
+    if (mStroke != null) {
+      mStroke.write(out);
+    }
+    out.writeBoolean(mGradientEnabled);
+    out.writeDouble(mGradientStartValue);
+    out.writeInt(mGradientStartColor);
+    out.writeDouble(mGradientStopValue);
+    out.writeInt(mGradientStopColor);
+    out.writeBoolean(mShowLegendItem);
+    out.writeBoolean(mHighlighted);
+    out.writeBoolean(mDisplayBoundingPoints);
+    DataCodec.writeSerializable(out, mChartValuesFormatter);
+  }
+
+  /**
+   * Reads the renderer settings from the compact binary form.
+   * 
+   * @param in the input to read from
+   * @throws IOException if the input cannot be read
+   */
+  public void read(DataInput in) throws IOException {
+    mColor = in.readInt();
+    mStroke = in.readBoolean() ? BasicStroke.read(in) : null;
+    mGradientEnabled = in.readBoolean();
+    mGradientStartValue = in.readDouble();
+    mGradientStartColor = in.readInt();
+    mGradientStopValue = in.readDouble();
+    mGradientStopColor = in.readInt();
+    mShowLegendItem = in.readBoolean();
+    mHighlighted = in.readBoolean();
+    mDisplayBoundingPoints = in.readBoolean();
+    setChartValuesFormatter((LabelFormatter) DataCodec.readSerializable(in));
+    invalidatePaints();
+  }
+
+  /**
+   * Returns the cached paint to be used for drawing the series. It carries the
+   * series color and, if a stroke is set, the stroke cap, join, miter and path
+   * effect. The paint is built once and reused until a renderer property or
+   * the template anti-aliasing / typeface changes.
+   * 
+   * @param template the chart paint providing the anti-aliasing and typeface
+   * @return the series paint
+   */
+  public Paint getSeriesPaint(Paint template) {
+    checkPaintsTemplate(template);
+    if (mSeriesPaint == null) {
+      Paint paint = newPaint();
+      paint.setColor(mColor);
+      if (mStroke != null) {
+        paint.setStrokeCap(mStroke.getCap());
+        paint.setStrokeJoin(mStroke.getJoin());
+        paint.setStrokeMiter(mStroke.getMiter());
+        if (mStroke.getIntervals() != null) {
+          paint.setPathEffect(new DashPathEffect(mStroke.getIntervals(), mStroke.getPhase()));
+        }
+        paint.setStyle(Style.FILL_AND_STROKE);
+      }
+      mSeriesPaint = paint;
+    }
+    return mSeriesPaint;
+  }
+
+  /**
+   * Creates a new paint having the anti-aliasing and typeface of the template
+   * the cached paints are currently built from.
+   * 
+   * @return the new paint
+   */
+  protected Paint newPaint() {
+    Paint paint = new Paint();
+    paint.setAntiAlias(mPaintsAntialias);
+    paint.setTypeface(mPaintsTypeface);
+    return paint;
+  }
+
+  /**
+   * Makes sure the cached paints were built from a template having the same
+   * anti-aliasing and typeface, otherwise the cached paints are dropped.
+   * 
+   * @param template the chart paint
+   */
+  protected void checkPaintsTemplate(Paint template) {
+    Typeface typeface = template.getTypeface();
+    if (template.isAntiAlias() != mPaintsAntialias || typeface != mPaintsTypeface) {
+      invalidatePaints();
+      mPaintsAntialias = template.isAntiAlias();
+      mPaintsTypeface = typeface;
+    }
+  }
+
+  /**
+   * Drops the cached paints such as they get rebuilt at the next use. Must be
+   * called whenever a property used for building the paints is changed.
+   */
+  protected void invalidatePaints() {
+    mSeriesPaint = null;
   }
 
 }
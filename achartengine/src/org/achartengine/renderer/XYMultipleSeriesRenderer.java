@@ -15,12 +15,19 @@
  */
 package org.achartengine.renderer;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.text.NumberFormat;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Map.Entry;
 
+import org.achartengine.util.DataCodec;
+import org.achartengine.util.LabelFormatter;
 import org.achartengine.util.MathHelper;
+import org.achartengine.util.NumberFormatLabelFormatter;
 
 import android.graphics.Color;
 import android.graphics.Paint.Align;
@@ -104,6 +111,10 @@ public class XYMultipleSeriesRenderer extends DefaultRenderer {
   private boolean mXRoundedLabels = true;
   /** The label format. */
   private NumberFormat mLabelFormat;
+  /** The label formatter. */
+  private LabelFormatter mLabelFormatter;
+  /** If the axis labels are drawn from an atlas of pre-rasterized labels. */
+  private boolean mLabelAtlasEnabled;
   /** A constant value for the bar chart items width. */
   private float mBarWidth = -1;
   /** The zoom in limit permitted in the axis X */
@@ -605,6 +616,28 @@ public class XYMultipleSeriesRenderer extends DefaultRenderer {
     mXRoundedLabels = rounded;
   }
 
+  /**
+   * Returns if the numeric axis labels are drawn from an atlas of
+   * pre-rasterized labels.
+   * 
+   * @return if the label atlas is enabled
+   */
+  public boolean isLabelAtlasEnabled() {
+    return mLabelAtlasEnabled;
+  }
+
+  /**
+   * Sets if the numeric axis labels are to be drawn from an atlas of
+   * pre-rasterized labels. Every distinct label is rasterized once into a
+   * bitmap and then copied from there, which makes panning cheaper at the cost
+   * of the atlas memory and of drawing the labels at whole pixel positions.
+   * 
+   * @param enabled if the label atlas is enabled
+   */
+  public void setLabelAtlasEnabled(boolean enabled) {
+    mLabelAtlasEnabled = enabled;
+  }
+
   /**
    * Adds a new text label for the specified Y axis value.
    * 
@@ -1215,12 +1248,37 @@ public class XYMultipleSeriesRenderer extends DefaultRenderer {
   }
 
   /**
-   * Sets the number format for displaying labels.
+   * Sets the number format for displaying labels. The renderer formats the
+   * labels with a copy of it, so a later change to the format needs a new call
+   * to this method to be seen.
    * 
    * @param format the number format for labels
    */
   public void setLabelFormat(NumberFormat format) {
     mLabelFormat = format;
+    mLabelFormatter = format == null ? null : new NumberFormatLabelFormatter(format);
+  }
+
+  /**
+   * Returns the formatter for displaying labels. If a number format was set,
+   * the formatter delegates to it.
+   * 
+   * @return the formatter for labels or null for the default formatting
+   */
+  public LabelFormatter getLabelFormatter() {
+    return mLabelFormatter;
+  }
+
+  /**
+   * Sets the formatter for displaying labels. It replaces any previously set
+   * number format.
+   * 
+   * @param formatter the formatter for labels
+   */
+  public void setLabelFormatter(LabelFormatter formatter) {
+    mLabelFormatter = formatter;
+    mLabelFormat = formatter instanceof NumberFormatLabelFormatter
+        ? ((NumberFormatLabelFormatter) formatter).getFormat() : null;
   }
 
   /**
@@ -1276,4 +1334,180 @@ public class XYMultipleSeriesRenderer extends DefaultRenderer {
   public int getScalesCount() {
     return scalesCount;
   }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    super.write(out);
+    out.writeInt(scalesCount);
+    DataCodec.writeString(out, mXTitle);
+    DataCodec.writeStringArray(out, mYTitle);
+    out.writeFloat(mAxisTitleTextSize);
+    DataCodec.writeDoubleArray(out, mMinX);
+    DataCodec.writeDoubleArray(out, mMaxX);
+    DataCodec.writeDoubleArray(out, mMinY);
+    DataCodec.writeDoubleArray(out, mMaxY);
+    out.writeInt(mXLabels);
+    out.writeInt(mYLabels);
+    DataCodec.writeEnum(out, mOrientation);
+    writeTextLabels(out, mXTextLabels);
+    out.writeInt(mYTextLabels.size());
+    for (Entry<Integer, Map<Double, String>> labels : mYTextLabels.entrySet()) {
+      out.writeInt(labels.getKey());
+      writeTextLabels(out, labels.getValue());
+    }
+    out.writeBoolean(mPanXEnabled);
+    out.writeBoolean(mPanYEnabled);
+    out.writeBoolean(mZoomXEnabled);
+    out.writeBoolean(mZoomYEnabled);
+    out.writeDouble(mBarSpacing);
+    out.writeInt(mMarginsColor);
+    DataCodec.writeDoubleArray(out, mPanLimits);
+    DataCodec.writeDoubleArray(out, mZoomLimits);
+    out.writeFloat(mXLabelsAngle);
+    out.writeFloat(mYLabelsAngle);
+    out.writeInt(initialRange.size());
+    for (Entry<Integer, double[]> range : initialRange.entrySet()) {
+      out.writeInt(range.getKey());
+      DataCodec.writeDoubleArray(out, range.getValue());
+    }
+    out.writeFloat(mPointSize);
+    DataCodec.writeIntArray(out, mGridColors);
+    DataCodec.writeEnum(out, xLabelsAlign);
+    writeAligns(out, yLabelsAlign);
+    out.writeFloat(mXLabelsPadding);
+    out.writeFloat(mYLabelsPadding);
+    out.writeFloat(mYLabelsVerticalPadding);
+    writeAligns(out, yAxisAlign);
+    out.writeInt(mXLabelsColor);
+    DataCodec.writeIntArray(out, mYLabelsColor);
+    out.writeBoolean(mXRoundedLabels);
+    DataCodec.writeSerializable(out, mLabelFormatter);
+    out.writeBoolean(mLabelAtlasEnabled);
+    out.writeFloat(mBarWidth);
+    out.writeDouble(mZoomInLimitX);
+    out.writeDouble(mZoomInLimitY);
+  }
+
+  @Override
+  public void read(DataInput in) throws IOException {
+    super.read(in);
+    scalesCount = in.readInt();
+    mXTitle = DataCodec.readString(in);
+    mYTitle = DataCodec.readStringArray(in);
+    mAxisTitleTextSize = in.readFloat();
+    mMinX = DataCodec.readDoubleArray(in);
+    mMaxX = DataCodec.readDoubleArray(in);
+    mMinY = DataCodec.readDoubleArray(in);
+    mMaxY = DataCodec.readDoubleArray(in);
+    mXLabels = in.readInt();
+    mYLabels = in.readInt();
+    mOrientation = DataCodec.readEnum(in, Orientation.class);
+    mXTextLabels = readTextLabels(in);
+    mYTextLabels.clear();
+    int count = in.readInt();
+    for (int i = 0; i < count; i++) {
+      int scale = in.readInt();
+      mYTextLabels.put(scale, readTextLabels(in));
+    }
+    mPanXEnabled = in.readBoolean();
+    mPanYEnabled = in.readBoolean();
+    mZoomXEnabled = in.readBoolean();
+    mZoomYEnabled = in.readBoolean();
+    mBarSpacing = in.readDouble();
+    mMarginsColor = in.readInt();
+    mPanLimits = DataCodec.readDoubleArray(in);
+    mZoomLimits = DataCodec.readDoubleArray(in);
+    mXLabelsAngle = in.readFloat();
+    mYLabelsAngle = in.readFloat();
+    initialRange.clear();
+    count = in.readInt();
+    for (int i = 0; i < count; i++) {
+      int scale = in.readInt();
+      initialRange.put(scale, DataCodec.readDoubleArray(in));
+    }
+    mPointSize = in.readFloat();
+    mGridColors = DataCodec.readIntArray(in);
+    xLabelsAlign = DataCodec.readEnum(in, Align.class);
+    yLabelsAlign = readAligns(in);
+    mXLabelsPadding = in.readFloat();
+    mYLabelsPadding = in.readFloat();
+    mYLabelsVerticalPadding = in.readFloat();
+    yAxisAlign = readAligns(in);
+    mXLabelsColor = in.readInt();
+    mYLabelsColor = DataCodec.readIntArray(in);
+    mXRoundedLabels = in.readBoolean();
+    setLabelFormatter((LabelFormatter) DataCodec.readSerializable(in));
+    mLabelAtlasEnabled = in.readBoolean();
+    mBarWidth = in.readFloat();
+    mZoomInLimitX = in.readDouble();
+    mZoomInLimitY = in.readDouble();
+  }
+
+  /**
+   * Writes text labels in the compact binary form.
+   * 
+   * @param out the output to write to
+   * @param labels the text labels, by location
+   * @throws IOException if the output cannot be written
+   */
+  private static void writeTextLabels(DataOutput out, Map<Double, String> labels)
+      throws IOException {
+    out.writeInt(labels.size());
+    for (Entry<Double, String> label : labels.entrySet()) {
+      out.writeDouble(label.getKey());
+      DataCodec.writeString(out, label.getValue());
+    }
+  }
+
+  /**
+   * Reads text labels from the compact binary form.
+   * 
+   * @param in the input to read from
+   * @return the text labels, by location
+   * @throws IOException if the input cannot be read
+   */
+  private static Map<Double, String> readTextLabels(DataInput in) throws IOException {
+    Map<Double, String> labels = new HashMap<Double, String>();
+    int count = in.readInt();
+    for (int i = 0; i < count; i++) {
+      double location = in.readDouble();
+      labels.put(location, DataCodec.readString(in));
+    }
+    return labels;
+  }
+
+  /**
+   * Writes an array of alignments in the compact binary form.
+   * 
+   * @param out the output to write to
+   * @param aligns the alignments
+   * @throws IOException if the output cannot be written
+   */
+  private static void writeAligns(DataOutput out, Align[] aligns) throws IOException {
+    out.writeInt(aligns == null ? -1 : aligns.length);
+    if (aligns != null) {
+      for (Align align : aligns) {
+        DataCodec.writeEnum(out, align);
+      }
+    }
+  }
+
+  /**
+   * Reads an array of alignments from the compact binary form.
+   * 
+   * @param in the input to read from
+   * @return the alignments
+   * @throws IOException if the input cannot be read
+   */
+  private static Align[] readAligns(DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    Align[] aligns = new Align[length];
+    for (int i = 0; i < length; i++) {
+      aligns[i] = DataCodec.readEnum(in, Align.class);
+    }
+    return aligns;
+  }
 }
@@ -15,15 +15,21 @@
  */
 package org.achartengine.renderer;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.achartengine.chart.PointStyle;
 import org.achartengine.renderer.XYSeriesRenderer.FillOutsideLine.Type;
+import org.achartengine.util.DataCodec;
 
 import android.graphics.Color;
+import android.graphics.Paint;
 import android.graphics.Paint.Align;
+import android.graphics.Paint.Style;
 
 /**
  * A renderer for the XY type series.
@@ -55,6 +61,20 @@ public class XYSeriesRenderer extends SimpleSeriesRenderer {
   private Align mAnnotationsTextAlign = Align.CENTER;
   /** The annotations color. */
   private int mAnnotationsColor = DefaultRenderer.TEXT_COLOR;
+  /** The cached line paint. */
+  private transient Paint mLinePaint;
+  /** The cached fill outside line paint. */
+  private transient Paint mFillPaint;
+  /** The cached data points paint. */
+  private transient Paint mPointsPaint;
+  /** The cached chart values paint. */
+  private transient Paint mChartValuesPaint;
+  /** The cached annotations paint. */
+  private transient Paint mAnnotationsPaint;
+  /** The cached rollup bands paint. */
+  private transient Paint mRollupPaint;
+  /** The alpha of the rollup bands. */
+  private static final int ROLLUP_ALPHA = 64;
 
   /**
    * A descriptor for the line fill behavior.
@@ -194,6 +214,7 @@ public class XYSeriesRenderer extends SimpleSeriesRenderer {
    */
   public void setFillPoints(boolean fill) {
     mFillPoints = fill;
+    invalidatePaints();
   }
 
   /**
@@ -226,6 +247,7 @@ public class XYSeriesRenderer extends SimpleSeriesRenderer {
    */
   public void setPointStyle(PointStyle style) {
     mPointStyle = style;
+    invalidatePaints();
   }
 
   /**
@@ -244,6 +266,7 @@ public class XYSeriesRenderer extends SimpleSeriesRenderer {
    */
   public void setPointStrokeWidth(float strokeWidth) {
     mPointStrokeWidth = strokeWidth;
+    invalidatePaints();
   }
 
   /**
@@ -262,6 +285,7 @@ public class XYSeriesRenderer extends SimpleSeriesRenderer {
    */
   public void setLineWidth(float lineWidth) {
     mLineWidth = lineWidth;
+    invalidatePaints();
   }
 
   /**
@@ -316,6 +340,7 @@ public class XYSeriesRenderer extends SimpleSeriesRenderer {
    */
   public void setChartValuesTextSize(float textSize) {
     mChartValuesTextSize = textSize;
+    invalidatePaints();
   }
 
   /**
@@ -334,6 +359,7 @@ public class XYSeriesRenderer extends SimpleSeriesRenderer {
    */
   public void setChartValuesTextAlign(Align align) {
     mChartValuesTextAlign = align;
+    invalidatePaints();
   }
 
   /**
@@ -371,6 +397,7 @@ public class XYSeriesRenderer extends SimpleSeriesRenderer {
    */
   public void setAnnotationsTextSize(float textSize) {
     mAnnotationsTextSize = textSize;
+    invalidatePaints();
   }
 
   /**
@@ -389,6 +416,7 @@ public class XYSeriesRenderer extends SimpleSeriesRenderer {
    */
   public void setAnnotationsTextAlign(Align align) {
     mAnnotationsTextAlign = align;
+    invalidatePaints();
   }
 
   /**
@@ -407,6 +435,177 @@ public class XYSeriesRenderer extends SimpleSeriesRenderer {
    */
   public void setAnnotationsColor(int color) {
     mAnnotationsColor = color;
+    invalidatePaints();
+  }
+
+  /**
+   * Returns the cached paint to be used for drawing the series line.
+   * 
+   * @param template the chart paint providing the anti-aliasing and typeface
+   * @return the line paint
+   */
+  public Paint getLinePaint(Paint template) {
+    Paint seriesPaint = getSeriesPaint(template);
+    if (mLinePaint == null) {
+      mLinePaint = new Paint(seriesPaint);
+      mLinePaint.setColor(getColor());
+      mLinePaint.setStrokeWidth(mLineWidth);
+      mLinePaint.setStyle(Style.STROKE);
+    }
+    return mLinePaint;
+  }
+
+  /**
+   * Returns the cached paint to be used for filling outside the series line or
+   * drawing the bars and bubbles, such as the series paint is never changed by
+   * the charts. The color is set by the caller according to the fill being
+   * drawn.
+   * 
+   * @param template the chart paint providing the anti-aliasing and typeface
+   * @return the fill paint
+   */
+  public Paint getFillPaint(Paint template) {
+    Paint seriesPaint = getSeriesPaint(template);
+    if (mFillPaint == null) {
+      mFillPaint = new Paint(seriesPaint);
+      mFillPaint.setStrokeWidth(mLineWidth);
+      mFillPaint.setStyle(Style.FILL);
+    }
+    return mFillPaint;
+  }
+
+  /**
+   * Returns the cached paint to be used for filling the rollup bands, the
+   * series color made translucent.
+   * 
+   * @param template the chart paint providing the anti-aliasing and typeface
+   * @return the rollup bands paint
+   */
+  public Paint getRollupPaint(Paint template) {
+    Paint seriesPaint = getSeriesPaint(template);
+    if (mRollupPaint == null) {
+      mRollupPaint = new Paint(seriesPaint);
+      mRollupPaint.setColor(getColor());
+      mRollupPaint.setAlpha(ROLLUP_ALPHA);
+      mRollupPaint.setStyle(Style.FILL);
+    }
+    return mRollupPaint;
+  }
+
+  /**
+   * Returns the cached paint to be used for drawing the data points.
+   * 
+   * @param template the chart paint providing the anti-aliasing and typeface
+   * @return the data points paint
+   */
+  public Paint getPointsPaint(Paint template) {
+    Paint seriesPaint = getSeriesPaint(template);
+    if (mPointsPaint == null) {
+      mPointsPaint = new Paint(seriesPaint);
+      mPointsPaint.setColor(getColor());
+      if (mFillPoints) {
+        mPointsPaint.setStyle(Style.FILL);
+      } else {
+        mPointsPaint.setStyle(Style.STROKE);
+      }
+      if (!mFillPoints || mPointStyle == PointStyle.X) {
+        mPointsPaint.setStrokeWidth(mPointStrokeWidth);
+      }
+    }
+    return mPointsPaint;
+  }
+
+  /**
+   * Returns the cached paint to be used for drawing the chart values.
+   * 
+   * @param template the chart paint providing the anti-aliasing and typeface
+   * @return the chart values paint
+   */
+  public Paint getChartValuesPaint(Paint template) {
+    checkPaintsTemplate(template);
+    if (mChartValuesPaint == null) {
+      mChartValuesPaint = newPaint();
+      mChartValuesPaint.setColor(getColor());
+      mChartValuesPaint.setTextSize(mChartValuesTextSize);
+      mChartValuesPaint.setTextAlign(mChartValuesTextAlign);
+    }
+    return mChartValuesPaint;
+  }
+
+  /**
+   * Returns the cached paint to be used for drawing the annotations.
+   * 
+   * @param template the chart paint providing the anti-aliasing and typeface
+   * @return the annotations paint
+   */
+  public Paint getAnnotationsPaint(Paint template) {
+    checkPaintsTemplate(template);
+    if (mAnnotationsPaint == null) {
+      mAnnotationsPaint = newPaint();
+      mAnnotationsPaint.setColor(mAnnotationsColor);
+      mAnnotationsPaint.setTextSize(mAnnotationsTextSize);
+      mAnnotationsPaint.setTextAlign(mAnnotationsTextAlign);
+    }
+    return mAnnotationsPaint;
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    super.write(out);
+    out.writeBoolean(mFillPoints);
+    out.writeInt(mFillBelowLine.size());
+    for (FillOutsideLine fill : mFillBelowLine) {
+      DataCodec.writeEnum(out, fill.getType());
+      out.writeInt(fill.getColor());
+      DataCodec.writeIntArray(out, fill.getFillRange());
+    }
+    DataCodec.writeEnum(out, mPointStyle);
+    out.writeFloat(mPointStrokeWidth);
+    out.writeFloat(mLineWidth);
+    out.writeBoolean(mDisplayChartValues);
+    out.writeInt(mDisplayChartValuesDistance);
+    out.writeFloat(mChartValuesTextSize);
+    DataCodec.writeEnum(out, mChartValuesTextAlign);
+    out.writeFloat(mChartValuesSpacing);
+    out.writeFloat(mAnnotationsTextSize);
+    DataCodec.writeEnum(out, mAnnotationsTextAlign);
+    out.writeInt(mAnnotationsColor);
+  }
+
+  @Override
+  public void read(DataInput in) throws IOException {
+    super.read(in);
+    mFillPoints = in.readBoolean();
+    mFillBelowLine.clear();
+    int fills = in.readInt();
+    for (int i = 0; i < fills; i++) {
+      FillOutsideLine fill = new FillOutsideLine(DataCodec.readEnum(in, Type.class));
+      fill.setColor(in.readInt());
+      fill.setFillRange(DataCodec.readIntArray(in));
+      mFillBelowLine.add(fill);
+    }
+    mPointStyle = DataCodec.readEnum(in, PointStyle.class);
+    mPointStrokeWidth = in.readFloat();
+    mLineWidth = in.readFloat();
+    mDisplayChartValues = in.readBoolean();
+    mDisplayChartValuesDistance = in.readInt();
+    mChartValuesTextSize = in.readFloat();
+    mChartValuesTextAlign = DataCodec.readEnum(in, Align.class);
+    mChartValuesSpacing = in.readFloat();
+    mAnnotationsTextSize = in.readFloat();
+    mAnnotationsTextAlign = DataCodec.readEnum(in, Align.class);
+    mAnnotationsColor = in.readInt();
+  }
+
+  @Override
+  protected void invalidatePaints() {
+    super.invalidatePaints();
+    mLinePaint = null;
+    mFillPaint = null;
+    mPointsPaint = null;
+    mChartValuesPaint = null;
+    mAnnotationsPaint = null;
+    mRollupPaint = null;
   }
 
 }
@@ -18,6 +18,7 @@ package org.achartengine.tools;
 import org.achartengine.chart.AbstractChart;
 import org.achartengine.chart.RoundChart;
 import org.achartengine.chart.XYChart;
+import org.achartengine.model.SeriesRollups;
 import org.achartengine.model.XYSeries;
 import org.achartengine.renderer.DefaultRenderer;
 import org.achartengine.util.MathHelper;
@@ -61,6 +62,12 @@ public class FitZoom extends AbstractTool {
                 range[1] = Math.max(range[1], series[j].getMaxX());
                 range[2] = Math.min(range[2], series[j].getMinY());
                 range[3] = Math.max(range[3], series[j].getMaxY());
+                SeriesRollups rollups = series[j].getRollups();
+                if (rollups != null) {
+                  range[0] = Math.min(range[0], rollups.getMinX());
+                  range[2] = Math.min(range[2], rollups.getMinY());
+                  range[3] = Math.max(range[3], rollups.getMaxY());
+                }
               }
             }
             double marginX = Math.abs(range[1] - range[0]) / 40;
@@ -0,0 +1,363 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+
+/**
+ * Helpers for the compact binary form of the models and renderers. The
+ * primitive arrays are written in bulk, through a byte buffer, instead of
+ * value by value.
+ */
+public class DataCodec {
+  /** The number of doubles copied at once. */
+  private static final int CHUNK_SIZE = 1024;
+
+  private DataCodec() {
+    // empty constructor
+  }
+
+  /**
+   * Writes a string that can be null.
+   * 
+   * @param out the output
+   * @param value the string
+   * @throws IOException if the output cannot be written
+   */
+  public static void writeString(DataOutput out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  /**
+   * Reads a string that can be null.
+   * 
+   * @param in the input
+   * @return the string
+   * @throws IOException if the input cannot be read
+   */
+  public static String readString(DataInput in) throws IOException {
+    if (in.readBoolean()) {
+      return in.readUTF();
+    }
+    return null;
+  }
+
+  /**
+   * Writes an array of strings that can be null.
+   * 
+   * @param out the output
+   * @param values the strings
+   * @throws IOException if the output cannot be written
+   */
+  public static void writeStringArray(DataOutput out, String[] values) throws IOException {
+    out.writeInt(values == null ? -1 : values.length);
+    if (values != null) {
+      for (String value : values) {
+        writeString(out, value);
+      }
+    }
+  }
+
+  /**
+   * Reads an array of strings that can be null.
+   * 
+   * @param in the input
+   * @return the strings
+   * @throws IOException if the input cannot be read
+   */
+  public static String[] readStringArray(DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    String[] values = new String[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = readString(in);
+    }
+    return values;
+  }
+
+  /**
+   * Writes an enum constant that can be null, by name.
+   * 
+   * @param out the output
+   * @param value the enum constant
+   * @throws IOException if the output cannot be written
+   */
+  public static void writeEnum(DataOutput out, Enum<?> value) throws IOException {
+    writeString(out, value == null ? null : value.name());
+  }
+
+  /**
+   * Reads an enum constant that can be null.
+   * 
+   * @param in the input
+   * @param type the enum type
+   * @return the enum constant
+   * @throws IOException if the input cannot be read or the constant is unknown
+   */
+  public static <T extends Enum<T>> T readEnum(DataInput in, Class<T> type) throws IOException {
+    String name = readString(in);
+    if (name == null) {
+      return null;
+    }
+    try {
+      return Enum.valueOf(type, name);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Unknown " + type.getSimpleName() + " constant: " + name);
+    }
+  }
+
+  /**
+   * Writes an array of ints that can be null.
+   * 
+   * @param out the output
+   * @param values the ints
+   * @throws IOException if the output cannot be written
+   */
+  public static void writeIntArray(DataOutput out, int[] values) throws IOException {
+    out.writeInt(values == null ? -1 : values.length);
+    if (values != null) {
+      for (int value : values) {
+        out.writeInt(value);
+      }
+    }
+  }
+
+  /**
+   * Reads an array of ints that can be null.
+   * 
+   * @param in the input
+   * @return the ints
+   * @throws IOException if the input cannot be read
+   */
+  public static int[] readIntArray(DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    int[] values = new int[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = in.readInt();
+    }
+    return values;
+  }
+
+  /**
+   * Writes an array of floats that can be null.
+   * 
+   * @param out the output
+   * @param values the floats
+   * @throws IOException if the output cannot be written
+   */
+  public static void writeFloatArray(DataOutput out, float[] values) throws IOException {
+    out.writeInt(values == null ? -1 : values.length);
+    if (values != null) {
+      for (float value : values) {
+        out.writeFloat(value);
+      }
+    }
+  }
+
+  /**
+   * Reads an array of floats that can be null.
+   * 
+   * @param in the input
+   * @return the floats
+   * @throws IOException if the input cannot be read
+   */
+  public static float[] readFloatArray(DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    float[] values = new float[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = in.readFloat();
+    }
+    return values;
+  }
+
+  /**
+   * Writes an array of doubles that can be null.
+   * 
+   * @param out the output
+   * @param values the doubles
+   * @throws IOException if the output cannot be written
+   */
+  public static void writeDoubleArray(DataOutput out, double[] values) throws IOException {
+    out.writeInt(values == null ? -1 : values.length);
+    if (values != null) {
+      writeDoubles(out, values, 0, values.length);
+    }
+  }
+
+  /**
+   * Reads an array of doubles that can be null.
+   * 
+   * @param in the input
+   * @return the doubles
+   * @throws IOException if the input cannot be read
+   */
+  public static double[] readDoubleArray(DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    double[] values = new double[length];
+    readDoubles(in, values, 0, length);
+    return values;
+  }
+
+  /**
+   * Writes doubles in bulk.
+   * 
+   * @param out the output
+   * @param values the doubles
+   * @param offset the index of the first double to write
+   * @param length the number of doubles to write
+   * @throws IOException if the output cannot be written
+   */
+  public static void writeDoubles(DataOutput out, double[] values, int offset, int length)
+      throws IOException {
+    byte[] bytes = new byte[Math.min(length, CHUNK_SIZE) * 8];
+    DoubleBuffer buffer = ByteBuffer.wrap(bytes).asDoubleBuffer();
+    while (length > 0) {
+      int count = Math.min(length, CHUNK_SIZE);
+      buffer.clear();
+      buffer.put(values, offset, count);
+      out.write(bytes, 0, count * 8);
+      offset += count;
+      length -= count;
+    }
+  }
+
+  /**
+   * Reads doubles in bulk.
+   * 
+   * @param in the input
+   * @param values the array to read the doubles to
+   * @param offset the index of the first double to read
+   * @param length the number of doubles to read
+   * @throws IOException if the input cannot be read
+   */
+  public static void readDoubles(DataInput in, double[] values, int offset, int length)
+      throws IOException {
+    byte[] bytes = new byte[Math.min(length, CHUNK_SIZE) * 8];
+    DoubleBuffer buffer = ByteBuffer.wrap(bytes).asDoubleBuffer();
+    while (length > 0) {
+      int count = Math.min(length, CHUNK_SIZE);
+      in.readFully(bytes, 0, count * 8);
+      buffer.clear();
+      buffer.get(values, offset, count);
+      offset += count;
+      length -= count;
+    }
+  }
+
+  /**
+   * Writes a long in a variable number of bytes, small absolute values taking
+   * less bytes.
+   * 
+   * @param out the output
+   * @param value the long
+   * @throws IOException if the output cannot be written
+   */
+  public static void writeVarLong(DataOutput out, long value) throws IOException {
+    long bits = (value << 1) ^ (value >> 63);
+    while ((bits & ~0x7FL) != 0) {
+      out.writeByte((int) (bits & 0x7F) | 0x80);
+      bits >>>= 7;
+    }
+    out.writeByte((int) bits);
+  }
+
+  /**
+   * Reads a long written in a variable number of bytes.
+   * 
+   * @param in the input
+   * @return the long
+   * @throws IOException if the input cannot be read
+   */
+  public static long readVarLong(DataInput in) throws IOException {
+    long bits = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.readUnsignedByte();
+      bits |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return (bits >>> 1) ^ -(bits & 1);
+      }
+    }
+    throw new IOException("Malformed variable length long");
+  }
+
+  /**
+   * Writes an object that can be null through the Java serialization, for the
+   * values the binary form doesn't know, like the number formats.
+   * 
+   * @param out the output
+   * @param value the object
+   * @throws IOException if the output cannot be written
+   */
+  public static void writeSerializable(DataOutput out, Serializable value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream stream = new ObjectOutputStream(bytes);
+    stream.writeObject(value);
+    stream.close();
+    out.writeInt(bytes.size());
+    out.write(bytes.toByteArray());
+  }
+
+  /**
+   * Reads an object written through the Java serialization.
+   * 
+   * @param in the input
+   * @return the object, can be null
+   * @throws IOException if the input cannot be read
+   */
+  public static Object readSerializable(DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(bytes));
+    try {
+      return stream.readObject();
+    } catch (ClassNotFoundException e) {
+      throw new IOException("Unknown serialized class: " + e.getMessage());
+    } finally {
+      stream.close();
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.util;
+
+import java.text.DateFormat;
+import java.text.FieldPosition;
+import java.util.Date;
+
+/**
+ * A label formatter displaying the values as dates, the values being the
+ * number of milliseconds since January 1, 1970 GMT. The date and the text
+ * buffer are reused from one label to another. The date format is only used
+ * under this formatter lock, as it is not thread safe.
+ */
+public class DateLabelFormatter implements LabelFormatter {
+  /** The date format. */
+  private final DateFormat mFormat;
+  /** The reusable date. */
+  private transient Date mDate;
+  /** The reusable text buffer. */
+  private transient StringBuffer mText;
+  /** The reusable field position. */
+  private transient FieldPosition mPosition;
+
+  /**
+   * Builds a new date label formatter.
+   * 
+   * @param format the date format
+   */
+  public DateLabelFormatter(DateFormat format) {
+    mFormat = format;
+  }
+
+  /**
+   * Returns the date format.
+   * 
+   * @return the date format
+   */
+  public DateFormat getFormat() {
+    return mFormat;
+  }
+
+  /**
+   * Appends the text representation of the date to the provided builder.
+   * 
+   * @param value the date in milliseconds
+   * @param text the builder to append the text to
+   */
+  public synchronized void format(double value, StringBuilder text) {
+    if (mDate == null) {
+      mDate = new Date();
+      mText = new StringBuffer(32);
+      mPosition = new FieldPosition(0);
+    }
+    mDate.setTime(Math.round(value));
+    mText.setLength(0);
+    mFormat.format(mDate, mText, mPosition);
+    text.append(mText);
+  }
+
+}
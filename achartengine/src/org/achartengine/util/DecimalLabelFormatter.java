@@ -0,0 +1,139 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.util;
+
+import java.text.DecimalFormatSymbols;
+
+/**
+ * A fast fixed precision label formatter. The value is rounded (half up) to
+ * the maximum number of fraction digits and the digits are written directly
+ * to the builder, without going through a NumberFormat. The trailing fraction
+ * zeros are removed down to the minimum number of fraction digits. Values too
+ * large to be represented with the requested precision are written using the
+ * default double representation.
+ */
+public class DecimalLabelFormatter implements LabelFormatter {
+  /** The maximum number of fraction digits that can be requested. */
+  public static final int MAX_FRACTION_DIGITS = 15;
+  /** The powers of ten that fit in a long. */
+  private static final long[] POWERS_OF_TEN = { 1L, 10L, 100L, 1000L, 10000L, 100000L,
+      1000000L, 10000000L, 100000000L, 1000000000L, 10000000000L, 100000000000L,
+      1000000000000L, 10000000000000L, 100000000000000L, 1000000000000000L,
+      10000000000000000L, 100000000000000000L, 1000000000000000000L };
+  /** The maximum scaled value that can be formatted with fixed precision. */
+  private static final double MAX_SCALED = 1e18;
+  /** The minimum number of fraction digits. */
+  private final int mMinFractionDigits;
+  /** The maximum number of fraction digits. */
+  private final int mMaxFractionDigits;
+  /** The decimal separator. */
+  private final char mDecimalSeparator;
+
+  /**
+   * Builds a new formatter using the default locale decimal separator.
+   * 
+   * @param maxFractionDigits the maximum number of fraction digits
+   */
+  public DecimalLabelFormatter(int maxFractionDigits) {
+    this(0, maxFractionDigits);
+  }
+
+  /**
+   * Builds a new formatter using the default locale decimal separator.
+   * 
+   * @param minFractionDigits the minimum number of fraction digits
+   * @param maxFractionDigits the maximum number of fraction digits
+   */
+  public DecimalLabelFormatter(int minFractionDigits, int maxFractionDigits) {
+    this(minFractionDigits, maxFractionDigits, new DecimalFormatSymbols().getDecimalSeparator());
+  }
+
+  /**
+   * Builds a new formatter.
+   * 
+   * @param minFractionDigits the minimum number of fraction digits
+   * @param maxFractionDigits the maximum number of fraction digits
+   * @param decimalSeparator the decimal separator
+   * @throws IllegalArgumentException if the fraction digits are negative, the
+   *           minimum is bigger than the maximum or the maximum is bigger than
+   *           {@link #MAX_FRACTION_DIGITS}
+   */
+  public DecimalLabelFormatter(int minFractionDigits, int maxFractionDigits,
+      char decimalSeparator) {
+    if (minFractionDigits < 0 || minFractionDigits > maxFractionDigits
+        || maxFractionDigits > MAX_FRACTION_DIGITS) {
+      throw new IllegalArgumentException("Invalid fraction digits " + minFractionDigits + ", "
+          + maxFractionDigits);
+    }
+    mMinFractionDigits = minFractionDigits;
+    mMaxFractionDigits = maxFractionDigits;
+    mDecimalSeparator = decimalSeparator;
+  }
+
+  /**
+   * Appends the text representation of the value to the provided builder.
+   * 
+   * @param value the value to be formatted
+   * @param text the builder to append the text to
+   */
+  public void format(double value, StringBuilder text) {
+    long scale = POWERS_OF_TEN[mMaxFractionDigits];
+    double scaled = Math.abs(value) * scale;
+    if (Double.isNaN(value) || !(scaled < MAX_SCALED)) {
+      text.append(value);
+      return;
+    }
+    long units = Math.round(scaled);
+    if (value < 0 && units != 0) {
+      text.append('-');
+    }
+    appendDigits(text, units / scale, 1);
+    long fraction = units % scale;
+    int digits = mMaxFractionDigits;
+    while (digits > mMinFractionDigits && fraction % 10 == 0) {
+      fraction /= 10;
+      digits--;
+    }
+    if (digits > 0) {
+      text.append(mDecimalSeparator);
+      appendDigits(text, fraction, digits);
+    }
+  }
+
+  /**
+   * Appends the decimal digits of a positive value to the provided builder.
+   * 
+   * @param text the builder to append the digits to
+   * @param value the value, it must be positive or zero
+   * @param minDigits the minimum number of digits, the value being padded with
+   *          leading zeros
+   */
+  public static void appendDigits(StringBuilder text, long value, int minDigits) {
+    int digits = 1;
+    while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+      digits++;
+    }
+    for (int i = digits; i < minDigits; i++) {
+      text.append('0');
+    }
+    for (int i = digits - 1; i >= 0; i--) {
+      long power = POWERS_OF_TEN[i];
+      text.append((char) ('0' + value / power));
+      value %= power;
+    }
+  }
+
+}
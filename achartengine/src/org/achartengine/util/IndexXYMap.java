@@ -21,11 +21,21 @@ import java.util.List;
 import java.util.TreeMap;
 
 /**
- * This class requires sorted x values
+ * A map keeping its keys sorted by index as well. The keys put in increasing
+ * order are appended to the index. The ones arriving out of order are kept in
+ * a pending buffer, which is sorted and merged into the index by batches, when
+ * it is full or before the index is read, such as a burst of late keys doesn't
+ * shift the index once per key.
  */
 public class IndexXYMap<K, V> extends TreeMap<K, V> {
+  /** The minimum number of pending keys before a merge. */
+  private static final int MIN_PENDING = 64;
+
   private final List<K> indexList = new ArrayList<K>();
 
+  /** The keys put out of order, waiting to be merged in the index. */
+  private final List<K> pendingList = new ArrayList<K>();
+
   private double maxXDifference = 0;
 
   public IndexXYMap() {
@@ -33,17 +43,68 @@ public class IndexXYMap<K, V> extends TreeMap<K, V> {
   }
 
   public V put(K key, V value) {
-    indexList.add(key);
-    updateMaxXDifference();
+    int size = indexList.size();
+    if (size == 0 || compare(key, indexList.get(size - 1)) >= 0) {
+      indexList.add(key);
+      updateMaxXDifference();
+    } else {
+      pendingList.add(key);
+      if (pendingList.size() > Math.max(MIN_PENDING, size >>> 3)) {
+        merge();
+      }
+    }
     return super.put(key, value);
   }
 
   public V put(int index, K key, V value) {
+    merge();
     indexList.add(index, key);
     updateMaxXDifference();
     return super.put(key, value);
   }
 
+  /**
+   * Merges the pending keys into the index. The pending keys are sorted and
+   * merged from the end of the index, such as only the keys after the first
+   * pending one are moved.
+   */
+  private void merge() {
+    int pending = pendingList.size();
+    if (pending == 0) {
+      return;
+    }
+    Collections.sort(pendingList, null);
+    int i = indexList.size() - 1;
+    indexList.addAll(pendingList);
+    int j = pending - 1;
+    int k = indexList.size() - 1;
+    while (j >= 0) {
+      if (i >= 0 && compare(indexList.get(i), pendingList.get(j)) > 0) {
+        indexList.set(k--, indexList.get(i--));
+      } else {
+        indexList.set(k--, pendingList.get(j--));
+      }
+    }
+    pendingList.clear();
+    int end = indexList.size();
+    for (int m = Math.max(1, k + 1); m < end; m++) {
+      double difference = Math.abs((Double) indexList.get(m) - (Double) indexList.get(m - 1));
+      maxXDifference = Math.max(maxXDifference, difference);
+    }
+  }
+
+  /**
+   * Compares two keys by their natural ordering.
+   * 
+   * @param key1 the first key
+   * @param key2 the second key
+   * @return the comparison result
+   */
+  @SuppressWarnings("unchecked")
+  private int compare(K key1, K key2) {
+    return ((Comparable<? super K>) key1).compareTo(key2);
+  }
+
   private void updateMaxXDifference() {
     if (indexList.size() < 2) {
       maxXDifference = 0;
@@ -64,6 +125,7 @@ public class IndexXYMap<K, V> extends TreeMap<K, V> {
     updateMaxXDifference();
     super.clear();
     indexList.clear();
+    pendingList.clear();
   }
 
   /**
@@ -73,6 +135,7 @@ public class IndexXYMap<K, V> extends TreeMap<K, V> {
    * @return the X value
    */
   public K getXByIndex(int index) {
+    merge();
     return indexList.get(index);
   }
 
@@ -83,6 +146,7 @@ public class IndexXYMap<K, V> extends TreeMap<K, V> {
    * @return the Y value
    */
   public V getYByIndex(int index) {
+    merge();
     K key = indexList.get(index);
     return this.get(key);
   }
@@ -94,6 +158,7 @@ public class IndexXYMap<K, V> extends TreeMap<K, V> {
    * @return the X and Y values
    */
   public XYEntry<K, V> getByIndex(int index) {
+    merge();
     K key = indexList.get(index);
     return new XYEntry<K, V>(key, this.get(key));
   }
@@ -104,11 +169,27 @@ public class IndexXYMap<K, V> extends TreeMap<K, V> {
    * @param index
    */
   public XYEntry<K, V> removeByIndex(int index) {
+    merge();
     K key = indexList.remove(index);
     return new XYEntry<K, V>(key, this.remove(key));
   }
 
+  /**
+   * Removes the first entries of the map, in one step.
+   * 
+   * @param count the number of entries to remove
+   */
+  public void removeFirst(int count) {
+    merge();
+    List<K> removed = indexList.subList(0, count);
+    for (K key : removed) {
+      this.remove(key);
+    }
+    removed.clear();
+  }
+
   public int getIndexForKey(K key) {
+    merge();
     return Collections.binarySearch(indexList, key, null);
   }
 }
@@ -0,0 +1,33 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.util;
+
+import java.io.Serializable;
+
+/**
+ * Formats the numeric values displayed as axis labels or chart values. The
+ * text is appended to a reusable builder such as no string has to be allocated
+ * for every displayed value.
+ */
+public interface LabelFormatter extends Serializable {
+  /**
+   * Appends the text representation of the value to the provided builder.
+   * 
+   * @param value the value to be formatted
+   * @param text the builder to append the text to
+   */
+  void format(double value, StringBuilder text);
+}
@@ -15,8 +15,6 @@
  */
 package org.achartengine.util;
 
-import java.text.NumberFormat;
-import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,11 +24,11 @@ import java.util.List;
 public class MathHelper {
   /** A value that is used a null value. */
   public static final double NULL_VALUE = Double.MAX_VALUE;
-  /**
-   * A number formatter to be used to make sure we have a maximum number of
-   * fraction digits in the labels.
-   */
-  private static final NumberFormat FORMAT = NumberFormat.getNumberInstance();
+  /** The powers of ten that can be exactly represented as doubles. */
+  private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8,
+      1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+  /** The maximum number of label steps a value can be made of. */
+  private static final double MAX_UNITS = 1L << 53;
 
   private MathHelper() {
     // empty constructor
@@ -72,77 +70,138 @@ public class MathHelper {
     if (approxNumLabels <= 0) {
       return labels;
     }
-    FORMAT.setMaximumFractionDigits(5);
-    double[] labelParams = computeLabels(start, end, approxNumLabels);
-    // when the start > end the inc will be negative so it will still work
-    int numLabels = 1 + (int) ((labelParams[1] - labelParams[0]) / labelParams[2]);
-    // we want the range to be inclusive but we don't want to blow up when
-    // looping for the case where the min and max are the same. So we loop
-    // on
-    // numLabels not on the values.
+    long[] labelParams = new long[4];
+    int numLabels = computeLabels(start, end, approxNumLabels, labelParams);
     for (int i = 0; i < numLabels; i++) {
-      double z = labelParams[0] + i * labelParams[2];
-      try {
-        // this way, we avoid a label value like 0.4000000000000000001 instead
-        // of 0.4
-        z = FORMAT.parse(FORMAT.format(z)).doubleValue();
-      } catch (ParseException e) {
-        // do nothing here
-      }
-      labels.add(z);
+      labels.add(getLabel(start, labelParams, i));
     }
     return labels;
   }
 
   /**
-   * Computes a reasonable number of labels for a data range.
+   * Computes a reasonable set of labels for a data interval and number of
+   * labels, into a caller provided array.
    * 
    * @param start start value
    * @param end final value
    * @param approxNumLabels desired number of labels
-   * @return double[] array containing {start value, end value, increment}
+   * @param labels the array to fill with the label values
+   * @return the number of labels, which may be bigger than the array length in
+   *         which case only the first labels are filled in
    */
-  private static double[] computeLabels(final double start, final double end,
-      final int approxNumLabels) {
-    if (Math.abs(start - end) < 0.0000001f) {
-      return new double[] { start, start, 0 };
-    }
-    double s = start;
-    double e = end;
-    boolean switched = false;
-    if (s > e) {
-      switched = true;
-      double tmp = s;
-      s = e;
-      e = tmp;
+  public static int getLabels(final double start, final double end, final int approxNumLabels,
+      double[] labels) {
+    if (approxNumLabels <= 0) {
+      return 0;
     }
-    double xStep = roundUp(Math.abs(s - e) / approxNumLabels);
-    // Compute x starting point so it is a multiple of xStep.
-    double xStart = xStep * Math.ceil(s / xStep);
-    double xEnd = xStep * Math.floor(e / xStep);
-    if (switched) {
-      return new double[] { xEnd, xStart, -1.0 * xStep };
+    long[] labelParams = new long[4];
+    int numLabels = computeLabels(start, end, approxNumLabels, labelParams);
+    int length = Math.min(numLabels, labels.length);
+    for (int i = 0; i < length; i++) {
+      labels[i] = getLabel(start, labelParams, i);
     }
-    return new double[] { xStart, xEnd, xStep };
+    return numLabels;
   }
 
   /**
-   * Given a number, round up to the nearest power of ten times 1, 2, or 5.
+   * Computes a reasonable number of labels for a data range. The labels are
+   * multiples of a step of 1, 2 or 5 times a power of ten and they are
+   * described by integer values only, such as every label can be computed with
+   * exact decimal rounding by {@link #getLabel(double, long[], int)}.
    * 
-   * @param val the number, it must be strictly positive
+   * @param start start value
+   * @param end final value
+   * @param approxNumLabels desired number of labels
+   * @param labelParams an array of 4 to be filled with {first multiple of the
+   *          step, multiple increment (1 or -1), step mantissa, step exponent}
+   * @return the number of labels
    */
-  private static double roundUp(final double val) {
-    int exponent = (int) Math.floor(Math.log10(val));
-    double rval = val * Math.pow(10, -exponent);
+  static int computeLabels(final double start, final double end, final int approxNumLabels,
+      long[] labelParams) {
+    if (Double.isNaN(start) || Double.isNaN(end) || Double.isInfinite(end - start)) {
+      return 0;
+    }
+    if (Math.abs(start - end) < 0.0000001f) {
+      labelParams[0] = 0;
+      labelParams[1] = 0;
+      return 1;
+    }
+    double s = Math.min(start, end);
+    double e = Math.max(start, end);
+    double rawStep = (e - s) / approxNumLabels;
+    int exponent = (int) Math.floor(Math.log10(rawStep));
+    double rval = rawStep / pow10(exponent);
+    long mantissa;
     if (rval > 5.0) {
-      rval = 10.0;
+      mantissa = 1;
+      exponent++;
     } else if (rval > 2.0) {
-      rval = 5.0;
+      mantissa = 5;
     } else if (rval > 1.0) {
-      rval = 2.0;
+      mantissa = 2;
+    } else {
+      mantissa = 1;
+    }
+    double step = mantissa * pow10(exponent);
+    if (Math.max(Math.abs(s), Math.abs(e)) / step > MAX_UNITS) {
+      // the range is too narrow compared to its values to be labeled
+      return 0;
+    }
+    // compute the first and last multiples of the step inside the range,
+    // tolerating the floating point noise of the division
+    long first = (long) Math.ceil(s / step - 1e-9);
+    long last = (long) Math.floor(e / step + 1e-9);
+    if (last < first) {
+      return 0;
+    }
+    labelParams[2] = mantissa;
+    labelParams[3] = exponent;
+    if (start > end) {
+      // when the start > end the labels are in a descending order
+      labelParams[0] = last;
+      labelParams[1] = -1;
+    } else {
+      labelParams[0] = first;
+      labelParams[1] = 1;
+    }
+    return (int) (last - first + 1);
+  }
+
+  /**
+   * Returns the label at the specified position. The value is computed as an
+   * integer number of units scaled by an exact power of ten, so a label value
+   * like 0.4000000000000001 instead of 0.4 can never be produced.
+   * 
+   * @param start the start value the labels were computed for
+   * @param labelParams the label parameters computed by
+   *          {@link #computeLabels(double, double, int, long[])}
+   * @param index the label index
+   * @return the label value
+   */
+  static double getLabel(double start, long[] labelParams, int index) {
+    if (labelParams[1] == 0) {
+      return start;
+    }
+    long units = (labelParams[0] + index * labelParams[1]) * labelParams[2];
+    int exponent = (int) labelParams[3];
+    if (exponent >= 0) {
+      return units * pow10(exponent);
+    }
+    // dividing by the exact power of ten rounds to the closest double
+    return units / pow10(-exponent);
+  }
+
+  /**
+   * Returns ten to the provided power. The values are exact up to 10^22.
+   * 
+   * @param exponent the exponent
+   * @return ten to the power of exponent
+   */
+  private static double pow10(int exponent) {
+    if (exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+      return POWERS_OF_TEN[exponent];
     }
-    rval *= Math.pow(10, exponent);
-    return rval;
+    return Math.pow(10, exponent);
   }
 
 }
@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.util;
+
+import java.text.NumberFormat;
+
+/**
+ * A label formatter delegating to a number format. The recently formatted
+ * values are kept in a small LRU cache such as the same values displayed frame
+ * after frame don't go through the number format again. The formatter works on
+ * its own copy of the number format, only used under this formatter lock as it
+ * is not thread safe, so later changes to the given format are not seen and
+ * need a new formatter.
+ */
+public class NumberFormatLabelFormatter implements LabelFormatter {
+  /** The number of recently formatted values to be kept. */
+  private static final int CACHE_SIZE = 32;
+  /** The number format. */
+  private final NumberFormat mFormat;
+  /** The recently formatted values, as double bits. */
+  private transient long[] mKeys;
+  /** The text of the recently formatted values. */
+  private transient String[] mTexts;
+  /** The last use of each of the recently formatted values. */
+  private transient long[] mUses;
+  /** The use counter. */
+  private transient long mClock;
+
+  /**
+   * Builds a new label formatter.
+   * 
+   * @param format the number format to delegate to, copied by the formatter
+   */
+  public NumberFormatLabelFormatter(NumberFormat format) {
+    mFormat = (NumberFormat) format.clone();
+  }
+
+  /**
+   * Returns a copy of the number format. Changing it doesn't change the
+   * formatter.
+   * 
+   * @return the number format
+   */
+  public synchronized NumberFormat getFormat() {
+    return (NumberFormat) mFormat.clone();
+  }
+
+  /**
+   * Appends the text representation of the value to the provided builder.
+   * 
+   * @param value the value to be formatted
+   * @param text the builder to append the text to
+   */
+  public void format(double value, StringBuilder text) {
+    text.append(getText(value));
+  }
+
+  /**
+   * Returns the text representation of the value, from the cache if it was
+   * recently formatted.
+   * 
+   * @param value the value to be formatted
+   * @return the formatted value
+   */
+  public synchronized String getText(double value) {
+    if (mKeys == null) {
+      mKeys = new long[CACHE_SIZE];
+      mTexts = new String[CACHE_SIZE];
+      mUses = new long[CACHE_SIZE];
+    }
+    long key = Double.doubleToLongBits(value);
+    int oldest = 0;
+    for (int i = 0; i < CACHE_SIZE; i++) {
+      if (mTexts[i] != null && mKeys[i] == key) {
+        mUses[i] = ++mClock;
+        return mTexts[i];
+      }
+      if (mUses[i] < mUses[oldest]) {
+        oldest = i;
+      }
+    }
+    String text = mFormat.format(value);
+    mKeys[oldest] = key;
+    mTexts[oldest] = text;
+    mUses[oldest] = ++mClock;
+    return text;
+  }
+
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.util;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Generates the labels (ticks) of an axis. The last generated labels are kept
+ * and returned again, without any computation or allocation, as long as the
+ * axis range and the desired number of labels don't change. The generator can
+ * be used from several rendering threads at the same time.
+ */
+public class TickGenerator implements Serializable {
+  /** The last generated ticks. */
+  private transient volatile Ticks mTicks;
+
+  /**
+   * Returns a reasonable set of labels for a data interval and number of
+   * labels. The returned list cannot be modified.
+   * 
+   * @param start start value
+   * @param end final value
+   * @param approxNumLabels desired number of labels
+   * @return the label values
+   */
+  public List<Double> getLabels(double start, double end, int approxNumLabels) {
+    Ticks ticks = mTicks;
+    if (ticks == null || !ticks.isFor(start, end, approxNumLabels)) {
+      ticks = new Ticks(start, end, approxNumLabels);
+      mTicks = ticks;
+    }
+    return ticks;
+  }
+
+  /**
+   * An immutable set of labels computed for a data interval and number of
+   * labels.
+   */
+  private static class Ticks extends AbstractList<Double> implements RandomAccess {
+    /** The start value. */
+    private final double mStart;
+    /** The final value. */
+    private final double mEnd;
+    /** The desired number of labels. */
+    private final int mApproxNumLabels;
+    /** The label values, boxed once such as reading them doesn't allocate. */
+    private final Double[] mValues;
+
+    /**
+     * Computes the labels.
+     * 
+     * @param start start value
+     * @param end final value
+     * @param approxNumLabels desired number of labels
+     */
+    public Ticks(double start, double end, int approxNumLabels) {
+      mStart = start;
+      mEnd = end;
+      mApproxNumLabels = approxNumLabels;
+      double[] values = new double[MathHelper.getLabels(start, end, approxNumLabels,
+          new double[0])];
+      MathHelper.getLabels(start, end, approxNumLabels, values);
+      mValues = new Double[values.length];
+      for (int i = 0; i < values.length; i++) {
+        mValues[i] = values[i];
+      }
+    }
+
+    /**
+     * Returns if these labels were computed for the provided parameters.
+     * 
+     * @param start start value
+     * @param end final value
+     * @param approxNumLabels desired number of labels
+     * @return if the labels can be reused
+     */
+    public boolean isFor(double start, double end, int approxNumLabels) {
+      return Double.compare(mStart, start) == 0 && Double.compare(mEnd, end) == 0
+          && mApproxNumLabels == approxNumLabels;
+    }
+
+    @Override
+    public Double get(int index) {
+      return mValues[index];
+    }
+
+    @Override
+    public int size() {
+      return mValues.length;
+    }
+  }
+}
@@ -0,0 +1,327 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.util;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Generates the labels (ticks) of a time axis. A calendar unit (milliseconds,
+ * seconds, minutes, hours, days, weeks, months or years, with a multiple) is
+ * picked according to the visible range and the ticks are aligned on that unit
+ * in the default time zone, such as they stay on whole hours, days or months
+ * across daylight saving time changes and months of different lengths. The
+ * schedule of the current unit is kept and only extended at its edges when the
+ * axis is panned.
+ */
+public class TimeTickGenerator implements Serializable {
+  /** The number of milliseconds in a day. */
+  private static final long DAY = 24 * 60 * 60 * 1000L;
+  /** The available units, in increasing duration order. */
+  private static final Unit[] UNITS = { new Unit(Calendar.MILLISECOND, 1, 1),
+      new Unit(Calendar.MILLISECOND, 2, 2), new Unit(Calendar.MILLISECOND, 5, 5),
+      new Unit(Calendar.MILLISECOND, 10, 10), new Unit(Calendar.MILLISECOND, 20, 20),
+      new Unit(Calendar.MILLISECOND, 50, 50), new Unit(Calendar.MILLISECOND, 100, 100),
+      new Unit(Calendar.MILLISECOND, 200, 200), new Unit(Calendar.MILLISECOND, 500, 500),
+      new Unit(Calendar.SECOND, 1, 1000), new Unit(Calendar.SECOND, 2, 2000),
+      new Unit(Calendar.SECOND, 5, 5000), new Unit(Calendar.SECOND, 10, 10000),
+      new Unit(Calendar.SECOND, 15, 15000), new Unit(Calendar.SECOND, 30, 30000),
+      new Unit(Calendar.MINUTE, 1, 60000), new Unit(Calendar.MINUTE, 2, 120000),
+      new Unit(Calendar.MINUTE, 5, 300000), new Unit(Calendar.MINUTE, 10, 600000),
+      new Unit(Calendar.MINUTE, 15, 900000), new Unit(Calendar.MINUTE, 30, 1800000),
+      new Unit(Calendar.HOUR_OF_DAY, 1, 3600000), new Unit(Calendar.HOUR_OF_DAY, 2, 7200000),
+      new Unit(Calendar.HOUR_OF_DAY, 3, 10800000), new Unit(Calendar.HOUR_OF_DAY, 6, 21600000),
+      new Unit(Calendar.HOUR_OF_DAY, 12, 43200000), new Unit(Calendar.DAY_OF_MONTH, 1, DAY),
+      new Unit(Calendar.DAY_OF_MONTH, 2, 2 * DAY), new Unit(Calendar.WEEK_OF_YEAR, 1, 7 * DAY),
+      new Unit(Calendar.MONTH, 1, 30 * DAY), new Unit(Calendar.MONTH, 2, 61 * DAY),
+      new Unit(Calendar.MONTH, 3, 91 * DAY), new Unit(Calendar.MONTH, 6, 182 * DAY),
+      new Unit(Calendar.YEAR, 1, 365 * DAY), new Unit(Calendar.YEAR, 2, 730 * DAY),
+      new Unit(Calendar.YEAR, 5, 1826 * DAY), new Unit(Calendar.YEAR, 10, 3652 * DAY),
+      new Unit(Calendar.YEAR, 20, 7305 * DAY), new Unit(Calendar.YEAR, 50, 18262 * DAY),
+      new Unit(Calendar.YEAR, 100, 36524 * DAY), new Unit(Calendar.YEAR, 200, 73048 * DAY),
+      new Unit(Calendar.YEAR, 500, 182621 * DAY), new Unit(Calendar.YEAR, 1000, 365242 * DAY) };
+  /** The maximum number of ticks kept in the schedule. */
+  private static final int MAX_SCHEDULE = 1024;
+  /** The calendar used for aligning the ticks. */
+  private transient Calendar mCalendar;
+  /** The unit of the current schedule. */
+  private transient Unit mUnit;
+  /** The scheduled ticks, stored from mFirst to mLast. */
+  private transient long[] mSchedule;
+  /** The index of the first scheduled tick. */
+  private transient int mFirst;
+  /** The index of the last scheduled tick. */
+  private transient int mLast;
+  /** The start value of the last returned labels. */
+  private transient double mStart;
+  /** The end value of the last returned labels. */
+  private transient double mEnd;
+  /** The desired number of labels of the last returned labels. */
+  private transient int mApproxNumLabels;
+  /** The last returned labels. */
+  private transient List<Double> mLabels;
+
+  /**
+   * Returns the time labels for a data interval and number of labels, the
+   * labels being greater or equal to the start and less than the end. The
+   * returned list cannot be modified.
+   * 
+   * @param start start value in milliseconds
+   * @param end final value in milliseconds
+   * @param approxNumLabels desired number of labels
+   * @return the label values
+   */
+  public synchronized List<Double> getLabels(double start, double end, int approxNumLabels) {
+    TimeZone timeZone = TimeZone.getDefault();
+    if (mCalendar == null || !mCalendar.getTimeZone().equals(timeZone)) {
+      mCalendar = Calendar.getInstance(timeZone);
+      mUnit = null;
+      mLabels = null;
+    }
+    if (mLabels != null && Double.compare(mStart, start) == 0
+        && Double.compare(mEnd, end) == 0 && mApproxNumLabels == approxNumLabels) {
+      return mLabels;
+    }
+    List<Double> labels = new ArrayList<Double>();
+    double cycle = (end - start) / approxNumLabels;
+    if (approxNumLabels > 0 && cycle > 0 && !Double.isInfinite(cycle)) {
+      Unit unit = getUnit(cycle);
+      long min = (long) Math.ceil(start);
+      long max = (long) Math.ceil(end);
+      schedule(unit, min, max);
+      int index = mFirst;
+      while (index <= mLast && mSchedule[index] < min) {
+        index++;
+      }
+      for (int i = 0; index <= mLast && mSchedule[index] < max && i <= approxNumLabels; i++) {
+        labels.add((double) mSchedule[index++]);
+      }
+    }
+    mStart = start;
+    mEnd = end;
+    mApproxNumLabels = approxNumLabels;
+    mLabels = Collections.unmodifiableList(labels);
+    return mLabels;
+  }
+
+  /**
+   * Returns the smallest unit not shorter than the provided cycle.
+   * 
+   * @param cycle the cycle in milliseconds
+   * @return the unit
+   */
+  private static Unit getUnit(double cycle) {
+    for (Unit unit : UNITS) {
+      if (unit.duration >= cycle) {
+        return unit;
+      }
+    }
+    return UNITS[UNITS.length - 1];
+  }
+
+  /**
+   * Makes sure the schedule contains all the ticks of the unit in the provided
+   * interval, extending the current schedule at its edges if possible.
+   * 
+   * @param unit the unit
+   * @param min the interval start
+   * @param max the interval end
+   */
+  private void schedule(Unit unit, long min, long max) {
+    if (unit != mUnit || mSchedule[mFirst] > max || mSchedule[mLast] < min) {
+      reset(unit, min);
+    }
+    while (mSchedule[mFirst] > min) {
+      if (mLast - mFirst + 1 >= MAX_SCHEDULE) {
+        reset(unit, min);
+        break;
+      }
+      long tick = align(mSchedule[mFirst] - 1);
+      if (mFirst == 0) {
+        grow();
+      }
+      mSchedule[--mFirst] = tick;
+    }
+    boolean restarted = false;
+    while (mSchedule[mLast] < max) {
+      if (mLast - mFirst + 1 >= MAX_SCHEDULE) {
+        if (restarted) {
+          break;
+        }
+        // keep the visible part only
+        reset(unit, min);
+        restarted = true;
+        continue;
+      }
+      long tick = next(mSchedule[mLast]);
+      if (mLast == mSchedule.length - 1) {
+        grow();
+      }
+      mSchedule[++mLast] = tick;
+    }
+  }
+
+  /**
+   * Restarts the schedule with the tick just before the provided value.
+   * 
+   * @param unit the unit
+   * @param value the value
+   */
+  private void reset(Unit unit, long value) {
+    mUnit = unit;
+    if (mSchedule == null) {
+      mSchedule = new long[64];
+    }
+    mFirst = mSchedule.length / 2;
+    mLast = mFirst;
+    mSchedule[mFirst] = align(value);
+  }
+
+  /**
+   * Doubles the schedule capacity, keeping the ticks centered.
+   */
+  private void grow() {
+    int count = mLast - mFirst + 1;
+    long[] schedule = new long[mSchedule.length * 2];
+    int first = (schedule.length - count) / 2;
+    System.arraycopy(mSchedule, mFirst, schedule, first, count);
+    mSchedule = schedule;
+    mFirst = first;
+    mLast = first + count - 1;
+  }
+
+  /**
+   * Returns the first tick after the provided tick.
+   * 
+   * @param tick the tick
+   * @return the next tick
+   */
+  private long next(long tick) {
+    Calendar calendar = mCalendar;
+    calendar.setTimeInMillis(tick);
+    calendar.add(mUnit.field, mUnit.amount);
+    long next = calendar.getTimeInMillis();
+    long aligned = align(next);
+    if (aligned <= tick) {
+      // an hour repeated by a daylight saving time change
+      calendar.setTimeInMillis(next);
+      calendar.add(mUnit.field, mUnit.amount);
+      aligned = align(calendar.getTimeInMillis());
+    }
+    return aligned;
+  }
+
+  /**
+   * Returns the last tick less than or equal to the provided value.
+   * 
+   * @param value the value
+   * @return the aligned tick
+   */
+  private long align(long value) {
+    Calendar calendar = mCalendar;
+    calendar.setTimeInMillis(value);
+    int field = mUnit.field;
+    int amount = mUnit.amount;
+    int target;
+    if (field == Calendar.MILLISECOND || field == Calendar.SECOND || field == Calendar.MINUTE
+        || field == Calendar.HOUR_OF_DAY) {
+      target = calendar.get(field) / amount * amount;
+      clearBelow(calendar, field);
+    } else {
+      clearBelow(calendar, Calendar.DAY_OF_MONTH);
+      if (field == Calendar.DAY_OF_MONTH) {
+        target = (calendar.get(field) - 1) / amount * amount + 1;
+      } else if (field == Calendar.WEEK_OF_YEAR) {
+        int days = (calendar.get(Calendar.DAY_OF_WEEK) - calendar.getFirstDayOfWeek() + 7) % 7;
+        field = Calendar.DAY_OF_MONTH;
+        target = calendar.get(field) - days;
+      } else {
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        if (field == Calendar.YEAR) {
+          calendar.set(Calendar.MONTH, Calendar.JANUARY);
+        }
+        target = calendar.get(field) / amount * amount;
+      }
+    }
+    calendar.set(field, target);
+    long aligned = calendar.getTimeInMillis();
+    if (field != Calendar.DAY_OF_MONTH && calendar.get(field) != target) {
+      // the aligned local time was skipped by a daylight saving time change
+      return align(aligned - 1);
+    }
+    if (aligned > value) {
+      // the aligned local time is repeated by a daylight saving time change
+      // and the calendar picked its second occurrence
+      TimeZone zone = calendar.getTimeZone();
+      aligned += zone.getOffset(aligned) - zone.getOffset(value);
+    }
+    return Math.min(aligned, value);
+  }
+
+  /**
+   * Sets the calendar time fields smaller than the provided field to zero.
+   * 
+   * @param calendar the calendar
+   * @param field the calendar field
+   */
+  private static void clearBelow(Calendar calendar, int field) {
+    if (field == Calendar.MILLISECOND) {
+      return;
+    }
+    calendar.set(Calendar.MILLISECOND, 0);
+    if (field == Calendar.SECOND) {
+      return;
+    }
+    calendar.set(Calendar.SECOND, 0);
+    if (field == Calendar.MINUTE) {
+      return;
+    }
+    calendar.set(Calendar.MINUTE, 0);
+    if (field == Calendar.HOUR_OF_DAY) {
+      return;
+    }
+    calendar.set(Calendar.HOUR_OF_DAY, 0);
+  }
+
+  /**
+   * A calendar unit multiple.
+   */
+  private static class Unit {
+    /** The calendar field. */
+    private final int field;
+    /** The number of field units. */
+    private final int amount;
+    /** The nominal duration in milliseconds. */
+    private final long duration;
+
+    /**
+     * Builds a new unit.
+     * 
+     * @param field the calendar field
+     * @param amount the number of field units
+     * @param duration the nominal duration in milliseconds
+     */
+    Unit(int field, int amount, long duration) {
+      this.field = field;
+      this.amount = amount;
+      this.duration = duration;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.chart;
+
+import junit.framework.TestCase;
+
+import org.achartengine.model.MultiValueXYSeries;
+import org.achartengine.model.RangeCategorySeries;
+import org.achartengine.model.XYSeries;
+import org.achartengine.model.XYSeriesSnapshot;
+
+/**
+ * Tests the range bar chart.
+ */
+public class RangeBarChartTest extends TestCase {
+  /** The number of ranges. */
+  private static final int RANGES = 10;
+  /** The ranges. */
+  private RangeCategorySeries mRanges;
+
+  @Override
+  protected void setUp() {
+    mRanges = new RangeCategorySeries("ranges");
+    for (int i = 0; i < RANGES; i++) {
+      mRanges.add(-i, 10 + i);
+    }
+  }
+
+  /**
+   * Tests the ranges of a panned chart are paired the same way whether the
+   * series copies its visible points or takes a snapshot of all of them.
+   */
+  public void testPannedRanges() {
+    XYSeries copied = mRanges.toXYSeries();
+    MultiValueXYSeries shared = new MultiValueXYSeries("ranges");
+    for (int i = 0; i < RANGES; i++) {
+      shared.add(i + 1, mRanges.getMinimumValue(i));
+      shared.add(i + 1, mRanges.getMaximumValue(i));
+    }
+    // the point before the visible ones is the maximum of the third range
+    assertFirstRange(copied, 3.5, 7.5, 3);
+    assertFirstRange(shared, 3.5, 7.5, 3);
+    // the point before the visible ones is the minimum of the fifth range
+    assertFirstRange(copied, 5.0000005, 7.5, 4);
+    // not panned
+    assertFirstRange(copied, 0, 7.5, 0);
+    assertFirstRange(shared, 0, 7.5, 0);
+  }
+
+  /**
+   * Checks the first range drawn for a visible X range, looking up the points
+   * like XYChart.draw does.
+   * 
+   * @param series the series
+   * @param minX the minimum visible X
+   * @param maxX the maximum visible X
+   * @param range the index of the expected first range
+   */
+  private void assertFirstRange(XYSeries series, double minX, double maxX, int range) {
+    XYSeries drawn = series.getSnapshot(minX, maxX, true, null);
+    if (series instanceof MultiValueXYSeries) {
+      assertEquals(0, ((XYSeriesSnapshot) drawn).getFirstIndex());
+    }
+    int startIndex = drawn.getIndexRange(minX, maxX, true)[0];
+    int position = RangeBarChart.getFirstRangePosition(RangeBarChart.getFirstIndex(drawn),
+        startIndex);
+    int index = startIndex + position / 2;
+    assertEquals(mRanges.getMinimumValue(range), drawn.getY(index));
+    assertEquals(mRanges.getMaximumValue(range), drawn.getY(index + 1));
+  }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+import junit.framework.TestCase;
+
+import org.achartengine.model.SeriesIngestionQueue.OverflowPolicy;
+
+/**
+ * Tests the series ingestion queue.
+ */
+public class SeriesIngestionQueueTest extends TestCase {
+  /** The dataset. */
+  private XYMultipleSeriesDataset mDataset;
+  /** The series. */
+  private SingleWriterXYSeries mSeries;
+  /** The queue. */
+  private SeriesIngestionQueue mQueue;
+
+  @Override
+  protected void setUp() {
+    mDataset = new XYMultipleSeriesDataset();
+    mSeries = new SingleWriterXYSeries("series");
+    mDataset.addSeries(mSeries);
+    mQueue = new SeriesIngestionQueue(mDataset, 16, OverflowPolicy.DROP);
+  }
+
+  /**
+   * Tests the queued points are added to their series.
+   */
+  public void testDrain() {
+    mQueue.offer(0, 1, 10);
+    mQueue.offer(0, 2, 20);
+    assertEquals(2, mQueue.getQueuedCount());
+    assertEquals(2, mQueue.drain());
+    assertEquals(0, mQueue.getQueuedCount());
+    assertEquals(2, mSeries.getItemCount());
+    assertEquals(2.0, mSeries.getX(1));
+    assertEquals(20.0, mSeries.getY(1));
+  }
+
+  /**
+   * Tests a point rejected by its series, such as an X value out of order, is
+   * dropped once and the other points are added once.
+   */
+  public void testDrainOutOfOrderX() {
+    mQueue.offer(0, 2, 1);
+    mQueue.offer(0, 1, 1);
+    mQueue.offer(0, 3, 1);
+    assertEquals(2, mQueue.drain());
+    assertEquals(0, mQueue.drain());
+    assertEquals(0, mQueue.drain());
+    assertEquals(0, mQueue.getQueuedCount());
+    assertEquals(1, mQueue.getDroppedCount());
+    assertEquals(2, mQueue.getDrainedCount());
+    assertEquals(2, mSeries.getItemCount());
+    assertEquals(2.0, mSeries.getX(0));
+    assertEquals(3.0, mSeries.getX(1));
+  }
+
+  /**
+   * Tests the points of a series not in the dataset are dropped.
+   */
+  public void testDrainUnknownSeries() {
+    mQueue.offer(1, 1, 1);
+    mQueue.offer(0, 1, 1);
+    assertEquals(1, mQueue.drain());
+    assertEquals(1, mQueue.getDroppedCount());
+    assertEquals(1, mSeries.getItemCount());
+  }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+import java.io.File;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the series journal.
+ */
+public class SeriesJournalTest extends TestCase {
+  /** The journal directory. */
+  private File mDirectory;
+
+  @Override
+  protected void setUp() throws IOException {
+    mDirectory = File.createTempFile("journal", "");
+    mDirectory.delete();
+  }
+
+  @Override
+  protected void tearDown() {
+    File[] files = mDirectory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    mDirectory.delete();
+  }
+
+  /**
+   * Tests the changes are replayed when the journal is opened again.
+   */
+  public void testReopen() throws IOException {
+    SeriesJournal journal = new SeriesJournal(new XYSeries("series"), mDirectory);
+    for (int i = 0; i < 10; i++) {
+      journal.add(i, i * 10);
+    }
+    journal.remove(0);
+    journal.close();
+    XYSeries series = new SeriesJournal(new XYSeries("series"), mDirectory).getSeries();
+    assertEquals(9, series.getItemCount());
+    assertEquals(1.0, series.getX(0));
+    assertEquals(90.0, series.getY(8));
+  }
+
+  /**
+   * Tests the last changes are not lost when the journal is not closed nor
+   * synced, like when the process dies after a burst of points.
+   */
+  public void testReopenWithoutClose() throws IOException {
+    SeriesJournal journal = new SeriesJournal(new XYSeries("series"), mDirectory);
+    journal.setSyncInterval(Long.MAX_VALUE);
+    for (int i = 0; i < 10; i++) {
+      journal.add(i, i * 10);
+    }
+    XYSeries series = new SeriesJournal(new XYSeries("series"), mDirectory).getSeries();
+    assertEquals(10, series.getItemCount());
+    assertEquals(9.0, series.getX(9));
+    assertEquals(90.0, series.getY(9));
+    journal.close();
+  }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the date / time series.
+ */
+public class TimeSeriesTest extends TestCase {
+  /** The series. */
+  private TimeSeries mSeries;
+
+  @Override
+  protected void setUp() {
+    mSeries = new TimeSeries("series");
+  }
+
+  /**
+   * Tests the whole X values are kept exactly.
+   */
+  public void testAddWholeX() {
+    mSeries.add(1000.0, 1);
+    mSeries.add(0, 500.0, 2);
+    assertEquals(2, mSeries.getItemCount());
+    assertEquals(500.0, mSeries.getX(0));
+    assertEquals(1000.0, mSeries.getX(1));
+  }
+
+  /**
+   * Tests the X values with a fractional part are rejected instead of rounded.
+   */
+  public void testAddFractionalX() {
+    try {
+      mSeries.add(1000.4, 1);
+      fail("The fractional X value was accepted");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      mSeries.add(0, 1000.6, 1);
+      fail("The fractional X value was accepted");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      mSeries.add(Double.NaN, 1);
+      fail("The NaN X value was accepted");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    assertEquals(0, mSeries.getItemCount());
+  }
+
+  /**
+   * Tests the negative indexes are rejected.
+   */
+  public void testNegativeIndex() {
+    mSeries.add(1000, 1);
+    try {
+      mSeries.getX(-1);
+      fail("The negative index was accepted");
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    }
+    try {
+      mSeries.getY(-1);
+      fail("The negative index was accepted");
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    }
+    try {
+      mSeries.add(-1, 500.0, 2);
+      fail("The negative index was accepted");
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    }
+    assertEquals(1, mSeries.getItemCount());
+  }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2009 - 2013 SC 4ViewSoft SRL
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.achartengine.model;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the XY series.
+ */
+public class XYSeriesTest extends TestCase {
+  /** The series. */
+  private XYSeries mSeries;
+
+  @Override
+  protected void setUp() {
+    mSeries = new XYSeries("series");
+  }
+
+  /**
+   * Tests the annotations added out of X order keep their own coordinates.
+   */
+  public void testAnnotationsOutOfOrder() {
+    mSeries.addAnnotation("at10", 10, 1);
+    mSeries.addAnnotation("at5", 5, 2);
+    assertEquals(2, mSeries.getAnnotationCount());
+    assertEquals("at10", mSeries.getAnnotationAt(0));
+    assertEquals(10.0, mSeries.getAnnotationX(0));
+    assertEquals(1.0, mSeries.getAnnotationY(0));
+    assertEquals("at5", mSeries.getAnnotationAt(1));
+    assertEquals(5.0, mSeries.getAnnotationX(1));
+    assertEquals(2.0, mSeries.getAnnotationY(1));
+  }
+
+  /**
+   * Tests removing an annotation removes its own coordinates.
+   */
+  public void testRemoveAnnotationOutOfOrder() {
+    mSeries.addAnnotation("at10", 10, 1);
+    mSeries.addAnnotation("at5", 5, 2);
+    mSeries.addAnnotation("at7", 7, 3);
+    mSeries.removeAnnotation(0);
+    assertEquals(2, mSeries.getAnnotationCount());
+    assertEquals("at5", mSeries.getAnnotationAt(0));
+    assertEquals(5.0, mSeries.getAnnotationX(0));
+    assertEquals(2.0, mSeries.getAnnotationY(0));
+    assertEquals("at7", mSeries.getAnnotationAt(1));
+    assertEquals(7.0, mSeries.getAnnotationX(1));
+    assertEquals(3.0, mSeries.getAnnotationY(1));
+  }
+
+  /**
+   * Tests the snapshots see the annotations in the same order.
+   */
+  public void testSnapshotAnnotations() {
+    mSeries.add(1, 1);
+    mSeries.addAnnotation("at10", 10, 1);
+    mSeries.addAnnotation("at5", 5, 2);
+    XYSeries snapshot = mSeries.getSnapshot(0, 20, false);
+    assertEquals(2, snapshot.getAnnotationCount());
+    assertEquals("at5", snapshot.getAnnotationAt(1));
+    assertEquals(5.0, snapshot.getAnnotationX(1));
+    assertEquals(2.0, snapshot.getAnnotationY(1));
+  }
+
+  /**
+   * Tests the points added out of X order are sorted.
+   */
+  public void testAddOutOfOrder() {
+    mSeries.add(3, 30);
+    mSeries.add(1, 10);
+    mSeries.add(2, 20);
+    assertEquals(3, mSeries.getItemCount());
+    assertEquals(1.0, mSeries.getX(0));
+    assertEquals(20.0, mSeries.getY(1));
+    assertEquals(2, mSeries.getIndexForKey(3));
+  }
+}